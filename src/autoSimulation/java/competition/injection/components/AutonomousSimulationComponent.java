@@ -0,0 +1,76 @@
+package competition.injection.components;
+
+import javax.inject.Singleton;
+
+import competition.auto_programs.BasicMobilityPoints;
+import competition.auto_programs.BlueBottomScoringPath;
+import competition.auto_programs.BlueExitCommunityAndBalanceProgram;
+import competition.auto_programs.BlueScoringPositionFiveToBalanceProgram;
+import competition.auto_programs.BlueTopScoringPath;
+import competition.auto_programs.EjectLowThenBalanceProgram;
+import competition.auto_programs.EjectLowThenBalanceWithMobilityProgram;
+import competition.auto_programs.EjectLowThenExitHighProgram;
+import competition.auto_programs.EjectLowThenExitLowProgram;
+import competition.auto_programs.RedBottomScoringPath;
+import competition.auto_programs.RedTopScoringPath;
+import competition.auto_programs.ScoreConeHighThenLeave;
+import competition.auto_programs.ScoreCubeHighThenBalanceProgram;
+import competition.auto_programs.ScoreCubeHighThenLeaveProgram;
+import competition.auto_programs.ScoreCubeHighThenScoreCubeMidProgram;
+import competition.auto_programs.support.AutonomousOracle;
+import competition.injection.modules.CommonModule;
+import competition.injection.modules.SimulatedRobotModule;
+import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.subsystems.drive.DriveSubsystem;
+import competition.subsystems.pose.PoseSubsystem;
+import dagger.Component;
+import xbot.common.injection.modules.MockDevicesModule;
+import xbot.common.injection.modules.RealControlsModule;
+import xbot.common.injection.modules.SimulationModule;
+
+/**
+ * The simulated robot, plus access to every autonomous program and the subsystems the simulated hardware needs.
+ * Uses exactly the same modules as {@link SimulationComponent}.
+ */
+@Singleton
+@Component(modules = { SimulationModule.class, MockDevicesModule.class, RealControlsModule.class, SimulatedRobotModule.class, CommonModule.class })
+public abstract class AutonomousSimulationComponent extends SimulationComponent {
+
+    public abstract DriveSubsystem competitionDriveSubsystem();
+
+    public abstract PoseSubsystem competitionPoseSubsystem();
+
+    public abstract UnifiedArmSubsystem unifiedArmSubsystem();
+
+    public abstract AutonomousOracle autonomousOracle();
+
+    public abstract BasicMobilityPoints basicMobilityPoints();
+
+    public abstract BlueBottomScoringPath blueBottomScoringPath();
+
+    public abstract BlueExitCommunityAndBalanceProgram blueExitCommunityAndBalanceProgram();
+
+    public abstract BlueScoringPositionFiveToBalanceProgram blueScoringPositionFiveToBalanceProgram();
+
+    public abstract BlueTopScoringPath blueTopScoringPath();
+
+    public abstract EjectLowThenBalanceProgram ejectLowThenBalanceProgram();
+
+    public abstract EjectLowThenBalanceWithMobilityProgram ejectLowThenBalanceWithMobilityProgram();
+
+    public abstract EjectLowThenExitHighProgram ejectLowThenExitHighProgram();
+
+    public abstract EjectLowThenExitLowProgram ejectLowThenExitLowProgram();
+
+    public abstract RedBottomScoringPath redBottomScoringPath();
+
+    public abstract RedTopScoringPath redTopScoringPath();
+
+    public abstract ScoreConeHighThenLeave scoreConeHighThenLeave();
+
+    public abstract ScoreCubeHighThenBalanceProgram scoreCubeHighThenBalanceProgram();
+
+    public abstract ScoreCubeHighThenLeaveProgram scoreCubeHighThenLeaveProgram();
+
+    public abstract ScoreCubeHighThenScoreCubeMidProgram scoreCubeHighThenScoreCubeMidProgram();
+}
@@ -0,0 +1,244 @@
+package competition.simulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import competition.auto_programs.support.AutonomousOracle;
+import competition.auto_programs.support.AutonomousOracle.Lane;
+import competition.auto_programs.support.AutonomousOracle.MantlePrepPosition;
+import competition.auto_programs.support.AutonomousOracle.ScoringMode;
+import competition.subsystems.arm.UnifiedArmSubsystem.GamePieceMode;
+
+/**
+ * One complete set of {@link AutonomousOracle} settings, in a form that can be passed between processes as a
+ * single line of text.
+ * <p>
+ * Many settings don't change what ParameterizedAutonomousProgram does (e.g. the lane when the robot never leaves
+ * the grid), so {@link #enumerate(Collection)} only returns one configuration for each distinct behaviour. The
+ * rules for what is relevant mirror the ConditionalCommands in ParameterizedAutonomousProgram, so keep them in
+ * sync if that program changes.
+ */
+public class AutonomousConfiguration {
+
+    public static final int MIN_SCORING_LOCATION_INDEX = 1;
+    public static final int MAX_SCORING_LOCATION_INDEX = 9;
+
+    public final int initialScoringLocationIndex;
+    public final GamePieceMode initialGamePiece;
+    public final ScoringMode initialScoringMode;
+    public final boolean enableDrivePhaseOne;
+    public final boolean enableAcquireGamePiece;
+    public final Lane lane;
+    public final boolean enableMoveToScore;
+    public final boolean enableSecondScore;
+    public final int secondScoringLocationIndex;
+    public final GamePieceMode secondGamePiece;
+    public final ScoringMode secondScoringMode;
+    public final boolean enableBalance;
+    public final MantlePrepPosition mantlePrepPosition;
+
+    public AutonomousConfiguration(
+            int initialScoringLocationIndex, GamePieceMode initialGamePiece, ScoringMode initialScoringMode,
+            boolean enableDrivePhaseOne, boolean enableAcquireGamePiece, Lane lane,
+            boolean enableMoveToScore, boolean enableSecondScore,
+            int secondScoringLocationIndex, GamePieceMode secondGamePiece, ScoringMode secondScoringMode,
+            boolean enableBalance, MantlePrepPosition mantlePrepPosition) {
+        this.initialScoringLocationIndex = initialScoringLocationIndex;
+        this.initialGamePiece = initialGamePiece;
+        this.initialScoringMode = initialScoringMode;
+        this.enableDrivePhaseOne = enableDrivePhaseOne;
+        this.enableAcquireGamePiece = enableAcquireGamePiece;
+        this.lane = lane;
+        this.enableMoveToScore = enableMoveToScore;
+        this.enableSecondScore = enableSecondScore;
+        this.secondScoringLocationIndex = secondScoringLocationIndex;
+        this.secondGamePiece = secondGamePiece;
+        this.secondScoringMode = secondScoringMode;
+        this.enableBalance = enableBalance;
+        this.mantlePrepPosition = mantlePrepPosition;
+    }
+
+    /**
+     * Every distinct configuration for the given starting positions.
+     * @param startingPositions Initial scoring location indices, 1 to 9.
+     */
+    public static List<AutonomousConfiguration> enumerate(Collection<Integer> startingPositions) {
+        Set<AutonomousConfiguration> configurations = new LinkedHashSet<>();
+        for (int start : startingPositions) {
+            for (GamePieceMode initialPiece : GamePieceMode.values()) {
+                for (ScoringMode initialMode : ScoringMode.values()) {
+                    for (int flags = 0; flags < 32; flags++) {
+                        boolean drivePhaseOne = (flags & 1) != 0;
+                        boolean acquire = (flags & 2) != 0;
+                        boolean moveToScore = (flags & 4) != 0;
+                        boolean secondScore = (flags & 8) != 0;
+                        boolean balance = (flags & 16) != 0;
+                        for (Lane lane : Lane.values()) {
+                            for (int second = MIN_SCORING_LOCATION_INDEX; second <= MAX_SCORING_LOCATION_INDEX; second++) {
+                                for (GamePieceMode secondPiece : GamePieceMode.values()) {
+                                    for (ScoringMode secondMode : ScoringMode.values()) {
+                                        for (MantlePrepPosition mantle : MantlePrepPosition.values()) {
+                                            configurations.add(new AutonomousConfiguration(
+                                                start, initialPiece, initialMode, drivePhaseOne, acquire, lane,
+                                                moveToScore, secondScore, second, secondPiece, secondMode,
+                                                balance, mantle).canonical());
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(configurations);
+    }
+
+    /**
+     * Replaces every setting that can't affect the program with a fixed value, so that configurations which
+     * behave identically compare equal.
+     */
+    public AutonomousConfiguration canonical() {
+        // Drive phase one is the only thing that reads the lane on the way out, and the only place we collect.
+        boolean leavesGrid = enableDrivePhaseOne || enableMoveToScore;
+        boolean usesSecondPiece = enableDrivePhaseOne || enableMoveToScore || enableSecondScore;
+        boolean usesSecondMode = enableMoveToScore || enableSecondScore;
+
+        return new AutonomousConfiguration(
+            initialScoringLocationIndex,
+            initialGamePiece,
+            canonicalScoringMode(initialScoringMode),
+            enableDrivePhaseOne,
+            enableDrivePhaseOne && enableAcquireGamePiece,
+            leavesGrid ? lane : Lane.Middle,
+            enableMoveToScore,
+            enableSecondScore,
+            enableMoveToScore ? secondScoringLocationIndex : MIN_SCORING_LOCATION_INDEX,
+            usesSecondPiece ? secondGamePiece : GamePieceMode.Cone,
+            usesSecondMode ? canonicalScoringMode(secondScoringMode) : ScoringMode.Eject,
+            enableBalance,
+            enableBalance ? mantlePrepPosition : MantlePrepPosition.InsideCommunity);
+    }
+
+    private static ScoringMode canonicalScoringMode(ScoringMode mode) {
+        // The program only distinguishes ejecting from scoring with the arm, and always scores high with the arm.
+        return mode == ScoringMode.Eject ? ScoringMode.Eject : ScoringMode.High;
+    }
+
+    public void applyTo(AutonomousOracle oracle) {
+        oracle.setInitialScoringLocationIndex(initialScoringLocationIndex);
+        oracle.setInitialGamePiece(initialGamePiece);
+        oracle.setInitialScoringMode(initialScoringMode);
+        oracle.setEnableDrivePhaseOne(enableDrivePhaseOne);
+        oracle.setEnableAcquireGamePiece(enableAcquireGamePiece);
+        oracle.setLane(lane);
+        oracle.setEnableMoveToScore(enableMoveToScore);
+        oracle.setEnableSecondScore(enableSecondScore);
+        oracle.setSecondScoringLocationIndex(secondScoringLocationIndex);
+        oracle.setSecondGamePiece(secondGamePiece);
+        oracle.setSecondScoringMode(secondScoringMode);
+        oracle.setEnableBalance(enableBalance);
+        oracle.setMantlePrepPosition(mantlePrepPosition);
+    }
+
+    /**
+     * Parses the output of {@link #toString()}.
+     */
+    public static AutonomousConfiguration parse(String text) {
+        String[] fields = text.trim().split(",");
+        if (fields.length != 13) {
+            throw new IllegalArgumentException("Expected 13 fields in autonomous configuration: " + text);
+        }
+        return new AutonomousConfiguration(
+            Integer.parseInt(fields[0]),
+            GamePieceMode.valueOf(fields[1]),
+            ScoringMode.valueOf(fields[2]),
+            Boolean.parseBoolean(fields[3]),
+            Boolean.parseBoolean(fields[4]),
+            Lane.valueOf(fields[5]),
+            Boolean.parseBoolean(fields[6]),
+            Boolean.parseBoolean(fields[7]),
+            Integer.parseInt(fields[8]),
+            GamePieceMode.valueOf(fields[9]),
+            ScoringMode.valueOf(fields[10]),
+            Boolean.parseBoolean(fields[11]),
+            MantlePrepPosition.valueOf(fields[12]));
+    }
+
+    /**
+     * A short, human readable summary of what the program will do, e.g. "Cone High > Top+Acquire > 4 Cube High > Balance".
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(initialGamePiece).append(' ').append(initialScoringMode);
+        if (enableDrivePhaseOne) {
+            builder.append(" > ").append(lane).append(enableAcquireGamePiece ? "+Acquire" : "+Mobility");
+        }
+        if (enableMoveToScore) {
+            builder.append(" > To ").append(secondScoringLocationIndex);
+            if (!enableDrivePhaseOne) {
+                builder.append(" via ").append(lane);
+            }
+        }
+        if (enableSecondScore) {
+            builder.append(" > ").append(secondGamePiece).append(' ').append(secondScoringMode);
+        }
+        if (enableBalance) {
+            builder.append(" > Balance from ").append(mantlePrepPosition);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",",
+            Integer.toString(initialScoringLocationIndex),
+            initialGamePiece.toString(),
+            initialScoringMode.toString(),
+            Boolean.toString(enableDrivePhaseOne),
+            Boolean.toString(enableAcquireGamePiece),
+            lane.toString(),
+            Boolean.toString(enableMoveToScore),
+            Boolean.toString(enableSecondScore),
+            Integer.toString(secondScoringLocationIndex),
+            secondGamePiece.toString(),
+            secondScoringMode.toString(),
+            Boolean.toString(enableBalance),
+            mantlePrepPosition.toString());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AutonomousConfiguration)) {
+            return false;
+        }
+        AutonomousConfiguration that = (AutonomousConfiguration) other;
+        return initialScoringLocationIndex == that.initialScoringLocationIndex
+            && initialGamePiece == that.initialGamePiece
+            && initialScoringMode == that.initialScoringMode
+            && enableDrivePhaseOne == that.enableDrivePhaseOne
+            && enableAcquireGamePiece == that.enableAcquireGamePiece
+            && lane == that.lane
+            && enableMoveToScore == that.enableMoveToScore
+            && enableSecondScore == that.enableSecondScore
+            && secondScoringLocationIndex == that.secondScoringLocationIndex
+            && secondGamePiece == that.secondGamePiece
+            && secondScoringMode == that.secondScoringMode
+            && enableBalance == that.enableBalance
+            && mantlePrepPosition == that.mantlePrepPosition;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(initialScoringLocationIndex, initialGamePiece, initialScoringMode, enableDrivePhaseOne,
+            enableAcquireGamePiece, lane, enableMoveToScore, enableSecondScore, secondScoringLocationIndex,
+            secondGamePiece, secondScoringMode, enableBalance, mantlePrepPosition);
+    }
+}
@@ -0,0 +1,82 @@
+package competition.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import competition.injection.components.AutonomousSimulationComponent;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Runs the parameterized autonomous program (with whatever the oracle defaults to) and every fixed autonomous
+ * program, and prints how each one went.
+ * <p>
+ * Usage: ./gradlew simulateAutos [--args="runsPerProgram [Red|Blue] [programNameFilter]"]
+ */
+public class AutonomousSimulationMain {
+
+    public static void main(String[] args) {
+        int runsPerProgram = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        DriverStation.Alliance alliance = args.length > 1 ? DriverStation.Alliance.valueOf(args[1]) : DriverStation.Alliance.Blue;
+        String filter = args.length > 2 ? args[2] : "";
+
+        AutonomousSimulator simulator = new AutonomousSimulator(alliance);
+        AutonomousSimulationComponent component = simulator.getComponent();
+
+        long wallClockStart = System.nanoTime();
+        double simulatedSeconds = 0;
+        int failures = 0;
+        for (Map.Entry<String, Supplier<Command>> program : getPrograms(component).entrySet()) {
+            if (!program.getKey().contains(filter)) {
+                continue;
+            }
+            for (int run = 0; run < runsPerProgram; run++) {
+                AutonomousSimulationResult result;
+                if (program.getKey().equals("ParameterizedAutonomousProgram")) {
+                    result = simulator.run(
+                        program.getKey(),
+                        program.getValue().get(),
+                        AutonomousSimulator.getExpectedFinalPose(component.autonomousOracle()),
+                        AutonomousSimulator.DEFAULT_TIMEOUT_SECONDS);
+                } else {
+                    result = simulator.run(program.getKey(), program.getValue().get());
+                }
+                simulatedSeconds += result.getSimulatedSeconds();
+                if (!result.isCompleted()) {
+                    failures++;
+                }
+                System.out.println(result);
+            }
+        }
+
+        double wallClockSeconds = (System.nanoTime() - wallClockStart) / 1e9;
+        System.out.println(String.format("Simulated %.0fs of autonomous in %.1fs (%.0fx real time), %d failures",
+            simulatedSeconds, wallClockSeconds, simulatedSeconds / wallClockSeconds, failures));
+        // WPILib leaves non-daemon threads running.
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static Map<String, Supplier<Command>> getPrograms(AutonomousSimulationComponent component) {
+        // ScoreCubeHighThenScoreAgainProgram and ScoreConeHighThenScoreCubeHighProgram aren't injectable, so they
+        // can't be built here.
+        Map<String, Supplier<Command>> programs = new LinkedHashMap<>();
+        programs.put("ParameterizedAutonomousProgram", component::parameterizedAutonomousProgram);
+        programs.put("BasicMobilityPoints", component::basicMobilityPoints);
+        programs.put("BlueBottomScoringPath", component::blueBottomScoringPath);
+        programs.put("BlueExitCommunityAndBalanceProgram", component::blueExitCommunityAndBalanceProgram);
+        programs.put("BlueScoringPositionFiveToBalanceProgram", component::blueScoringPositionFiveToBalanceProgram);
+        programs.put("BlueTopScoringPath", component::blueTopScoringPath);
+        programs.put("EjectLowThenBalanceProgram", component::ejectLowThenBalanceProgram);
+        programs.put("EjectLowThenBalanceWithMobilityProgram", component::ejectLowThenBalanceWithMobilityProgram);
+        programs.put("EjectLowThenExitHighProgram", component::ejectLowThenExitHighProgram);
+        programs.put("EjectLowThenExitLowProgram", component::ejectLowThenExitLowProgram);
+        programs.put("RedBottomScoringPath", component::redBottomScoringPath);
+        programs.put("RedTopScoringPath", component::redTopScoringPath);
+        programs.put("ScoreConeHighThenLeave", component::scoreConeHighThenLeave);
+        programs.put("ScoreCubeHighThenBalanceProgram", component::scoreCubeHighThenBalanceProgram);
+        programs.put("ScoreCubeHighThenLeaveProgram", component::scoreCubeHighThenLeaveProgram);
+        programs.put("ScoreCubeHighThenScoreCubeMidProgram", component::scoreCubeHighThenScoreCubeMidProgram);
+        return programs;
+    }
+}
@@ -0,0 +1,138 @@
+package competition.simulation;
+
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * The outcome of simulating one autonomous program.
+ */
+public class AutonomousSimulationResult {
+
+    public enum Outcome {
+        Completed,
+        TimedOut,
+        Crashed
+    }
+
+    public static class Phase {
+        public final String name;
+        public final double durationSeconds;
+
+        public Phase(String name, double durationSeconds) {
+            this.name = name;
+            this.durationSeconds = durationSeconds;
+        }
+    }
+
+    private final String programName;
+    private final Outcome outcome;
+    private final double simulatedSeconds;
+    private final double wallClockSeconds;
+    private final Pose2d finalPose;
+    private final Pose2d expectedFinalPose;
+    private final List<Phase> phases;
+    private final String failureDetail;
+
+    public AutonomousSimulationResult(String programName, Outcome outcome, double simulatedSeconds, double wallClockSeconds,
+                                      Pose2d finalPose, Pose2d expectedFinalPose, List<Phase> phases, String failureDetail) {
+        this.programName = programName;
+        this.outcome = outcome;
+        this.simulatedSeconds = simulatedSeconds;
+        this.wallClockSeconds = wallClockSeconds;
+        this.finalPose = finalPose;
+        this.expectedFinalPose = expectedFinalPose;
+        this.phases = phases;
+        this.failureDetail = failureDetail;
+    }
+
+    public String getProgramName() {
+        return programName;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isCompleted() {
+        return outcome == Outcome.Completed;
+    }
+
+    /**
+     * @return How long the program ran for on the robot's clock.
+     */
+    public double getSimulatedSeconds() {
+        return simulatedSeconds;
+    }
+
+    public double getWallClockSeconds() {
+        return wallClockSeconds;
+    }
+
+    /**
+     * @return The robot's pose at the end of the run, in inches.
+     */
+    public Pose2d getFinalPose() {
+        return finalPose;
+    }
+
+    /**
+     * @return Where the program was meant to end up, in inches, or null if that isn't known.
+     */
+    public Pose2d getExpectedFinalPose() {
+        return expectedFinalPose;
+    }
+
+    /**
+     * @return Distance between the final and expected poses, in inches, or NaN if the expected pose isn't known.
+     */
+    public double getFinalPositionErrorInches() {
+        if (expectedFinalPose == null || finalPose == null) {
+            return Double.NaN;
+        }
+        return finalPose.getTranslation().getDistance(expectedFinalPose.getTranslation());
+    }
+
+    /**
+     * @return Difference between the final and expected headings, in degrees, or NaN if the expected pose isn't known.
+     */
+    public double getFinalHeadingErrorDegrees() {
+        if (expectedFinalPose == null || finalPose == null) {
+            return Double.NaN;
+        }
+        return Math.abs(finalPose.getRotation().minus(expectedFinalPose.getRotation()).getDegrees());
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return What went wrong, if the program didn't complete.
+     */
+    public String getFailureDetail() {
+        return failureDetail;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%s: %s in %.2fs (%.0fx real time)",
+            programName, outcome, simulatedSeconds, simulatedSeconds / Math.max(wallClockSeconds, 1e-6)));
+        if (failureDetail != null) {
+            builder.append(" - ").append(failureDetail);
+        }
+        if (finalPose != null) {
+            builder.append(String.format("%n    Final pose (%.1f, %.1f) %.1f deg",
+                finalPose.getX(), finalPose.getY(), finalPose.getRotation().getDegrees()));
+        }
+        if (expectedFinalPose != null) {
+            builder.append(String.format(", error %.1f in / %.1f deg",
+                getFinalPositionErrorInches(), getFinalHeadingErrorDegrees()));
+        }
+        for (Phase phase : phases) {
+            builder.append(String.format("%n    %6.2fs  %s", phase.durationSeconds, phase.name));
+        }
+        return builder.toString();
+    }
+}
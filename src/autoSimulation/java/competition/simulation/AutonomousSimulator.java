@@ -0,0 +1,168 @@
+package competition.simulation;
+
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import competition.auto_programs.support.AutonomousOracle;
+import competition.injection.components.AutonomousSimulationComponent;
+import competition.injection.components.DaggerAutonomousSimulationComponent;
+import competition.subsystems.drive.commands.XbotSwervePoint;
+import competition.subsystems.pose.PoseSubsystem;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import xbot.common.controls.sensors.XTimer;
+
+/**
+ * Runs autonomous programs headlessly, as fast as the CPU allows.
+ * <p>
+ * The robot's clock is the HAL simulation clock, which is paused and only moves forward when we step it. Both
+ * XTimer and WPILib's Timer read that clock, so everything time-based in the robot code (trajectory
+ * interpolation, timeouts, WaitCommands) sees a normal 20ms loop even though each loop takes far less real time.
+ * <p>
+ * WPILib's scheduler, HAL and driver station are global, so only create one of these per process.
+ */
+public class AutonomousSimulator {
+
+    private static Logger log = LogManager.getLogger(AutonomousSimulator.class);
+
+    public static final double LOOP_PERIOD_SECONDS = 0.02;
+    // Autonomous is 15 seconds; give a little slack so we can see how close to finishing an overrun program got.
+    public static final double DEFAULT_TIMEOUT_SECONDS = 20;
+
+    private final AutonomousSimulationComponent component;
+    private final SimulatedRobotHardware hardware;
+
+    public AutonomousSimulator(DriverStation.Alliance alliance) {
+        HAL.initialize(500, 0);
+        SimHooks.pauseTiming();
+
+        // Logging every state change at hundreds of times real time would dominate the run time.
+        Logger.getRootLogger().setLevel(Level.WARN);
+
+        component = DaggerAutonomousSimulationComponent.create();
+        XTimer.setImplementation(component.timerImplementation());
+        // Install the default commands (swerve and arm maintainers), same as the real robot.
+        component.subsystemDefaultCommandMap();
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAllianceStationId(
+            alliance == DriverStation.Alliance.Red ? AllianceStationID.Red2 : AllianceStationID.Blue2);
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        refreshDriverStation();
+        component.competitionPoseSubsystem().updateAllianceFromDriverStation();
+
+        hardware = new SimulatedRobotHardware(
+            component.competitionDriveSubsystem(),
+            component.unifiedArmSubsystem(),
+            component.competitionPoseSubsystem());
+    }
+
+    public AutonomousSimulationComponent getComponent() {
+        return component;
+    }
+
+    public AutonomousSimulationResult run(String name, Command program) {
+        return run(name, program, null, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Resets the robot, then runs a program until it finishes or times out.
+     * @param name Used to label the result.
+     * @param program The autonomous program to run.
+     * @param expectedFinalPose Where the program should leave the robot, in inches. May be null.
+     * @param timeoutSeconds Give up after this much simulated time.
+     */
+    public AutonomousSimulationResult run(String name, Command program, Pose2d expectedFinalPose, double timeoutSeconds) {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.cancelAll();
+        hardware.reset();
+        // Let the maintainers settle on the reset state before starting the clock.
+        runLoop();
+
+        long wallClockStart = System.nanoTime();
+        double startSeconds = Timer.getFPGATimestamp();
+        PhaseTracker phases = new PhaseTracker(program, startSeconds);
+
+        AutonomousSimulationResult.Outcome outcome = AutonomousSimulationResult.Outcome.Completed;
+        String failureDetail = null;
+        try {
+            scheduler.schedule(program);
+            while (program.isScheduled()) {
+                if (Timer.getFPGATimestamp() - startSeconds >= timeoutSeconds) {
+                    outcome = AutonomousSimulationResult.Outcome.TimedOut;
+                    failureDetail = "Still running after " + timeoutSeconds + "s";
+                    break;
+                }
+                hardware.step(LOOP_PERIOD_SECONDS);
+                SimHooks.stepTiming(LOOP_PERIOD_SECONDS);
+                runLoop();
+                phases.update(Timer.getFPGATimestamp());
+            }
+        } catch (RuntimeException e) {
+            log.error("Autonomous program " + name + " crashed", e);
+            outcome = AutonomousSimulationResult.Outcome.Crashed;
+            failureDetail = e.toString();
+        }
+
+        double endSeconds = Timer.getFPGATimestamp();
+        List<AutonomousSimulationResult.Phase> phaseDurations = phases.finish(endSeconds);
+        scheduler.cancelAll();
+
+        return new AutonomousSimulationResult(
+            name,
+            outcome,
+            endSeconds - startSeconds,
+            (System.nanoTime() - wallClockStart) / 1e9,
+            component.competitionPoseSubsystem().getCurrentPose2d(),
+            expectedFinalPose,
+            phaseDurations,
+            failureDetail);
+    }
+
+    /**
+     * Works out where the parameterized autonomous program should finish with the oracle's current settings:
+     * the end of the last trajectory it will drive, or where it started if it doesn't drive at all.
+     * @return The expected final pose, in inches.
+     */
+    public static Pose2d getExpectedFinalPose(AutonomousOracle oracle) {
+        List<XbotSwervePoint> lastTrajectory = null;
+        if (oracle.getEnableBalance()) {
+            lastTrajectory = oracle.getTrajectoryForActualBalance();
+        } else if (oracle.getEnableMoveToScore()) {
+            lastTrajectory = oracle.getTrajectoryForScoring();
+        } else if (oracle.getEnableDrivePhaseOne()) {
+            lastTrajectory = oracle.getTrajectoryForDrivePhaseOne();
+        }
+
+        if (lastTrajectory == null || lastTrajectory.isEmpty()) {
+            Pose2d initialPoseInMeters = oracle.getInitialPoseInMeters();
+            return new Pose2d(
+                initialPoseInMeters.getTranslation().times(PoseSubsystem.INCHES_IN_A_METER),
+                initialPoseInMeters.getRotation());
+        }
+        return lastTrajectory.get(lastTrajectory.size() - 1).keyPose;
+    }
+
+    private void runLoop() {
+        // Mirrors Robot.sharedPeriodic
+        refreshDriverStation();
+        component.robotStateFrame().capture();
+        CommandScheduler.getInstance().run();
+    }
+
+    private static void refreshDriverStation() {
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+    }
+}
@@ -0,0 +1,214 @@
+package competition.simulation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Simulates ParameterizedAutonomousProgram with every distinct {@link AutonomousConfiguration}, using every core,
+ * and prints the fastest feasible configurations and the ways the others failed for each starting position.
+ * <p>
+ * WPILib's scheduler, HAL and driver station are global to a process, so each simulator lives in its own child
+ * JVM running {@link AutonomousSweepWorker}. A ForkJoinPool with one thread per core hands batches of
+ * configurations to those workers, so there is one worker per core at any time.
+ * <p>
+ * Usage: ./gradlew sweepAutos [--args="[Red|Blue] [startingPositions, e.g. 1,5,9 or all] [parallelism] [rowsPerPosition]"]
+ */
+public class AutonomousSweepMain {
+
+    // Each worker pays a few seconds of JVM and HAL startup, so don't make batches too small. Splitting the work
+    // into several batches per core keeps every core busy until near the end.
+    private static final int BATCHES_PER_CORE = 8;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    public static void main(String[] args) throws IOException {
+        DriverStation.Alliance alliance = args.length > 0 ? DriverStation.Alliance.valueOf(args[0]) : DriverStation.Alliance.Blue;
+        List<Integer> startingPositions = parseStartingPositions(args.length > 1 ? args[1] : "all");
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int rowsPerPosition = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        List<AutonomousConfiguration> configurations = AutonomousConfiguration.enumerate(startingPositions);
+        List<List<AutonomousConfiguration>> batches = partition(configurations, parallelism);
+        System.out.println(String.format("Sweeping %d configurations for %s in %d batches on %d cores",
+            configurations.size(), alliance, batches.size(), parallelism));
+
+        long wallClockStart = System.nanoTime();
+        AtomicInteger finishedCount = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<ForkJoinTask<List<AutonomousSweepResult>>> tasks = new ArrayList<>();
+        for (List<AutonomousConfiguration> batch : batches) {
+            tasks.add(pool.submit(() -> {
+                List<AutonomousSweepResult> batchResults = runBatch(batch, alliance);
+                int finished = finishedCount.addAndGet(batch.size());
+                System.out.println(String.format("  %d / %d", finished, configurations.size()));
+                return batchResults;
+            }));
+        }
+
+        List<AutonomousSweepResult> results = new ArrayList<>();
+        for (ForkJoinTask<List<AutonomousSweepResult>> task : tasks) {
+            results.addAll(task.join());
+        }
+        pool.shutdown();
+
+        double wallClockSeconds = (System.nanoTime() - wallClockStart) / 1e9;
+        double simulatedSeconds = results.stream()
+            .filter(result -> !Double.isNaN(result.simulatedSeconds))
+            .mapToDouble(result -> result.simulatedSeconds)
+            .sum();
+        System.out.println(String.format("Simulated %.0fs of autonomous in %.1fs (%.0fx real time)",
+            simulatedSeconds, wallClockSeconds, simulatedSeconds / wallClockSeconds));
+
+        printReport(results, rowsPerPosition);
+        writeResults(results, Paths.get("build", "autoSweep-" + alliance + ".tsv"));
+        System.exit(0);
+    }
+
+    private static List<Integer> parseStartingPositions(String text) {
+        List<Integer> positions = new ArrayList<>();
+        if (text.equalsIgnoreCase("all")) {
+            for (int i = AutonomousConfiguration.MIN_SCORING_LOCATION_INDEX; i <= AutonomousConfiguration.MAX_SCORING_LOCATION_INDEX; i++) {
+                positions.add(i);
+            }
+            return positions;
+        }
+        for (String position : text.split(",")) {
+            positions.add(Integer.parseInt(position.trim()));
+        }
+        return positions;
+    }
+
+    private static List<List<AutonomousConfiguration>> partition(List<AutonomousConfiguration> configurations, int parallelism) {
+        int batchSize = configurations.size() / (parallelism * BATCHES_PER_CORE);
+        batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, batchSize));
+        List<List<AutonomousConfiguration>> batches = new ArrayList<>();
+        for (int start = 0; start < configurations.size(); start += batchSize) {
+            batches.add(configurations.subList(start, Math.min(configurations.size(), start + batchSize)));
+        }
+        return batches;
+    }
+
+    /**
+     * Runs one batch in a fresh worker process. Blocks until the worker exits.
+     */
+    private static List<AutonomousSweepResult> runBatch(List<AutonomousConfiguration> batch, DriverStation.Alliance alliance) {
+        String javaBinary = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(
+            javaBinary,
+            "-cp", System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            AutonomousSweepWorker.class.getName(),
+            alliance.toString());
+        // Workers log at WARN; with one per core that's too noisy to be useful, and the results say what went wrong.
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        Map<AutonomousConfiguration, AutonomousSweepResult> results = new HashMap<>();
+        String lostReason;
+        try {
+            Process worker = builder.start();
+            try (Writer input = new PrintWriter(worker.getOutputStream(), false, StandardCharsets.UTF_8)) {
+                for (AutonomousConfiguration configuration : batch) {
+                    input.write(configuration.toString());
+                    input.write('\n');
+                }
+            }
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if (line.startsWith(AutonomousSweepWorker.RESULT_PREFIX)) {
+                        AutonomousSweepResult result = AutonomousSweepResult.decode(
+                            line.substring(AutonomousSweepWorker.RESULT_PREFIX.length()));
+                        results.put(result.configuration, result);
+                    }
+                }
+            }
+            lostReason = "Worker exited with code " + worker.waitFor();
+        } catch (IOException e) {
+            lostReason = "Couldn't run worker: " + e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lostReason = "Interrupted";
+        }
+
+        List<AutonomousSweepResult> ordered = new ArrayList<>(batch.size());
+        for (AutonomousConfiguration configuration : batch) {
+            AutonomousSweepResult result = results.get(configuration);
+            ordered.add(result != null ? result : AutonomousSweepResult.lost(configuration, lostReason));
+        }
+        return ordered;
+    }
+
+    private static void printReport(List<AutonomousSweepResult> results, int rowsPerPosition) {
+        Map<Integer, List<AutonomousSweepResult>> byStartingPosition = results.stream()
+            .collect(Collectors.groupingBy(result -> result.configuration.initialScoringLocationIndex, TreeMap::new, Collectors.toList()));
+
+        for (Map.Entry<Integer, List<AutonomousSweepResult>> position : byStartingPosition.entrySet()) {
+            List<AutonomousSweepResult> positionResults = position.getValue();
+            List<AutonomousSweepResult> feasible = positionResults.stream()
+                .filter(AutonomousSweepResult::isFeasible)
+                .sorted(Comparator.comparingDouble(result -> result.simulatedSeconds))
+                .collect(Collectors.toList());
+
+            System.out.println();
+            System.out.println(String.format("Starting position %d: %d of %d configurations feasible",
+                position.getKey(), feasible.size(), positionResults.size()));
+            System.out.println(String.format("  %4s  %7s  %8s  %s", "Rank", "Time", "Error", "Configuration"));
+            for (int i = 0; i < Math.min(rowsPerPosition, feasible.size()); i++) {
+                AutonomousSweepResult result = feasible.get(i);
+                System.out.println(String.format("  %4d  %6.2fs  %6.1fin  %s",
+                    i + 1, result.simulatedSeconds, result.finalPositionErrorInches, result.configuration.describe()));
+            }
+
+            // Most common failures first, with one example of each.
+            Map<String, List<AutonomousSweepResult>> byFailureMode = positionResults.stream()
+                .filter(result -> !result.isFeasible())
+                .collect(Collectors.groupingBy(AutonomousSweepResult::getFailureMode, LinkedHashMap::new, Collectors.toList()));
+            if (!byFailureMode.isEmpty()) {
+                System.out.println(String.format("  %6s  %s", "Count", "Failure mode (example)"));
+                byFailureMode.entrySet().stream()
+                    .sorted(Comparator.comparingInt(entry -> -entry.getValue().size()))
+                    .forEach(entry -> {
+                        AutonomousSweepResult example = entry.getValue().get(0);
+                        System.out.println(String.format("  %6d  %s (%s)%s",
+                            entry.getValue().size(), entry.getKey(), example.configuration.describe(),
+                            example.detail.isEmpty() ? "" : " - " + example.detail));
+                    });
+            }
+        }
+    }
+
+    private static void writeResults(List<AutonomousSweepResult> results, Path path) throws IOException {
+        File directory = path.toAbsolutePath().getParent().toFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create " + directory);
+        }
+        List<String> lines = new ArrayList<>(results.size() + 1);
+        lines.add("configuration\toutcome\tsimulatedSeconds\tfinalPositionErrorInches\tlastPhase\tdetail");
+        for (AutonomousSweepResult result : results) {
+            lines.add(result.encode());
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        System.out.println();
+        System.out.println("Full results written to " + path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,107 @@
+package competition.simulation;
+
+import java.util.List;
+
+/**
+ * A compact summary of one simulated run of a {@link AutonomousConfiguration}, which can be sent from a sweep
+ * worker to the parent as a single line of text.
+ */
+public class AutonomousSweepResult {
+
+    public static final double AUTONOMOUS_PERIOD_SECONDS = 15;
+    // How far from the end of its last trajectory the robot can finish before we call the run a failure.
+    public static final double FINAL_POSITION_TOLERANCE_INCHES = 24;
+
+    public final AutonomousConfiguration configuration;
+    public final AutonomousSimulationResult.Outcome outcome;
+    public final double simulatedSeconds;
+    public final double finalPositionErrorInches;
+    // The phase the program was in when it stopped.
+    public final String lastPhase;
+    public final String detail;
+
+    public AutonomousSweepResult(AutonomousConfiguration configuration, AutonomousSimulationResult.Outcome outcome,
+                                 double simulatedSeconds, double finalPositionErrorInches, String lastPhase, String detail) {
+        this.configuration = configuration;
+        this.outcome = outcome;
+        this.simulatedSeconds = simulatedSeconds;
+        this.finalPositionErrorInches = finalPositionErrorInches;
+        this.lastPhase = lastPhase;
+        this.detail = detail;
+    }
+
+    public static AutonomousSweepResult fromSimulation(AutonomousConfiguration configuration, AutonomousSimulationResult result) {
+        List<AutonomousSimulationResult.Phase> phases = result.getPhases();
+        String lastPhase = phases.isEmpty() ? "" : phases.get(phases.size() - 1).name;
+        return new AutonomousSweepResult(
+            configuration,
+            result.getOutcome(),
+            result.getSimulatedSeconds(),
+            result.getFinalPositionErrorInches(),
+            lastPhase,
+            result.getFailureDetail() == null ? "" : result.getFailureDetail());
+    }
+
+    /**
+     * For configurations whose worker died before reporting on them.
+     */
+    public static AutonomousSweepResult lost(AutonomousConfiguration configuration, String detail) {
+        return new AutonomousSweepResult(configuration, AutonomousSimulationResult.Outcome.Crashed, Double.NaN, Double.NaN, "", detail);
+    }
+
+    /**
+     * @return True if the program finished inside the autonomous period and ended up where it meant to.
+     */
+    public boolean isFeasible() {
+        return getFailureMode() == null;
+    }
+
+    /**
+     * @return A short description of what went wrong, suitable for grouping, or null if nothing did.
+     */
+    public String getFailureMode() {
+        switch (outcome) {
+            case Crashed:
+                return "Crashed" + (lastPhase.isEmpty() ? "" : " in " + lastPhase);
+            case TimedOut:
+                return "Stuck in " + lastPhase;
+            case Completed:
+            default:
+                if (simulatedSeconds > AUTONOMOUS_PERIOD_SECONDS) {
+                    return "Finished after " + AUTONOMOUS_PERIOD_SECONDS + "s";
+                }
+                if (finalPositionErrorInches > FINAL_POSITION_TOLERANCE_INCHES) {
+                    return "Ended more than " + FINAL_POSITION_TOLERANCE_INCHES + "in from target";
+                }
+                return null;
+        }
+    }
+
+    public String encode() {
+        return String.join("\t",
+            configuration.toString(),
+            outcome.toString(),
+            Double.toString(simulatedSeconds),
+            Double.toString(finalPositionErrorInches),
+            sanitize(lastPhase),
+            sanitize(detail));
+    }
+
+    public static AutonomousSweepResult decode(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Expected 6 fields in sweep result: " + line);
+        }
+        return new AutonomousSweepResult(
+            AutonomousConfiguration.parse(fields[0]),
+            AutonomousSimulationResult.Outcome.valueOf(fields[1]),
+            Double.parseDouble(fields[2]),
+            Double.parseDouble(fields[3]),
+            fields[4],
+            fields[5]);
+    }
+
+    private static String sanitize(String text) {
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,61 @@
+package competition.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import competition.auto_programs.ParameterizedAutonomousProgram;
+import competition.auto_programs.support.AutonomousOracle;
+import competition.injection.components.AutonomousSimulationComponent;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Child process for {@link AutonomousSweepMain}. Reads one {@link AutonomousConfiguration} per line from stdin,
+ * simulates ParameterizedAutonomousProgram with each of them in turn, and prints one result line per
+ * configuration to stdout.
+ * <p>
+ * Usage: AutonomousSweepWorker [Red|Blue]
+ */
+public class AutonomousSweepWorker {
+
+    /**
+     * Result lines start with this, so the parent can ignore anything else the robot code prints.
+     */
+    public static final String RESULT_PREFIX = "SWEEP_RESULT\t";
+
+    public static void main(String[] args) throws IOException {
+        DriverStation.Alliance alliance = args.length > 0 ? DriverStation.Alliance.valueOf(args[0]) : DriverStation.Alliance.Blue;
+
+        // Read everything up front so the parent never blocks writing to us while we're blocked writing to it.
+        List<AutonomousConfiguration> configurations = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                configurations.add(AutonomousConfiguration.parse(line));
+            }
+        }
+
+        AutonomousSimulator simulator = new AutonomousSimulator(alliance);
+        AutonomousSimulationComponent component = simulator.getComponent();
+        AutonomousOracle oracle = component.autonomousOracle();
+        // The program reads the oracle as it runs, so one instance covers every configuration.
+        ParameterizedAutonomousProgram program = component.parameterizedAutonomousProgram();
+
+        for (AutonomousConfiguration configuration : configurations) {
+            configuration.applyTo(oracle);
+            AutonomousSimulationResult result = simulator.run(
+                configuration.describe(),
+                program,
+                AutonomousSimulator.getExpectedFinalPose(oracle),
+                AutonomousSimulator.DEFAULT_TIMEOUT_SECONDS);
+            System.out.println(RESULT_PREFIX + AutonomousSweepResult.fromSimulation(configuration, result).encode());
+        }
+        System.out.flush();
+        // WPILib leaves non-daemon threads running.
+        System.exit(0);
+    }
+}
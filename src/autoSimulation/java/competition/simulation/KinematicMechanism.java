@@ -0,0 +1,85 @@
+package competition.simulation;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * A very simple model of a mechanism driven by a well-tuned controller: it moves toward whatever it's told to,
+ * limited only by a maximum speed and acceleration. There is no mass, friction, backlash or motor saturation.
+ * Good enough to tell whether an autonomous program's logic finishes and roughly how long it takes.
+ */
+public class KinematicMechanism {
+
+    private final double maxVelocity;
+    private final double maxAcceleration;
+    private final boolean continuousDegrees;
+
+    private double position;
+    private double velocity;
+
+    /**
+     * @param maxVelocity Fastest the mechanism can move, in units per second.
+     * @param maxAcceleration Fastest the mechanism can change speed, in units per second squared.
+     * @param continuousDegrees True if position is an angle in degrees that wraps around (e.g. a swerve module),
+     *                          so the mechanism should always take the short way around.
+     */
+    public KinematicMechanism(double maxVelocity, double maxAcceleration, boolean continuousDegrees) {
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.continuousDegrees = continuousDegrees;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public void reset(double position) {
+        this.position = continuousDegrees ? MathUtil.inputModulus(position, -180, 180) : position;
+        this.velocity = 0;
+    }
+
+    /**
+     * Moves toward a target position, slowing down in time to stop on it.
+     */
+    public void stepTowardPosition(double targetPosition, double dtSeconds) {
+        double error = targetPosition - position;
+        if (continuousDegrees) {
+            error = MathUtil.inputModulus(error, -180, 180);
+        }
+
+        // Fastest speed from which we can still stop at the target
+        double stoppingSpeed = Math.sqrt(2 * maxAcceleration * Math.abs(error));
+        double desiredVelocity = Math.copySign(Math.min(maxVelocity, stoppingSpeed), error);
+        velocity = approach(velocity, desiredVelocity, maxAcceleration * dtSeconds);
+
+        double step = velocity * dtSeconds;
+        if (Math.abs(step) >= Math.abs(error)) {
+            // Don't overshoot; arrive and stop.
+            step = error;
+            velocity = 0;
+        }
+        position += step;
+        if (continuousDegrees) {
+            position = MathUtil.inputModulus(position, -180, 180);
+        }
+    }
+
+    /**
+     * Changes speed toward a target velocity and integrates position.
+     */
+    public void stepTowardVelocity(double targetVelocity, double dtSeconds) {
+        double desiredVelocity = MathUtil.clamp(targetVelocity, -maxVelocity, maxVelocity);
+        velocity = approach(velocity, desiredVelocity, maxAcceleration * dtSeconds);
+        position += velocity * dtSeconds;
+        if (continuousDegrees) {
+            position = MathUtil.inputModulus(position, -180, 180);
+        }
+    }
+
+    private static double approach(double current, double target, double maxChange) {
+        return current + MathUtil.clamp(target - current, -maxChange, maxChange);
+    }
+}
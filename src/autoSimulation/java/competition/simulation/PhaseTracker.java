@@ -0,0 +1,94 @@
+package competition.simulation;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+
+/**
+ * Works out how long each step of an autonomous program takes. Every program we have is a SequentialCommandGroup,
+ * so each of its top-level commands is treated as a phase.
+ * <p>
+ * WPILib doesn't expose which command a group is on, so that's read reflectively. Programs that aren't sequential
+ * groups are reported as a single phase.
+ */
+class PhaseTracker {
+
+    private static final Field commandsField = findField("m_commands");
+    private static final Field currentCommandIndexField = findField("m_currentCommandIndex");
+
+    private final Command program;
+    private final List<AutonomousSimulationResult.Phase> phases = new ArrayList<>();
+    private int currentIndex = -1;
+    private double currentPhaseStartSeconds;
+
+    PhaseTracker(Command program, double startSeconds) {
+        this.program = program;
+        this.currentPhaseStartSeconds = startSeconds;
+    }
+
+    /**
+     * Call once per loop, after the scheduler has run.
+     */
+    void update(double nowSeconds) {
+        int index = getCurrentIndex();
+        if (index != currentIndex) {
+            finishCurrentPhase(nowSeconds);
+            currentIndex = index;
+        }
+    }
+
+    /**
+     * Call when the program ends, for whatever reason.
+     */
+    List<AutonomousSimulationResult.Phase> finish(double nowSeconds) {
+        finishCurrentPhase(nowSeconds);
+        currentIndex = -1;
+        return phases;
+    }
+
+    private void finishCurrentPhase(double nowSeconds) {
+        if (currentIndex >= 0) {
+            phases.add(new AutonomousSimulationResult.Phase(getPhaseName(currentIndex), nowSeconds - currentPhaseStartSeconds));
+        }
+        currentPhaseStartSeconds = nowSeconds;
+    }
+
+    private int getCurrentIndex() {
+        if (!(program instanceof SequentialCommandGroup) || currentCommandIndexField == null) {
+            return 0;
+        }
+        try {
+            return currentCommandIndexField.getInt(program);
+        } catch (IllegalAccessException e) {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String getPhaseName(int index) {
+        if (program instanceof SequentialCommandGroup && commandsField != null) {
+            try {
+                List<Command> commands = (List<Command>)commandsField.get(program);
+                if (index >= 0 && index < commands.size()) {
+                    return (index + 1) + ". " + commands.get(index).getName();
+                }
+            } catch (IllegalAccessException e) {
+                // Fall through to the generic name
+            }
+        }
+        return program.getName();
+    }
+
+    private static Field findField(String name) {
+        try {
+            Field field = SequentialCommandGroup.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
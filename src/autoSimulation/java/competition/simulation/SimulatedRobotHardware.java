@@ -0,0 +1,142 @@
+package competition.simulation;
+
+import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.subsystems.drive.DriveSubsystem;
+import competition.subsystems.drive.swerve.SwerveModuleSubsystem;
+import competition.subsystems.pose.PoseSubsystem;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import xbot.common.controls.sensors.mock_adapters.MockCANCoder;
+import xbot.common.controls.sensors.mock_adapters.MockDutyCycleEncoder;
+import xbot.common.math.XYPair;
+
+/**
+ * Stands in for the physical robot. Each step, it reads what the subsystems are asking for (module speeds and angles,
+ * arm joint angles), moves simple kinematic models toward those targets, and writes the results back into the mock
+ * sensors so the robot code sees itself move.
+ * <p>
+ * The models assume every controller tracks its target perfectly within speed and acceleration limits, so this is a
+ * tool for checking autonomous logic and timing, not for tuning PID.
+ */
+public class SimulatedRobotHardware {
+
+    // Roughly what the competition robot can do.
+    private static final double MAX_WHEEL_SPEED_INCHES_PER_SECOND = 180;
+    private static final double MAX_WHEEL_ACCELERATION_INCHES_PER_SECOND_SQUARED = 300;
+    private static final double MAX_STEERING_SPEED_DEGREES_PER_SECOND = 1000;
+    private static final double MAX_STEERING_ACCELERATION_DEGREES_PER_SECOND_SQUARED = 10000;
+    private static final double MAX_ARM_SPEED_DEGREES_PER_SECOND = 120;
+    private static final double MAX_ARM_ACCELERATION_DEGREES_PER_SECOND_SQUARED = 360;
+
+    private final DriveSubsystem drive;
+    private final UnifiedArmSubsystem arms;
+    private final PoseSubsystem pose;
+
+    private final SwerveModuleSubsystem[] modules;
+    private final KinematicMechanism[] wheels;
+    private final KinematicMechanism[] steering;
+    private final KinematicMechanism lowerArm;
+    private final KinematicMechanism upperArm;
+    private final SwerveModuleState[] moduleStates;
+
+    public SimulatedRobotHardware(DriveSubsystem drive, UnifiedArmSubsystem arms, PoseSubsystem pose) {
+        this.drive = drive;
+        this.arms = arms;
+        this.pose = pose;
+
+        // Same order as the drive's kinematics
+        modules = new SwerveModuleSubsystem[] {
+            drive.getFrontLeftSwerveModuleSubsystem(),
+            drive.getFrontRightSwerveModuleSubsystem(),
+            drive.getRearLeftSwerveModuleSubsystem(),
+            drive.getRearRightSwerveModuleSubsystem()
+        };
+        wheels = new KinematicMechanism[modules.length];
+        steering = new KinematicMechanism[modules.length];
+        moduleStates = new SwerveModuleState[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            wheels[i] = new KinematicMechanism(
+                MAX_WHEEL_SPEED_INCHES_PER_SECOND, MAX_WHEEL_ACCELERATION_INCHES_PER_SECOND_SQUARED, false);
+            steering[i] = new KinematicMechanism(
+                MAX_STEERING_SPEED_DEGREES_PER_SECOND, MAX_STEERING_ACCELERATION_DEGREES_PER_SECOND_SQUARED, true);
+            moduleStates[i] = new SwerveModuleState();
+        }
+        lowerArm = new KinematicMechanism(MAX_ARM_SPEED_DEGREES_PER_SECOND, MAX_ARM_ACCELERATION_DEGREES_PER_SECOND_SQUARED, false);
+        upperArm = new KinematicMechanism(MAX_ARM_SPEED_DEGREES_PER_SECOND, MAX_ARM_ACCELERATION_DEGREES_PER_SECOND_SQUARED, false);
+    }
+
+    /**
+     * Puts the robot back in its starting configuration: wheels stopped and pointing forward, arm in the
+     * starting position (and calibrated there, as the drive team does before a match).
+     */
+    public void reset() {
+        for (int i = 0; i < modules.length; i++) {
+            wheels[i].reset(0);
+            steering[i].reset(0);
+        }
+        lowerArm.reset(UnifiedArmSubsystem.startingPositionAngles.x);
+        upperArm.reset(UnifiedArmSubsystem.startingPositionAngles.y);
+        writeSensors();
+
+        arms.calibrateAt(lowerArm.getPosition(), upperArm.getPosition());
+        arms.setIsCalibrated(true);
+        arms.setTargetValue(new XYPair(lowerArm.getPosition(), upperArm.getPosition()));
+    }
+
+    /**
+     * Moves every mechanism toward its current target, then updates the sensors.
+     */
+    public void step(double dtSeconds) {
+        for (int i = 0; i < modules.length; i++) {
+            steering[i].stepTowardPosition(modules[i].getSteeringSubsystem().getTargetValue(), dtSeconds);
+            wheels[i].stepTowardVelocity(modules[i].getDriveSubsystem().getTargetValue(), dtSeconds);
+        }
+
+        XYPair armTargets = arms.getTargetValue();
+        if (armTargets != null) {
+            lowerArm.stepTowardPosition(armTargets.x, dtSeconds);
+            upperArm.stepTowardPosition(armTargets.y, dtSeconds);
+        }
+
+        writeSensors();
+        updateHeading(dtSeconds);
+    }
+
+    public double getLowerArmAngle() {
+        return lowerArm.getPosition();
+    }
+
+    public double getUpperArmAngle() {
+        return upperArm.getPosition();
+    }
+
+    private void writeSensors() {
+        for (int i = 0; i < modules.length; i++) {
+            var driveSubsystem = modules[i].getDriveSubsystem();
+            driveSubsystem.getSparkMax().setPosition(wheels[i].getPosition() / driveSubsystem.getInchesPerMotorRotation());
+            ((MockCANCoder)modules[i].getSteeringSubsystem().getEncoder()).setAbsolutePosition(steering[i].getPosition());
+        }
+
+        // The arm encoders report a fraction of a rotation
+        ((MockDutyCycleEncoder)arms.lowerArm.absoluteEncoder).setRawPosition(
+            MathUtil.inputModulus(lowerArm.getPosition(), 0, 360) / 360.0);
+        ((MockDutyCycleEncoder)arms.upperArm.absoluteEncoder).setRawPosition(
+            MathUtil.inputModulus(upperArm.getPosition(), 0, 360) / 360.0);
+    }
+
+    private void updateHeading(double dtSeconds) {
+        // There's no simulated gyro, so work out how fast the robot is turning from what the wheels are doing and
+        // feed that into the heading directly.
+        for (int i = 0; i < modules.length; i++) {
+            moduleStates[i].speedMetersPerSecond = wheels[i].getVelocity() / PoseSubsystem.INCHES_IN_A_METER;
+            moduleStates[i].angle = Rotation2d.fromDegrees(steering[i].getPosition());
+        }
+        ChassisSpeeds chassisSpeeds = drive.getSwerveDriveKinematics().toChassisSpeeds(moduleStates);
+        if (Math.abs(chassisSpeeds.omegaRadiansPerSecond) > 1e-9) {
+            pose.setCurrentHeading(
+                pose.getCurrentHeading().getDegrees() + Math.toDegrees(chassisSpeeds.omegaRadiansPerSecond * dtSeconds));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package competition;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import competition.injection.components.DaggerSimulationBenchmarkComponent;
+import competition.injection.components.SimulationBenchmarkComponent;
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Builds the simulated robot once per benchmark run, so benchmarks measure the same objects
+ * (with the same mock hardware) that run in the simulator.
+ */
+@State(Scope.Benchmark)
+public class SimulatedRobotState {
+
+    public SimulationBenchmarkComponent component;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HAL.initialize(500, 0);
+        component = DaggerSimulationBenchmarkComponent.create();
+    }
+}
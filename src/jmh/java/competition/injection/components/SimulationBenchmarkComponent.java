@@ -0,0 +1,28 @@
+package competition.injection.components;
+
+import javax.inject.Singleton;
+
+import competition.injection.modules.CommonModule;
+import competition.injection.modules.SimulatedRobotModule;
+import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.subsystems.drive.DriveSubsystem;
+import competition.subsystems.drive.commands.SwerveToNearestScoringPositionCommand;
+import dagger.Component;
+import xbot.common.injection.modules.MockDevicesModule;
+import xbot.common.injection.modules.RealControlsModule;
+import xbot.common.injection.modules.SimulationModule;
+
+/**
+ * The simulated robot, with a few extra accessors so benchmarks can reach the classes they measure.
+ * Uses exactly the same modules as {@link SimulationComponent}.
+ */
+@Singleton
+@Component(modules = { SimulationModule.class, MockDevicesModule.class, RealControlsModule.class, SimulatedRobotModule.class, CommonModule.class })
+public abstract class SimulationBenchmarkComponent extends SimulationComponent {
+
+    public abstract DriveSubsystem competitionDriveSubsystem();
+
+    public abstract UnifiedArmSubsystem unifiedArmSubsystem();
+
+    public abstract SwerveToNearestScoringPositionCommand swerveToNearestScoringPositionCommand();
+}
@@ -0,0 +1,63 @@
+package competition.subsystems.arm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import competition.SimulatedRobotState;
+import xbot.common.math.XYPair;
+
+/**
+ * Measures the arm's inverse and forward kinematics, using the solver configured for the real arm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArmPositionSolverBenchmark {
+
+    private ArmPositionSolver solver;
+    private final XYPair target = new XYPair(30, 20);
+    private final XYPair currentAngles = new XYPair(70, -90);
+    private final double[] solution = new double[2];
+    private double offset;
+
+    @Setup
+    public void setup(SimulatedRobotState robot) {
+        solver = robot.component.unifiedArmSubsystem().solver;
+        solver.getLookupTable();
+    }
+
+    @Benchmark
+    public ArmPositionState solveArmJointPositions() {
+        // Vary the input slightly so nothing gets constant-folded.
+        offset += 1e-6;
+        target.x = 30 + offset;
+        return solver.solveArmJointPositions(target, currentAngles);
+    }
+
+    @Benchmark
+    public double[] solveWithLookupTable() {
+        offset += 1e-6;
+        solver.solveArmJointPositions(30 + offset, 20, false, solution);
+        return solution;
+    }
+
+    @Benchmark
+    public double[] solveAnalytically() {
+        offset += 1e-6;
+        solver.solveArmJointPositionsAnalytically(30 + offset, 20, false, solution);
+        return solution;
+    }
+
+    @Benchmark
+    public XYPair getPositionFromRadians() {
+        offset += 1e-6;
+        return solver.getPositionFromRadians(1.2 + offset, -1.6);
+    }
+}
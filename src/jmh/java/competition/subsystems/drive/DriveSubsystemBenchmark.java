@@ -0,0 +1,49 @@
+package competition.subsystems.drive;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import competition.SimulatedRobotState;
+
+/**
+ * Measures the per-loop cost of commanding the swerve drive, down to setting each module's target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DriveSubsystemBenchmark {
+
+    private DriveSubsystem drive;
+    private double translateX;
+
+    @Setup
+    public void setup(SimulatedRobotState robot) {
+        drive = robot.component.competitionDriveSubsystem();
+    }
+
+    @Benchmark
+    public void moveAboutRobotCenter() {
+        // Vary the input slightly so nothing gets constant-folded.
+        translateX += 1e-6;
+        drive.move(translateX, 0.5, 0.25, 0, 0);
+    }
+
+    @Benchmark
+    public void moveAboutGamePiece() {
+        translateX += 1e-6;
+        drive.move(translateX, 0.5, 0.25, DriveSubsystem.GAME_PIECE_CENTER_OF_ROTATION_X_INCHES, 0);
+    }
+
+    @Benchmark
+    public void fieldOrientedDrive() {
+        translateX += 1e-6;
+        drive.fieldOrientedDrive(translateX, 0.5, 0.25, 30, 0, 0);
+    }
+}
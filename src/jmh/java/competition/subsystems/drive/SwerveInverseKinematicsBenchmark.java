@@ -0,0 +1,71 @@
+package competition.subsystems.drive;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Compares our primitive swerve inverse kinematics against WPILib's matrix-based implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveInverseKinematicsBenchmark {
+
+    // Roughly the competition robot's module layout, in meters.
+    private static final double[] MODULE_X = { 0.2794, 0.2794, -0.2794, -0.2794 };
+    private static final double[] MODULE_Y = { 0.2794, -0.2794, 0.2794, -0.2794 };
+
+    // 0 = robot center, 0.889 = game piece point, 0.6 = a typical collector point
+    @Param({ "0", "0.889", "0.6" })
+    public double centerOfRotationXMeters;
+
+    private SwerveDriveKinematics wpilibKinematics;
+    private SwerveInverseKinematics kinematics;
+    private final double[] speeds = new double[4];
+    private final double[] angles = new double[4];
+    private double vx;
+
+    @Setup
+    public void setup() {
+        wpilibKinematics = new SwerveDriveKinematics(
+            new Translation2d(MODULE_X[0], MODULE_Y[0]),
+            new Translation2d(MODULE_X[1], MODULE_Y[1]),
+            new Translation2d(MODULE_X[2], MODULE_Y[2]),
+            new Translation2d(MODULE_X[3], MODULE_Y[3]));
+        kinematics = new SwerveInverseKinematics(MODULE_X, MODULE_Y);
+        kinematics.pinCenterOfRotation(0.889, 0);
+    }
+
+    @Benchmark
+    public void wpilib(Blackhole blackhole) {
+        // Vary the input slightly so nothing gets constant-folded.
+        vx += 1e-6;
+        SwerveModuleState[] states = wpilibKinematics.toSwerveModuleStates(
+            new ChassisSpeeds(vx, 1.2, 2.0), new Translation2d(centerOfRotationXMeters, 0));
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, 3.0);
+        blackhole.consume(states);
+    }
+
+    @Benchmark
+    public void primitive(Blackhole blackhole) {
+        vx += 1e-6;
+        kinematics.calculateModuleStates(vx, 1.2, 2.0, centerOfRotationXMeters, 0, speeds, angles);
+        SwerveInverseKinematics.desaturateModuleSpeeds(speeds, 3.0);
+        blackhole.consume(speeds);
+        blackhole.consume(angles);
+    }
+}
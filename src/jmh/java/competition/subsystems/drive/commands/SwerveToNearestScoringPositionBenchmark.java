@@ -0,0 +1,48 @@
+package competition.subsystems.drive.commands;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import competition.SimulatedRobotState;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Measures picking the nearest scoring position, which happens every time the driver asks to auto-align.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveToNearestScoringPositionBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean specificGamePiece;
+
+    private SwerveToNearestScoringPositionCommand command;
+    private final Pose2d currentPose = new Pose2d(100, 150, Rotation2d.fromDegrees(180));
+
+    @Setup
+    public void setup(SimulatedRobotState robot) {
+        command = robot.component.swerveToNearestScoringPositionCommand();
+        command.setSpecificGamePiece(specificGamePiece);
+    }
+
+    @Benchmark
+    public Pose2d findNearestScoringPositionBlue() {
+        return command.findNearestScoringPosition(currentPose, DriverStation.Alliance.Blue);
+    }
+
+    @Benchmark
+    public Pose2d findNearestScoringPositionRed() {
+        return command.findNearestScoringPosition(currentPose, DriverStation.Alliance.Red);
+    }
+}
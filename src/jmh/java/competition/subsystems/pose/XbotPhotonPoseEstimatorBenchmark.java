@@ -0,0 +1,77 @@
+package competition.subsystems.pose;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+
+/**
+ * Measures each pose strategy we might run on the robot, against a pipeline result with two tags in view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class XbotPhotonPoseEstimatorBenchmark {
+
+    @Param({ "LOWEST_AMBIGUITY", "CLOSEST_TO_REFERENCE_POSE", "AVERAGE_BEST_TARGETS" })
+    public XbotPhotonPoseEstimator.PoseStrategy strategy;
+
+    private XbotPhotonPoseEstimator estimator;
+    private PhotonPipelineResult result;
+
+    @Setup
+    public void setup() throws IOException {
+        AprilTagFieldLayout fieldLayout = AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
+        estimator = new XbotPhotonPoseEstimator(
+                fieldLayout,
+                strategy,
+                null,
+                new Transform3d(new Translation3d(0.3, 0, 0.5), new Rotation3d()));
+        estimator.setReferencePose(new Pose2d(14, 1, Rotation2d.fromDegrees(0)));
+
+        // Both targets pass the estimator's ambiguity and distance filters, so the result is never modified.
+        List<PhotonTrackedTarget> targets = new ArrayList<>();
+        targets.add(createTarget(1, 0.8, 0.1, 0.1));
+        targets.add(createTarget(2, 0.9, -0.4, 0.2));
+        result = new PhotonPipelineResult(20, targets);
+        result.setTimestampSeconds(1);
+    }
+
+    @Benchmark
+    public Optional<EstimatedRobotPose> update() {
+        return estimator.update(result);
+    }
+
+    private static PhotonTrackedTarget createTarget(int id, double x, double y, double ambiguity) {
+        Transform3d cameraToTarget = new Transform3d(new Translation3d(x, y, 0), new Rotation3d(0, 0, Math.PI));
+        List<TargetCorner> corners = Arrays.asList(
+                new TargetCorner(0, 0),
+                new TargetCorner(10, 0),
+                new TargetCorner(10, 10),
+                new TargetCorner(0, 10));
+        return new PhotonTrackedTarget(0, 0, 1, 0, id, cameraToTarget, cameraToTarget, ambiguity, corners, corners);
+    }
+}
@@ -0,0 +1,67 @@
+package competition.trajectory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import competition.SimulatedRobotState;
+import competition.subsystems.drive.commands.XbotSwervePoint;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Measures one step of trajectory following, in the middle of a segment (the common case), for both the
+ * straight line and spline interpolators. Also measures starting a trajectory, which is where the spline
+ * interpolator builds its curves and arc length tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SimpleTimeInterpolatorBenchmark {
+
+    @Param({ "Linear", "Spline" })
+    public String interpolation;
+
+    private SimpleTimeInterpolator interpolator;
+    private final XbotSwervePoint baseline = new XbotSwervePoint(0, 0, 0, 0);
+    private final Translation2d currentLocation = new Translation2d(10, 10);
+
+    @Setup
+    public void setup(SimulatedRobotState robot) {
+        // Segments are far longer than a benchmark iteration, so every call interpolates rather than
+        // sitting on the final point.
+        List<XbotSwervePoint> keyPoints = new ArrayList<>();
+        keyPoints.add(new XbotSwervePoint(100, 0, 0, 1000));
+        keyPoints.add(new XbotSwervePoint(100, 100, 90, 1000));
+        keyPoints.add(new XbotSwervePoint(0, 100, 180, 1000));
+
+        interpolator = interpolation.equals("Spline") ? new SplineTimeInterpolator() : new SimpleTimeInterpolator();
+        interpolator.setKeyPoints(keyPoints);
+        interpolator.setMaximumDistanceFromChasePointInInches(1000);
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+        interpolator.initialize(baseline);
+    }
+
+    @Benchmark
+    public SimpleTimeInterpolator.InterpolationResult calculateTarget() {
+        return interpolator.calculateTarget(currentLocation);
+    }
+
+    @Benchmark
+    public SimpleTimeInterpolator initialize() {
+        interpolator.initialize(baseline);
+        return interpolator;
+    }
+}
@@ -16,12 +16,23 @@ import xbot.common.subsystems.pose.BasePoseSubsystem;
 
 public class Robot extends BaseRobot {
 
+    private String currentPhaseName = "Startup";
+
     @Override
     protected void initializeSystems() {
         super.initializeSystems();
         getInjectorComponent().subsystemDefaultCommandMap();
         getInjectorComponent().operatorCommandMap();
         getInjectorComponent().lightsCommunicationSubsystem();
+        getInjectorComponent().visionSubsystem().startBackgroundProcessing();
+        ((PoseSubsystem)getInjectorComponent().poseSubsystem()).startOdometrySampling();
+        // Building the arm's IK table takes a while, so do it in the background. The arm solves analytically until then.
+        getInjectorComponent().unifiedArmSubsystem().solver.startBuildingLookupTable();
+        // Plan the arm routes between key positions now, if anything is going to use them.
+        var armConfigurationSpacePlanner = getInjectorComponent().armConfigurationSpacePlanner();
+        if (armConfigurationSpacePlanner.isEnabled()) {
+            armConfigurationSpacePlanner.precomputePlans();
+        }
 
         this.autonomousCommandSelector.setCurrentAutonomousCommand(
                 getInjectorComponent().parameterizedAutonomousProgram());
@@ -60,25 +71,44 @@ public class Robot extends BaseRobot {
 
     @Override
     protected void sharedPeriodic() {
+        long loopStartNanos = System.nanoTime();
+        // Read the sensors once, up front, so everything that runs this loop sees the same robot state.
+        getInjectorComponent().robotStateFrame().capture();
         super.sharedPeriodic();
         getInjectorComponent().operatorInterface().driverGamepad.getRumbleManager().periodic();
         getInjectorComponent().operatorInterface().operatorGamepad.getRumbleManager().periodic();
+        getInjectorComponent().loopTimingRecorder().recordLoop(System.nanoTime() - loopStartNanos);
+    }
+
+    private void startMatchPhase(String phaseName) {
+        getInjectorComponent().loopTimingRecorder().logAndReset(currentPhaseName);
+        currentPhaseName = phaseName;
     }
 
     @Override
     public void disabledInit() {
+        startMatchPhase("Disabled");
         super.disabledInit();
         ((PoseSubsystem)getInjectorComponent().poseSubsystem()).updateAllianceFromDriverStation();
     }
 
+    @Override
+    public void disabledPeriodic() {
+        super.disabledPeriodic();
+        // Plan the autonomous routes now, so autonomous doesn't have to. Does nothing if the settings haven't changed.
+        getInjectorComponent().autonomousOracle().precomputeTrajectories();
+    }
+
     @Override
     public void autonomousInit() {
+        startMatchPhase("Autonomous");
         super.autonomousInit();
         ((PoseSubsystem)getInjectorComponent().poseSubsystem()).updateAllianceFromDriverStation();
     }
 
     @Override
     public void teleopInit() {
+        startMatchPhase("Teleop");
         super.teleopInit();
         ((PoseSubsystem)getInjectorComponent().poseSubsystem()).updateAllianceFromDriverStation();
     }
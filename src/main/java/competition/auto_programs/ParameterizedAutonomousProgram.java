@@ -142,6 +142,8 @@ public class ParameterizedAutonomousProgram extends SequentialCommandGroup {
         drivePhaseOne.setKeyPointsProvider(oracle::getTrajectoryForDrivePhaseOne);
         drivePhaseOne.setEnableConstantVelocity(true);
         drivePhaseOne.setConstantVelocity(defaultVelocity);
+        // Drive with the trajectory rather than chasing it, so we don't fall behind on the long drive out.
+        drivePhaseOne.setEnableVelocityFeedForward(true);
 
         // This needs to be constructed carefully to ensure it will complete, but also "hang" forever if we fail to
         // collect a game piece. (That way, if we whiff for whatever reason, our robot will stop there - presumably
@@ -177,6 +179,7 @@ public class ParameterizedAutonomousProgram extends SequentialCommandGroup {
         driveForScoring.setKeyPointsProvider(oracle::getTrajectoryForScoring);
         driveForScoring.setEnableConstantVelocity(true);
         driveForScoring.setConstantVelocity(defaultVelocity);
+        driveForScoring.setEnableVelocityFeedForward(true);
 
         // If we're planning on scoring using the arm, we should move the game piece to the claw.
 
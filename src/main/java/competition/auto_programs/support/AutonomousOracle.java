@@ -8,6 +8,7 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.WrapperCommand;
@@ -22,6 +23,7 @@ import xbot.common.properties.StringProperty;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Singleton
@@ -86,6 +88,17 @@ public class AutonomousOracle {
     // Try to balance, can work from any position, no dependencies
     private final BooleanProperty enableBalance;
 
+    // Every trajectory the program could ask for with the current settings, built ahead of time (normally while
+    // disabled) so each drive phase starts without any planning. Rebuilt when a setting or the alliance changes.
+    private boolean trajectoriesAreCurrent = false;
+    private DriverStation.Alliance trajectoryAlliance;
+    private boolean trajectoryAllianceAwareField;
+    private List<XbotSwervePoint> drivePhaseOneWithGamePieceTrajectory;
+    private List<XbotSwervePoint> drivePhaseOneMobilityTrajectory;
+    private List<XbotSwervePoint> scoringTrajectory;
+    private List<XbotSwervePoint> prepareToBalanceTrajectory;
+    private List<XbotSwervePoint> actualBalanceTrajectory;
+
     PoseSubsystem pose;
 
     Logger log = LogManager.getLogger(AutonomousOracle.class);
@@ -137,6 +150,9 @@ public class AutonomousOracle {
     }
 
     public void setLane(Lane lane) {
+        if (this.lane != lane) {
+            invalidateTrajectories();
+        }
         this.lane = lane;
         laneProp.set(lane.toString());
     }
@@ -156,11 +172,17 @@ public class AutonomousOracle {
     }
 
     public void setSecondScoringLocationIndex(int index) {
+        if (secondScoringLocationIndex != index) {
+            invalidateTrajectories();
+        }
         secondScoringLocationIndex = index;
         secondScoringLocationIndexProp.set(index);
     }
 
     public void setSecondGamePiece(UnifiedArmSubsystem.GamePieceMode gamePiece) {
+        if (this.secondGamePiece != gamePiece) {
+            invalidateTrajectories();
+        }
         this.secondGamePiece = gamePiece;
         secondGamePieceProp.set(gamePiece.toString());
     }
@@ -179,6 +201,9 @@ public class AutonomousOracle {
     }
 
     public void setMantlePrepPosition(MantlePrepPosition position) {
+        if (this.mantlePrepPosition != position) {
+            invalidateTrajectories();
+        }
         this.mantlePrepPosition = position;
         mantlePrepPositionProp.set(position.toString());
     }
@@ -240,19 +265,62 @@ public class AutonomousOracle {
     // Route composition
     // -------------------------------------------
 
+    /**
+     * Builds every trajectory for the current settings and alliance, if they aren't built already. Call this
+     * periodically while disabled so that autonomous never has to wait for route planning.
+     * The returned lists are shared and must not be modified.
+     */
+    public void precomputeTrajectories() {
+        var alliance = pose.getAlliance();
+        boolean allianceAwareField = pose.isAllianceAwareField();
+        if (trajectoriesAreCurrent && alliance == trajectoryAlliance && allianceAwareField == trajectoryAllianceAwareField) {
+            return;
+        }
+
+        drivePhaseOneWithGamePieceTrajectory = Collections.unmodifiableList(buildTrajectoryForDrivePhaseOneWithGamePiece());
+        drivePhaseOneMobilityTrajectory = Collections.unmodifiableList(buildTrajectoryForDrivePhaseOneMobility());
+        scoringTrajectory = Collections.unmodifiableList(buildTrajectoryForScoring());
+        prepareToBalanceTrajectory = Collections.unmodifiableList(buildTrajectoryForPrepareToBalance());
+        actualBalanceTrajectory = Collections.unmodifiableList(buildTrajectoryForActualBalance());
+
+        trajectoryAlliance = alliance;
+        trajectoryAllianceAwareField = allianceAwareField;
+        trajectoriesAreCurrent = true;
+    }
+
+    private void invalidateTrajectories() {
+        trajectoriesAreCurrent = false;
+    }
+
     public List<XbotSwervePoint> getTrajectoryForDrivePhaseOne() {
         // Right now two major possibilities:
         // We are going to pick up a new game piece, so we should go to the natural point
         // Otherwise, we are trying to get simple mobility points before we balance
-
+        // Both are precomputed, since the acquire switch is a property that can change without going through a setter.
+        precomputeTrajectories();
         if (enableAcquireGamePiece.get()) {
-            return getTrajectoryForDrivePhaseOneWithGamePiece();
+            return drivePhaseOneWithGamePieceTrajectory;
         } else {
-            return getTrajectoryForDrivePhaseOneMobility();
+            return drivePhaseOneMobilityTrajectory;
         }
     }
 
-    private List<XbotSwervePoint> getTrajectoryForDrivePhaseOneWithGamePiece() {
+    public List<XbotSwervePoint> getTrajectoryForScoring() {
+        precomputeTrajectories();
+        return scoringTrajectory;
+    }
+
+    public List<XbotSwervePoint> getTrajectoryForPrepareToBalance() {
+        precomputeTrajectories();
+        return prepareToBalanceTrajectory;
+    }
+
+    public List<XbotSwervePoint> getTrajectoryForActualBalance() {
+        precomputeTrajectories();
+        return actualBalanceTrajectory;
+    }
+
+    private List<XbotSwervePoint> buildTrajectoryForDrivePhaseOneWithGamePiece() {
 
         ArrayList<XbotSwervePoint> points = new ArrayList<>();
 
@@ -282,7 +350,7 @@ public class AutonomousOracle {
         return points;
     }
 
-    private List<XbotSwervePoint> getTrajectoryForDrivePhaseOneMobility() {
+    private List<XbotSwervePoint> buildTrajectoryForDrivePhaseOneMobility() {
         ArrayList<XbotSwervePoint> points = new ArrayList<>();
 
         switch (lane) {
@@ -307,7 +375,7 @@ public class AutonomousOracle {
         return points;
     }
 
-    public List<XbotSwervePoint> getTrajectoryForScoring() {
+    private List<XbotSwervePoint> buildTrajectoryForScoring() {
         ArrayList<XbotSwervePoint> points = new ArrayList<>();
 
         // Take the right route back.
@@ -353,7 +421,7 @@ public class AutonomousOracle {
         return points;
     }
 
-    public List<XbotSwervePoint> getTrajectoryForPrepareToBalance() {
+    private List<XbotSwervePoint> buildTrajectoryForPrepareToBalance() {
         ArrayList<XbotSwervePoint> points = new ArrayList<>();
 
         switch (mantlePrepPosition) {
@@ -368,7 +436,7 @@ public class AutonomousOracle {
         return points;
     }
 
-    public List<XbotSwervePoint> getTrajectoryForActualBalance() {
+    private List<XbotSwervePoint> buildTrajectoryForActualBalance() {
         ArrayList<XbotSwervePoint> points = new ArrayList<>();
 
         switch (mantlePrepPosition) {
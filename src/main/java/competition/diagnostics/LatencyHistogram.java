@@ -0,0 +1,107 @@
+package competition.diagnostics;
+
+/**
+ * Fixed-bucket latency histogram. Buckets are spaced geometrically from 10 microseconds up to 1 second,
+ * so percentiles are accurate to within about 10%. Recording a sample never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final double SMALLEST_BUCKET_MICROS = 10;
+    private static final double BUCKET_GROWTH = 1.1;
+    private static final int BUCKET_COUNT = 122;
+
+    // Upper bound (inclusive) of each bucket, in microseconds. The last bucket catches everything above 1 second.
+    private static final long[] BUCKET_UPPER_BOUNDS_MICROS = new long[BUCKET_COUNT];
+
+    static {
+        double bound = SMALLEST_BUCKET_MICROS;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            BUCKET_UPPER_BOUNDS_MICROS[i] = Math.round(bound);
+            bound *= BUCKET_GROWTH;
+        }
+        BUCKET_UPPER_BOUNDS_MICROS[BUCKET_COUNT - 1] = Long.MAX_VALUE;
+    }
+
+    private final String name;
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long maxMicros = 0;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordMicros(long micros) {
+        counts[findBucket(micros)]++;
+        totalCount++;
+        if (micros > maxMicros) {
+            maxMicros = micros;
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public double getMaxMilliseconds() {
+        return maxMicros / 1000.0;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The upper bound of the bucket containing the given percentile, capped at the largest sample seen,
+     *         in milliseconds. 0 if nothing has been recorded.
+     */
+    public double getPercentileMilliseconds(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(percentile / 100.0 * totalCount);
+        rank = Math.max(1, Math.min(totalCount, rank));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_MICROS[i], maxMicros) / 1000.0;
+            }
+        }
+        return getMaxMilliseconds();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        maxMicros = 0;
+    }
+
+    private static int findBucket(long micros) {
+        // Binary search for the first bucket whose upper bound holds the sample.
+        int low = 0;
+        int high = BUCKET_COUNT - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_UPPER_BOUNDS_MICROS[mid] >= micros) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: p50 %.2fms, p99 %.2fms, max %.2fms, %d samples",
+            name, getPercentileMilliseconds(50), getPercentileMilliseconds(99), getMaxMilliseconds(), totalCount);
+    }
+}
@@ -0,0 +1,193 @@
+package competition.diagnostics;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import edu.wpi.first.wpilibj.Tracer;
+import edu.wpi.first.wpilibj.Watchdog;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import xbot.common.properties.DoubleProperty;
+import xbot.common.properties.PropertyFactory;
+
+/**
+ * Keeps latency histograms for the whole robot loop, every subsystem's periodic() and every scheduled command's
+ * execute(), so that when WPILib reports a loop overrun we can see who caused it.
+ * <p>
+ * The per-subsystem and per-command timings come from the epochs the CommandScheduler already records in its
+ * watchdog on every run (the same numbers WPILib prints on an overrun). The scheduler doesn't expose them, so they're
+ * read reflectively; if that ever stops working on a future WPILib, only the whole-loop timing is kept.
+ */
+@Singleton
+public class LoopTimingRecorder {
+
+    private static Logger log = LogManager.getLogger(LoopTimingRecorder.class);
+
+    private static final String LOOP_NAME = "RobotLoop";
+    // Pushing every histogram to NetworkTables every loop would be a waste of bandwidth.
+    private static final int LOOPS_PER_PUBLISH = 50;
+
+    private final PropertyFactory pf;
+    private final Map<String, TimedSection> sections = new HashMap<>();
+    // Same sections as above, kept in a list so they can be walked every loop without creating an iterator.
+    private final List<TimedSection> sectionList = new ArrayList<>();
+    private final TimedSection loopSection;
+    private Map<String, Long> schedulerEpochs;
+    // The epoch names the scheduler reported last time, and their sections. These only change when commands start or
+    // stop, so most loops can look each epoch up directly rather than iterating over the scheduler's map.
+    private String[] epochNames = new String[0];
+    private TimedSection[] epochSections = new TimedSection[0];
+    private int loopsSincePublish = 0;
+
+    private static class TimedSection {
+        final LatencyHistogram histogram;
+        final DoubleProperty p50Prop;
+        final DoubleProperty p99Prop;
+        final DoubleProperty maxProp;
+
+        TimedSection(String name, PropertyFactory pf) {
+            histogram = new LatencyHistogram(name);
+            p50Prop = pf.createEphemeralProperty(name + "/p50Ms", 0.0);
+            p99Prop = pf.createEphemeralProperty(name + "/p99Ms", 0.0);
+            maxProp = pf.createEphemeralProperty(name + "/MaxMs", 0.0);
+        }
+
+        void publish() {
+            p50Prop.set(histogram.getPercentileMilliseconds(50));
+            p99Prop.set(histogram.getPercentileMilliseconds(99));
+            maxProp.set(histogram.getMaxMilliseconds());
+        }
+    }
+
+    @Inject
+    public LoopTimingRecorder(PropertyFactory pf) {
+        this.pf = pf;
+        pf.setPrefix("LoopTiming");
+        loopSection = getOrCreateSection(LOOP_NAME);
+        schedulerEpochs = findSchedulerEpochs();
+    }
+
+    /**
+     * Call at the end of every robot loop, after the scheduler has run.
+     * @param loopNanos How long the whole loop took.
+     */
+    public void recordLoop(long loopNanos) {
+        loopSection.histogram.recordNanos(loopNanos);
+        recordSchedulerEpochs();
+
+        loopsSincePublish++;
+        if (loopsSincePublish >= LOOPS_PER_PUBLISH) {
+            loopsSincePublish = 0;
+            for (int i = 0; i < sectionList.size(); i++) {
+                sectionList.get(i).publish();
+            }
+        }
+    }
+
+    /**
+     * Records a timing against a named section, creating the section the first time it's seen.
+     */
+    public void recordMicros(String name, long micros) {
+        getOrCreateSection(name).histogram.recordMicros(micros);
+    }
+
+    public LatencyHistogram getHistogram(String name) {
+        TimedSection section = sections.get(name);
+        return section == null ? null : section.histogram;
+    }
+
+    /**
+     * Writes every histogram to the log, slowest first, then starts fresh. Call when a match phase ends.
+     * @param phaseName Used to label the output.
+     */
+    public void logAndReset(String phaseName) {
+        if (loopSection.histogram.getCount() == 0) {
+            return;
+        }
+
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        for (TimedSection section : sections.values()) {
+            section.publish();
+            if (section.histogram.getCount() > 0) {
+                histograms.add(section.histogram);
+            }
+        }
+        histograms.sort(Comparator.comparingDouble(LatencyHistogram::getMaxMilliseconds).reversed());
+
+        log.info("Loop timing for " + phaseName + ":");
+        for (LatencyHistogram histogram : histograms) {
+            log.info("    " + histogram);
+            histogram.reset();
+        }
+    }
+
+    private void recordSchedulerEpochs() {
+        if (schedulerEpochs == null) {
+            return;
+        }
+        if (!areEpochNamesCurrent()) {
+            epochNames = schedulerEpochs.keySet().toArray(new String[0]);
+            epochSections = new TimedSection[epochNames.length];
+            for (int i = 0; i < epochNames.length; i++) {
+                epochSections[i] = getOrCreateSection(epochNames[i]);
+            }
+        }
+        for (int i = 0; i < epochNames.length; i++) {
+            Long micros = schedulerEpochs.get(epochNames[i]);
+            if (micros != null) {
+                epochSections[i].histogram.recordMicros(micros);
+            }
+        }
+    }
+
+    private boolean areEpochNamesCurrent() {
+        if (schedulerEpochs.size() != epochNames.length) {
+            return false;
+        }
+        for (String name : epochNames) {
+            if (!schedulerEpochs.containsKey(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TimedSection getOrCreateSection(String name) {
+        TimedSection section = sections.get(name);
+        if (section == null) {
+            section = new TimedSection(name.replace("()", ""), pf);
+            sections.put(name, section);
+            sectionList.add(section);
+        }
+        return section;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> findSchedulerEpochs() {
+        try {
+            Field watchdogField = CommandScheduler.class.getDeclaredField("m_watchdog");
+            watchdogField.setAccessible(true);
+            Watchdog watchdog = (Watchdog)watchdogField.get(CommandScheduler.getInstance());
+
+            Field tracerField = Watchdog.class.getDeclaredField("m_tracer");
+            tracerField.setAccessible(true);
+            Tracer tracer = (Tracer)tracerField.get(watchdog);
+
+            Field epochsField = Tracer.class.getDeclaredField("m_epochs");
+            epochsField.setAccessible(true);
+            return (Map<String, Long>)epochsField.get(tracer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Unable to read the CommandScheduler's timings. Only the whole loop will be timed.", e);
+            return null;
+        }
+    }
+}
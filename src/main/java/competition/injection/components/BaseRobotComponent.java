@@ -1,11 +1,18 @@
 package competition.injection.components;
 
 import competition.auto_programs.ParameterizedAutonomousProgram;
+import competition.auto_programs.support.AutonomousOracle;
+import competition.diagnostics.LoopTimingRecorder;
 import competition.injection.swerve.SwerveComponentHolder;
 import competition.operator_interface.OperatorCommandMap;
 import competition.operator_interface.OperatorInterface;
+import competition.subsystems.RobotStateFrame;
+import competition.subsystems.StatusFrameScheduler;
 import competition.subsystems.SubsystemDefaultCommandMap;
+import competition.subsystems.arm.ArmConfigurationSpacePlanner;
+import competition.subsystems.arm.UnifiedArmSubsystem;
 import competition.subsystems.lights.LightsCommunicationSubsystem;
+import competition.subsystems.vision.VisionSubsystem;
 import xbot.common.injection.components.BaseComponent;
 
 public abstract class BaseRobotComponent extends BaseComponent {
@@ -21,4 +28,18 @@ public abstract class BaseRobotComponent extends BaseComponent {
     public abstract LightsCommunicationSubsystem lightsCommunicationSubsystem();
 
     public abstract ParameterizedAutonomousProgram parameterizedAutonomousProgram();
+
+    public abstract AutonomousOracle autonomousOracle();
+
+    public abstract VisionSubsystem visionSubsystem();
+
+    public abstract RobotStateFrame robotStateFrame();
+
+    public abstract LoopTimingRecorder loopTimingRecorder();
+
+    public abstract StatusFrameScheduler statusFrameScheduler();
+
+    public abstract UnifiedArmSubsystem unifiedArmSubsystem();
+
+    public abstract ArmConfigurationSpacePlanner armConfigurationSpacePlanner();
 }
@@ -0,0 +1,12 @@
+package competition.subsystems;
+
+/**
+ * Something that reads hardware and can cache those readings for the rest of the loop.
+ * See {@link RobotStateFrame}.
+ */
+public interface DataFrameRefreshable {
+    /**
+     * Read the relevant sensors and cache the results. Called once at the start of every loop.
+     */
+    void refreshDataFrame();
+}
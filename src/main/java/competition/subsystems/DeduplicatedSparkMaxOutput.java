@@ -0,0 +1,162 @@
+package competition.subsystems;
+
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.REVLibError;
+
+import xbot.common.controls.actuators.XCANSparkMax;
+import xbot.common.controls.sensors.XTimer;
+import xbot.common.properties.DoubleProperty;
+import xbot.common.properties.Property;
+import xbot.common.properties.PropertyFactory;
+
+/**
+ * Sends outputs to a SparkMax, skipping any that are the same as the last one sent.
+ * <p>
+ * Most of our subsystems set their motor outputs every loop, even when nothing has changed (e.g. the collector
+ * running at intake power for seconds at a time). Every one of those is a CAN frame, and the bus is busy enough that
+ * redundant frames delay the ones that matter. The SparkMax holds onto its last setpoint, so there's no need to send
+ * it again - but we do anyway every so often, in case the SparkMax has reset or missed a frame.
+ * <p>
+ * Anything else that changes the motor's output directly (rather than through this class) should call
+ * {@link #invalidate()}, so the next output is sent regardless.
+ */
+public class DeduplicatedSparkMaxOutput {
+
+    // Changes smaller than this (in whatever units the control type uses) aren't worth a CAN frame.
+    public static final double DEFAULT_TOLERANCE = 0.001;
+    // Even if nothing has changed, send the output again at least this often.
+    public static final double DEFAULT_REFRESH_INTERVAL_SECONDS = 0.5;
+
+    private final XCANSparkMax motor;
+    private final double tolerance;
+    private final double refreshIntervalSeconds;
+
+    private final DoubleProperty sentWritesProp;
+    private final DoubleProperty suppressedWritesProp;
+
+    private boolean hasLastOutput = false;
+    private ControlType lastControlType;
+    private double lastValue;
+    private int lastPidSlot;
+    private double lastArbitraryFeedForward;
+    private double lastSentTimestamp;
+
+    private long sentWrites = 0;
+    private long suppressedWrites = 0;
+
+    /**
+     * Creates an output filter with the default tolerance and refresh interval. Its statistics are published
+     * with the property factory's current prefix, so set that first.
+     * @param motor The motor to send outputs to.
+     * @param name Name of the motor, for the statistics.
+     * @param pf Property factory, with the owner's prefix already set.
+     */
+    public DeduplicatedSparkMaxOutput(XCANSparkMax motor, String name, PropertyFactory pf) {
+        this(motor, name, pf, DEFAULT_TOLERANCE, DEFAULT_REFRESH_INTERVAL_SECONDS);
+    }
+
+    public DeduplicatedSparkMaxOutput(XCANSparkMax motor, String name, PropertyFactory pf,
+                                      double tolerance, double refreshIntervalSeconds) {
+        this.motor = motor;
+        this.tolerance = tolerance;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+
+        pf.setDefaultLevel(Property.PropertyLevel.Debug);
+        this.sentWritesProp = pf.createEphemeralProperty(name + " CAN writes sent", 0.0);
+        this.suppressedWritesProp = pf.createEphemeralProperty(name + " CAN writes suppressed", 0.0);
+    }
+
+    /**
+     * Sets the motor's duty cycle, if it has changed.
+     * @param power The power value, between -1 and 1.
+     */
+    public void set(double power) {
+        if (shouldSend(ControlType.kDutyCycle, power, 0, 0)) {
+            motor.set(power);
+            recordSent(ControlType.kDutyCycle, power, 0, 0);
+        }
+    }
+
+    /**
+     * Stops the motor, if it isn't already stopped.
+     */
+    public void stopMotor() {
+        if (shouldSend(ControlType.kDutyCycle, 0, 0, 0)) {
+            motor.stopMotor();
+            recordSent(ControlType.kDutyCycle, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Sets the motor controller's closed loop target, if it has changed.
+     * @return The error from the motor controller, or kOk if nothing needed to be sent.
+     */
+    public REVLibError setReference(double value, ControlType controlType, int pidSlot, double arbitraryFeedForward) {
+        if (!shouldSend(controlType, value, pidSlot, arbitraryFeedForward)) {
+            return REVLibError.kOk;
+        }
+        REVLibError error = sendReference(value, controlType, pidSlot, arbitraryFeedForward);
+        if (error == REVLibError.kOk) {
+            recordSent(controlType, value, pidSlot, arbitraryFeedForward);
+        } else {
+            // Try again next time.
+            invalidate();
+        }
+        return error;
+    }
+
+    // Kept separate so tests can stand in for a motor controller that reports an error.
+    REVLibError sendReference(double value, ControlType controlType, int pidSlot, double arbitraryFeedForward) {
+        return motor.setReference(value, controlType, pidSlot, arbitraryFeedForward);
+    }
+
+    /**
+     * Forget the last output, so the next one is sent even if it's the same.
+     */
+    public void invalidate() {
+        hasLastOutput = false;
+    }
+
+    public long getSentWrites() {
+        return sentWrites;
+    }
+
+    public long getSuppressedWrites() {
+        return suppressedWrites;
+    }
+
+    /**
+     * Publishes the write statistics. Should be called from the owner's periodic().
+     */
+    public void periodic() {
+        sentWritesProp.set(sentWrites);
+        suppressedWritesProp.set(suppressedWrites);
+    }
+
+    private boolean shouldSend(ControlType controlType, double value, int pidSlot, double arbitraryFeedForward) {
+        boolean unchanged = hasLastOutput
+            && controlType == lastControlType
+            && pidSlot == lastPidSlot
+            && Math.abs(value - lastValue) <= tolerance
+            && Math.abs(arbitraryFeedForward - lastArbitraryFeedForward) <= tolerance;
+        // Setting the motor exactly to zero should always get through, even if we're a tiny bit away.
+        if (unchanged && value == 0 && lastValue != 0) {
+            unchanged = false;
+        }
+        if (unchanged && XTimer.getFPGATimestamp() - lastSentTimestamp < refreshIntervalSeconds) {
+            suppressedWrites++;
+            return false;
+        }
+        return true;
+    }
+
+    private void recordSent(ControlType controlType, double value, int pidSlot, double arbitraryFeedForward) {
+        hasLastOutput = true;
+        lastControlType = controlType;
+        lastValue = value;
+        lastPidSlot = pidSlot;
+        lastArbitraryFeedForward = arbitraryFeedForward;
+        lastSentTimestamp = XTimer.getFPGATimestamp();
+        sentWrites++;
+    }
+}
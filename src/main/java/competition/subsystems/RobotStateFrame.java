@@ -0,0 +1,55 @@
+package competition.subsystems;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.subsystems.drive.DriveSubsystem;
+import competition.subsystems.pose.PoseSubsystem;
+import xbot.common.controls.sensors.XTimer;
+
+/**
+ * A snapshot of the robot's sensors, taken once at the start of each loop.
+ * <p>
+ * Several sensors (arm encoders, module velocities, gyro pitch) get read many times per loop by different
+ * subsystems and commands. Each of those reads is a JNI call, and the values can change between reads,
+ * so different parts of the code could make decisions based on slightly different views of the robot.
+ * Capturing everything up front means each sensor is read once, and every decision in a loop sees the same state.
+ * <p>
+ * Until the first capture (e.g. in unit tests, where nothing runs the main loop), everything falls back to
+ * reading the hardware directly.
+ */
+@Singleton
+public class RobotStateFrame {
+
+    private final DataFrameRefreshable[] refreshables;
+
+    private boolean captured = false;
+    private double timestamp;
+
+    @Inject
+    public RobotStateFrame(PoseSubsystem pose, DriveSubsystem drive, UnifiedArmSubsystem arms) {
+        this.refreshables = new DataFrameRefreshable[] { pose, drive, arms };
+    }
+
+    /**
+     * Read all sensors for this loop. Should be called once, before anything else runs in the loop.
+     */
+    public void capture() {
+        timestamp = XTimer.getFPGATimestamp();
+        captured = true;
+        for (DataFrameRefreshable refreshable : refreshables) {
+            refreshable.refreshDataFrame();
+        }
+    }
+
+    /**
+     * @return The time this loop started, in seconds. Falls back to the current time if nothing has been captured yet.
+     */
+    public double getTimestamp() {
+        if (captured) {
+            return timestamp;
+        }
+        return XTimer.getFPGATimestamp();
+    }
+}
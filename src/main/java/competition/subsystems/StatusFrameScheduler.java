@@ -0,0 +1,276 @@
+package competition.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.FaultID;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+
+import xbot.common.command.BaseRobot;
+import xbot.common.command.BaseSubsystem;
+import xbot.common.controls.actuators.XCANSparkMax;
+import xbot.common.controls.sensors.XCANCoder;
+import xbot.common.controls.sensors.XTimer;
+import xbot.common.properties.DoubleProperty;
+import xbot.common.properties.Property;
+import xbot.common.properties.PropertyFactory;
+
+/**
+ * Owns the CAN status frame periods for every SparkMax and CANCoder on the robot.
+ * <p>
+ * Each device reports its status at fixed intervals, and with the defaults those reports take up most of the bus.
+ * Most devices are idle most of the time, so they can report much less often. Subsystems register their devices
+ * here, and call {@link ScheduledDevice#markActive()} whenever a device is doing something where fresh data matters
+ * (e.g. the arm moving to a new position). Active devices get faster status frames, and after a second with no
+ * activity they drop back to slower ones.
+ * <p>
+ * Devices forget their frame periods when they reset (e.g. after a brownout), so the periods are re-applied whenever
+ * a reset is noticed.
+ * <p>
+ * See https://docs.revrobotics.com/sparkmax/operating-modes/control-interfaces#periodic-status-frames
+ * for what's in each SparkMax status frame.
+ */
+@Singleton
+public class StatusFrameScheduler extends BaseSubsystem {
+    private static Logger log = Logger.getLogger(StatusFrameScheduler.class);
+
+    // How long a device stays at its active rates after the last time it was marked active.
+    private static final double ACTIVE_HOLD_SECONDS = 1.0;
+
+    /**
+     * How often the swerve modules report the position and angle that odometry is built from. The odometry sampler
+     * can't usefully run any faster than this; it would just record the same positions again with new timestamps.
+     * Odometry runs whether or not the robot is being driven (e.g. while it's being pushed), so this doesn't slow down
+     * when idle.
+     */
+    public static final int ODOMETRY_FRAME_PERIOD_MS = 5;
+
+    /**
+     * Status frame periods in milliseconds, for kStatus0 through kStatus3, when active and when idle.
+     */
+    public enum SparkMaxProfile {
+        // Position (kStatus2) feeds odometry, and velocity (kStatus1) feeds the velocity control and setpoint generator.
+        SwerveDrive(
+            new int[] { 500, 20, ODOMETRY_FRAME_PERIOD_MS, 500 },
+            new int[] { 500, 100, ODOMETRY_FRAME_PERIOD_MS, 500 }),
+        // Only position is used, and the CANCoder is preferred for that anyway.
+        SwerveSteering(new int[] { 500, 500, 20, 500 }, new int[] { 500, 500, 50, 500 }),
+        // The follower copies the leader's output from kStatus0, so that has to stay fast. Position is used to
+        // convert the arm target into motor rotations.
+        ArmLeader(new int[] { 10, 20, 10, 500 }, new int[] { 10, 100, 50, 500 }),
+        // Velocity is used to detect a game piece stalling the collector.
+        Collector(new int[] { 100, 20, 500, 500 }, new int[] { 500, 500, 500, 500 }),
+        // Nothing is read from the claw motors, but the follower needs kStatus0.
+        ClawLeader(new int[] { 10, 500, 500, 500 }, new int[] { 10, 500, 500, 500 }),
+        // Nothing reads from followers.
+        Follower(new int[] { 100, 500, 500, 500 }, new int[] { 100, 500, 500, 500 });
+
+        private final int[] activePeriodsMs;
+        private final int[] idlePeriodsMs;
+
+        SparkMaxProfile(int[] activePeriodsMs, int[] idlePeriodsMs) {
+            this.activePeriodsMs = activePeriodsMs;
+            this.idlePeriodsMs = idlePeriodsMs;
+        }
+
+        public int getPeriodMs(PeriodicFrame frame, boolean active) {
+            return (active ? activePeriodsMs : idlePeriodsMs)[frame.value];
+        }
+    }
+
+    // The steering CANCoders are the main source of module angles, including for odometry.
+    private static final int CANCODER_SENSOR_DATA_ACTIVE_MS = ODOMETRY_FRAME_PERIOD_MS;
+    private static final int CANCODER_SENSOR_DATA_IDLE_MS = ODOMETRY_FRAME_PERIOD_MS;
+    private static final int CANCODER_VBAT_AND_FAULTS_MS = 100;
+
+    private static final PeriodicFrame[] SPARK_MAX_FRAMES = new PeriodicFrame[] {
+        PeriodicFrame.kStatus0, PeriodicFrame.kStatus1, PeriodicFrame.kStatus2, PeriodicFrame.kStatus3
+    };
+
+    /**
+     * A device whose status frames are managed by the scheduler.
+     */
+    public abstract static class ScheduledDevice {
+        private final String name;
+        private double lastActiveTimestamp = Double.NEGATIVE_INFINITY;
+        // Null until the periods have been applied at least once.
+        private Boolean appliedActive = null;
+
+        protected ScheduledDevice(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Call whenever fresh data from this device matters. Cheap enough to call every loop.
+         */
+        public void markActive() {
+            lastActiveTimestamp = XTimer.getFPGATimestamp();
+        }
+
+        public boolean isActive(double now) {
+            return now - lastActiveTimestamp < ACTIVE_HOLD_SECONDS;
+        }
+
+        /**
+         * @return True if the device is currently using its active frame periods.
+         */
+        public boolean isAppliedActive() {
+            return Boolean.TRUE.equals(appliedActive);
+        }
+
+        protected abstract boolean isPresent();
+
+        protected abstract boolean hasReset();
+
+        protected abstract void applyPeriods(boolean active);
+
+        /**
+         * Called after {@link #hasReset()} returns true and the periods have been re-applied, so the next reset can
+         * be told apart from this one.
+         */
+        protected void acknowledgeReset() {
+        }
+    }
+
+    private class ScheduledSparkMax extends ScheduledDevice {
+        private final XCANSparkMax motor;
+        private final SparkMaxProfile profile;
+
+        ScheduledSparkMax(XCANSparkMax motor, String name, SparkMaxProfile profile) {
+            super(name);
+            this.motor = motor;
+            this.profile = profile;
+        }
+
+        @Override
+        protected boolean isPresent() {
+            return motor.getLastError() != REVLibError.kHALError;
+        }
+
+        @Override
+        protected boolean hasReset() {
+            return motor.getStickyFault(FaultID.kHasReset);
+        }
+
+        @Override
+        protected void applyPeriods(boolean active) {
+            CANSparkMax spark = motor.getInternalSparkMax();
+            for (PeriodicFrame frame : SPARK_MAX_FRAMES) {
+                spark.setPeriodicFramePeriod(frame, profile.getPeriodMs(frame, active));
+            }
+        }
+
+        @Override
+        protected void acknowledgeReset() {
+            // There's no way to clear just the reset flag, so this clears the other sticky faults too. Only doing it
+            // after a reset means the sticky faults from normal running are still there to be looked at.
+            motor.clearFaults();
+        }
+    }
+
+    private class ScheduledCANCoder extends ScheduledDevice {
+        private final XCANCoder encoder;
+
+        ScheduledCANCoder(XCANCoder encoder, String name) {
+            super(name);
+            this.encoder = encoder;
+        }
+
+        @Override
+        protected boolean isPresent() {
+            return true;
+        }
+
+        @Override
+        protected boolean hasReset() {
+            return encoder.hasResetOccurred();
+        }
+
+        @Override
+        protected void applyPeriods(boolean active) {
+            encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData,
+                active ? CANCODER_SENSOR_DATA_ACTIVE_MS : CANCODER_SENSOR_DATA_IDLE_MS);
+            encoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, CANCODER_VBAT_AND_FAULTS_MS);
+        }
+    }
+
+    private final List<ScheduledDevice> devices = new ArrayList<>();
+    // Simulated devices don't have status frames.
+    private final boolean hasRealDevices;
+
+    private final DoubleProperty activeDeviceCount;
+    private final DoubleProperty resetsHandled;
+    private int resetCount = 0;
+
+    @Inject
+    public StatusFrameScheduler(PropertyFactory pf) {
+        pf.setPrefix(this);
+        pf.setDefaultLevel(Property.PropertyLevel.Debug);
+        this.activeDeviceCount = pf.createEphemeralProperty("DevicesAtActiveRates", 0.0);
+        this.resetsHandled = pf.createEphemeralProperty("DeviceResetsHandled", 0.0);
+        this.hasRealDevices = BaseRobot.isReal();
+    }
+
+    /**
+     * Starts managing a SparkMax's status frames. Its periods are applied on the next loop.
+     * @return A handle for marking the motor as active.
+     */
+    public ScheduledDevice registerSparkMax(XCANSparkMax motor, String name, SparkMaxProfile profile) {
+        ScheduledDevice device = new ScheduledSparkMax(motor, name, profile);
+        devices.add(device);
+        return device;
+    }
+
+    /**
+     * Starts managing a CANCoder's status frames. Its periods are applied on the next loop.
+     * @return A handle for marking the encoder as active.
+     */
+    public ScheduledDevice registerCANCoder(XCANCoder encoder, String name) {
+        ScheduledDevice device = new ScheduledCANCoder(encoder, name);
+        devices.add(device);
+        return device;
+    }
+
+    @Override
+    public void periodic() {
+        double now = XTimer.getFPGATimestamp();
+        int active = 0;
+        for (ScheduledDevice device : devices) {
+            boolean shouldBeActive = device.isActive(now);
+            if (shouldBeActive) {
+                active++;
+            }
+            if (!hasRealDevices || !device.isPresent()) {
+                device.appliedActive = shouldBeActive;
+                continue;
+            }
+
+            boolean hasReset = device.hasReset();
+            if (hasReset || device.appliedActive == null || device.appliedActive != shouldBeActive) {
+                if (hasReset && device.appliedActive != null) {
+                    log.info("Re-applying status frame periods after reset: " + device.getName());
+                    resetCount++;
+                }
+                device.applyPeriods(shouldBeActive);
+                device.appliedActive = shouldBeActive;
+                if (hasReset) {
+                    device.acknowledgeReset();
+                }
+            }
+        }
+        activeDeviceCount.set(active);
+        resetsHandled.set(resetCount);
+    }
+}
@@ -0,0 +1,390 @@
+package competition.subsystems.arm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import competition.subsystems.arm.UnifiedArmSubsystem.GamePieceMode;
+import competition.subsystems.arm.UnifiedArmSubsystem.KeyArmPosition;
+import competition.subsystems.arm.UnifiedArmSubsystem.RobotFacing;
+import xbot.common.math.XYPair;
+import xbot.common.properties.BooleanProperty;
+import xbot.common.properties.DoubleProperty;
+import xbot.common.properties.PropertyFactory;
+
+/**
+ * Plans collision-free routes for the arm in joint space (lower arm angle, upper arm angle).
+ * <p>
+ * Joint space is split into a grid, and each grid point is marked as blocked if the arm would be outside the joint
+ * limits, break the extension rules, or hit the floor or the robot body anywhere near that point. Routes are found
+ * with A* over the grid, then straightened out wherever the arm can go directly between two points on the route,
+ * so most routes end up with few (or no) stops along the way.
+ * <p>
+ * Planning between key arm positions is done up front by {@link #precomputePlans()} when the planner is enabled, so
+ * commands only have to look the route up. Routes from anywhere else are planned on demand, which takes a few
+ * milliseconds. If any of the limits the grid was built from change, the grid and the cached routes are rebuilt.
+ */
+@Singleton
+public class ArmConfigurationSpacePlanner {
+    private static Logger log = LogManager.getLogger(ArmConfigurationSpacePlanner.class);
+
+    // At full extension, 2 degrees of lower arm movement is about 3 inches of end effector movement.
+    public static final double GRID_SPACING_DEGREES = 2.0;
+    // How often to check for collisions along a straight line between two points on a route.
+    private static final double SEGMENT_CHECK_SPACING_DEGREES = 0.5;
+    // Points along the upper arm to check for collisions, as fractions of its length from the elbow. The lower arm
+    // can't get anywhere near the floor or the body within its limits.
+    private static final double[] UPPER_ARM_CHECK_FRACTIONS = new double[] { 0.25, 0.5, 0.75, 1.0 };
+    private static final int[][] NEIGHBOR_OFFSETS = new int[][] {
+        { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 }
+    };
+
+    private final UnifiedArmSubsystem arms;
+    private final DoubleProperty floorZ;
+    private final DoubleProperty bodyHalfLength;
+    private final DoubleProperty bodyTopZ;
+    private final BooleanProperty enabled;
+
+    private double minLowerDegrees;
+    private double maxLowerDegrees;
+    private double minUpperDegrees;
+    private double maxUpperDegrees;
+    private int lowerNodes;
+    private int upperNodes;
+    // Null until the grid has been built.
+    private boolean[] blocked;
+    // Everything the grid was built from, to tell when it needs rebuilding.
+    private final double[] gridInputs = new double[9];
+
+    // Keyed by start and goal grid point. A null value means there's no route.
+    private final Map<Long, List<XYPair>> cachedPlans = new HashMap<>();
+
+    @Inject
+    public ArmConfigurationSpacePlanner(UnifiedArmSubsystem arms, PropertyFactory pf) {
+        this.arms = arms;
+        pf.setPrefix(this);
+        // All relative to the lower arm pivot, which is 8 inches off the ground. Leave an inch of clearance.
+        floorZ = pf.createPersistentProperty("FloorZ", -7.0);
+        // The frame perimeter is 15 inches from the pivot, and the pivot is mounted a little above the frame.
+        bodyHalfLength = pf.createPersistentProperty("RobotBodyHalfLength", 15.0);
+        bodyTopZ = pf.createPersistentProperty("RobotBodyTopZ", -1.0);
+        enabled = pf.createPersistentProperty("Enabled", false);
+    }
+
+    /**
+     * @return True if the arm routers should follow routes from this planner rather than their fixed transition
+     *         points.
+     */
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled.set(enabled);
+    }
+
+    /**
+     * Rebuilds the grid from the current limits, and plans routes between every pair of key arm positions for both
+     * game piece modes. Takes a while, so call it at startup.
+     */
+    public void precomputePlans() {
+        long startNanos = System.nanoTime();
+        buildGrid();
+
+        int unreachable = 0;
+        for (GamePieceMode mode : GamePieceMode.values()) {
+            for (KeyArmPosition startPosition : KeyArmPosition.values()) {
+                for (RobotFacing startFacing : RobotFacing.values()) {
+                    XYPair start = arms.getKeyArmAngles(startPosition, startFacing, mode);
+                    for (KeyArmPosition goalPosition : KeyArmPosition.values()) {
+                        for (RobotFacing goalFacing : RobotFacing.values()) {
+                            XYPair goal = arms.getKeyArmAngles(goalPosition, goalFacing, mode);
+                            long key = getPlanKey(start, goal);
+                            if (!cachedPlans.containsKey(key)) {
+                                List<XYPair> plan = search(start, goal);
+                                if (plan == null) {
+                                    unreachable++;
+                                } else {
+                                    plan = Collections.unmodifiableList(plan);
+                                }
+                                cachedPlans.put(key, plan);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        log.info("Planned " + cachedPlans.size() + " arm routes (" + unreachable + " unreachable) in "
+            + (System.nanoTime() - startNanos) / 1_000_000 + "ms");
+    }
+
+    /**
+     * Plans a route for the arm.
+     * @param startAngles The lower and upper arm angles to start from, in degrees.
+     * @param goalAngles The lower and upper arm angles to finish at, in degrees.
+     * @return The angles to pass through on the way, not including the start or goal; empty if the arm can go
+     *         straight there. Null if there's no route. May be shared, so don't modify it.
+     */
+    public List<XYPair> planRoute(XYPair startAngles, XYPair goalAngles) {
+        if (isGridStale()) {
+            buildGrid();
+        }
+        long key = getPlanKey(startAngles, goalAngles);
+        if (cachedPlans.containsKey(key)) {
+            return cachedPlans.get(key);
+        }
+        return search(startAngles, goalAngles);
+    }
+
+    public int getCachedPlanCount() {
+        return cachedPlans.size();
+    }
+
+    /**
+     * Checks whether the arm can be at the given angles without breaking its limits or hitting anything.
+     */
+    public boolean isConfigurationLegal(double lowerArmDegrees, double upperArmDegrees) {
+        if (!arms.lowerArm.isAngleWithinLimits(lowerArmDegrees) || !arms.upperArm.isAngleWithinLimits(upperArmDegrees)) {
+            return false;
+        }
+
+        XYPair endEffector = arms.solver.getPositionFromDegrees(lowerArmDegrees, upperArmDegrees);
+        if (Math.abs(endEffector.x) > arms.getMaximumXPosition() || endEffector.y > arms.getMaximumZPosition()) {
+            return false;
+        }
+
+        double lowerArmLength = arms.solver.getConfiguration().getLowerArmLength();
+        double elbowX = lowerArmLength * Math.cos(Math.toRadians(lowerArmDegrees));
+        double elbowZ = lowerArmLength * Math.sin(Math.toRadians(lowerArmDegrees));
+        for (double fraction : UPPER_ARM_CHECK_FRACTIONS) {
+            double x = elbowX + (endEffector.x - elbowX) * fraction;
+            double z = elbowZ + (endEffector.y - elbowZ) * fraction;
+            if (z < floorZ.get()) {
+                return false;
+            }
+            if (Math.abs(x) <= bodyHalfLength.get() && z <= bodyTopZ.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isGridStale() {
+        if (blocked == null) {
+            return true;
+        }
+        double[] currentInputs = getGridInputs();
+        for (int i = 0; i < gridInputs.length; i++) {
+            if (currentInputs[i] != gridInputs[i]) {
+                log.info("Arm limits have changed, rebuilding the planning grid");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double[] getGridInputs() {
+        return new double[] {
+            arms.lowerArm.getLowerLimitInDegrees(),
+            arms.lowerArm.getUpperLimitInDegrees(),
+            arms.upperArm.getLowerLimitInDegrees(),
+            arms.upperArm.getUpperLimitInDegrees(),
+            arms.getMaximumXPosition(),
+            arms.getMaximumZPosition(),
+            floorZ.get(),
+            bodyHalfLength.get(),
+            bodyTopZ.get()
+        };
+    }
+
+    private void buildGrid() {
+        System.arraycopy(getGridInputs(), 0, gridInputs, 0, gridInputs.length);
+        minLowerDegrees = arms.lowerArm.getLowerLimitInDegrees();
+        maxLowerDegrees = arms.lowerArm.getUpperLimitInDegrees();
+        minUpperDegrees = arms.upperArm.getLowerLimitInDegrees();
+        maxUpperDegrees = arms.upperArm.getUpperLimitInDegrees();
+        lowerNodes = (int) Math.ceil((maxLowerDegrees - minLowerDegrees) / GRID_SPACING_DEGREES) + 1;
+        upperNodes = (int) Math.ceil((maxUpperDegrees - minUpperDegrees) / GRID_SPACING_DEGREES) + 1;
+
+        blocked = new boolean[lowerNodes * upperNodes];
+        double halfSpacing = GRID_SPACING_DEGREES / 2;
+        for (int upperIndex = 0; upperIndex < upperNodes; upperIndex++) {
+            for (int lowerIndex = 0; lowerIndex < lowerNodes; lowerIndex++) {
+                double lower = getLowerDegrees(lowerIndex);
+                double upper = getUpperDegrees(upperIndex);
+                // The arm passes anywhere near a grid point on its way through, so check around it too.
+                blocked[upperIndex * lowerNodes + lowerIndex] = !isConfigurationLegal(lower, upper)
+                    || !isConfigurationLegal(clampLower(lower - halfSpacing), clampUpper(upper - halfSpacing))
+                    || !isConfigurationLegal(clampLower(lower - halfSpacing), clampUpper(upper + halfSpacing))
+                    || !isConfigurationLegal(clampLower(lower + halfSpacing), clampUpper(upper - halfSpacing))
+                    || !isConfigurationLegal(clampLower(lower + halfSpacing), clampUpper(upper + halfSpacing));
+            }
+        }
+        cachedPlans.clear();
+    }
+
+    private List<XYPair> search(XYPair start, XYPair goal) {
+        int startNode = getNearestNode(start);
+        int goalNode = getNearestNode(goal);
+        // If the arm starts somewhere it shouldn't be, let it find its way out; but never plan into trouble.
+        if (blocked[goalNode] || !isConfigurationLegal(goal.x, goal.y)) {
+            return null;
+        }
+
+        int nodeCount = blocked.length;
+        double[] costSoFar = new double[nodeCount];
+        Arrays.fill(costSoFar, Double.POSITIVE_INFINITY);
+        int[] cameFrom = new int[nodeCount];
+        Arrays.fill(cameFrom, -1);
+        boolean[] closed = new boolean[nodeCount];
+        PriorityQueue<OpenNode> open = new PriorityQueue<>();
+
+        costSoFar[startNode] = 0;
+        open.add(new OpenNode(startNode, getHeuristic(startNode, goalNode)));
+        while (!open.isEmpty()) {
+            int node = open.poll().node;
+            if (closed[node]) {
+                continue;
+            }
+            if (node == goalNode) {
+                return smoothRoute(start, goal, getNodePath(cameFrom, goalNode));
+            }
+            closed[node] = true;
+
+            int lowerIndex = node % lowerNodes;
+            int upperIndex = node / lowerNodes;
+            for (int[] offset : NEIGHBOR_OFFSETS) {
+                int neighborLower = lowerIndex + offset[0];
+                int neighborUpper = upperIndex + offset[1];
+                if (neighborLower < 0 || neighborLower >= lowerNodes || neighborUpper < 0 || neighborUpper >= upperNodes) {
+                    continue;
+                }
+                int neighbor = neighborUpper * lowerNodes + neighborLower;
+                if (closed[neighbor] || blocked[neighbor]) {
+                    continue;
+                }
+                double cost = costSoFar[node] + (offset[0] != 0 && offset[1] != 0 ? Math.sqrt(2) : 1);
+                if (cost < costSoFar[neighbor]) {
+                    costSoFar[neighbor] = cost;
+                    cameFrom[neighbor] = node;
+                    open.add(new OpenNode(neighbor, cost + getHeuristic(neighbor, goalNode)));
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Integer> getNodePath(int[] cameFrom, int goalNode) {
+        List<Integer> path = new ArrayList<>();
+        for (int node = goalNode; node != -1; node = cameFrom[node]) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Takes the grid route and keeps only the points where the arm actually has to change direction to avoid
+     * something.
+     */
+    private List<XYPair> smoothRoute(XYPair start, XYPair goal, List<Integer> nodePath) {
+        // The exact start and goal stand in for their nearest grid points.
+        List<XYPair> points = new ArrayList<>();
+        points.add(start);
+        for (int i = 1; i < nodePath.size() - 1; i++) {
+            int node = nodePath.get(i);
+            points.add(new XYPair(getLowerDegrees(node % lowerNodes), getUpperDegrees(node / lowerNodes)));
+        }
+        points.add(goal);
+
+        List<XYPair> waypoints = new ArrayList<>();
+        int anchor = 0;
+        int last = points.size() - 1;
+        while (anchor < last) {
+            int next = anchor + 1;
+            for (int candidate = last; candidate > anchor + 1; candidate--) {
+                if (isSegmentClear(points.get(anchor), points.get(candidate))) {
+                    next = candidate;
+                    break;
+                }
+            }
+            if (next != last) {
+                waypoints.add(points.get(next));
+            }
+            anchor = next;
+        }
+        return waypoints;
+    }
+
+    private boolean isSegmentClear(XYPair from, XYPair to) {
+        double lowerChange = to.x - from.x;
+        double upperChange = to.y - from.y;
+        int steps = (int) Math.ceil(Math.max(Math.abs(lowerChange), Math.abs(upperChange)) / SEGMENT_CHECK_SPACING_DEGREES);
+        // Skip the starting point; the arm is already there.
+        for (int step = 1; step <= steps; step++) {
+            double fraction = (double) step / steps;
+            if (!isConfigurationLegal(from.x + lowerChange * fraction, from.y + upperChange * fraction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double getHeuristic(int node, int goalNode) {
+        // Octile distance: the cost of the best route if nothing were in the way.
+        int lowerDistance = Math.abs(node % lowerNodes - goalNode % lowerNodes);
+        int upperDistance = Math.abs(node / lowerNodes - goalNode / lowerNodes);
+        return Math.max(lowerDistance, upperDistance) + (Math.sqrt(2) - 1) * Math.min(lowerDistance, upperDistance);
+    }
+
+    private long getPlanKey(XYPair start, XYPair goal) {
+        return (long) getNearestNode(start) * blocked.length + getNearestNode(goal);
+    }
+
+    private int getNearestNode(XYPair angles) {
+        int lowerIndex = (int) Math.round((clampLower(angles.x) - minLowerDegrees) / GRID_SPACING_DEGREES);
+        int upperIndex = (int) Math.round((clampUpper(angles.y) - minUpperDegrees) / GRID_SPACING_DEGREES);
+        return Math.min(upperIndex, upperNodes - 1) * lowerNodes + Math.min(lowerIndex, lowerNodes - 1);
+    }
+
+    private double getLowerDegrees(int lowerIndex) {
+        return Math.min(minLowerDegrees + lowerIndex * GRID_SPACING_DEGREES, maxLowerDegrees);
+    }
+
+    private double getUpperDegrees(int upperIndex) {
+        return Math.min(minUpperDegrees + upperIndex * GRID_SPACING_DEGREES, maxUpperDegrees);
+    }
+
+    private double clampLower(double degrees) {
+        return Math.max(minLowerDegrees, Math.min(maxLowerDegrees, degrees));
+    }
+
+    private double clampUpper(double degrees) {
+        return Math.max(minUpperDegrees, Math.min(maxUpperDegrees, degrees));
+    }
+
+    private static class OpenNode implements Comparable<OpenNode> {
+        final int node;
+        final double estimatedTotalCost;
+
+        OpenNode(int node, double estimatedTotalCost) {
+            this.node = node;
+            this.estimatedTotalCost = estimatedTotalCost;
+        }
+
+        @Override
+        public int compareTo(OpenNode other) {
+            return Double.compare(estimatedTotalCost, other.estimatedTotalCost);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package competition.subsystems.arm;
+
+import xbot.common.math.MathUtils;
+import xbot.common.properties.DoubleProperty;
+import xbot.common.properties.Property;
+import xbot.common.properties.PropertyFactory;
+
+/**
+ * Works out how much voltage each arm joint needs just to hold the arm up against gravity.
+ * <p>
+ * The torque on the lower joint depends on where the upper arm is as well as the lower arm, since the lower joint
+ * carries the whole upper arm. The upper arm's angle is relative to the lower arm, so its angle from horizontal is
+ * coupled to the lower arm in the same way as in {@link ArmPositionSolver#getPositionFromRadians(double, double)}.
+ * Each joint's holding torque is then turned into volts with a simple gain, since the motor's torque is roughly
+ * proportional to its voltage when it's (nearly) stalled.
+ */
+public class ArmGravityFeedForward {
+
+    private final double lowerArmLengthInches;
+
+    private final DoubleProperty lowerArmWeightProp;
+    private final DoubleProperty lowerArmCenterOfGravityProp;
+    private final DoubleProperty upperArmWeightProp;
+    private final DoubleProperty upperArmCenterOfGravityProp;
+    private final DoubleProperty lowerArmVoltsPerInchPoundProp;
+    private final DoubleProperty upperArmVoltsPerInchPoundProp;
+    private final DoubleProperty lowerArmVoltsProp;
+    private final DoubleProperty upperArmVoltsProp;
+
+    private double lowerJointTorque;
+    private double upperJointTorque;
+    private double lowerArmVolts;
+    private double upperArmVolts;
+
+    /**
+     * Creates the model. Its properties are published with the property factory's current prefix, so set that first.
+     * @param lowerArmLengthInches Distance from the lower joint to the upper joint.
+     * @param pf Property factory, with the owner's prefix already set.
+     */
+    public ArmGravityFeedForward(double lowerArmLengthInches, PropertyFactory pf) {
+        this.lowerArmLengthInches = lowerArmLengthInches;
+
+        // Weights and centers of gravity are estimates from CAD, and the upper arm includes the claw. The lower arm
+        // gain is picked to match the old fixed feedforward (2V with the arm folded up and held horizontal), and the
+        // upper arm gain is that scaled by the difference in gearing.
+        lowerArmWeightProp = pf.createPersistentProperty("Lower Arm Weight Pounds", 10.0);
+        lowerArmCenterOfGravityProp = pf.createPersistentProperty("Lower Arm Center Of Gravity Inches", 20.0);
+        upperArmWeightProp = pf.createPersistentProperty("Upper Arm Weight Pounds", 8.0);
+        upperArmCenterOfGravityProp = pf.createPersistentProperty("Upper Arm Center Of Gravity Inches", 24.0);
+        lowerArmVoltsPerInchPoundProp = pf.createPersistentProperty("Lower Arm Gravity Volts Per Inch Pound", 0.0055);
+        upperArmVoltsPerInchPoundProp = pf.createPersistentProperty("Upper Arm Gravity Volts Per Inch Pound", 0.00164);
+
+        pf.setDefaultLevel(Property.PropertyLevel.Debug);
+        lowerArmVoltsProp = pf.createEphemeralProperty("Lower Arm Gravity Volts", 0.0);
+        upperArmVoltsProp = pf.createEphemeralProperty("Upper Arm Gravity Volts", 0.0);
+    }
+
+    /**
+     * Works out the holding voltages for the given arm angles. Call this once per loop with the latest sensor
+     * readings, then read the results back with the getters.
+     * @param lowerArmDegrees Lower arm angle, as used by {@link ArmPositionSolver}.
+     * @param upperArmDegrees Upper arm angle relative to the lower arm, as used by {@link ArmPositionSolver}.
+     */
+    public void calculate(double lowerArmDegrees, double upperArmDegrees) {
+        double lowerArmRadians = Math.toRadians(lowerArmDegrees);
+        double upperArmRadians = Math.toRadians(upperArmDegrees) + lowerArmRadians + MathUtils.Tau / 2.0;
+
+        // Only the horizontal distance from each joint to each center of gravity matters.
+        double lowerArmCosine = Math.cos(lowerArmRadians);
+        double upperArmCosine = Math.cos(upperArmRadians);
+        double lowerArmWeight = lowerArmWeightProp.get();
+        double upperArmWeight = upperArmWeightProp.get();
+        double upperArmCenterOfGravity = upperArmCenterOfGravityProp.get();
+
+        upperJointTorque = upperArmWeight * upperArmCenterOfGravity * upperArmCosine;
+        lowerJointTorque = lowerArmWeight * lowerArmCenterOfGravityProp.get() * lowerArmCosine
+                + upperArmWeight * lowerArmLengthInches * lowerArmCosine
+                + upperJointTorque;
+
+        lowerArmVolts = lowerJointTorque * lowerArmVoltsPerInchPoundProp.get();
+        upperArmVolts = upperJointTorque * upperArmVoltsPerInchPoundProp.get();
+        lowerArmVoltsProp.set(lowerArmVolts);
+        upperArmVoltsProp.set(upperArmVolts);
+    }
+
+    /**
+     * @return Torque the lower joint needs to hold the arm up, in inch-pounds. Positive is towards a larger angle.
+     */
+    public double getLowerJointTorque() {
+        return lowerJointTorque;
+    }
+
+    /**
+     * @return Torque the upper joint needs to hold the upper arm up, in inch-pounds. Positive is towards a larger
+     * angle.
+     */
+    public double getUpperJointTorque() {
+        return upperJointTorque;
+    }
+
+    public double getLowerArmVolts() {
+        return lowerArmVolts;
+    }
+
+    public double getUpperArmVolts() {
+        return upperArmVolts;
+    }
+}
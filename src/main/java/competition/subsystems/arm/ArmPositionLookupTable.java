@@ -0,0 +1,218 @@
+package competition.subsystems.arm;
+
+/**
+ * Precomputed arm joint angles over a grid of end effector positions, for both the forward (positive upper joint
+ * angle) and backward solutions. Positions between grid points are bilinearly interpolated.
+ * <p>
+ * The grid covers everywhere the end effector can reach with the lower arm within its limits. The solution changes
+ * quickly near the pivot, at full extension and where the angle to the target wraps around, so interpolating there
+ * isn't accurate. Every grid cell is checked against the analytic solver when the table is built, and any cell that
+ * isn't within the allowed error is left for the analytic solver to handle.
+ */
+public class ArmPositionLookupTable {
+
+    public static final double DEFAULT_SPACING_INCHES = 0.25;
+    public static final double DEFAULT_MAX_ERROR_DEGREES = 0.001;
+
+    // Where in each cell to check the interpolation against the analytic solution, as fractions of the cell size.
+    // Bilinear interpolation is worst away from the corners.
+    private static final double[][] CHECK_POINTS = new double[][] {
+        { 0.5, 0.5 }, { 0.5, 0 }, { 0, 0.5 }, { 1, 0.5 }, { 0.5, 1 }
+    };
+
+    private final double spacingInches;
+    private final double maxErrorDegrees;
+    private final double minX;
+    private final double minZ;
+    // Grid points in each direction. There's one fewer cell than grid points.
+    private final int columns;
+    private final int rows;
+
+    // Joint angles in degrees at each grid point, NaN if there's no solution. Floats are plenty accurate for this, and
+    // keep the table small. The backward upper joint angle is just the forward one negated.
+    private final float[] forwardLowerAngles;
+    private final float[] backwardLowerAngles;
+    private final float[] upperAngles;
+
+    // One bit per cell, set if interpolating in that cell is accurate enough.
+    private final long[] forwardUsableCells;
+    private final long[] backwardUsableCells;
+
+    private final double[] scratch = new double[2];
+
+    public ArmPositionLookupTable(ArmPositionSolver solver) {
+        this(solver, DEFAULT_SPACING_INCHES, DEFAULT_MAX_ERROR_DEGREES);
+    }
+
+    public ArmPositionLookupTable(ArmPositionSolver solver, double spacingInches, double maxErrorDegrees) {
+        this.spacingInches = spacingInches;
+        this.maxErrorDegrees = maxErrorDegrees;
+
+        ArmPositionSolverConfiguration configuration = solver.getConfiguration();
+        double lowerArmLength = configuration.getLowerArmLength();
+        double reach = lowerArmLength + configuration.getUpperArmLength();
+
+        // The end effector can be anywhere within the upper arm's length of the elbow, and the elbow can only get as
+        // high or low as the lower arm's limits allow.
+        double minLowerRadians = configuration.getMinimumLowerJointAngle().getRadians();
+        double maxLowerRadians = configuration.getMaximumLowerJointAngle().getRadians();
+        double minElbowZ = lowerArmLength * Math.min(Math.sin(minLowerRadians), Math.sin(maxLowerRadians));
+        double maxElbowZ = lowerArmLength * Math.max(Math.sin(minLowerRadians), Math.sin(maxLowerRadians));
+        if (isAngleInRange(-Math.PI / 2, minLowerRadians, maxLowerRadians)) {
+            minElbowZ = -lowerArmLength;
+        }
+        if (isAngleInRange(Math.PI / 2, minLowerRadians, maxLowerRadians)) {
+            maxElbowZ = lowerArmLength;
+        }
+        double upperArmLength = configuration.getUpperArmLength();
+        double maxZ = Math.min(reach, maxElbowZ + upperArmLength);
+
+        this.minX = -reach;
+        this.minZ = Math.max(-reach, minElbowZ - upperArmLength);
+        this.columns = (int) Math.ceil(2 * reach / spacingInches) + 1;
+        this.rows = (int) Math.ceil((maxZ - minZ) / spacingInches) + 1;
+
+        int points = columns * rows;
+        this.forwardLowerAngles = new float[points];
+        this.backwardLowerAngles = new float[points];
+        this.upperAngles = new float[points];
+        int cells = (columns - 1) * (rows - 1);
+        this.forwardUsableCells = new long[(cells + 63) / 64];
+        this.backwardUsableCells = new long[(cells + 63) / 64];
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int point = row * columns + column;
+                double x = getX(column);
+                double z = getZ(row);
+                if (solver.solveArmJointPositionsAnalytically(x, z, true, scratch)) {
+                    forwardLowerAngles[point] = (float) scratch[0];
+                    upperAngles[point] = (float) scratch[1];
+                    solver.solveArmJointPositionsAnalytically(x, z, false, scratch);
+                    backwardLowerAngles[point] = (float) scratch[0];
+                } else {
+                    forwardLowerAngles[point] = Float.NaN;
+                    backwardLowerAngles[point] = Float.NaN;
+                    upperAngles[point] = Float.NaN;
+                }
+            }
+        }
+
+        for (int row = 0; row < rows - 1; row++) {
+            for (int column = 0; column < columns - 1; column++) {
+                int cell = row * (columns - 1) + column;
+                if (isCellAccurate(solver, column, row, true)) {
+                    forwardUsableCells[cell >>> 6] |= 1L << cell;
+                }
+                if (isCellAccurate(solver, column, row, false)) {
+                    backwardUsableCells[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up the joint angles for an end effector position.
+     * @param x The distance in front of or behind the fixed arm pivot, in inches.
+     * @param z The distance above or below the fixed arm pivot, in inches.
+     * @param forward True for the solution with a positive upper joint angle, false for the negative one.
+     * @param solution Output: the lower joint angle, then the upper joint angle, in degrees.
+     * @return False if the table doesn't cover this position accurately, in which case the solution is left alone.
+     */
+    public boolean solve(double x, double z, boolean forward, double[] solution) {
+        double u = (x - minX) / spacingInches;
+        double v = (z - minZ) / spacingInches;
+        // Written this way round so NaN is rejected too.
+        if (!(u >= 0 && v >= 0)) {
+            return false;
+        }
+        int column = (int) u;
+        int row = (int) v;
+        if (column >= columns - 1 || row >= rows - 1) {
+            return false;
+        }
+        int cell = row * (columns - 1) + column;
+        long[] usableCells = forward ? forwardUsableCells : backwardUsableCells;
+        if ((usableCells[cell >>> 6] & (1L << cell)) == 0) {
+            return false;
+        }
+
+        double fractionX = u - column;
+        double fractionZ = v - row;
+        int point = row * columns + column;
+        double upperAngle = interpolate(upperAngles, point, fractionX, fractionZ);
+        solution[0] = interpolate(forward ? forwardLowerAngles : backwardLowerAngles, point, fractionX, fractionZ);
+        solution[1] = forward ? upperAngle : -upperAngle;
+        return true;
+    }
+
+    /**
+     * @return The largest difference from the analytic solution allowed anywhere the table is used, in degrees.
+     */
+    public double getMaxErrorDegrees() {
+        return maxErrorDegrees;
+    }
+
+    /**
+     * @return The fraction of cells where the table is used for the given solution, from 0 to 1.
+     */
+    public double getCoverage(boolean forward) {
+        long[] usableCells = forward ? forwardUsableCells : backwardUsableCells;
+        long usable = 0;
+        for (long bits : usableCells) {
+            usable += Long.bitCount(bits);
+        }
+        return (double) usable / ((columns - 1) * (rows - 1));
+    }
+
+    private boolean isCellAccurate(ArmPositionSolver solver, int column, int row, boolean forward) {
+        float[] lowerAngles = forward ? forwardLowerAngles : backwardLowerAngles;
+        int point = row * columns + column;
+        // Only interpolate between corners that all have solutions.
+        if (Float.isNaN(lowerAngles[point]) || Float.isNaN(lowerAngles[point + 1])
+                || Float.isNaN(lowerAngles[point + columns]) || Float.isNaN(lowerAngles[point + columns + 1])
+                || Float.isNaN(upperAngles[point]) || Float.isNaN(upperAngles[point + 1])
+                || Float.isNaN(upperAngles[point + columns]) || Float.isNaN(upperAngles[point + columns + 1])) {
+            return false;
+        }
+
+        for (double[] checkPoint : CHECK_POINTS) {
+            double x = getX(column) + checkPoint[0] * spacingInches;
+            double z = getZ(row) + checkPoint[1] * spacingInches;
+            if (!solver.solveArmJointPositionsAnalytically(x, z, forward, scratch)) {
+                return false;
+            }
+            double upperAngle = interpolate(upperAngles, point, checkPoint[0], checkPoint[1]);
+            double lowerError = Math.abs(
+                interpolate(lowerAngles, point, checkPoint[0], checkPoint[1]) - scratch[0]);
+            double upperError = Math.abs((forward ? upperAngle : -upperAngle) - scratch[1]);
+            // Also catches a NaN analytic solution.
+            if (!(lowerError <= maxErrorDegrees && upperError <= maxErrorDegrees)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double interpolate(float[] values, int point, double fractionX, double fractionZ) {
+        double bottomLeft = values[point];
+        double bottomRight = values[point + 1];
+        double topLeft = values[point + columns];
+        double topRight = values[point + columns + 1];
+        double bottom = bottomLeft + (bottomRight - bottomLeft) * fractionX;
+        double top = topLeft + (topRight - topLeft) * fractionX;
+        return bottom + (top - bottom) * fractionZ;
+    }
+
+    private double getX(int column) {
+        return minX + column * spacingInches;
+    }
+
+    private double getZ(int row) {
+        return minZ + row * spacingInches;
+    }
+
+    private static boolean isAngleInRange(double angleRadians, double minRadians, double maxRadians) {
+        return angleRadians >= minRadians && angleRadians <= maxRadians;
+    }
+}
@@ -1,12 +1,20 @@
 package competition.subsystems.arm;
 
 import edu.wpi.first.math.geometry.Rotation2d;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
 import xbot.common.math.MathUtils;
 import xbot.common.math.WrappedRotation2d;
 import xbot.common.math.XYPair;
 
 public class ArmPositionSolver {
+    private static Logger log = LogManager.getLogger(ArmPositionSolver.class);
+
     private final ArmPositionSolverConfiguration configuration;
+    // Null until built. Once published, the table is never modified, so it's safe to read from any thread.
+    private volatile ArmPositionLookupTable lookupTable;
+    private boolean useLookupTable = false;
+    private Thread lookupTableBuilder;
 
     public ArmPositionSolver(ArmPositionSolverConfiguration configuration) {
         this.configuration = configuration;
@@ -31,6 +39,42 @@ public class ArmPositionSolver {
             XYPair targetEndEffectorPosition,
             XYPair currentAngles,
             boolean forceForward) {
+        // Two possible solutions, depending on if we started with upper arm angle greater than or less than zero.
+        // We don't want to cross this, because it will produce a drastically different solution.
+        boolean forward = currentAngles.y >= 0 || forceForward;
+
+        double[] solution = new double[2];
+        if (!solveArmJointPositions(targetEndEffectorPosition.x, targetEndEffectorPosition.y, forward, solution)) {
+            return new ArmPositionState(new Rotation2d(0), new Rotation2d(0), false);
+        }
+        return new ArmPositionState(
+                Rotation2d.fromDegrees(solution[0]),
+                Rotation2d.fromDegrees(solution[1]), true);
+    }
+
+    /**
+     * Allocation-free version of {@link #solveArmJointPositions(XYPair, XYPair, boolean)}. Uses the lookup table
+     * if it's enabled, built, and covers the target, otherwise solves analytically.
+     * @param x The distance in front of or behind the fixed arm pivot, in inches.
+     * @param z The distance above or below the fixed arm pivot, in inches.
+     * @param forward True for the solution with a positive upper joint angle, false for the negative one.
+     * @param solution Output: the lower joint angle, then the upper joint angle, in degrees.
+     * @return False if the target is out of reach, in which case the solution is left alone.
+     */
+    public boolean solveArmJointPositions(double x, double z, boolean forward, double[] solution) {
+        if (useLookupTable) {
+            ArmPositionLookupTable table = lookupTable;
+            if (table != null && table.solve(x, z, forward, solution)) {
+                return true;
+            }
+        }
+        return solveArmJointPositionsAnalytically(x, z, forward, solution);
+    }
+
+    /**
+     * Same as {@link #solveArmJointPositions(double, double, boolean, double[])}, but never uses the lookup table.
+     */
+    public boolean solveArmJointPositionsAnalytically(double x, double z, boolean forward, double[] solution) {
         // The arm is made up of two links. LinkA is fixed to a pivot point on the base of the robot (Joint1).
         // LinkB is attached to the other end of LinkA at Joint2.
 
@@ -41,52 +85,97 @@ public class ArmPositionSolver {
         //    /       \
         //  J1  - - -  EE
         // A = arccos((b^2 + c^2 - a^2) / 2bc)
+        double magnitude = Math.sqrt(x * x + z * z);
 
         // Check that the target position is within reach
-        if (targetEndEffectorPosition.getMagnitude() > this.configuration.getUpperArmLength() + this.configuration.getLowerArmLength()) {
-            return new ArmPositionState(new Rotation2d(0), new Rotation2d(0), false);
+        if (magnitude > this.configuration.getUpperArmLength() + this.configuration.getLowerArmLength()) {
+            return false;
         }
 
         double angleLowerJoint = getAngleFromCosineLaw(
                 this.configuration.getLowerArmLength(),
-                targetEndEffectorPosition.getMagnitude(),
+                magnitude,
                 this.configuration.getUpperArmLength()
         );
         double angleUpperJoint = getAngleFromCosineLaw(
                 this.configuration.getLowerArmLength(),
                 this.configuration.getUpperArmLength(),
-                targetEndEffectorPosition.getMagnitude()
+                magnitude
         );
+        double angleToTarget = Math.toDegrees(Math.atan2(z, x));
 
-        // Two possible solutions, depending on if we started with upper arm angle greater than or less than zero.
-        // We don't want to cross this, because it will produce a drastically different solution.
-        if (currentAngles.y >= 0 || forceForward) {
-            double angleLowerJointRelativeToHorizon = angleLowerJoint + targetEndEffectorPosition.getAngle();
-
-            XYPair lowerArmEndpoint = new XYPair(Rotation2d.fromDegrees(angleLowerJointRelativeToHorizon)).scale(configuration.getLowerArmLength());
-            XYPair upperArmEndpoint = new XYPair(Rotation2d.fromDegrees(angleLowerJoint + angleUpperJoint)).scale(configuration.getLowerArmLength());
-
-            return new ArmPositionState(
-                    Rotation2d.fromDegrees(angleLowerJointRelativeToHorizon),
-                    Rotation2d.fromDegrees(angleUpperJoint), true);
+        if (forward) {
+            solution[0] = angleToTarget + angleLowerJoint;
+            solution[1] = angleUpperJoint;
         } else {
-            double angleLowerJointRelativeToHorizon = targetEndEffectorPosition.getAngle() - angleLowerJoint;
-
-            XYPair lowerArmEndpoint = new XYPair(Rotation2d.fromDegrees(angleLowerJointRelativeToHorizon)).scale(configuration.getLowerArmLength());
-            XYPair upperArmEndpoint = new XYPair(Rotation2d.fromDegrees(angleLowerJoint + angleUpperJoint)).scale(configuration.getLowerArmLength());
-
-            return new ArmPositionState(
-                    Rotation2d.fromDegrees(angleLowerJointRelativeToHorizon),
-                    Rotation2d.fromDegrees(-angleUpperJoint), true);
+            solution[0] = angleToTarget - angleLowerJoint;
+            solution[1] = -angleUpperJoint;
         }
+        return true;
     }
 
     private static double getAngleFromCosineLaw(double adjacent1Length, double adjacent2length, double oppositeLength) {
-        double value = (Math.pow(adjacent1Length, 2) + Math.pow(adjacent2length, 2) - Math.pow(oppositeLength, 2))
+        double value = (adjacent1Length * adjacent1Length + adjacent2length * adjacent2length - oppositeLength * oppositeLength)
                 / (2 * adjacent1Length * adjacent2length);
         return Math.toDegrees(Math.acos(value));
     }
 
+    /**
+     * Whether to solve using the lookup table where it's accurate enough, rather than always solving analytically.
+     * Until the table has been built (by {@link #startBuildingLookupTable()} or {@link #getLookupTable()}), everything
+     * is solved analytically.
+     */
+    public void setUseLookupTable(boolean useLookupTable) {
+        this.useLookupTable = useLookupTable;
+    }
+
+    /**
+     * Starts building the lookup table on its own thread, so startup doesn't have to wait for it. The solver keeps
+     * solving analytically until the table is ready.
+     */
+    public synchronized void startBuildingLookupTable() {
+        if (lookupTable != null || lookupTableBuilder != null) {
+            return;
+        }
+        lookupTableBuilder = new Thread(() -> {
+            try {
+                getLookupTable();
+            } catch (RuntimeException e) {
+                log.error("Couldn't build the arm lookup table, solving analytically instead", e);
+            }
+        }, "ArmLookupTableBuilder");
+        lookupTableBuilder.setDaemon(true);
+        // Anything time-sensitive on the robot should win over this.
+        lookupTableBuilder.setPriority(Thread.MIN_PRIORITY);
+        lookupTableBuilder.start();
+    }
+
+    /**
+     * @return True once the lookup table has been built and the solver can use it.
+     */
+    public boolean isLookupTableReady() {
+        return lookupTable != null;
+    }
+
+    /**
+     * Gets the lookup table, building it on this thread if it hasn't been built yet.
+     */
+    public ArmPositionLookupTable getLookupTable() {
+        ArmPositionLookupTable table = lookupTable;
+        if (table == null) {
+            synchronized (this) {
+                table = lookupTable;
+                if (table == null) {
+                    long startNanos = System.nanoTime();
+                    table = new ArmPositionLookupTable(this);
+                    lookupTable = table;
+                    log.info("Built arm lookup table in " + (System.nanoTime() - startNanos) / 1_000_000 + "ms");
+                }
+            }
+        }
+        return table;
+    }
+
     public XYPair getPositionFromRadians(double lowerArmAngleRadians, double upperArmAngleRadians) {
         // Once the four bar on the arm was removed, the upper arm angle is now effectively coupled to the lower arm
         // angle, so the effective angle needs to be adjusted. For example, if the lower arm is at 45 degrees, and the
@@ -1,6 +1,10 @@
 package competition.subsystems.arm;
 
 import com.revrobotics.CANSparkMax;
+import competition.subsystems.DeduplicatedSparkMaxOutput;
+import competition.subsystems.StatusFrameScheduler;
+import competition.subsystems.StatusFrameScheduler.ScheduledDevice;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
 import competition.subsystems.pose.PoseSubsystem;
 import edu.wpi.first.math.geometry.Rotation2d;
 import org.apache.log4j.LogManager;
@@ -27,7 +31,12 @@ public abstract class ArmSegment {
     private final DoubleProperty neoPositionProp;
     private final DoubleProperty neoPositionInDegreesProp;
     private final DoubleProperty compensatedPositionProp;
+    private final DoubleProperty velocityFeedForwardProp;
     private final PoseSubsystem pose;
+    private DeduplicatedSparkMaxOutput leaderOutput;
+    // Voltage needed to hold the arm up against gravity, worked out from both arm angles by the UnifiedArmSubsystem.
+    private double gravityFeedForwardVolts = 0;
+    private ScheduledDevice leaderStatusFrames;
 
     private static Logger log = LogManager.getLogger(ArmSegment.class);
 
@@ -36,6 +45,12 @@ public abstract class ArmSegment {
     double upperDegreeReference;
     double lowerDegreeReference;
 
+    // Sensor readings cached once per loop by refreshDataFrame(). Until that's been called at least once,
+    // we read the sensors directly.
+    private boolean hasDataFrame = false;
+    private double cachedAbsoluteEncoderDegrees;
+    private double cachedLeaderMotorPosition;
+
     public ArmSegment(String prefix, PropertyFactory propFactory, PoseSubsystem pose, double upperDegreeReference, double lowerDegreeReference) {
         propFactory.setPrefix(prefix);
         this.prefix= prefix;
@@ -50,13 +65,21 @@ public abstract class ArmSegment {
         neoPositionProp = propFactory.createEphemeralProperty("NeoPosition", 0.0);
         neoPositionInDegreesProp = propFactory.createEphemeralProperty("NeoPositionInDegrees", 0.0);
         compensatedPositionProp = propFactory.createEphemeralProperty("CompensatedPosition", 0.0);
+        // Extra voltage to keep up with a moving target. Needs tuning on the robot.
+        velocityFeedForwardProp = propFactory.createPersistentProperty("VelocityFeedForwardVoltsPerDegreePerSecond", 0.0);
     }
 
-    protected void configureCommonMotorProperties() {
+    protected void configureCommonMotorProperties(PropertyFactory propFactory, StatusFrameScheduler statusFrameScheduler) {
         getLeaderMotor().setOpenLoopRampRate(0.05);
         getLeaderMotor().setClosedLoopRampRate(0.05);
         getLeaderMotor().setIdleMode(CANSparkMax.IdleMode.kBrake);
         getFollowerMotor().setIdleMode(CANSparkMax.IdleMode.kBrake);
+        // The target is recalculated from the sensors every loop, so it jitters a little even when the arm is holding
+        // still. Anything under a hundredth of a motor rotation isn't worth sending.
+        leaderOutput = new DeduplicatedSparkMaxOutput(getLeaderMotor(), "LeaderMotor", propFactory,
+                0.01, DeduplicatedSparkMaxOutput.DEFAULT_REFRESH_INTERVAL_SECONDS);
+        leaderStatusFrames = statusFrameScheduler.registerSparkMax(getLeaderMotor(), prefix + "/LeaderMotor", SparkMaxProfile.ArmLeader);
+        statusFrameScheduler.registerSparkMax(getFollowerMotor(), prefix + "/FollowerMotor", SparkMaxProfile.Follower);
     }
 
     protected abstract XCANSparkMax getLeaderMotor();
@@ -68,10 +91,19 @@ public abstract class ArmSegment {
 
     protected abstract double getUpperLimitInDegrees();
     protected abstract double getLowerLimitInDegrees();
-    protected abstract double getVoltageOffset();
     protected abstract void setUpperLimitInDegrees(double upperLimitInDegrees);
     protected abstract void setLowerLimitInDegrees(double lowerLimitInDegrees);
 
+    /**
+     * @return The fastest this segment should be asked to move, in degrees per second.
+     */
+    public abstract double getMaxVelocityInDegreesPerSecond();
+
+    /**
+     * @return The fastest this segment should be asked to speed up or slow down, in degrees per second squared.
+     */
+    public abstract double getMaxAccelerationInDegreesPerSecondSquared();
+
     public void setPower(double power) {
         if (isMotorReady()) {
 
@@ -86,7 +118,10 @@ public abstract class ArmSegment {
                 power = MathUtils.constrainDouble(power, 0, 1);
             }
 
-            getLeaderMotor().set(power);
+            if (power != 0) {
+                leaderStatusFrames.markActive();
+            }
+            leaderOutput.set(power);
         }
     }
 
@@ -102,10 +137,31 @@ public abstract class ArmSegment {
         this.usePitchCompensationProp.set(enabled);
     }
 
+    /**
+     * Reads the arm sensors and caches them for the rest of this loop.
+     */
+    public void refreshDataFrame() {
+        if (isAbsoluteEncoderReady()) {
+            cachedAbsoluteEncoderDegrees = getAbsoluteEncoder().getAbsoluteDegrees();
+        }
+        if (isMotorReady()) {
+            cachedLeaderMotorPosition = getLeaderMotor().getPosition();
+        }
+        hasDataFrame = true;
+    }
+
+    private double getAbsoluteEncoderDegrees() {
+        return hasDataFrame ? cachedAbsoluteEncoderDegrees : getAbsoluteEncoder().getAbsoluteDegrees();
+    }
+
+    private double getLeaderMotorPosition() {
+        return hasDataFrame ? cachedLeaderMotorPosition : getLeaderMotor().getPosition();
+    }
+
     public double getArmPositionFromAbsoluteEncoderInDegrees() {
         if (isAbsoluteEncoderReady()) {
             return ContiguousDouble.reboundValue(
-                    getAbsoluteEncoder().getAbsoluteDegrees()- getAbsoluteEncoderOffsetInDegrees(),
+                    getAbsoluteEncoderDegrees() - getAbsoluteEncoderOffsetInDegrees(),
                     lowerDegreeReference,
                     upperDegreeReference);
         }
@@ -114,7 +170,7 @@ public abstract class ArmSegment {
 
     public double getArmPositionFromMotorEncoderInDegrees() {
         if (isMotorReady()) {
-            return getLeaderMotor().getPosition() * getDegreesPerMotorRotation() - motorEncoderOffsetInDegrees;
+            return getLeaderMotorPosition() * getDegreesPerMotorRotation() - motorEncoderOffsetInDegrees;
         }
         return 0;
     }
@@ -178,7 +234,28 @@ public abstract class ArmSegment {
         return angle >= getLowerLimitInDegrees() && angle <= getUpperLimitInDegrees();
     }
 
+    /**
+     * Sets the voltage needed to hold this segment up against gravity. It's added to the motor's output whenever
+     * the segment is moved to an angle.
+     */
+    public void setGravityFeedForwardVolts(double gravityFeedForwardVolts) {
+        this.gravityFeedForwardVolts = gravityFeedForwardVolts;
+    }
+
+    public double getGravityFeedForwardVolts() {
+        return gravityFeedForwardVolts;
+    }
+
     public void setArmToAngle(Rotation2d angle) {
+        setArmToAngle(angle, 0);
+    }
+
+    /**
+     * Moves the arm towards an angle that is itself moving, e.g. along a trajectory.
+     * @param angle The target angle.
+     * @param velocityDegreesPerSecond How fast the target angle is changing.
+     */
+    public void setArmToAngle(Rotation2d angle, double velocityDegreesPerSecond) {
 
         // Coerce angle to a safe angle.
         // Should already be done by the UnifiedArm, but just in case.
@@ -194,13 +271,17 @@ public abstract class ArmSegment {
 
         if (isAbsoluteEncoderReady() && isMotorReady()) {
             double delta = WrappedRotation2d.fromDegrees(targetAngleDegrees - getArmPositionInDegrees()).getDegrees();
+            // Holding still doesn't need fresh data, but moving does.
+            if (Math.abs(delta) > 1) {
+                leaderStatusFrames.markActive();
+            }
             double deltaInMotorRotations = delta / getDegreesPerMotorRotation();
-            double goalPosition = deltaInMotorRotations + getLeaderMotor().getPosition();
-            getLeaderMotor().setReference(
+            double goalPosition = deltaInMotorRotations + getLeaderMotorPosition();
+            leaderOutput.setReference(
                     goalPosition,
                     CANSparkMax.ControlType.kPosition,
                     0,
-                    getVoltageOffset());
+                    gravityFeedForwardVolts + velocityFeedForwardProp.get() * velocityDegreesPerSecond);
         }
     }
 
@@ -210,7 +291,8 @@ public abstract class ArmSegment {
         }
 
         if (isMotorReady()) {
-            neoPositionProp.set(getLeaderMotor().getPosition());
+            leaderOutput.periodic();
+            neoPositionProp.set(getLeaderMotorPosition());
             neoPositionInDegreesProp.set(getArmPositionFromMotorEncoderInDegrees());
         }
 
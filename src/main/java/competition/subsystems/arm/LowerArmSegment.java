@@ -4,6 +4,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import competition.electrical_contract.ElectricalContract;
+import competition.subsystems.StatusFrameScheduler;
 import competition.subsystems.pose.PoseSubsystem;
 import xbot.common.controls.actuators.XCANSparkMax;
 import xbot.common.controls.actuators.XCANSparkMax.XCANSparkMaxFactory;
@@ -27,14 +28,14 @@ public class LowerArmSegment extends ArmSegment {
 
     private final DoubleProperty lowerLimitInDegrees;
     private final DoubleProperty upperLimitInDegrees;
-
-    // used for the feed forward part of the arm pid
-    private final DoubleProperty feedForwardVoltageBase;
+    private final DoubleProperty maxVelocityProp;
+    private final DoubleProperty maxAccelerationProp;
 
 
     @Inject
     public LowerArmSegment(XCANSparkMaxFactory sparkMaxFactory, XDutyCycleEncoder.XDutyCycleEncoderFactory dutyCycleEncoderFactory,
-                           ElectricalContract eContract, PropertyFactory propFactory, PoseSubsystem pose){
+                           ElectricalContract eContract, PropertyFactory propFactory, PoseSubsystem pose,
+                           StatusFrameScheduler statusFrameScheduler){
         super("UnifiedArmSubsystem/LowerArm", propFactory, pose, 270, -90);
         String prefix = "UnifiedArmSubsystem/LowerArm";
 
@@ -55,7 +56,8 @@ public class LowerArmSegment extends ArmSegment {
         absoluteEncoderOffsetInDegreesProp = propFactory.createPersistentProperty("AbsoluteEncoderOffsetInDegrees", 100.0);
         lowerLimitInDegrees = propFactory.createPersistentProperty("LowerLimitInDegrees", 35);
         upperLimitInDegrees = propFactory.createPersistentProperty("UpperLimitInDegrees", 130);
-        feedForwardVoltageBase = propFactory.createPersistentProperty("FeedForoward Voltage Base", 2.0);
+        maxVelocityProp = propFactory.createPersistentProperty("MaxVelocityDegreesPerSecond", 90);
+        maxAccelerationProp = propFactory.createPersistentProperty("MaxAccelerationDegreesPerSecondSquared", 180);
 
         this.contract = eContract;
         if(contract.isLowerArmReady()){
@@ -64,7 +66,7 @@ public class LowerArmSegment extends ArmSegment {
 
             leftMotor.follow(rightMotor, contract.getLowerArmLeftMotor().inverted);
 
-            configureCommonMotorProperties();
+            configureCommonMotorProperties(propFactory, statusFrameScheduler);
         }
         if (contract.isLowerArmEncoderReady()) {
             this.absoluteEncoder = dutyCycleEncoderFactory.create(contract.getLowerArmEncoder());
@@ -125,8 +127,13 @@ public class LowerArmSegment extends ArmSegment {
     }
 
     @Override
-    protected double getVoltageOffset() {
-        return feedForwardVoltageBase.get() * Math.cos(getArmPositionInRadians());
+    public double getMaxVelocityInDegreesPerSecond() {
+        return maxVelocityProp.get();
+    }
+
+    @Override
+    public double getMaxAccelerationInDegreesPerSecondSquared() {
+        return maxAccelerationProp.get();
     }
 
     @Override
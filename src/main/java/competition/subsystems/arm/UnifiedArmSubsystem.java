@@ -1,6 +1,9 @@
 package competition.subsystems.arm;
 
 import competition.electrical_contract.ElectricalContract;
+import competition.subsystems.DataFrameRefreshable;
+import competition.subsystems.RobotStateFrame;
+import competition.trajectory.SynchronizedJointTrajectory;
 import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
@@ -21,17 +24,22 @@ import xbot.common.properties.DoubleProperty;
 import xbot.common.properties.PropertyFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
+import java.util.List;
 import java.util.function.Supplier;
 
 @Singleton
-public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
+public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> implements DataFrameRefreshable {
 
     public LowerArmSegment lowerArm;
     public UpperArmSegment upperArm;
     public XSolenoid lowerArmBrakeSolenoid;
     private XYPair targetPosition;
+    private double targetLowerArmVelocity;
+    private double targetUpperArmVelocity;
     public final ArmPositionSolver solver;
+    public final ArmGravityFeedForward gravityFeedForward;
     private final DoubleProperty lowerArmTarget;
     private final DoubleProperty upperArmTarget;
     private final DoubleProperty currentXPosition;
@@ -100,6 +108,11 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
 
     protected final BooleanProperty areBrakesEngaged;
 
+    protected final DoubleProperty lowerArmBrakeActuationSeconds;
+
+    // When the brake solenoid was last switched to clamp the lower arm.
+    private double brakeEngagedTimestamp = Double.NEGATIVE_INFINITY;
+
     protected final BooleanProperty brakeDisabled;
 
     final Mechanism2d currentArm;
@@ -111,6 +124,9 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
     final MechanismLigament2d ghostUpperArm;
 
     private boolean engageSpecialUpperArmOverride = false;
+    private SynchronizedJointTrajectory activeTrajectory;
+    private double activeTrajectoryStartTime;
+    private final Provider<RobotStateFrame> robotStateFrameProvider;
     public boolean cubeMode = false;
 
     @Inject
@@ -119,8 +135,10 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
             UpperArmSegment upperArm,
             XSolenoid.XSolenoidFactory xSolenoidFactory,
             ElectricalContract eContract,
-            PropertyFactory pf) {
+            PropertyFactory pf,
+            Provider<RobotStateFrame> robotStateFrameProvider) {
         this.lowerArm = lowerArm;
+        this.robotStateFrameProvider = robotStateFrameProvider;
         this.upperArm = upperArm;
         this.lowerArmBrakeSolenoid = xSolenoidFactory.create(eContract.getLowerArmBrakeSolenoid().channel);
         ArmPositionSolverConfiguration armConfig = new ArmPositionSolverConfiguration(
@@ -132,12 +150,16 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
             Rotation2d.fromDegrees(-5.0)
         );
         solver = new ArmPositionSolver(armConfig);
+        // The robot builds the table in the background during startup.
+        solver.setUseLookupTable(true);
         pf.setPrefix(this);
         calibratedProp = pf.createEphemeralProperty("Calibrated", true);
         upperArmTarget = pf.createEphemeralProperty("UpperArmTarget", 0.0);
         lowerArmTarget = pf.createEphemeralProperty("LowerArmTarget", 0.0);
         areBrakesEngaged = pf.createEphemeralProperty("AreBrakesEngaged", false);
         brakeDisabled = pf.createEphemeralProperty("Brake disable override", false);
+        // How long the brake takes to clamp down once the solenoid is switched.
+        lowerArmBrakeActuationSeconds = pf.createPersistentProperty("LowerArmBrakeActuationSeconds", 0.15);
         targetPosition = getCurrentValue();
         currentXPosition = pf.createEphemeralProperty("Current X Position", 0.0);
         currentZPosition = pf.createEphemeralProperty("Current Z Position", 0.0);
@@ -171,6 +193,8 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
         maximumZPosition = pf.createPersistentProperty("Maximum Z Position", 78 - 8 - 2);
         minimumZPosition = pf.createPersistentProperty("Minimum Z Position", -2);
 
+        gravityFeedForward = new ArmGravityFeedForward(armConfig.getLowerArmLength(), pf);
+
         SmartDashboard.putData("Mechanisms/RealArm", currentArm);
 
         areBrakesEngaged.set(true);
@@ -182,6 +206,10 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
     }
 
     public XYPair getKeyArmAngles(KeyArmPosition keyArmPosition, RobotFacing facing) {
+        return getKeyArmAngles(keyArmPosition, facing, gamePieceMode);
+    }
+
+    public XYPair getKeyArmAngles(KeyArmPosition keyArmPosition, RobotFacing facing, GamePieceMode gamePieceMode) {
         XYPair candidate = new XYPair();
         switch (keyArmPosition) {
             case LowGoal:
@@ -298,6 +326,10 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
                 MathUtils.constrainDouble(targetPosition.y, minimumZ, maximumZ));
     }
 
+    public double getMaximumXPosition() {
+        return maximumXPosition.get();
+    }
+
     public double getMaximumZPosition() {
         return maximumZPosition.get();
     }
@@ -309,12 +341,41 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
 
     @Override
     public void setTargetValue(XYPair value) {
+        setTargetValue(value, 0, 0);
+    }
+
+    /**
+     * Sets a target that is itself moving (e.g. a chase point along a path), so the maintainer can feed that motion
+     * forward rather than waiting for error to build up.
+     * @param lowerArmVelocity How fast the lower arm target is changing, in degrees per second.
+     * @param upperArmVelocity How fast the upper arm target is changing, in degrees per second.
+     */
+    public void setTargetValue(XYPair value, double lowerArmVelocity, double upperArmVelocity) {
         // We need to coerce targets within legal ranges; otherwise some commands will never finish.
         XYPair coercedTarget = new XYPair(
                 lowerArm.coerceAngleWithinLimits(value.x),
                 upperArm.coerceAngleWithinLimits(value.y)
         );
         this.targetPosition = coercedTarget;
+        // A target pinned against a limit isn't going anywhere.
+        this.targetLowerArmVelocity = coercedTarget.x == value.x ? lowerArmVelocity : 0;
+        this.targetUpperArmVelocity = coercedTarget.y == value.y ? upperArmVelocity : 0;
+        // Whatever set this target isn't following the old trajectory any more.
+        this.activeTrajectory = null;
+    }
+
+    /**
+     * @return How fast the lower arm target is changing, in degrees per second.
+     */
+    public double getTargetLowerArmVelocity() {
+        return targetLowerArmVelocity;
+    }
+
+    /**
+     * @return How fast the upper arm target is changing, in degrees per second.
+     */
+    public double getTargetUpperArmVelocity() {
+        return targetUpperArmVelocity;
     }
 
     /**
@@ -323,7 +384,7 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
      */
     @Override
     public void setPower(XYPair power) {
-        if (areBrakesEngaged.get()) {
+        if (isLowerArmBrakeClamped()) {
             lowerArm.setPower(0);
         } else {
             lowerArm.setPower(power.x);
@@ -332,6 +393,16 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
     }
 
     public void setArmsToAngles(Rotation2d lowerArmAngle, Rotation2d upperArmAngle) {
+        setArmsToAngles(lowerArmAngle, upperArmAngle, 0, 0);
+    }
+
+    /**
+     * Moves the arms towards angles that are themselves moving, e.g. along a trajectory.
+     * @param lowerArmVelocity How fast the lower arm target is changing, in degrees per second.
+     * @param upperArmVelocity How fast the upper arm target is changing, in degrees per second.
+     */
+    public void setArmsToAngles(
+            Rotation2d lowerArmAngle, Rotation2d upperArmAngle, double lowerArmVelocity, double upperArmVelocity) {
 
         boolean encodersPluggedIn = areEncodersPluggedIn();
 
@@ -343,10 +414,11 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
         } else {
             // Encoders are working, so we can move the arms.
             // First, consider the lower arm. If the brakes are engaged, we shouldn't try to power through them.
-            if (areBrakesEngaged.get() && !getDisableBrake()) {
+            // Until the brake has actually clamped down, though, the lower arm still needs holding in place.
+            if (isLowerArmBrakeClamped() && !getDisableBrake()) {
                 lowerArm.setPower(0);
             } else {
-                lowerArm.setArmToAngle(lowerArmAngle);
+                lowerArm.setArmToAngle(lowerArmAngle, lowerArmVelocity);
             }
 
             // Second, consider the upper arm. It doesn't have a brake, so we are free to drive it anytime.
@@ -355,11 +427,63 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
                 // do nothing to upper arm. Don't even mess with power.
             } else {
                 // regular behavior.
-                upperArm.setArmToAngle(upperArmAngle);
+                upperArm.setArmToAngle(upperArmAngle, upperArmVelocity);
             }
         }
     }
 
+    /**
+     * Creates a trajectory through the given joint angles, using each arm segment's speed limits.
+     * @param anglesToVisit X: lower arm degrees, Y: upper arm degrees. Starts with where the arm is now.
+     */
+    public SynchronizedJointTrajectory createTrajectory(List<XYPair> anglesToVisit) {
+        return new SynchronizedJointTrajectory(
+                anglesToVisit,
+                lowerArm.getMaxVelocityInDegreesPerSecond(),
+                lowerArm.getMaxAccelerationInDegreesPerSecondSquared(),
+                upperArm.getMaxVelocityInDegreesPerSecond(),
+                upperArm.getMaxAccelerationInDegreesPerSecondSquared());
+    }
+
+    /**
+     * Has the maintainer follow a trajectory rather than going straight to the target. The target should be set to
+     * the trajectory's final point first, since setting the target clears the trajectory.
+     * @param trajectory The trajectory to follow.
+     * @param startTime FPGA timestamp the trajectory starts at.
+     */
+    public void setActiveTrajectory(SynchronizedJointTrajectory trajectory, double startTime) {
+        this.activeTrajectory = trajectory;
+        this.activeTrajectoryStartTime = startTime;
+    }
+
+    public void clearActiveTrajectory() {
+        this.activeTrajectory = null;
+    }
+
+    /**
+     * @return The trajectory the maintainer is following, or null if it's going straight to the target.
+     */
+    public SynchronizedJointTrajectory getActiveTrajectory() {
+        return activeTrajectory;
+    }
+
+    public double getActiveTrajectoryStartTime() {
+        return activeTrajectoryStartTime;
+    }
+
+    /**
+     * Gets the shortest time the arm can move between two sets of joint angles, given each segment's speed limits.
+     */
+    public double getMinimumMoveDuration(XYPair fromAngles, XYPair toAngles) {
+        return SynchronizedJointTrajectory.getMinimumDuration(
+                toAngles.x - fromAngles.x,
+                toAngles.y - fromAngles.y,
+                lowerArm.getMaxVelocityInDegreesPerSecond(),
+                lowerArm.getMaxAccelerationInDegreesPerSecondSquared(),
+                upperArm.getMaxVelocityInDegreesPerSecond(),
+                upperArm.getMaxAccelerationInDegreesPerSecondSquared());
+    }
+
     private boolean areEncodersPluggedIn() {
         // If our absolute encoders have come unplugged, then we are about to have a very bad day.
         // When they become unplugged, they return a native value of 0. This means that any read of the
@@ -441,6 +565,22 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
         return areBrakesEngaged.get();
     }
 
+    /**
+     * @return True once the brake has been engaged for long enough to have clamped down on the lower arm.
+     */
+    public boolean isLowerArmBrakeClamped() {
+        return areBrakesEngaged.get()
+                && robotStateFrameProvider.get().getTimestamp() - brakeEngagedTimestamp
+                    >= lowerArmBrakeActuationSeconds.get();
+    }
+
+    /**
+     * @return How long the brake takes to clamp down once the solenoid is switched, in seconds.
+     */
+    public double getLowerArmBrakeActuationSeconds() {
+        return lowerArmBrakeActuationSeconds.get();
+    }
+
     public void setDisableBrake(boolean disabled) {
         brakeDisabled.set(disabled);
     }
@@ -524,6 +664,9 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
     //set brakes for lower arm
     public void setBrake(boolean on){
         if(on){
+            if (!areBrakesEngaged.get()) {
+                brakeEngagedTimestamp = robotStateFrameProvider.get().getTimestamp();
+            }
             lowerArmBrakeSolenoid.setOn(false);
             areBrakesEngaged.set(true);
         } else {
@@ -542,6 +685,22 @@ public class UnifiedArmSubsystem extends BaseSetpointSubsystem<XYPair> {
         ghostUpperArm.setAngle(ghostArmAngles.getY() + 180);
     }
 
+    @Override
+    public void refreshDataFrame() {
+        lowerArm.refreshDataFrame();
+        upperArm.refreshDataFrame();
+        updateGravityFeedForward();
+    }
+
+    /**
+     * Works out how much each arm segment needs to push to hold itself up, from where the arms are now.
+     */
+    public void updateGravityFeedForward() {
+        gravityFeedForward.calculate(lowerArm.getArmPositionInDegrees(), upperArm.getArmPositionInDegrees());
+        lowerArm.setGravityFeedForwardVolts(gravityFeedForward.getLowerArmVolts());
+        upperArm.setGravityFeedForwardVolts(gravityFeedForward.getUpperArmVolts());
+    }
+
     @Override
     public void periodic() {
         lowerArmTarget.set(getTargetValue().x);
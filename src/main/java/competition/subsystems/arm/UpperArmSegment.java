@@ -5,6 +5,7 @@ import javax.inject.Singleton;
 
 import com.revrobotics.CANSparkMax;
 import competition.electrical_contract.ElectricalContract;
+import competition.subsystems.StatusFrameScheduler;
 import competition.subsystems.pose.PoseSubsystem;
 import xbot.common.controls.actuators.XCANSparkMax;
 import xbot.common.controls.actuators.XCANSparkMax.XCANSparkMaxFactory;
@@ -27,10 +28,13 @@ public class UpperArmSegment extends ArmSegment {
     private final DoubleProperty absoluteEncoderOffsetInDegreesProp;
     private final DoubleProperty lowerLimitInDegrees;
     private final DoubleProperty upperLimitInDegrees;
+    private final DoubleProperty maxVelocityProp;
+    private final DoubleProperty maxAccelerationProp;
 
     @Inject
     public UpperArmSegment(XCANSparkMaxFactory sparkMaxFactory, XDutyCycleEncoder.XDutyCycleEncoderFactory dutyCycleEncoderFactory,
-                           ElectricalContract eContract, PropertyFactory propFactory, PoseSubsystem pose){
+                           ElectricalContract eContract, PropertyFactory propFactory, PoseSubsystem pose,
+                           StatusFrameScheduler statusFrameScheduler){
         super("UnifiedArmSubsystem/UpperArm", propFactory, pose, 180, -180);
         String prefix = "UnifiedArmSubsystem/UpperArm";
         propFactory.setPrefix(prefix);
@@ -38,6 +42,8 @@ public class UpperArmSegment extends ArmSegment {
         absoluteEncoderOffsetInDegreesProp = propFactory.createPersistentProperty("AbsoluteEncoderOffsetInDegrees", -142.6);
         lowerLimitInDegrees = propFactory.createPersistentProperty("LowerLimitInDegrees", -130);
         upperLimitInDegrees = propFactory.createPersistentProperty("UpperLimitInDegrees", 130);
+        maxVelocityProp = propFactory.createPersistentProperty("MaxVelocityDegreesPerSecond", 180);
+        maxAccelerationProp = propFactory.createPersistentProperty("MaxAccelerationDegreesPerSecondSquared", 360);
 
         XCANSparkMaxPIDProperties motorPidDefaults = new XCANSparkMaxPIDProperties(
                 0.05, // P
@@ -56,7 +62,7 @@ public class UpperArmSegment extends ArmSegment {
 
             leftMotor.follow(rightMotor, contract.getUpperArmLeftMotor().inverted);
 
-            configureCommonMotorProperties();
+            configureCommonMotorProperties(propFactory, statusFrameScheduler);
 
             leftMotor.setSmartCurrentLimit(30);
             rightMotor.setSmartCurrentLimit(30);
@@ -118,8 +124,13 @@ public class UpperArmSegment extends ArmSegment {
     }
 
     @Override
-    protected double getVoltageOffset() {
-        return 0;
+    public double getMaxVelocityInDegreesPerSecond() {
+        return maxVelocityProp.get();
+    }
+
+    @Override
+    public double getMaxAccelerationInDegreesPerSecondSquared() {
+        return maxAccelerationProp.get();
     }
 
     @Override
@@ -1,6 +1,5 @@
 package competition.subsystems.arm.commands;
 
-import competition.subsystems.arm.ArmPositionState;
 import competition.subsystems.arm.UnifiedArmSubsystem;
 import xbot.common.command.BaseSetpointCommand;
 import xbot.common.math.XYPair;
@@ -21,6 +20,7 @@ public class ControlEndEffectorPositionCommand extends BaseSetpointCommand {
     private XYPair position;
 
     private boolean exceededLimits;
+    private final double[] targetAngles = new double[2];
 
     @Inject
     public ControlEndEffectorPositionCommand(PropertyFactory pf, UnifiedArmSubsystem arm) {
@@ -45,10 +45,12 @@ public class ControlEndEffectorPositionCommand extends BaseSetpointCommand {
     public void execute() {
         position = arm.constrainXZPosition(position.add(movementVector));
 
-        ArmPositionState newTargets = arm.solver.solveArmJointPositions(position, arm.getCurrentValue(), false);
-        if (arm.lowerArm.isAngleWithinLimits(newTargets.getLowerJointRotation().getDegrees())
-                && arm.upperArm.isAngleWithinLimits(newTargets.getUpperJointRotation().getDegrees())) {
-            arm.setTargetValue(new XYPair(newTargets.getLowerJointRotation().getDegrees(), newTargets.getUpperJointRotation().getDegrees()));
+        // Stay on the same side as the upper arm is now, since crossing over would be a drastically different solution.
+        boolean forward = arm.getCurrentValue().y >= 0;
+        if (arm.solver.solveArmJointPositions(position.x, position.y, forward, targetAngles)
+                && arm.lowerArm.isAngleWithinLimits(targetAngles[0])
+                && arm.upperArm.isAngleWithinLimits(targetAngles[1])) {
+            arm.setTargetValue(new XYPair(targetAngles[0], targetAngles[1]));
         } else {
             arm.setTargetValue(arm.getCurrentValue());
             exceededLimits = true;
@@ -1,33 +1,53 @@
 package competition.subsystems.arm.commands;
 
+import competition.subsystems.RobotStateFrame;
 import competition.subsystems.arm.UnifiedArmSubsystem;
 import competition.trajectory.SimpleTimeInterpolator;
+import competition.trajectory.SplineTimeInterpolator;
+import competition.trajectory.SynchronizedJointTrajectory;
 import competition.trajectory.XbotArmAngles;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import xbot.common.command.BaseSetpointCommand;
+import xbot.common.math.XYPair;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.List;
 
 public class InterpolatingSafeArmRouterCommand extends BaseSetpointCommand {
     private final UnifiedArmSubsystem arms;
+    private final RobotStateFrame robotStateFrame;
     private UnifiedArmSubsystem.KeyArmPosition targetArmPosition;
     private UnifiedArmSubsystem.RobotFacing targetRobotFacing;
 
-    private final SimpleTimeInterpolator armAngleInterpolator;
+    private SimpleTimeInterpolator armAngleInterpolator;
     SimpleTimeInterpolator.InterpolationResult lastResult;
+    private boolean useSplineInterpolation = false;
+
+    private SynchronizedJointTrajectory trajectory;
+    private final SynchronizedJointTrajectory.Sample trajectorySample = new SynchronizedJointTrajectory.Sample();
 
     private static Logger log = LogManager.getLogger(SimpleSafeArmRouterCommand.class);
 
     @Inject
-    public InterpolatingSafeArmRouterCommand(UnifiedArmSubsystem arms) {
+    public InterpolatingSafeArmRouterCommand(UnifiedArmSubsystem arms, RobotStateFrame robotStateFrame) {
         super(arms);
         this.arms = arms;
+        this.robotStateFrame = robotStateFrame;
+
+        armAngleInterpolator = new SplineTimeInterpolator();
+    }
 
-        armAngleInterpolator = new SimpleTimeInterpolator();
+    /**
+     * When enabled, the arm angles follow a smooth curve through the transition point rather than a sharp corner.
+     * Otherwise, the arms move straight to each point as fast as their speed limits allow.
+     * Takes effect the next time the command starts.
+     */
+    public void setUseSplineInterpolation(boolean useSplineInterpolation) {
+        this.useSplineInterpolation = useSplineInterpolation;
     }
 
     public void setTarget(UnifiedArmSubsystem.KeyArmPosition targetArmPosition, UnifiedArmSubsystem.RobotFacing targetRobotFacing) {
@@ -39,47 +59,79 @@ public class InterpolatingSafeArmRouterCommand extends BaseSetpointCommand {
     public void initialize() {
         log.info("Initializing");
         var currentAngles = arms.getCurrentValue();
-        armAngleInterpolator.initialize(new XbotArmAngles(currentAngles.toTranslation2d(), 1.0));
 
         // New logic: get to any point in two steps.
         // If the target point is higher than us, we first go to a transition point wih the same X value of our current
         // position and a Z value of our target, then we go to the target point.
 
-        // Now to build the key points
-        ArrayList<XbotArmAngles> keyPoints = new ArrayList<>();
-
         log.info("Adding SafeExternalTransition for current side");
-        keyPoints.add(new XbotArmAngles(arms.getKeyArmAngles(
+        XYPair transitionAngles = arms.getKeyArmAngles(
                 UnifiedArmSubsystem.KeyArmPosition.SafeExternalTransition,
-                UnifiedArmSubsystem.RobotFacing.Forward).toTranslation2d(), 1.0));
+                UnifiedArmSubsystem.RobotFacing.Forward);
 
         log.info("Adding target point");
-        keyPoints.add(new XbotArmAngles(arms.getKeyArmAngles(
+        XYPair targetAngles = arms.getKeyArmAngles(
                 targetArmPosition,
-                UnifiedArmSubsystem.RobotFacing.Forward).toTranslation2d(), 1.0));
+                UnifiedArmSubsystem.RobotFacing.Forward);
+
+        if (useSplineInterpolation) {
+            // Now to build the key points
+            ArrayList<XbotArmAngles> keyPoints = new ArrayList<>();
+            keyPoints.add(new XbotArmAngles(transitionAngles.toTranslation2d(), 1.0));
+            keyPoints.add(new XbotArmAngles(targetAngles.toTranslation2d(), 1.0));
+
+            // The key points have to be in place before initializing, since the spline interpolator builds its curves
+            // then.
+            armAngleInterpolator.setKeyPoints(keyPoints);
+            armAngleInterpolator.initialize(new XbotArmAngles(currentAngles.toTranslation2d(), 1.0));
+            trajectory = null;
+            arms.setDisableBrake(true);
+        } else {
+            // The maintainer follows the trajectory, and looks after the brake along the way since it knows when the
+            // lower arm is going to arrive.
+            trajectory = arms.createTrajectory(List.of(currentAngles, transitionAngles, targetAngles));
+            arms.setTargetValue(targetAngles);
+            arms.setActiveTrajectory(trajectory, robotStateFrame.getTimestamp());
+            log.info("Trajectory will take " + trajectory.getTotalTime() + " seconds");
+        }
 
         // Since we just set the target, the maintainer hasn't had a chance to execute yet and evaluate to see if we
         // are at that. To avoid premature completion, we will force the subsystem to say the maintainer
         // is not yet at the goal, since we will be checking that value immediately in execute.
         arms.setMaintainerIsAtGoal(false);
-        arms.setDisableBrake(true);
     }
 
     @Override
     public void execute() {
-        var ghost = armAngleInterpolator.calculateTarget(arms.getCurrentValue().toTranslation2d());
-        arms.setGhostArm(ghost.chasePoint);
+        if (trajectory != null) {
+            trajectory.sample(getTrajectoryTime(), trajectorySample);
+            arms.setGhostArm(new Translation2d(trajectorySample.lowerDegrees, trajectorySample.upperDegrees));
+            return;
+        }
+
+        lastResult = armAngleInterpolator.calculateTarget(arms.getCurrentValue().toTranslation2d());
+        arms.setGhostArm(lastResult.chasePoint);
         arms.setArmsToAngles(
-                Rotation2d.fromDegrees(ghost.chasePoint.getX()),
-                Rotation2d.fromDegrees(ghost.chasePoint.getY()));
+                Rotation2d.fromDegrees(lastResult.chasePoint.getX()),
+                Rotation2d.fromDegrees(lastResult.chasePoint.getY()));
     }
     @Override
     public boolean isFinished() {
+        if (trajectory != null) {
+            return arms.isMaintainerAtGoal() && trajectory.isFinished(getTrajectoryTime());
+        }
         return arms.isMaintainerAtGoal() && lastResult.isOnFinalPoint;
     }
 
+    private double getTrajectoryTime() {
+        return robotStateFrame.getTimestamp() - arms.getActiveTrajectoryStartTime();
+    }
+
     @Override
     public void end(boolean interrupted) {
+        if (trajectory != null) {
+            arms.clearActiveTrajectory();
+        }
         arms.setDisableBrake(false);
     }
 }
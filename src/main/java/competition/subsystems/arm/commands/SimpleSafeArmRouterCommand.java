@@ -1,10 +1,14 @@
 package competition.subsystems.arm.commands;
 
+import competition.subsystems.RobotStateFrame;
+import competition.subsystems.arm.ArmConfigurationSpacePlanner;
 import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.trajectory.SynchronizedJointTrajectory;
 import edu.wpi.first.math.Pair;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import xbot.common.command.BaseSetpointCommand;
+import xbot.common.math.XYPair;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
@@ -13,16 +17,23 @@ import java.util.List;
 public class SimpleSafeArmRouterCommand extends BaseSetpointCommand {
 
     private final UnifiedArmSubsystem arms;
+    private final ArmConfigurationSpacePlanner planner;
+    private final RobotStateFrame robotStateFrame;
     private List<Pair<UnifiedArmSubsystem.KeyArmPosition, UnifiedArmSubsystem.RobotFacing>> armPosesToVisit;
+    // The planned route for the maintainer to follow, or null when following the transition point rules.
+    private SynchronizedJointTrajectory plannedTrajectory;
     private UnifiedArmSubsystem.KeyArmPosition targetArmPosition;
     private UnifiedArmSubsystem.RobotFacing targetRobotFacing;
 
     private static Logger log = LogManager.getLogger(SimpleSafeArmRouterCommand.class);
 
     @Inject
-    public SimpleSafeArmRouterCommand(UnifiedArmSubsystem arms) {
+    public SimpleSafeArmRouterCommand(
+            UnifiedArmSubsystem arms, ArmConfigurationSpacePlanner planner, RobotStateFrame robotStateFrame) {
         super(arms);
         this.arms = arms;
+        this.planner = planner;
+        this.robotStateFrame = robotStateFrame;
         armPosesToVisit = new ArrayList<>();
     }
 
@@ -34,9 +45,17 @@ public class SimpleSafeArmRouterCommand extends BaseSetpointCommand {
     @Override
     public void initialize() {
         log.info("Initializing");
+        armPosesToVisit = new ArrayList<>();
+        plannedTrajectory = null;
+        // When the planner is enabled, the arm follows a route from it instead of always going through the
+        // SafeExternalTransition point. If the planner can't find a route, the transition points are used anyway.
+        if (planner.isEnabled() && initializePlannedRoute()) {
+            arms.setMaintainerIsAtGoal(false);
+            return;
+        }
+
         UnifiedArmSubsystem.RobotFacing currentArmFacing = arms.getCurrentEndEffectorFacing();
         log.info("Current arm facing: " + currentArmFacing);
-        armPosesToVisit = new ArrayList<>();
         // Some basic rules:
         // 1) As long as we are on the same side, it should always be safe go to the SafeExternalTransition point.
         // 2) If we need to swap sides, we need to go to SafeExternalTransition on one side, then the other, before
@@ -70,8 +89,36 @@ public class SimpleSafeArmRouterCommand extends BaseSetpointCommand {
         arms.setMaintainerIsAtGoal(false);
     }
 
+    private boolean initializePlannedRoute() {
+        XYPair targetAngles = arms.getKeyArmAngles(targetArmPosition, targetRobotFacing);
+        List<XYPair> waypoints = planner.planRoute(arms.getCurrentValue(), targetAngles);
+        if (waypoints == null) {
+            log.warn("No planned route to " + targetArmPosition + " " + targetRobotFacing
+                + ", going through the transition points instead");
+            return false;
+        }
+
+        log.info("Following planned route with " + waypoints.size() + " intermediate points");
+        // The route is only clear along the straight lines between its points, so rather than letting each joint
+        // make its own way to each point, have the maintainer follow a trajectory that keeps the joints in step.
+        List<XYPair> anglesToVisit = new ArrayList<>();
+        anglesToVisit.add(arms.getCurrentValue());
+        anglesToVisit.addAll(waypoints);
+        anglesToVisit.add(targetAngles);
+        plannedTrajectory = arms.createTrajectory(anglesToVisit);
+        arms.setTargetValue(targetAngles);
+        arms.setActiveTrajectory(plannedTrajectory, robotStateFrame.getTimestamp());
+        log.info("Trajectory will take " + plannedTrajectory.getTotalTime() + " seconds");
+        return true;
+    }
+
     @Override
     public void execute() {
+        if (plannedTrajectory != null) {
+            // The maintainer follows the trajectory.
+            return;
+        }
+
         if (armPosesToVisit.size() == 0) {
             // This shouldn't happen, but just in case, do nothing.
             return;
@@ -98,6 +145,14 @@ public class SimpleSafeArmRouterCommand extends BaseSetpointCommand {
         return armPosesToVisit;
     }
 
+    /**
+     * Likely only has value in testing.
+     * @return The trajectory along the planned route, or null if not following a planned route.
+     */
+    public SynchronizedJointTrajectory getPlannedTrajectory() {
+        return plannedTrajectory;
+    }
+
     private void setTargetFromFirstEntryInList() {
         log.info("Setting target to " + armPosesToVisit.get(0).getFirst() + " " + armPosesToVisit.get(0).getSecond());
         var angles = arms.getKeyArmAngles(
@@ -116,10 +171,21 @@ public class SimpleSafeArmRouterCommand extends BaseSetpointCommand {
 
     @Override
     public boolean isFinished() {
+        if (plannedTrajectory != null) {
+            return arms.isMaintainerAtGoal()
+                && plannedTrajectory.isFinished(robotStateFrame.getTimestamp() - arms.getActiveTrajectoryStartTime());
+        }
         if (armPosesToVisit.size() == 0) {
             log.info("Finished because there are no more targets to visit");
             return true;
         }
         return false;
     }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (plannedTrajectory != null) {
+            arms.clearActiveTrajectory();
+        }
+    }
 }
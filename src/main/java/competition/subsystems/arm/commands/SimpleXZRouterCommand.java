@@ -1,8 +1,8 @@
 package competition.subsystems.arm.commands;
 
-import competition.subsystems.arm.ArmPositionState;
 import competition.subsystems.arm.UnifiedArmSubsystem;
 import competition.trajectory.SimpleTimeInterpolator;
+import competition.trajectory.SplineTimeInterpolator;
 import competition.trajectory.XbotArmPoint;
 import edu.wpi.first.math.geometry.Translation2d;
 import xbot.common.command.BaseSetpointCommand;
@@ -17,6 +17,11 @@ import java.util.function.Supplier;
 
 public class SimpleXZRouterCommand extends BaseSetpointCommand {
 
+    // How many pieces each segment is split into when checking how fast the joints have to move along it.
+    private static final int SEGMENT_SPEED_CHECK_STEPS = 100;
+    // How far ahead along the path to look when working out how fast the joint targets are moving.
+    private static final double VELOCITY_LOOKAHEAD_SECONDS = 0.02;
+
     UnifiedArmSubsystem arms;
     SimpleTimeInterpolator interpolator;
     private Supplier<XbotArmPoint> keyPointsProvider;
@@ -26,6 +31,12 @@ public class SimpleXZRouterCommand extends BaseSetpointCommand {
     private UnifiedArmSubsystem.RobotFacing targetRobotFacing;
     private double defaultSegmentTime = 0.5;
     private final DoubleProperty defaultSegmentVelocity;
+    private final double[] fromAngles = new double[2];
+    private final double[] toAngles = new double[2];
+    private final double[] targetAngles = new double[2];
+    private final double[] stepAngles = new double[2];
+    private final double[] previousStepAngles = new double[2];
+    private final double[] lookaheadAngles = new double[2];
 
     @Inject
     public SimpleXZRouterCommand(UnifiedArmSubsystem arms, PropertyFactory pf) {
@@ -36,6 +47,14 @@ public class SimpleXZRouterCommand extends BaseSetpointCommand {
         this.defaultSegmentVelocity = pf.createPersistentProperty("DefaultSegmentVelocity", 100);
     }
 
+    /**
+     * When enabled, the end effector takes a smooth curve through the transition point rather than a sharp corner.
+     * Takes effect the next time the command starts.
+     */
+    public void setUseSplineInterpolation(boolean useSplineInterpolation) {
+        interpolator = useSplineInterpolation ? new SplineTimeInterpolator() : new SimpleTimeInterpolator();
+    }
+
     public void setKeyPointProvider(Supplier<XbotArmPoint> keyPointsProvider) {
         this.keyPointsProvider = keyPointsProvider;
     }
@@ -88,23 +107,12 @@ public class SimpleXZRouterCommand extends BaseSetpointCommand {
             transitionPoint2d = new Translation2d(targetTranslation.getX(), currentArmCoordinates.getY());
         }
 
-        // Calculate the segment time using the desired velocity. We can get the distance between our current position
-        // and our target position, and then divide that by the desired velocity to get the time.
-        double distanceToTransitionPoint = currentArmCoordinates.getDistance(transitionPoint2d);
-        var velocity = defaultSegmentVelocity.get();
-        double firstSegmentTime = 1.0;
-        if (velocity != 0) {
-            firstSegmentTime = distanceToTransitionPoint / velocity;
-        }
+        // Time each segment from how far the joints have to move and how fast they can go. If we can't work that out,
+        // fall back to the distance between the points divided by the desired velocity.
+        double firstSegmentTime = getSegmentTime(currentArmCoordinates, transitionPoint2d);
         waypoints.add(new XbotArmPoint(transitionPoint2d, firstSegmentTime));
 
-        // Similarly, for the second segment, we can get the distance between the transition point and the target point.
-        double distanceToTarget = transitionPoint2d.getDistance(targetTranslation);
-        double secondSegmentTime = 1.0;
-        if (velocity != 0) {
-            secondSegmentTime = distanceToTarget / velocity;
-        }
-
+        double secondSegmentTime = getSegmentTime(transitionPoint2d, targetTranslation);
         waypoints.add(new XbotArmPoint(targetTranslation, secondSegmentTime));
 
         interpolator.setMaximumDistanceFromChasePointInInches(18);
@@ -115,29 +123,80 @@ public class SimpleXZRouterCommand extends BaseSetpointCommand {
         log.info("Finished initialization");
     }
 
+    private double getSegmentTime(Translation2d from, Translation2d to) {
+        if (arms.solver.solveArmJointPositions(from.getX(), from.getY(), true, fromAngles)
+                && arms.solver.solveArmJointPositions(to.getX(), to.getY(), true, toAngles)) {
+            double minimumTime = arms.getMinimumMoveDuration(
+                    new XYPair(fromAngles[0], fromAngles[1]),
+                    new XYPair(toAngles[0], toAngles[1]));
+            return Math.max(minimumTime, getTimeToKeepJointsWithinSpeedLimits(from, to));
+        }
+
+        var velocity = defaultSegmentVelocity.get();
+        if (velocity != 0) {
+            return from.getDistance(to) / velocity;
+        }
+        return 1.0;
+    }
+
+    /**
+     * The chase point moves along each segment at a steady speed, but the joints don't: depending on where the arm
+     * is, a short move in X-Z can need a lot of joint motion. Split the segment into pieces and find how long the
+     * segment needs to take so that neither joint has to go faster than it can on any of them.
+     */
+    private double getTimeToKeepJointsWithinSpeedLimits(Translation2d from, Translation2d to) {
+        double lowerArmMaxVelocity = arms.lowerArm.getMaxVelocityInDegreesPerSecond();
+        double upperArmMaxVelocity = arms.upperArm.getMaxVelocityInDegreesPerSecond();
+
+        double slowestStepTime = 0;
+        previousStepAngles[0] = fromAngles[0];
+        previousStepAngles[1] = fromAngles[1];
+        for (int i = 1; i <= SEGMENT_SPEED_CHECK_STEPS; i++) {
+            double fraction = (double) i / SEGMENT_SPEED_CHECK_STEPS;
+            double x = from.getX() + (to.getX() - from.getX()) * fraction;
+            double z = from.getY() + (to.getY() - from.getY()) * fraction;
+            if (!arms.solver.solveArmJointPositions(x, z, true, stepAngles)) {
+                // Out of reach part way along, so the chase point will get constrained there anyway.
+                continue;
+            }
+            double stepTime = Math.max(
+                    Math.abs(stepAngles[0] - previousStepAngles[0]) / lowerArmMaxVelocity,
+                    Math.abs(stepAngles[1] - previousStepAngles[1]) / upperArmMaxVelocity);
+            slowestStepTime = Math.max(slowestStepTime, stepTime);
+            previousStepAngles[0] = stepAngles[0];
+            previousStepAngles[1] = stepAngles[1];
+        }
+        return slowestStepTime * SEGMENT_SPEED_CHECK_STEPS;
+    }
+
     public List<XbotArmPoint> getPointsToInterpolate() {
         return pointsToInterpolate;
     }
 
     @Override
     public void execute() {
-
-        var currentAngles = arms.getCurrentValue();
-
         lastResult = interpolator.calculateTarget(arms.getCurrentXZCoordinatesAsTranslation2d());
         var targetPosition = new XYPair(lastResult.chasePoint.getX(), lastResult.chasePoint.getY());
         var constrainedPosition = arms.constrainXZPosition(targetPosition);
 
-        ArmPositionState newTargets = arms.solver.solveArmJointPositions(constrainedPosition, arms.getCurrentValue(), true);
-
-        arms.setGhostArm(new Translation2d(
-                newTargets.getLowerJointRotation().getDegrees(),
-                newTargets.getUpperJointRotation().getDegrees()));
-
-        if (newTargets.isSolveable()) {
-            arms.setTargetValue(new XYPair(
-                    newTargets.getLowerJointRotation().getDegrees(),
-                    newTargets.getUpperJointRotation().getDegrees()));
+        if (arms.solver.solveArmJointPositions(constrainedPosition.x, constrainedPosition.y, true, targetAngles)) {
+            arms.setGhostArm(new Translation2d(targetAngles[0], targetAngles[1]));
+
+            // Work out how fast the joint targets are moving by looking a little further along the path, so the
+            // maintainer can feed that forward.
+            double lowerArmVelocity = 0;
+            double upperArmVelocity = 0;
+            var chaseVelocity = lastResult.chaseVelocity;
+            if (chaseVelocity.getX() != 0 || chaseVelocity.getY() != 0) {
+                var lookaheadPosition = arms.constrainXZPosition(new XYPair(
+                        lastResult.chasePoint.getX() + chaseVelocity.getX() * VELOCITY_LOOKAHEAD_SECONDS,
+                        lastResult.chasePoint.getY() + chaseVelocity.getY() * VELOCITY_LOOKAHEAD_SECONDS));
+                if (arms.solver.solveArmJointPositions(lookaheadPosition.x, lookaheadPosition.y, true, lookaheadAngles)) {
+                    lowerArmVelocity = (lookaheadAngles[0] - targetAngles[0]) / VELOCITY_LOOKAHEAD_SECONDS;
+                    upperArmVelocity = (lookaheadAngles[1] - targetAngles[1]) / VELOCITY_LOOKAHEAD_SECONDS;
+                }
+            }
+            arms.setTargetValue(new XYPair(targetAngles[0], targetAngles[1]), lowerArmVelocity, upperArmVelocity);
         } else {
             arms.setTargetValue(arms.getCurrentValue());
         }
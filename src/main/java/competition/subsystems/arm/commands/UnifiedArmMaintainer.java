@@ -1,7 +1,9 @@
 package competition.subsystems.arm.commands;
 
 import competition.operator_interface.OperatorInterface;
+import competition.subsystems.RobotStateFrame;
 import competition.subsystems.arm.UnifiedArmSubsystem;
+import competition.trajectory.SynchronizedJointTrajectory;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import xbot.common.command.BaseMaintainerCommand;
@@ -17,28 +19,46 @@ import javax.inject.Inject;
 
 public class UnifiedArmMaintainer extends BaseMaintainerCommand<XYPair> {
 
+    // Readings further apart than this are too stale to work out how fast the lower arm is moving.
+    private static final double MAX_LOWER_ARM_VELOCITY_SAMPLE_SECONDS = 0.1;
+
     UnifiedArmSubsystem unifiedArm;
     OperatorInterface oi;
+    private final RobotStateFrame robotStateFrame;
     private final DoubleProperty lowerArmErrorThresholdToEngageBrake;
     private final DoubleProperty lowerArmErrorThresholdToDisengageBrake;
     private final TimeStableValidator lowerArmBrakeValidator;
+    private final DoubleProperty lowerArmMaxSpeedToEngageBrakeEarly;
     private final DoubleProperty upperArmPowerLimiter;
     private final DoubleProperty cubeModeXZThreshold;
+    private final SynchronizedJointTrajectory.Sample trajectorySample = new SynchronizedJointTrajectory.Sample();
+    private final SynchronizedJointTrajectory.Sample predictedTrajectorySample = new SynchronizedJointTrajectory.Sample();
+    private double previousLowerArmAngle;
+    private double previousLowerArmTimestamp = Double.NaN;
+    // How fast the lower arm is moving, in degrees per second, or NaN if there's no recent reading to compare with.
+    private double lowerArmVelocity = Double.NaN;
+    // Whether the brake was switched on because the lower arm looked like it was about to arrive, rather than because
+    // it had settled at the target.
+    private boolean brakeEngagedEarly = false;
 
     @Inject
     public UnifiedArmMaintainer(
             UnifiedArmSubsystem subsystemToMaintain,
             PropertyFactory pf,
             OperatorInterface oi,
-            HumanVsMachineDecider.HumanVsMachineDeciderFactory hvmFactory) {
+            HumanVsMachineDecider.HumanVsMachineDeciderFactory hvmFactory,
+            RobotStateFrame robotStateFrame) {
         super(subsystemToMaintain, pf, hvmFactory, 3.0, 0.33);
         this.unifiedArm = subsystemToMaintain;
         this.oi = oi;
+        this.robotStateFrame = robotStateFrame;
         pf.setPrefix(this);
         pf.setDefaultLevel(Property.PropertyLevel.Debug);
         lowerArmErrorThresholdToEngageBrake = pf.createPersistentProperty("LowerArmErrorThresholdToEngageBrake",2.0);
         lowerArmErrorThresholdToDisengageBrake = pf.createPersistentProperty("LowerArmErrorThresholdToDisengageBrake",4.0);
         lowerArmBrakeValidator = new TimeStableValidator(1);
+        // Faster than this, the lower arm might not stop where we expect, so wait for it to settle instead.
+        lowerArmMaxSpeedToEngageBrakeEarly = pf.createPersistentProperty("LowerArmMaxSpeedToEngageBrakeEarly", 45.0);
         upperArmPowerLimiter = pf.createPersistentProperty("UpperArmPowerLimiter",0.5);
         cubeModeXZThreshold = pf.createPersistentProperty("CubeModeXZThreshold", 4.0);
     }
@@ -99,6 +119,7 @@ public class UnifiedArmMaintainer extends BaseMaintainerCommand<XYPair> {
         // If the lower arm is at the target angle, we should engage the brake.
         // However, this is vulnerable to cases where the PID isn't well-calibrated and the arm is stuck just
         // outside the critical boundary. For those cases, we could consider some time-based system.
+        updateLowerArmVelocity();
         changeBrakeStateBasedOnError();
 
         // Eventually do this. For now just do direct angle setting.
@@ -108,20 +129,152 @@ public class UnifiedArmMaintainer extends BaseMaintainerCommand<XYPair> {
         unifiedArm.setArmsToAngles(desiredArmAngles.getLowerJointRotation(), desiredArmAngles.getUpperJointRotation());
 
          */
-        unifiedArm.setArmsToAngles(Rotation2d.fromDegrees(target.x), Rotation2d.fromDegrees(target.y));
+        var trajectory = unifiedArm.getActiveTrajectory();
+        if (trajectory != null) {
+            trajectory.sample(getTrajectoryTime(), trajectorySample);
+            unifiedArm.setArmsToAngles(
+                    Rotation2d.fromDegrees(trajectorySample.lowerDegrees),
+                    Rotation2d.fromDegrees(trajectorySample.upperDegrees),
+                    trajectorySample.lowerVelocityDegreesPerSecond,
+                    trajectorySample.upperVelocityDegreesPerSecond);
+            return;
+        }
+        unifiedArm.setArmsToAngles(
+                Rotation2d.fromDegrees(target.x),
+                Rotation2d.fromDegrees(target.y),
+                unifiedArm.getTargetLowerArmVelocity(),
+                unifiedArm.getTargetUpperArmVelocity());
+    }
+
+    private double getTrajectoryTime() {
+        return robotStateFrame.getTimestamp() - unifiedArm.getActiveTrajectoryStartTime();
     }
 
     private void changeBrakeStateBasedOnError() {
+        var trajectory = unifiedArm.getActiveTrajectory();
+        if (trajectory != null && !unifiedArm.getDisableBrake()) {
+            brakeEngagedEarly = false;
+            changeBrakeStateBasedOnTrajectory(trajectory);
+            return;
+        }
+
+        if (unifiedArm.getDisableBrake()) {
+            brakeEngagedEarly = false;
+            unifiedArm.setBrake(false);
+            lowerArmBrakeValidator.checkStable(false);
+            return;
+        }
+
         double lowerArmError = Math.abs(unifiedArm.getCurrentValue().x - unifiedArm.getTargetValue().x);
 
-        if (lowerArmError < lowerArmErrorThresholdToEngageBrake.get() && !unifiedArm.getDisableBrake()) {
+        if (brakeEngagedEarly && unifiedArm.areBrakesEngaged()) {
+            if (!unifiedArm.isLowerArmBrakeClamped()) {
+                // The lower arm is still being driven the rest of the way while the brake clamps down.
+                return;
+            }
+            brakeEngagedEarly = false;
+            if (lowerArmError >= lowerArmErrorThresholdToEngageBrake.get()) {
+                // It stopped short of where we expected. Let it go so it can finish the move.
+                unifiedArm.setBrake(false);
+                lowerArmBrakeValidator.checkStable(false);
+                return;
+            }
+        }
+        brakeEngagedEarly = false;
+
+        if (!unifiedArm.areBrakesEngaged() && isLowerArmArrivingWithinBrakeActuation()) {
+            unifiedArm.setBrake(true);
+            brakeEngagedEarly = true;
+            return;
+        }
+
+        if (lowerArmError < lowerArmErrorThresholdToEngageBrake.get()) {
             boolean isStable = lowerArmBrakeValidator.checkStable(true);
             if (isStable) {
                 unifiedArm.setBrake(true);
             }
         }
 
-        if (lowerArmError > lowerArmErrorThresholdToDisengageBrake.get() || unifiedArm.getDisableBrake()) {
+        if (lowerArmError > lowerArmErrorThresholdToDisengageBrake.get()) {
+            unifiedArm.setBrake(false);
+            lowerArmBrakeValidator.checkStable(false);
+        }
+    }
+
+    private void updateLowerArmVelocity() {
+        double timestamp = robotStateFrame.getTimestamp();
+        double lowerArmAngle = unifiedArm.getCurrentValue().x;
+        double elapsed = timestamp - previousLowerArmTimestamp;
+        if (elapsed > 0 && elapsed <= MAX_LOWER_ARM_VELOCITY_SAMPLE_SECONDS) {
+            lowerArmVelocity = (lowerArmAngle - previousLowerArmAngle) / elapsed;
+        } else {
+            lowerArmVelocity = Double.NaN;
+        }
+        previousLowerArmAngle = lowerArmAngle;
+        previousLowerArmTimestamp = timestamp;
+    }
+
+    /**
+     * Without a trajectory we don't know the plan, but if the lower arm is heading for a target that has stopped
+     * moving, we can still tell from its speed roughly where it will be once the brake clamps down. The PID slows the
+     * arm as it gets close, so only count on the shortest distance it could cover while slowing as hard as it can; if
+     * even that gets it within the engage threshold, switching the brake on now means it clamps down as the arm
+     * arrives, rather than after it has sat there for a while.
+     */
+    private boolean isLowerArmArrivingWithinBrakeActuation() {
+        if (Double.isNaN(lowerArmVelocity) || unifiedArm.getTargetLowerArmVelocity() != 0) {
+            return false;
+        }
+        double lowerArmError = unifiedArm.getTargetValue().x - unifiedArm.getCurrentValue().x;
+        if (lowerArmVelocity * lowerArmError <= 0) {
+            // Not heading towards the target.
+            return false;
+        }
+        double speed = Math.abs(lowerArmVelocity);
+        if (speed > lowerArmMaxSpeedToEngageBrakeEarly.get()) {
+            return false;
+        }
+        double actuationSeconds = unifiedArm.getLowerArmBrakeActuationSeconds();
+        double deceleration = unifiedArm.lowerArm.getMaxAccelerationInDegreesPerSecondSquared();
+        double shortestDistanceBeforeBrakeClamps;
+        if (speed <= deceleration * actuationSeconds) {
+            // It could stop before the brake clamps down.
+            shortestDistanceBeforeBrakeClamps = speed * speed / (2 * deceleration);
+        } else {
+            shortestDistanceBeforeBrakeClamps =
+                    speed * actuationSeconds - deceleration * actuationSeconds * actuationSeconds / 2;
+        }
+        return Math.abs(lowerArmError) - shortestDistanceBeforeBrakeClamps < lowerArmErrorThresholdToEngageBrake.get();
+    }
+
+    /**
+     * When following a trajectory, we know when the lower arm is going to arrive, so there's no need to wait for it to
+     * sit still for a while before braking. Instead, switch the brake on early enough that it clamps down just as the
+     * lower arm gets there.
+     */
+    private void changeBrakeStateBasedOnTrajectory(SynchronizedJointTrajectory trajectory) {
+        double time = getTrajectoryTime();
+        double actuationSeconds = unifiedArm.getLowerArmBrakeActuationSeconds();
+
+        if (time + actuationSeconds < trajectory.getLowerJointFinishTime()) {
+            // The lower arm still has somewhere to go.
+            unifiedArm.setBrake(false);
+            lowerArmBrakeValidator.checkStable(false);
+            return;
+        }
+
+        // Work out where the lower arm will be once the brake has clamped down, assuming it keeps following the plan
+        // (with whatever error it has now).
+        double currentLowerArmAngle = unifiedArm.getCurrentValue().x;
+        double finalLowerArmAngle = unifiedArm.getTargetValue().x;
+        trajectory.sample(time, trajectorySample);
+        trajectory.sample(time + actuationSeconds, predictedTrajectorySample);
+        double predictedLowerArmAngle =
+                currentLowerArmAngle + predictedTrajectorySample.lowerDegrees - trajectorySample.lowerDegrees;
+
+        if (Math.abs(predictedLowerArmAngle - finalLowerArmAngle) < lowerArmErrorThresholdToEngageBrake.get()) {
+            unifiedArm.setBrake(true);
+        } else if (Math.abs(currentLowerArmAngle - finalLowerArmAngle) > lowerArmErrorThresholdToDisengageBrake.get()) {
             unifiedArm.setBrake(false);
             lowerArmBrakeValidator.checkStable(false);
         }
@@ -133,9 +286,9 @@ public class UnifiedArmMaintainer extends BaseMaintainerCommand<XYPair> {
         XYPair target = unifiedArm.getTargetValue();
 
         double lowerArmError = 0;
-        // If the brakes are engaged, we consider the lower arm error to be zero.
+        // If the brakes have clamped down, we consider the lower arm error to be zero.
         // If the arm is free, then we read its error as normal.
-        if (!unifiedArm.areBrakesEngaged()) {
+        if (!unifiedArm.isLowerArmBrakeClamped()) {
             lowerArmError = Math.abs(current.x - target.x);
         }
         double upperArmError = Math.abs(current.y - target.y);
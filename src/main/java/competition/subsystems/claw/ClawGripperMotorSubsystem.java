@@ -1,6 +1,9 @@
 package competition.subsystems.claw;
 
 import competition.electrical_contract.ElectricalContract;
+import competition.subsystems.DeduplicatedSparkMaxOutput;
+import competition.subsystems.StatusFrameScheduler;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import xbot.common.command.BaseSubsystem;
@@ -21,9 +24,11 @@ public class ClawGripperMotorSubsystem extends BaseSubsystem {
 
     private XCANSparkMax leaderMotor;
     private XCANSparkMax followerMotor;
+    private DeduplicatedSparkMaxOutput leaderOutput;
 
     @Inject
-    public ClawGripperMotorSubsystem(PropertyFactory pf, XCANSparkMax.XCANSparkMaxFactory sparkMaxFactory, ElectricalContract eContract) {
+    public ClawGripperMotorSubsystem(PropertyFactory pf, XCANSparkMax.XCANSparkMaxFactory sparkMaxFactory, ElectricalContract eContract,
+                                     StatusFrameScheduler statusFrameScheduler) {
         pf.setPrefix(this);
 
         intakePower = pf.createPersistentProperty("Intake power", 0.4);
@@ -39,6 +44,11 @@ public class ClawGripperMotorSubsystem extends BaseSubsystem {
             followerMotor.setSmartCurrentLimit(40);
 
             followerMotor.follow(leaderMotor, eContract.getLeftClawMotor().inverted);
+
+            leaderOutput = new DeduplicatedSparkMaxOutput(leaderMotor, "Leader claw motor", pf);
+            // The claw motors' rates never change, but the scheduler still restores them after a reset.
+            statusFrameScheduler.registerSparkMax(leaderMotor, getPrefix() + "Leader claw motor", SparkMaxProfile.ClawLeader);
+            statusFrameScheduler.registerSparkMax(followerMotor, getPrefix() + "Follower claw motor", SparkMaxProfile.Follower);
         }
     }
 
@@ -60,23 +70,30 @@ public class ClawGripperMotorSubsystem extends BaseSubsystem {
 
     public void setStopped() {
         if (electricalContract.areClawMotorsReady()) {
-            leaderMotor.stopMotor();
+            leaderOutput.stopMotor();
         }
     }
 
     public void setIntake() {
         if (electricalContract.areClawMotorsReady()) {
-            leaderMotor.set(intakePower.get());
+            leaderOutput.set(intakePower.get());
         }
     }
 
     public NamedRunCommand setEject(double eject){
         if(electricalContract.areClawMotorsReady()){
             return new NamedRunCommand("Claw Eject", () -> {
-                leaderMotor.set(eject);
+                leaderOutput.set(eject);
             }, this);
 
         }
         return null;
     }
+
+    @Override
+    public void periodic() {
+        if (electricalContract.areClawMotorsReady()) {
+            leaderOutput.periodic();
+        }
+    }
 }
@@ -2,6 +2,10 @@ package competition.subsystems.collector;
 
 import competition.electrical_contract.ElectricalContract;
 import competition.operator_interface.OperatorInterface;
+import competition.subsystems.DeduplicatedSparkMaxOutput;
+import competition.subsystems.StatusFrameScheduler;
+import competition.subsystems.StatusFrameScheduler.ScheduledDevice;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.FunctionalCommand;
@@ -22,6 +26,8 @@ import javax.inject.Singleton;
 @Singleton
 public class CollectorSubsystem extends BaseSubsystem {
     public XCANSparkMax collectorMotor;
+    private DeduplicatedSparkMaxOutput collectorMotorOutput;
+    private ScheduledDevice collectorMotorStatusFrames;
     public XSolenoid collectorSolenoid;
     public DoubleProperty intakePower;
     public DoubleProperty ejectPower;
@@ -48,7 +54,7 @@ public class CollectorSubsystem extends BaseSubsystem {
     @Inject
     public CollectorSubsystem(XCANSparkMax.XCANSparkMaxFactory sparkMaxFactory, PropertyFactory pf,
                               XSolenoid.XSolenoidFactory xSolenoidFactory, XAnalogInput.XAnalogInputFactory analogInputFactory,
-                              ElectricalContract eContract, OperatorInterface oi) {
+                              ElectricalContract eContract, OperatorInterface oi, StatusFrameScheduler statusFrameScheduler) {
         this.contract = eContract;
         this.oi = oi;
         this.currentState = CollectorState.Retracted;
@@ -71,6 +77,11 @@ public class CollectorSubsystem extends BaseSubsystem {
 
         gamePieceCollectedValidator = new TimeStableValidator(0.6);
         gamePieceCollectedValidator.checkStable(false);
+
+        if (contract.isCollectorReady()) {
+            collectorMotorOutput = new DeduplicatedSparkMaxOutput(collectorMotor, "CollectorMotor", pf);
+            collectorMotorStatusFrames = statusFrameScheduler.registerSparkMax(collectorMotor, getPrefix() + "CollectorMotor", SparkMaxProfile.Collector);
+        }
     }
 
     private void changeCollector(CollectorState state) {
@@ -96,7 +107,10 @@ public class CollectorSubsystem extends BaseSubsystem {
 
     private void setMotorPower(double power) {
         if (contract.isCollectorReady()) {
-            collectorMotor.set(power);
+            if (power != 0) {
+                collectorMotorStatusFrames.markActive();
+            }
+            collectorMotorOutput.set(power);
         }
     }
 
@@ -167,6 +181,7 @@ public class CollectorSubsystem extends BaseSubsystem {
             if (loopCount % 250 == 0) {
                 log.info("PressureSensorValue:" + pressureSensor.getVoltage());
             }
+            collectorMotorOutput.periodic();
             currentIntakeTime.set(XTimer.getFPGATimestamp());
             if ((currentIntakeTime.get() - intakeTime.get() > 0.5) && intake) {
                 //check current RPM is less than 500
@@ -1,6 +1,7 @@
 package competition.subsystems.drive;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -16,15 +17,16 @@ import competition.injection.swerve.FrontRightDrive;
 import competition.injection.swerve.RearLeftDrive;
 import competition.injection.swerve.RearRightDrive;
 import competition.injection.swerve.SwerveComponent;
+import competition.subsystems.DataFrameRefreshable;
+import competition.subsystems.RobotStateFrame;
 import competition.subsystems.drive.swerve.SwerveModuleSubsystem;
-import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import xbot.common.math.MathUtils;
 import xbot.common.math.PIDManager;
 import xbot.common.math.XYPair;
 import xbot.common.math.PIDManager.PIDManagerFactory;
+import xbot.common.properties.BooleanProperty;
 import xbot.common.properties.DoubleProperty;
 import xbot.common.properties.Property;
 import xbot.common.properties.PropertyFactory;
@@ -34,8 +36,13 @@ import xbot.common.subsystems.drive.BaseDriveSubsystem;
 import xbot.common.subsystems.pose.BasePoseSubsystem;
 
 @Singleton
-public class DriveSubsystem extends BaseDriveSubsystem {
+public class DriveSubsystem extends BaseDriveSubsystem implements DataFrameRefreshable {
     private static Logger log = Logger.getLogger(DriveSubsystem.class);
+
+    /**
+     * How far in front of the robot center a held game piece is, for rotating around the game piece.
+     */
+    public static final double GAME_PIECE_CENTER_OF_ROTATION_X_INCHES = 35;
     
     private final SwerveModuleSubsystem frontLeftSwerveModuleSubsystem;
     private final SwerveModuleSubsystem frontRightSwerveModuleSubsystem;
@@ -61,9 +68,32 @@ public class DriveSubsystem extends BaseDriveSubsystem {
     private final DoubleProperty velocityMaintainerXTarget;
     private final DoubleProperty positionMaintainerXTarget;
 
-    private XYPair lastCommandedDirection;
+    private double lastCommandedDirectionX;
+    private double lastCommandedDirectionY;
     private double lastCommandedRotation;
 
+    // In the same order as the kinematics objects (front left, front right, rear left, rear right).
+    private final SwerveModuleSubsystem[] swerveModules;
+    private final SwerveInverseKinematics inverseKinematics;
+
+    // Scratch space for move(). These are reused on every call so that driving doesn't create any garbage -
+    // at 50Hz, even a handful of small objects per loop adds up to regular GC pauses on the roboRIO.
+    private final double[] moduleSpeedsMetersPerSecond = new double[4];
+    private final double[] moduleAnglesRadians = new double[4];
+    private final double[] currentModuleSpeedsMetersPerSecond = new double[4];
+    private final double[] currentModuleAnglesRadians = new double[4];
+
+    private final SwerveSetpointGenerator setpointGenerator;
+    private final Provider<RobotStateFrame> robotStateFrameProvider;
+    private final BooleanProperty enableSetpointGenerator;
+    private final DoubleProperty maxWheelAcceleration;
+    private final DoubleProperty maxSteeringRate;
+
+    // The latest commanded chassis motion, published to the dashboard in periodic().
+    private double targetXMetersPerSecond;
+    private double targetYMetersPerSecond;
+    private double targetRotationRadiansPerSecond;
+
     private final DoubleProperty desiredHeading;
 
     private boolean activateBrakeOverride = false;
@@ -87,9 +117,11 @@ public class DriveSubsystem extends BaseDriveSubsystem {
     @Inject
     public DriveSubsystem(PIDManagerFactory pidFactory, XPropertyManager propManager, ElectricalContract contract, PropertyFactory pf,
                           @FrontLeftDrive SwerveComponent frontLeftSwerve, @FrontRightDrive SwerveComponent frontRightSwerve,
-                          @RearLeftDrive SwerveComponent rearLeftSwerve, @RearRightDrive SwerveComponent rearRightSwerve) {
+                          @RearLeftDrive SwerveComponent rearLeftSwerve, @RearRightDrive SwerveComponent rearRightSwerve,
+                          Provider<RobotStateFrame> robotStateFrameProvider) {
         log.info("Creating DriveSubsystem");
         pf.setPrefix(this);
+        this.robotStateFrameProvider = robotStateFrameProvider;
 
         this.frontLeftSwerveModuleSubsystem = frontLeftSwerve.swerveModuleSubsystem();
         this.frontRightSwerveModuleSubsystem = frontRightSwerve.swerveModuleSubsystem();
@@ -103,6 +135,26 @@ public class DriveSubsystem extends BaseDriveSubsystem {
             this.rearRightSwerveModuleSubsystem.getModuleTranslation()
         );
 
+        this.swerveModules = new SwerveModuleSubsystem[] {
+            this.frontLeftSwerveModuleSubsystem,
+            this.frontRightSwerveModuleSubsystem,
+            this.rearLeftSwerveModuleSubsystem,
+            this.rearRightSwerveModuleSubsystem
+        };
+        // The module translations come from ElectricalContract.getSwerveModuleOffsets (via the module offset properties),
+        // so this always agrees with the kinematics used for odometry.
+        double[] moduleXMeters = new double[swerveModules.length];
+        double[] moduleYMeters = new double[swerveModules.length];
+        for (int i = 0; i < swerveModules.length; i++) {
+            moduleXMeters[i] = swerveModules[i].getModuleTranslation().getX();
+            moduleYMeters[i] = swerveModules[i].getModuleTranslation().getY();
+        }
+        this.inverseKinematics = new SwerveInverseKinematics(moduleXMeters, moduleYMeters);
+        // The robot center is always cached; the collector point moves with the arm, so it just
+        // lives in the most-recently-used part of the cache.
+        this.inverseKinematics.pinCenterOfRotation(GAME_PIECE_CENTER_OF_ROTATION_X_INCHES / BasePoseSubsystem.INCHES_IN_A_METER, 0);
+        this.setpointGenerator = new SwerveSetpointGenerator(swerveModules.length);
+
         this.maxTargetSpeed = pf.createPersistentProperty("MaxTargetSpeedInchesPerSecond", 120.0);
         this.maxTargetTurnRate = pf.createPersistentProperty("MaxTargetTurnRate", MathUtils.Tau);
         this.activeModuleProp = pf.createEphemeralProperty("ActiveModule", activeModule.toString());
@@ -118,10 +170,16 @@ public class DriveSubsystem extends BaseDriveSubsystem {
         this.minTranslateSpeed = pf.createPersistentProperty("Minimum translate speed", 0.02);
         this.minRotationalSpeed = pf.createPersistentProperty("Minimum rotational speed", 0.02);
 
+        // Limits on how quickly each module can change what it's doing. Off until they've been tuned on the robot.
+        this.enableSetpointGenerator = pf.createPersistentProperty("Enable setpoint generator", false);
+        this.maxWheelAcceleration = pf.createPersistentProperty("MaxWheelAccelerationInchesPerSecondSquared", 300.0);
+        this.maxSteeringRate = pf.createPersistentProperty("MaxSteeringRateDegreesPerSecond", 720.0);
+
         // TODO: eventually, this should retrieved from auto or the pose subsystem as a field like 
         // "Desired initial wheel direction" so there's no thrash right at the start of a match.
         // Probably not a huge priority, Since as soon as we move once the robot remembers the last commanded direction.
-        lastCommandedDirection = new XYPair(0, 90);
+        lastCommandedDirectionX = 0;
+        lastCommandedDirectionY = 90;
 
         positionalPidManager = pidFactory.create(
                 this.getPrefix() + "PositionPID",
@@ -181,14 +239,35 @@ public class DriveSubsystem extends BaseDriveSubsystem {
         double rotation, 
         double currentHeading,
         XYPair centerOfRotationInches) {
+        fieldOrientedDrive(translation.x, translation.y, rotation, currentHeading, centerOfRotationInches.x, centerOfRotationInches.y);
+    }
+
+    /**
+     * Same as {@link #fieldOrientedDrive(XYPair, double, double, XYPair)}, but without creating any objects.
+     * @param translationX The field-relative X translation intent, -1 to 1.
+     * @param translationY The field-relative Y translation intent, -1 to 1.
+     * @param rotation The rotation intent, -1 to 1.
+     * @param currentHeading The current robot heading, in degrees.
+     * @param centerOfRotationXInches The X coordinate of the center of rotation, relative to the robot.
+     * @param centerOfRotationYInches The Y coordinate of the center of rotation, relative to the robot.
+     */
+    public void fieldOrientedDrive(
+        double translationX,
+        double translationY,
+        double rotation,
+        double currentHeading,
+        double centerOfRotationXInches,
+        double centerOfRotationYInches) {
         // rotate the translation vector into the robot coordinate frame
-        XYPair fieldRelativeVector = translation.clone();
-        
         // 90 degrees is the defined "forward" direction for a driver
-        fieldRelativeVector.rotate(-currentHeading);
+        double headingRadians = Math.toRadians(-currentHeading);
+        double cos = Math.cos(headingRadians);
+        double sin = Math.sin(headingRadians);
+        double robotRelativeX = translationX * cos - translationY * sin;
+        double robotRelativeY = translationX * sin + translationY * cos;
 
         // send the rotated vector to be driven
-        move(fieldRelativeVector, rotation, centerOfRotationInches);
+        move(robotRelativeX, robotRelativeY, rotation, centerOfRotationXInches, centerOfRotationYInches);
     }
 
     boolean manualBalanceMode;
@@ -307,7 +386,7 @@ public class DriveSubsystem extends BaseDriveSubsystem {
      */
     @Override
     public void move(XYPair translate, double rotate) {
-        move(translate, rotate, new XYPair());
+        move(translate.x, translate.y, rotate, 0, 0);
     }
 
     /**
@@ -317,6 +396,20 @@ public class DriveSubsystem extends BaseDriveSubsystem {
      * @param centerOfRotationInches The center of rotation.
      */
     public void move(XYPair translate, double rotate, XYPair centerOfRotationInches) {
+        move(translate.x, translate.y, rotate, centerOfRotationInches.x, centerOfRotationInches.y);
+    }
+
+    /**
+     * Set the target movement speed and rotation, with an arbitrary center of rotation. This is the version
+     * everything else ends up calling, and it doesn't allocate any objects, so it's safe to call every loop.
+     * @param translateX The robot-relative X translation intent, -1 to 1.
+     * @param translateY The robot-relative Y translation intent, -1 to 1.
+     * @param rotate The rotation intent, -1 to 1.
+     * @param centerOfRotationXInches The X coordinate of the center of rotation, relative to the robot.
+     * @param centerOfRotationYInches The Y coordinate of the center of rotation, relative to the robot.
+     */
+    public void move(double translateX, double translateY, double rotate,
+                     double centerOfRotationXInches, double centerOfRotationYInches) {
 
         if (activateBrakeOverride) {
             this.setWheelsToXMode();
@@ -325,34 +418,36 @@ public class DriveSubsystem extends BaseDriveSubsystem {
         // First, we need to check if we've been asked to move at all. If not, we should look at the last time we were given a commanded direction
         // and keep the wheels pointed that way. That prevents the wheels from returning to "0" degrees when the driver has gone back to 
         // neutral joystick position.
-        boolean isNotMoving = translate.getMagnitude() < this.minTranslateSpeed.get() && Math.abs(rotate) < this.minRotationalSpeed.get();
+        double translateMagnitude = Math.sqrt(translateX * translateX + translateY * translateY);
+        boolean isNotMoving = translateMagnitude < this.minTranslateSpeed.get() && Math.abs(rotate) < this.minRotationalSpeed.get();
 
         if (isNotMoving)
         {
-            translate = lastCommandedDirection;
+            translateX = lastCommandedDirectionX;
+            translateY = lastCommandedDirectionY;
             rotate = lastCommandedRotation;
         }
 
         // Then we translate the translation and rotation "intents" into velocities. Basically,
         // going from the -1 to 1 power scale to -maxTargetSpeed to +maxTargetSpeed. We also need to convert them
-        // into metric units, since the next library we call expects metric units.
-        double targetXmetersPerSecond = translate.x * maxTargetSpeed.get() / BasePoseSubsystem.INCHES_IN_A_METER;
-        double targetYmetersPerSecond = translate.y * maxTargetSpeed.get() / BasePoseSubsystem.INCHES_IN_A_METER;
-        double targetRotationRadiansPerSecond = rotate * maxTargetTurnRate.get();
-
-        translationXTargetMPS.set(targetXmetersPerSecond);
-        translationYTargetMPS.set(targetYmetersPerSecond);
-        rotationTargetRadians.set(targetRotationRadiansPerSecond);
-
-        // This handy library from WPILib will take our robot's overall desired translation & rotation and figure out
-        // what each swerve module should be doing in order to achieve that.
-        ChassisSpeeds targetMotion = new ChassisSpeeds(targetXmetersPerSecond, targetYmetersPerSecond, targetRotationRadiansPerSecond);
-
+        // into metric units, since the kinematics math below is all done in metric units.
+        double topSpeedMetersPerSecond = maxTargetSpeed.get() / BasePoseSubsystem.INCHES_IN_A_METER;
+        targetXMetersPerSecond = translateX * topSpeedMetersPerSecond;
+        targetYMetersPerSecond = translateY * topSpeedMetersPerSecond;
+        targetRotationRadiansPerSecond = rotate * maxTargetTurnRate.get();
+
+        // Now we take our robot's overall desired translation & rotation and figure out what each swerve module
+        // should be doing in order to achieve that. This gives the same answers as WPILib's SwerveDriveKinematics,
+        // but skips the generic matrix math and doesn't create any objects.
         // One optional step - we can choose to rotate around a specific point, rather than the center of the robot.
-        Translation2d centerOfRotationTranslationMeters = new Translation2d(
-            centerOfRotationInches.x / BasePoseSubsystem.INCHES_IN_A_METER,
-            centerOfRotationInches.y / BasePoseSubsystem.INCHES_IN_A_METER);
-        SwerveModuleState[] moduleStates = swerveDriveKinematics.toSwerveModuleStates(targetMotion, centerOfRotationTranslationMeters);
+        inverseKinematics.calculateModuleStates(
+            targetXMetersPerSecond,
+            targetYMetersPerSecond,
+            targetRotationRadiansPerSecond,
+            centerOfRotationXInches / BasePoseSubsystem.INCHES_IN_A_METER,
+            centerOfRotationYInches / BasePoseSubsystem.INCHES_IN_A_METER,
+            moduleSpeedsMetersPerSecond,
+            moduleAnglesRadians);
 
         // Another potentially optional step - it's possible that in the calculations above, one or more swerve modules could be asked to
         // move at higer than its maximum speed. At this point, we have a choice. Either:
@@ -366,22 +461,48 @@ public class DriveSubsystem extends BaseDriveSubsystem {
 
         // Also, one more special check - if there was no commanded motion, set the speed to 0.
         if (isNotMoving) {
-            for (SwerveModuleState moduleState : moduleStates) {
-                moduleState.speedMetersPerSecond = 0;
+            for (int i = 0; i < moduleSpeedsMetersPerSecond.length; i++) {
+                moduleSpeedsMetersPerSecond[i] = 0;
             }
         } else {
-            double topSpeedMetersPerSecond = maxTargetSpeed.get() / BasePoseSubsystem.INCHES_IN_A_METER;
-            SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, topSpeedMetersPerSecond);
+            SwerveInverseKinematics.desaturateModuleSpeeds(moduleSpeedsMetersPerSecond, topSpeedMetersPerSecond);
         }
 
-        this.getFrontLeftSwerveModuleSubsystem().setTargetState(moduleStates[0]);
-        this.getFrontRightSwerveModuleSubsystem().setTargetState(moduleStates[1]);
-        this.getRearLeftSwerveModuleSubsystem().setTargetState(moduleStates[2]);
-        this.getRearRightSwerveModuleSubsystem().setTargetState(moduleStates[3]);
+        // Finally, don't ask the modules for more than they can do in one loop - limit how fast the wheels speed up
+        // and steer, and don't drive wheels that aren't pointing the right way yet.
+        if (enableSetpointGenerator.get()) {
+            for (int i = 0; i < swerveModules.length; i++) {
+                currentModuleSpeedsMetersPerSecond[i] =
+                    swerveModules[i].getDriveSubsystem().getCurrentVelocityInInchesPerSecond() / BasePoseSubsystem.INCHES_IN_A_METER;
+                currentModuleAnglesRadians[i] = swerveModules[i].getSteeringSubsystem().getCurrentRotation().getRadians();
+            }
+            setpointGenerator.calculateSetpoints(
+                moduleSpeedsMetersPerSecond,
+                moduleAnglesRadians,
+                currentModuleSpeedsMetersPerSecond,
+                currentModuleAnglesRadians,
+                maxWheelAcceleration.get() / BasePoseSubsystem.INCHES_IN_A_METER,
+                Math.toRadians(maxSteeringRate.get()),
+                robotStateFrameProvider.get().getTimestamp());
+            // The generator has already decided which way each wheel should point, so the modules mustn't flip it again.
+            for (int i = 0; i < swerveModules.length; i++) {
+                swerveModules[i].setPlannedTargetState(
+                    moduleSpeedsMetersPerSecond[i],
+                    moduleAnglesRadians[i],
+                    setpointGenerator.getAccelerationMetersPerSecondSquared(i));
+            }
+        } else {
+            // Without the generator there's no planned acceleration, just whatever the driver asked for this loop.
+            setpointGenerator.reset();
+            for (int i = 0; i < swerveModules.length; i++) {
+                swerveModules[i].setTargetState(moduleSpeedsMetersPerSecond[i], moduleAnglesRadians[i]);
+            }
+        }
 
         // If we were asked to move in a direction, remember that direction.
-        if (translate.getMagnitude() > 0.02 || Math.abs(rotate) > 0.02) {
-            lastCommandedDirection = translate;
+        if (translateMagnitude > 0.02 || Math.abs(rotate) > 0.02) {
+            lastCommandedDirectionX = translateX;
+            lastCommandedDirectionY = translateY;
             lastCommandedRotation = rotate;
         }        
     }
@@ -533,4 +654,20 @@ public class DriveSubsystem extends BaseDriveSubsystem {
             () -> this.setQuickAlignActive(false)
         );
     }
+
+    @Override
+    public void refreshDataFrame() {
+        for (SwerveModuleSubsystem module : swerveModules) {
+            module.refreshDataFrame();
+        }
+    }
+
+    @Override
+    public void periodic() {
+        super.periodic();
+        // Publishing is done here rather than in move() to keep the drive path itself free of allocations.
+        translationXTargetMPS.set(targetXMetersPerSecond);
+        translationYTargetMPS.set(targetYMetersPerSecond);
+        rotationTargetRadians.set(targetRotationRadiansPerSecond);
+    }
 }
@@ -0,0 +1,182 @@
+package competition.subsystems.drive;
+
+/**
+ * Inverse kinematics for a swerve drive, done directly on doubles.
+ * <p>
+ * This produces the same module speeds and angles as WPILib's SwerveDriveKinematics.toSwerveModuleStates, but
+ * without the general-purpose matrix math (which goes through EJML and is surprisingly slow on the roboRIO),
+ * and without allocating anything.
+ * <p>
+ * For each module, the only part of the calculation that depends on the center of rotation is the module's lever arm
+ * around that point. Those are cached for a handful of centers of rotation: the robot center and any
+ * "pinned" centers we know we'll use (like the game piece point) are always kept, and the remaining slots hold
+ * whichever other centers were used most recently (e.g. the collector point, which moves with the arm).
+ */
+public class SwerveInverseKinematics {
+
+    // Below this module speed, WPILib treats the module direction as undefined and reports 0 radians.
+    private static final double MINIMUM_MODULE_SPEED_FOR_ANGLE = 1e-6;
+    private static final int CACHE_SIZE = 4;
+
+    private final int moduleCount;
+    private final double[] moduleXMeters;
+    private final double[] moduleYMeters;
+
+    // Lever arm cache, indexed by [slot][module]. A module's velocity is
+    // (vx + omega * leverX, vy + omega * leverY).
+    private final double[] cachedCenterXMeters = new double[CACHE_SIZE];
+    private final double[] cachedCenterYMeters = new double[CACHE_SIZE];
+    private final double[][] cachedLeverX;
+    private final double[][] cachedLeverY;
+    private int pinnedSlots = 0;
+    private int nextReplacementSlot = 0;
+    private int lastUsedSlot = 0;
+
+    // WPILib keeps the wheels pointed where they were when asked to stop, so we do the same.
+    private final double[] lastModuleAnglesRadians;
+
+    /**
+     * Creates a solver for the given modules. The robot center is always cached.
+     * @param moduleXMeters The X offset of each module from the center of the robot, in meters.
+     * @param moduleYMeters The Y offset of each module from the center of the robot, in meters.
+     */
+    public SwerveInverseKinematics(double[] moduleXMeters, double[] moduleYMeters) {
+        if (moduleXMeters.length != moduleYMeters.length) {
+            throw new IllegalArgumentException("Module X and Y offsets must have the same length");
+        }
+        this.moduleCount = moduleXMeters.length;
+        this.moduleXMeters = moduleXMeters.clone();
+        this.moduleYMeters = moduleYMeters.clone();
+        this.cachedLeverX = new double[CACHE_SIZE][moduleCount];
+        this.cachedLeverY = new double[CACHE_SIZE][moduleCount];
+        this.lastModuleAnglesRadians = new double[moduleCount];
+
+        // Start with an empty cache - NaN never compares equal, so these slots will never be matched.
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            cachedCenterXMeters[i] = Double.NaN;
+            cachedCenterYMeters[i] = Double.NaN;
+        }
+        pinCenterOfRotation(0, 0);
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Keeps the lever arms for this center of rotation cached permanently.
+     * @param centerOfRotationXMeters X coordinate of the center of rotation, relative to the robot center.
+     * @param centerOfRotationYMeters Y coordinate of the center of rotation, relative to the robot center.
+     */
+    public void pinCenterOfRotation(double centerOfRotationXMeters, double centerOfRotationYMeters) {
+        if (findSlot(centerOfRotationXMeters, centerOfRotationYMeters) >= 0) {
+            return;
+        }
+        if (pinnedSlots >= CACHE_SIZE - 1) {
+            // Always leave at least one slot free for everything else.
+            throw new IllegalStateException("Too many pinned centers of rotation");
+        }
+        fillSlot(pinnedSlots, centerOfRotationXMeters, centerOfRotationYMeters);
+        pinnedSlots++;
+        nextReplacementSlot = pinnedSlots;
+        lastUsedSlot = 0;
+    }
+
+    /**
+     * Calculates the speed and angle of each module needed to achieve the given chassis motion.
+     * @param vxMetersPerSecond Forward velocity of the robot.
+     * @param vyMetersPerSecond Leftward velocity of the robot.
+     * @param omegaRadiansPerSecond Counter-clockwise rotational velocity of the robot.
+     * @param centerOfRotationXMeters X coordinate of the center of rotation, relative to the robot center.
+     * @param centerOfRotationYMeters Y coordinate of the center of rotation, relative to the robot center.
+     * @param moduleSpeedsMetersPerSecond Output: the speed of each module.
+     * @param moduleAnglesRadians Output: the angle of each module, from -pi to pi.
+     */
+    public void calculateModuleStates(
+            double vxMetersPerSecond, double vyMetersPerSecond, double omegaRadiansPerSecond,
+            double centerOfRotationXMeters, double centerOfRotationYMeters,
+            double[] moduleSpeedsMetersPerSecond, double[] moduleAnglesRadians) {
+
+        if (vxMetersPerSecond == 0 && vyMetersPerSecond == 0 && omegaRadiansPerSecond == 0) {
+            for (int i = 0; i < moduleCount; i++) {
+                moduleSpeedsMetersPerSecond[i] = 0;
+                moduleAnglesRadians[i] = lastModuleAnglesRadians[i];
+            }
+            return;
+        }
+
+        int slot = getOrCreateSlot(centerOfRotationXMeters, centerOfRotationYMeters);
+        double[] leverX = cachedLeverX[slot];
+        double[] leverY = cachedLeverY[slot];
+
+        for (int i = 0; i < moduleCount; i++) {
+            double moduleVx = vxMetersPerSecond + omegaRadiansPerSecond * leverX[i];
+            double moduleVy = vyMetersPerSecond + omegaRadiansPerSecond * leverY[i];
+            double speed = Math.hypot(moduleVx, moduleVy);
+            double angle = 0;
+            if (speed > MINIMUM_MODULE_SPEED_FOR_ANGLE) {
+                angle = Math.atan2(moduleVy / speed, moduleVx / speed);
+            }
+            moduleSpeedsMetersPerSecond[i] = speed;
+            moduleAnglesRadians[i] = angle;
+            lastModuleAnglesRadians[i] = angle;
+        }
+    }
+
+    /**
+     * Scales all module speeds down proportionally if any of them exceed the top speed, preserving the overall
+     * direction of motion. Same as SwerveDriveKinematics.desaturateWheelSpeeds.
+     * @param moduleSpeedsMetersPerSecond The module speeds to scale, modified in place.
+     * @param topSpeedMetersPerSecond The fastest any module can go.
+     */
+    public static void desaturateModuleSpeeds(double[] moduleSpeedsMetersPerSecond, double topSpeedMetersPerSecond) {
+        double fastestModuleSpeed = 0;
+        for (double speed : moduleSpeedsMetersPerSecond) {
+            fastestModuleSpeed = Math.max(fastestModuleSpeed, Math.abs(speed));
+        }
+        if (fastestModuleSpeed > topSpeedMetersPerSecond) {
+            for (int i = 0; i < moduleSpeedsMetersPerSecond.length; i++) {
+                moduleSpeedsMetersPerSecond[i] = moduleSpeedsMetersPerSecond[i] / fastestModuleSpeed * topSpeedMetersPerSecond;
+            }
+        }
+    }
+
+    private int getOrCreateSlot(double centerOfRotationXMeters, double centerOfRotationYMeters) {
+        // Most loops use the same center as the last one, so check that first.
+        if (cachedCenterXMeters[lastUsedSlot] == centerOfRotationXMeters
+                && cachedCenterYMeters[lastUsedSlot] == centerOfRotationYMeters) {
+            return lastUsedSlot;
+        }
+
+        int slot = findSlot(centerOfRotationXMeters, centerOfRotationYMeters);
+        if (slot < 0) {
+            slot = nextReplacementSlot;
+            fillSlot(slot, centerOfRotationXMeters, centerOfRotationYMeters);
+            nextReplacementSlot++;
+            if (nextReplacementSlot >= CACHE_SIZE) {
+                nextReplacementSlot = pinnedSlots;
+            }
+        }
+        lastUsedSlot = slot;
+        return slot;
+    }
+
+    private int findSlot(double centerOfRotationXMeters, double centerOfRotationYMeters) {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            if (cachedCenterXMeters[i] == centerOfRotationXMeters && cachedCenterYMeters[i] == centerOfRotationYMeters) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void fillSlot(int slot, double centerOfRotationXMeters, double centerOfRotationYMeters) {
+        cachedCenterXMeters[slot] = centerOfRotationXMeters;
+        cachedCenterYMeters[slot] = centerOfRotationYMeters;
+        for (int i = 0; i < moduleCount; i++) {
+            // Same terms as the rows of WPILib's inverse kinematics matrix.
+            cachedLeverX[slot][i] = -moduleYMeters[i] + centerOfRotationYMeters;
+            cachedLeverY[slot][i] = moduleXMeters[i] - centerOfRotationXMeters;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package competition.subsystems.drive;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Sits between the inverse kinematics and the swerve modules, and turns "where we'd like each module to be" into
+ * something each module can actually do in one loop:
+ * <ul>
+ * <li>Each module is pointed whichever way (forwards or backwards) is closer to where the wheel is now.</li>
+ * <li>Steering targets move no faster than the steering can follow.</li>
+ * <li>Wheel speeds change no faster than the wheels can accelerate, so sudden stick movements don't slip the wheels
+ * or tip the robot.</li>
+ * <li>Each wheel's speed is scaled by how well it's lined up with its target direction, so a wheel that's still
+ * turning doesn't push the robot sideways.</li>
+ * </ul>
+ * The limits are applied relative to the previous setpoint rather than the measured state, so the velocity and
+ * steering loops still see a meaningful error to work on. The previous setpoints are reset to the measured state
+ * whenever there's a gap in the updates (e.g. after being disabled).
+ * <p>
+ * Like {@link SwerveInverseKinematics}, everything is done on doubles and nothing is allocated.
+ */
+public class SwerveSetpointGenerator {
+
+    // If we haven't been called in this long, the previous setpoints don't mean much any more.
+    private static final double STALE_SETPOINT_SECONDS = 0.1;
+    private static final double NOMINAL_LOOP_SECONDS = 0.02;
+
+    private final int moduleCount;
+    private final double[] previousSpeedsMetersPerSecond;
+    private final double[] previousAnglesRadians;
+    private final double[] accelerationsMetersPerSecondSquared;
+    private double previousTimestamp = Double.NaN;
+
+    public SwerveSetpointGenerator(int moduleCount) {
+        this.moduleCount = moduleCount;
+        this.previousSpeedsMetersPerSecond = new double[moduleCount];
+        this.previousAnglesRadians = new double[moduleCount];
+        this.accelerationsMetersPerSecondSquared = new double[moduleCount];
+    }
+
+    /**
+     * Forget the previous setpoints, so the next call starts from the measured module states.
+     */
+    public void reset() {
+        previousTimestamp = Double.NaN;
+    }
+
+    /**
+     * Limits the desired module states to what the modules can reach from their previous setpoints.
+     * @param moduleSpeedsMetersPerSecond Input: the desired speed of each module. Output: the speed to command.
+     * @param moduleAnglesRadians Input: the desired angle of each module. Output: the angle to command, from -pi to pi.
+     * @param currentSpeedsMetersPerSecond The measured speed of each module.
+     * @param currentAnglesRadians The measured angle of each module.
+     * @param maxAccelerationMetersPerSecondSquared How quickly a wheel's speed can change.
+     * @param maxSteeringRateRadiansPerSecond How quickly a module's steering target can change.
+     * @param timestampSeconds The current time.
+     */
+    public void calculateSetpoints(
+            double[] moduleSpeedsMetersPerSecond, double[] moduleAnglesRadians,
+            double[] currentSpeedsMetersPerSecond, double[] currentAnglesRadians,
+            double maxAccelerationMetersPerSecondSquared, double maxSteeringRateRadiansPerSecond,
+            double timestampSeconds) {
+
+        double dt = timestampSeconds - previousTimestamp;
+        if (Double.isNaN(dt) || dt <= 0 || dt > STALE_SETPOINT_SECONDS) {
+            // Start over from wherever the modules actually are.
+            for (int i = 0; i < moduleCount; i++) {
+                previousSpeedsMetersPerSecond[i] = currentSpeedsMetersPerSecond[i];
+                previousAnglesRadians[i] = currentAnglesRadians[i];
+            }
+            dt = NOMINAL_LOOP_SECONDS;
+        }
+        previousTimestamp = timestampSeconds;
+
+        double maxSpeedChange = maxAccelerationMetersPerSecondSquared * dt;
+        double maxAngleChange = maxSteeringRateRadiansPerSecond * dt;
+
+        for (int i = 0; i < moduleCount; i++) {
+            double speed = moduleSpeedsMetersPerSecond[i];
+            double angle = moduleAnglesRadians[i];
+
+            // If the wheel would need to turn more than 90 degrees, point it the other way and drive it backwards.
+            if (Math.abs(MathUtil.angleModulus(angle - currentAnglesRadians[i])) > Math.PI / 2) {
+                speed = -speed;
+                angle = MathUtil.angleModulus(angle + Math.PI);
+            }
+
+            // Steering can only move so far this loop.
+            double angleChange = MathUtil.angleModulus(angle - previousAnglesRadians[i]);
+            angle = MathUtil.angleModulus(
+                previousAnglesRadians[i] + MathUtil.clamp(angleChange, -maxAngleChange, maxAngleChange));
+
+            // Likewise the wheel speed. The steering target has only moved a little from the previous one, so the
+            // previous speed is still in the same direction and can be limited against directly.
+            double previousSpeed = previousSpeedsMetersPerSecond[i];
+            speed = MathUtil.clamp(speed, previousSpeed - maxSpeedChange, previousSpeed + maxSpeedChange);
+            accelerationsMetersPerSecondSquared[i] = (speed - previousSpeed) / dt;
+
+            previousSpeedsMetersPerSecond[i] = speed;
+            previousAnglesRadians[i] = angle;
+
+            // Only push as hard as the wheel is lined up with where it should be going. This isn't part of the
+            // setpoint we remember, so the wheel can get straight back up to speed once it's aligned.
+            double alignment = Math.cos(angle - currentAnglesRadians[i]);
+            moduleSpeedsMetersPerSecond[i] = speed * Math.max(0, alignment);
+            moduleAnglesRadians[i] = angle;
+        }
+    }
+
+    /**
+     * @param module Which module, in the same order as the arrays passed to calculateSetpoints.
+     * @return How quickly the module's speed setpoint changed in the last call, in the direction of the commanded
+     * angle. Never more than the acceleration limit.
+     */
+    public double getAccelerationMetersPerSecondSquared(int module) {
+        return accelerationsMetersPerSecondSquared[module];
+    }
+}
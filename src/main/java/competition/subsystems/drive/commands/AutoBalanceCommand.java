@@ -2,10 +2,10 @@ package competition.subsystems.drive.commands;
 
 import javax.inject.Inject;
 
+import competition.subsystems.RobotStateFrame;
 import competition.subsystems.drive.DriveSubsystem;
 import competition.subsystems.pose.PoseSubsystem;
 import xbot.common.command.BaseCommand;
-import xbot.common.controls.sensors.XTimer;
 import xbot.common.math.PIDManager;
 import xbot.common.math.PIDManager.PIDManagerFactory;
 import xbot.common.properties.DoubleProperty;
@@ -16,6 +16,7 @@ public class AutoBalanceCommand extends BaseCommand {
     
     private final DriveSubsystem drive;
     private final PoseSubsystem pose;
+    private final RobotStateFrame robotStateFrame;
     private final PIDManager pidManager;
 
     private boolean drivingAgainstPositiveAngle = true;
@@ -40,9 +41,10 @@ public class AutoBalanceCommand extends BaseCommand {
 
     @Inject
     public AutoBalanceCommand(DriveSubsystem drive, PoseSubsystem pose, PIDManagerFactory pidFactory,
-                              PropertyFactory pf) {
+                              PropertyFactory pf, RobotStateFrame robotStateFrame) {
         this.drive = drive;
         this.pose = pose;
+        this.robotStateFrame = robotStateFrame;
         pf.setPrefix(this);
         this.pidManager = pidFactory.create(
             this.getPrefix(),
@@ -136,12 +138,12 @@ public class AutoBalanceCommand extends BaseCommand {
                 // We'll also slow down the drive speed for the next attempt.
                 currentAttemptSpeed = currentAttemptSpeed * speedMultiplierProperty.get();
                 currentBalanceState = BalanceState.Waiting;
-                lastDetectedFallTime = XTimer.getFPGATimestamp();
+                lastDetectedFallTime = robotStateFrame.getTimestamp();
                 velocityGoal = 0;
                 drive.setActivateBrakeOverride(true);
                 break;
             case Waiting:
-                if (XTimer.getFPGATimestamp() - lastDetectedFallTime > 2.0) {
+                if (robotStateFrame.getTimestamp() - lastDetectedFallTime > 2.0) {
                     if (isRobotLevel()) {
                         // We've successfully balanced!
                         currentBalanceState = BalanceState.Complete;
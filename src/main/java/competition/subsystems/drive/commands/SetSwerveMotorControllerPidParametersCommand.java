@@ -30,7 +30,7 @@ public class SetSwerveMotorControllerPidParametersCommand extends BaseCommand {
         @RearRightDrive SwerveComponent rearRightSwerveComponent)
     {
         this.frontLeftDrive = frontLeftSwerveComponent.swerveDriveSubsystem();
-        this.frontRightDrive = frontLeftSwerveComponent.swerveDriveSubsystem();
+        this.frontRightDrive = frontRightSwerveComponent.swerveDriveSubsystem();
         this.rearLeftDrive = rearLeftSwerveComponent.swerveDriveSubsystem();
         this.rearRightDrive = rearRightSwerveComponent.swerveDriveSubsystem();
         this.frontLeftSteering = frontLeftSwerveComponent.swerveSteeringSubsystem();
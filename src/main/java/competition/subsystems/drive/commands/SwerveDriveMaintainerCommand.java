@@ -28,7 +28,12 @@ public class SwerveDriveMaintainerCommand extends BaseMaintainerCommand<Double>
 
     @Override
     protected void calibratedMachineControlAction() {
-        // The drive subsystem is setting velocity goals, but we're starting simple.
+        if (this.subsystem.isUsingMotorControllerPid()) {
+            this.subsystem.setMotorControllerVelocityPidTarget();
+            return;
+        }
+
+        // Otherwise, keep it simple.
         // Just set % power by dividing by the max allowable velocity.
         if (drive.getMaxTargetSpeedInchesPerSecond() > 0) {
             this.subsystem.setPower(this.subsystem.getTargetValue() / drive.getMaxTargetSpeedInchesPerSecond());
@@ -46,6 +46,10 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
     final HumanVsMachineDecider decider;
     DriverStation.Alliance alliance;
 
+    // Reused every loop rather than allocating new vectors each time execute() runs.
+    private final XYPair rawTranslationVector = new XYPair();
+    private final XYPair headingVector = new XYPair();
+
     @Inject
     public SwerveDriveWithJoysticksCommand(
             DriveSubsystem drive, PoseSubsystem pose, OperatorInterface oi,
@@ -114,7 +118,8 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
         // --------------------------------------------------
 
         // Get the current translation vector from the gamepad.
-        XYPair rawTranslationVector = new XYPair(oi.driverGamepad.getLeftStickX(), oi.driverGamepad.getLeftStickY());
+        rawTranslationVector.x = oi.driverGamepad.getLeftStickX();
+        rawTranslationVector.y = oi.driverGamepad.getLeftStickY();
         pose.rotateVectorBasedOnAlliance(rawTranslationVector);
         // preserve the angle
         double rawAngle = rawTranslationVector.getAngle();
@@ -124,8 +129,9 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
                 oi.getDriverGamepadTypicalDeadband(),
                 (a) -> MathUtils.exponentAndRetainSign(a, (int) input_exponent.get()));
 
-        // create new vector with the scaled magnitude and angle
-        XYPair translationIntent = XYPair.fromPolar(rawAngle-90, updatedMagnitude);
+        // rebuild the vector with the scaled magnitude and angle
+        double translationIntentX = updatedMagnitude * Math.cos(Math.toRadians(rawAngle - 90));
+        double translationIntentY = updatedMagnitude * Math.sin(Math.toRadians(rawAngle - 90));
 
         // --------------------------------------------------
         // Rotation
@@ -171,12 +177,13 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
             // line up with our conventions. (Usually, a right turn is done by moving the joystick right. However, turning to the right
             // is a "negative" rotation, so the X axis is usually inverted to take that into account). 
             // By doing this inversion, the vector will better map onto a typical cartesian coordinate system.
-            XYPair headingVector = new XYPair(-oi.driverGamepad.getRightStickX(), oi.driverGamepad.getRightStickY());
+            headingVector.x = -oi.driverGamepad.getRightStickX();
+            headingVector.y = oi.driverGamepad.getRightStickY();
             pose.rotateVectorBasedOnAlliance(headingVector);
 
             // The next step is to rotate the vector. The FRC frame assumes "forward" is 0 degrees, but the typical cartesian setup
             // of a joystick would have "forward" as 90 degrees.
-            headingVector = headingVector.rotate(-90);
+            headingVector.rotate(-90);
 
             double desiredHeading = 0;
             
@@ -244,8 +251,11 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
         // --------------------------------------------------
 
         // It's not sensible to magnitudes greater than the unit vector. This isn't goldeneye - you can't go extra fast by moving diagonally!
-        if (translationIntent.getMagnitude() > 1) {
-            translationIntent.scale(1/translationIntent.getMagnitude());
+        double translationIntentMagnitude = Math.sqrt(
+            translationIntentX * translationIntentX + translationIntentY * translationIntentY);
+        double translationScale = 1;
+        if (translationIntentMagnitude > 1) {
+            translationScale = 1 / translationIntentMagnitude;
         }
 
         // Scale the power down if we are in one or more precision modes
@@ -257,14 +267,16 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
             // Use various ways of scaling down the drive power
 
             if (drive.isPrecisionTranslationActive()) {
-                translationIntent = translationIntent.scale(0.50);
+                translationScale *= 0.50;
             } else if (drive.isExtremePrecisionTranslationActive()) {
-                translationIntent = translationIntent.scale(0.15);
+                translationScale *= 0.15;
             }
 
             // Scale the power down if requested (typically used when novices are controlling the robot)
-            translationIntent = translationIntent.scale(drivePowerFactor.get());
+            translationScale *= drivePowerFactor.get();
         }
+        translationIntentX *= translationScale;
+        translationIntentY *= translationScale;
         if (drive.isUnlockFullDrivePowerActive()) {
             // do nothing - unleash the full power of the machine!
         } else {
@@ -272,19 +284,21 @@ public class SwerveDriveWithJoysticksCommand extends BaseCommand {
         }
 
         // Check if we need a different center of rotation
-        XYPair centerOfRotationInches = new XYPair(0,0);
+        double centerOfRotationXInches = 0;
         if (drive.isCollectorRotationActive()) {
-            centerOfRotationInches = new XYPair(arms.getCurrentXZCoordinates().x, 0);
+            centerOfRotationXInches = arms.getCurrentXZCoordinates().x;
         }
 
         if (drive.isGamePieceRotationActive()) {
-            centerOfRotationInches = new XYPair(35, 0);
+            centerOfRotationXInches = DriveSubsystem.GAME_PIECE_CENTER_OF_ROTATION_X_INCHES;
         }
 
         if (drive.isRobotOrientedDriveActive()) {
-            drive.move(translationIntent, suggestedRotatePower);
+            drive.move(translationIntentX, translationIntentY, suggestedRotatePower, 0, 0);
         } else {
-            drive.fieldOrientedDrive(translationIntent, suggestedRotatePower, pose.getCurrentHeading().getDegrees(), centerOfRotationInches);
+            drive.fieldOrientedDrive(
+                translationIntentX, translationIntentY, suggestedRotatePower, pose.getCurrentHeading().getDegrees(),
+                centerOfRotationXInches, 0);
         }
     }
 
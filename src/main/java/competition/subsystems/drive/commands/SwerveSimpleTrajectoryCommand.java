@@ -3,6 +3,7 @@ package competition.subsystems.drive.commands;
 import competition.subsystems.drive.DriveSubsystem;
 import competition.subsystems.pose.PoseSubsystem;
 import competition.trajectory.SimpleTimeInterpolator;
+import competition.trajectory.SplineTimeInterpolator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -30,12 +31,23 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
     double maxPower = 1.0;
     double maxTurningPower = 1.0;
 
-    private final SimpleTimeInterpolator interpolator = new SimpleTimeInterpolator();
+    private SimpleTimeInterpolator interpolator = new SimpleTimeInterpolator();
     SimpleTimeInterpolator.InterpolationResult lastResult;
+    // The scheduler calls execute() and then isFinished() every loop, and both need the goal vector. The
+    // interpolator's clock moves on every time it is asked for a target, so execute() calculates it once and
+    // isFinished() picks it up from here.
+    private XYPair goalVectorFromExecute;
 
     private boolean enableConstantVelocity = false;
     private double constantVelocity = 10;
     private boolean stopWhenFinished = true;
+    private boolean enableVelocityFeedForward = false;
+
+    // Velocity-adjusted copy of the last key points we were given. Key point providers like the AutonomousOracle
+    // hand back the same list until something changes, so usually only the first segment needs recalculating.
+    private List<XbotSwervePoint> velocityAdjustedSource;
+    private double velocityAdjustedVelocity;
+    private ArrayList<XbotSwervePoint> velocityAdjustedPoints;
 
     private final Field2d ghostDisplay;
 
@@ -60,6 +72,10 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
         setKeyPointsProvider(() -> keyPoints);
     }
 
+    /**
+     * @param keyPointsProvider Called each time the command starts. Return a new list (or the same, unmodified list)
+     *                          rather than changing a list you've already returned.
+     */
     public void setKeyPointsProvider(Supplier<List<XbotSwervePoint>> keyPointsProvider) {
         this.keyPointsProvider = keyPointsProvider;
     }
@@ -90,6 +106,23 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
         this.stopWhenFinished = newValue;
     }
 
+    /**
+     * When enabled, the robot follows a smooth curve through the key points rather than straight lines between
+     * them, so it can keep moving through each key point instead of slowing down to turn a corner.
+     * Takes effect the next time the command starts.
+     */
+    public void setUseSplineInterpolation(boolean useSplineInterpolation) {
+        interpolator = useSplineInterpolation ? new SplineTimeInterpolator() : new SimpleTimeInterpolator();
+    }
+
+    /**
+     * When enabled, the robot drives at the chase point's own velocity and only uses the positional PID to correct
+     * for any error, rather than relying on the PID alone (which always leaves the robot lagging the chase point).
+     */
+    public void setEnableVelocityFeedForward(boolean enableVelocityFeedForward) {
+        this.enableVelocityFeedForward = enableVelocityFeedForward;
+    }
+
     // --------------------------------------------------------------
     // Major Command Elements
     // --------------------------------------------------------------
@@ -109,6 +142,7 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
         interpolator.setMaximumDistanceFromChasePointInInches(24);
         interpolator.setKeyPoints(keyPoints);
         interpolator.initialize(initialPoint);
+        goalVectorFromExecute = null;
 
     }
 
@@ -121,8 +155,18 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
         // To do this, we will need to iterate though each point, dividing the distance between the current point and the next
         // point by the velocity to get a new duration.
 
+        // Either way we hand back a new list rather than changing the old one, since a previous caller may still be
+        // holding it.
+
         // The first point is a special case, since it's dynamic depending on where the robot actually is to start.
-        ArrayList<XbotSwervePoint> velocityAdjustedPoints = new ArrayList<>();
+        // If nothing else has changed, the rest of the points can be copied over from last time.
+        if (swervePoints == velocityAdjustedSource && velocity == velocityAdjustedVelocity && !swervePoints.isEmpty()) {
+            velocityAdjustedPoints = new ArrayList<>(velocityAdjustedPoints);
+            velocityAdjustedPoints.set(0, getVelocityAdjustedSwervePoint(initialPoint, swervePoints.get(0), velocity));
+            return velocityAdjustedPoints;
+        }
+
+        velocityAdjustedPoints = new ArrayList<>(swervePoints.size());
 
         // Now, the rest follow this general pattern. Compare the current point to the next point, and adjust the duration.
         for (int i = 0; i < swervePoints.size(); i++) {
@@ -132,16 +176,20 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
                 // If we've moved on to later points, we can now safely get previous entries in the list.
                 previous = swervePoints.get(i - 1);
             }
-            var current = swervePoints.get(i);
-
-            double distance = previous.getTranslation2d().getDistance(current.getTranslation2d());
-            double velocityAdjustedDuration = distance / velocity;
-            velocityAdjustedPoints.add(new XbotSwervePoint(swervePoints.get(i).keyPose, velocityAdjustedDuration));
+            velocityAdjustedPoints.add(getVelocityAdjustedSwervePoint(previous, swervePoints.get(i), velocity));
         }
 
+        velocityAdjustedSource = swervePoints;
+        velocityAdjustedVelocity = velocity;
         return velocityAdjustedPoints;
     }
 
+    private static XbotSwervePoint getVelocityAdjustedSwervePoint(XbotSwervePoint previous, XbotSwervePoint current, double velocity) {
+        double distance = previous.getTranslation2d().getDistance(current.getTranslation2d());
+        double velocityAdjustedDuration = distance / velocity;
+        return new XbotSwervePoint(current.keyPose, velocityAdjustedDuration);
+    }
+
     protected XYPair getGoalVector() {
         var currentPosition = pose.getCurrentPose2d();
         lastResult = interpolator.calculateTarget(currentPosition.getTranslation());
@@ -164,6 +212,7 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
     @Override
     public void execute() {
         var goalVector = getGoalVector();
+        goalVectorFromExecute = goalVector;
 
         // Now that we have a chase point, we can drive to it. The rest of the logic is
         // from our proven SwerveToPointCommand. Eventually, the common components should be
@@ -177,6 +226,14 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
         // Create a vector in the direction of the goal, scaled by the drivePower.
         XYPair intent = XYPair.fromPolar(goalVector.getAngle(), drivePower);
 
+        if (enableVelocityFeedForward) {
+            // Drive powers are a fraction of the drive's top speed, so convert the chase point's velocity to match.
+            double maxSpeed = drive.getMaxTargetSpeedInchesPerSecond();
+            intent.add(new XYPair(
+                    lastResult.chaseVelocity.getX() / maxSpeed,
+                    lastResult.chaseVelocity.getY() / maxSpeed));
+        }
+
         double headingPower = headingModule.calculateHeadingPower(
                 lastResult.chaseHeading.getDegrees());
 
@@ -194,7 +251,10 @@ public class SwerveSimpleTrajectoryCommand extends BaseCommand {
 
     @Override
     public boolean isFinished() {
-        var goalVector = getGoalVector();
+        // Only calculate a new goal if execute() hasn't already done it this loop (e.g. isFinished() is being called
+        // directly, or twice in a row).
+        var goalVector = goalVectorFromExecute != null ? goalVectorFromExecute : getGoalVector();
+        goalVectorFromExecute = null;
         // TODO: Move this threshold into a variable
         boolean isAtNoStoppingGoal = goalVector.getMagnitude() < 18; // 18 inches
 
@@ -3,16 +3,59 @@ package competition.subsystems.drive.swerve;
 import javax.inject.Inject;
 
 import competition.subsystems.BaseMotorPidSubsystem;
+import xbot.common.properties.DoubleProperty;
 import xbot.common.properties.PropertyFactory;
 
 /**
- * Container for drive motor controller PIDs.
+ * Container for drive motor controller PIDs. The drive motors run a velocity loop, so the gains are in terms of
+ * motor RPM, and most of the work is done by the feed forward terms.
  */
 public class SwerveDriveMotorPidSubsystem extends BaseMotorPidSubsystem {
 
+    private final DoubleProperty kS;
+    private final DoubleProperty kV;
+    private final DoubleProperty kA;
+
     @Inject
     public SwerveDriveMotorPidSubsystem(PropertyFactory pf) {
-        super(pf);
+        super(pf, 0.0002, 0.0, 0.0, 0.0, -1.0, 1.0, 0.0, 0.05);
+
+        // Feed forward, in volts. The defaults are a NEO's theoretical values on our gearing; tune them on the robot.
+        kS = pf.createPersistentProperty("kSVolts", 0.15);
+        kV = pf.createPersistentProperty("kVVoltsPerInchPerSecond", 0.0628);
+        kA = pf.createPersistentProperty("kAVoltsPerInchPerSecondSquared", 0.004);
     }
 
-}
\ No newline at end of file
+    /**
+     * @return Voltage needed to overcome friction and get the wheel moving at all.
+     */
+    public double getS() {
+        return kS.get();
+    }
+
+    /**
+     * @return Voltage needed per inch per second of wheel speed.
+     */
+    public double getV() {
+        return kV.get();
+    }
+
+    /**
+     * @return Voltage needed per inch per second squared of wheel acceleration.
+     */
+    public double getA() {
+        return kA.get();
+    }
+
+    /**
+     * Calculates the voltage needed to move the wheel at the given velocity and acceleration, ignoring any error.
+     * @param velocityInchesPerSecond Target wheel velocity.
+     * @param accelerationInchesPerSecondSquared Target wheel acceleration.
+     * @return Voltage to apply.
+     */
+    public double calculateFeedForwardVolts(double velocityInchesPerSecond, double accelerationInchesPerSecondSquared) {
+        return getS() * Math.signum(velocityInchesPerSecond)
+            + getV() * velocityInchesPerSecond
+            + getA() * accelerationInchesPerSecondSquared;
+    }
+}
@@ -3,20 +3,24 @@ package competition.subsystems.drive.swerve;
 import javax.inject.Inject;
 
 import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMax.FaultID;
-import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
-
+import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.REVLibError;
 import org.apache.log4j.Logger;
 
 import competition.electrical_contract.ElectricalContract;
 import competition.injection.swerve.SwerveInstance;
 import competition.injection.swerve.SwerveSingleton;
+import competition.subsystems.DeduplicatedSparkMaxOutput;
+import competition.subsystems.StatusFrameScheduler;
+import competition.subsystems.StatusFrameScheduler.ScheduledDevice;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
 import xbot.common.command.BaseSetpointSubsystem;
 import xbot.common.controls.actuators.XCANSparkMax;
 import xbot.common.controls.actuators.XCANSparkMax.XCANSparkMaxFactory;
+import xbot.common.math.MathUtils;
 import xbot.common.math.PIDManager;
 import xbot.common.math.PIDManager.PIDManagerFactory;
+import xbot.common.properties.BooleanProperty;
 import xbot.common.properties.DoubleProperty;
 import xbot.common.properties.PropertyFactory;
 
@@ -24,21 +28,33 @@ import xbot.common.properties.PropertyFactory;
 public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
     private static Logger log = Logger.getLogger(SwerveDriveSubsystem.class);
 
+    // The most feed forward the motor controller could ever use, from a full battery.
+    private static final double MAX_FEED_FORWARD_VOLTS = 12.0;
+
     private final String label;
     private final PIDManager pid;
     private final ElectricalContract contract;
     private final SwerveDriveMotorPidSubsystem pidConfigSubsystem;
 
     private final DoubleProperty inchesPerMotorRotation;
+    private final BooleanProperty useMotorControllerPid;
     private final DoubleProperty targetVelocity;
     private final DoubleProperty currentVelocity;
 
     private XCANSparkMax motorController;
+    private DeduplicatedSparkMaxOutput motorOutput;
+    private ScheduledDevice motorStatusFrames;
+    private double targetVelocityInchesPerSecond = 0;
+    private double targetAccelerationInchesPerSecondSquared = 0;
+    private double feedForwardVolts = 0;
+    // Cached once per loop by refreshDataFrame(). Until then, the motor controller is read directly.
+    private boolean hasDataFrame = false;
+    private double cachedMotorVelocity;
 
     @Inject
     public SwerveDriveSubsystem(SwerveInstance swerveInstance, XCANSparkMaxFactory sparkMaxFactory,
             PropertyFactory pf, PIDManagerFactory pidf, ElectricalContract electricalContract,
-            SwerveDriveMotorPidSubsystem pidConfigSubsystem) {
+            SwerveDriveMotorPidSubsystem pidConfigSubsystem, StatusFrameScheduler statusFrameScheduler) {
         this.label = swerveInstance.getLabel();
         log.info("Creating SwerveDriveSubsystem " + this.label);
         
@@ -47,6 +63,7 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
         this.contract = electricalContract;
         this.pid = pidf.create(super.getPrefix() + "PID", 1.0, 0.0, 0.0, -1.0, 1.0);
         this.inchesPerMotorRotation = pf.createPersistentProperty("InchesPerMotorRotation", 2.02249);
+        this.useMotorControllerPid = pf.createPersistentProperty("UseMotorControllerPID", false);
         
         // Create properties unique to this instance.
         pf.setPrefix(this);
@@ -58,31 +75,10 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
         if (electricalContract.isDriveReady()) {
             this.motorController = sparkMaxFactory.createWithoutProperties(electricalContract.getDriveNeo(swerveInstance), this.getPrefix(), "DriveNeo");
             setMotorControllerPositionPidParameters();
-            setupStatusFrames();
+            this.motorStatusFrames = statusFrameScheduler.registerSparkMax(this.motorController, this.getPrefix() + "DriveNeo", SparkMaxProfile.SwerveDrive);
             this.motorController.setSmartCurrentLimit(45);
             this.motorController.setIdleMode(CANSparkMax.IdleMode.kBrake);
-        }
-    }
-
-    /**
-     * Set up status frame intervals to reduce unnecessary CAN activity.
-     */
-    private void setupStatusFrames() {
-        if (this.contract.isDriveReady()) {
-            // We need to re-set frame intervals after a device reset.
-            if (this.motorController.getStickyFault(FaultID.kHasReset) && this.motorController.getLastError() != REVLibError.kHALError) {
-                log.info("Setting status frame periods.");
-
-                // See https://docs.revrobotics.com/sparkmax/operating-modes/control-interfaces#periodic-status-frames
-                // for description of the different status frames. kStatus2 is the only frame with data needed for software PID.
-
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus0, 500 /* default 10 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus1, 20 /* default 20 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus2, 20 /* default 20 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus3, 500 /* default 50 */);
-                
-                this.motorController.clearFaults();
-            }
+            this.motorOutput = new DeduplicatedSparkMaxOutput(this.motorController, "DriveNeo", pf);
         }
     }
 
@@ -100,9 +96,17 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public Double getCurrentValue() {
+        return getCurrentVelocityInInchesPerSecond();
+    }
+
+    /**
+     * Gets current velocity in inches per second, without boxing.
+     */
+    public double getCurrentVelocityInInchesPerSecond() {
         if (this.contract.isDriveReady()) {
             // Spark returns in RPM - need to convert to inches per second
-            return this.motorController.getVelocity() * this.inchesPerMotorRotation.get() / 60.0;
+            double motorVelocity = hasDataFrame ? cachedMotorVelocity : this.motorController.getVelocity();
+            return motorVelocity * this.inchesPerMotorRotation.get() / 60.0;
         } else {
             return 0.0;
         }
@@ -113,7 +117,7 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public Double getTargetValue() {
-        return this.targetVelocity.get();
+        return this.targetVelocityInchesPerSecond;
     }
 
     /**
@@ -121,7 +125,38 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public void setTargetValue(Double value) {
-        this.targetVelocity.set(value);
+        setTargetVelocityInInchesPerSecond(value);
+    }
+
+    /**
+     * Sets target velocity in inches per second, without boxing. The dashboard value is updated in periodic().
+     */
+    public void setTargetVelocityInInchesPerSecond(double inchesPerSecond) {
+        setTargetVelocityInInchesPerSecond(inchesPerSecond, 0);
+    }
+
+    /**
+     * Sets target velocity in inches per second, along with how quickly it's planned to change. Only a planned
+     * acceleration (e.g. from the setpoint generator) should be passed in; a target that jumps from one loop to the next
+     * would ask for far more than the motor can give.
+     */
+    public void setTargetVelocityInInchesPerSecond(double inchesPerSecond, double accelerationInchesPerSecondSquared) {
+        this.targetVelocityInchesPerSecond = inchesPerSecond;
+        this.targetAccelerationInchesPerSecondSquared = accelerationInchesPerSecondSquared;
+        if (inchesPerSecond != 0 && this.motorStatusFrames != null) {
+            this.motorStatusFrames.markActive();
+        }
+    }
+
+    /**
+     * Reads the motor velocity and caches it for the rest of this loop. Position isn't cached, since
+     * the odometry thread samples it more often than once per loop.
+     */
+    public void refreshDataFrame() {
+        if (this.contract.isDriveReady()) {
+            cachedMotorVelocity = this.motorController.getVelocity();
+        }
+        hasDataFrame = true;
     }
 
     public double getCurrentPositionValue() {
@@ -135,7 +170,7 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
     @Override
     public void setPower(Double power) {
         if (this.contract.isDriveReady()) {
-            this.motorController.set(power);
+            this.motorOutput.set(power);
         }
     }
 
@@ -145,6 +180,10 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
     }
     
 
+    public double getInchesPerMotorRotation() {
+        return this.inchesPerMotorRotation.get();
+    }
+
     public XCANSparkMax getSparkMax() {
         return this.motorController;
     }
@@ -154,7 +193,50 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
     }
     
     public double calculatePower() {
-        return this.pid.calculate(this.getTargetValue(), this.getCurrentValue());
+        return this.pid.calculate(this.targetVelocityInchesPerSecond, this.getCurrentValue());
+    }
+
+    /**
+     * Gets a flag indicating whether we are using the motor controller's velocity loop, or setting power directly.
+     * @return <b>true</b> if using motor controller's PID.
+     */
+    public boolean isUsingMotorControllerPid() {
+        return this.useMotorControllerPid.get();
+    }
+
+    /**
+     * Sends the target velocity to the motor controller's velocity loop, along with the voltage the feed forward
+     * model expects that velocity (and its planned acceleration) to need. The motor controller runs its loop
+     * at 1kHz, so it corrects for errors much faster than we could from here.
+     */
+    public void setMotorControllerVelocityPidTarget() {
+        if (this.contract.isDriveReady()) {
+            feedForwardVolts = MathUtils.constrainDouble(
+                pidConfigSubsystem.calculateFeedForwardVolts(
+                    targetVelocityInchesPerSecond, targetAccelerationInchesPerSecondSquared),
+                -MAX_FEED_FORWARD_VOLTS,
+                MAX_FEED_FORWARD_VOLTS);
+            double targetRpm = targetVelocityInchesPerSecond / inchesPerMotorRotation.get() * 60.0;
+
+            REVLibError error = this.motorOutput.setReference(targetRpm, ControlType.kVelocity, 0, feedForwardVolts);
+            if (error != REVLibError.kOk) {
+                log.error("Error setting PID target: " + error.name());
+            }
+        }
+    }
+
+    /**
+     * @return The feed forward last sent to the motor controller, in volts.
+     */
+    public double getFeedForwardVolts() {
+        return feedForwardVolts;
+    }
+
+    /**
+     * @return How quickly the target velocity is planned to change, in inches per second squared.
+     */
+    public double getTargetAccelerationInInchesPerSecondSquared() {
+        return targetAccelerationInchesPerSecondSquared;
     }
 
     public void setMotorControllerPositionPidParameters() {
@@ -171,9 +253,10 @@ public class SwerveDriveSubsystem extends BaseSetpointSubsystem<Double> {
 
     @Override
     public void periodic() {
+        targetVelocity.set(targetVelocityInchesPerSecond);
         if (contract.isDriveReady()) {
             currentVelocity.set(this.getCurrentValue());
-            setupStatusFrames();
+            this.motorOutput.periodic();
             this.motorController.periodic();
         }
     }
@@ -6,12 +6,12 @@ import org.apache.log4j.Logger;
 import competition.electrical_contract.ElectricalContract;
 import competition.injection.swerve.SwerveInstance;
 import competition.injection.swerve.SwerveSingleton;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import xbot.common.command.BaseSubsystem;
-import xbot.common.math.WrappedRotation2d;
 import xbot.common.math.XYPair;
 import xbot.common.properties.DoubleProperty;
 import xbot.common.properties.Property;
@@ -32,7 +32,9 @@ public class SwerveModuleSubsystem extends BaseSubsystem {
 
     private final Translation2d moduleTranslation;
 
-    private SwerveModuleState targetState;
+    // The last target, after optimization. Kept as primitives so setting a new target doesn't create garbage.
+    private double targetSpeedMetersPerSecond;
+    private double targetAngleRadians;
 
     @Inject
     public SwerveModuleSubsystem(SwerveInstance swerveInstance, SwerveDriveSubsystem driveSubsystem, SwerveSteeringSubsystem steeringSubsystem,
@@ -52,8 +54,6 @@ public class SwerveModuleSubsystem extends BaseSubsystem {
         this.moduleTranslation = new Translation2d(
             xOffsetInches.get() / BasePoseSubsystem.INCHES_IN_A_METER,
             yOffsetInches.get() / BasePoseSubsystem.INCHES_IN_A_METER);
-
-        this.targetState = new SwerveModuleState();
     }
 
     /**
@@ -61,11 +61,53 @@ public class SwerveModuleSubsystem extends BaseSubsystem {
      * @param swerveModuleState Metric swerve module state
      */
     public void setTargetState(SwerveModuleState swerveModuleState) {
-        this.targetState = SwerveModuleState.optimize(swerveModuleState, getSteeringSubsystem().getCurrentRotation());
+        setTargetState(swerveModuleState.speedMetersPerSecond, swerveModuleState.angle.getRadians());
+    }
+
+    /**
+     * Sets the target steering angle and drive power for this module, in METRIC UNITS, without allocating anything.
+     * @param speedMetersPerSecond Target wheel speed in meters per second
+     * @param angleRadians Target wheel angle in radians
+     */
+    public void setTargetState(double speedMetersPerSecond, double angleRadians) {
+        setTargetState(speedMetersPerSecond, angleRadians, 0);
+    }
 
-        this.getSteeringSubsystem().setTargetValue(new WrappedRotation2d(this.targetState.angle.getRadians()).getDegrees());
+    /**
+     * Sets the target steering angle and drive power for this module, in METRIC UNITS, without allocating anything.
+     * @param speedMetersPerSecond Target wheel speed in meters per second
+     * @param angleRadians Target wheel angle in radians
+     * @param accelerationMetersPerSecondSquared How quickly the target wheel speed is planned to change
+     */
+    public void setTargetState(double speedMetersPerSecond, double angleRadians, double accelerationMetersPerSecondSquared) {
+        // Same idea as SwerveModuleState.optimize: if the wheel would need to turn more than 90 degrees to reach the target,
+        // it's quicker to point it the opposite way and drive it backwards.
+        double angleChange = MathUtil.angleModulus(angleRadians - getSteeringSubsystem().getCurrentRotation().getRadians());
+        if (Math.abs(angleChange) > Math.PI / 2) {
+            speedMetersPerSecond = -speedMetersPerSecond;
+            accelerationMetersPerSecondSquared = -accelerationMetersPerSecondSquared;
+            angleRadians += Math.PI;
+        }
+        setPlannedTargetState(speedMetersPerSecond, angleRadians, accelerationMetersPerSecondSquared);
+    }
+
+    /**
+     * Sets the target steering angle and drive power for this module, in METRIC UNITS, exactly as given.
+     * Unlike {@link #setTargetState(double, double, double)}, the wheel is never flipped around to drive backwards;
+     * use this when the caller (e.g. the setpoint generator) has already picked which way the wheel should point.
+     * @param speedMetersPerSecond Target wheel speed in meters per second
+     * @param angleRadians Target wheel angle in radians
+     * @param accelerationMetersPerSecondSquared How quickly the target wheel speed is planned to change
+     */
+    public void setPlannedTargetState(double speedMetersPerSecond, double angleRadians, double accelerationMetersPerSecondSquared) {
+        this.targetSpeedMetersPerSecond = speedMetersPerSecond;
+        this.targetAngleRadians = MathUtil.angleModulus(angleRadians);
+
+        this.getSteeringSubsystem().setTargetAngleInDegrees(Math.toDegrees(this.targetAngleRadians));
         // The kinetmatics library does everything in metric, so we need to transform that back to US Customary Units
-        this.getDriveSubsystem().setTargetValue(this.targetState.speedMetersPerSecond * BasePoseSubsystem.INCHES_IN_A_METER);
+        this.getDriveSubsystem().setTargetVelocityInInchesPerSecond(
+            this.targetSpeedMetersPerSecond * BasePoseSubsystem.INCHES_IN_A_METER,
+            accelerationMetersPerSecondSquared * BasePoseSubsystem.INCHES_IN_A_METER);
     }
 
     /**
@@ -84,8 +126,40 @@ public class SwerveModuleSubsystem extends BaseSubsystem {
             this.getSteeringSubsystem().getCurrentRotation());
     }
 
+    /**
+     * Gets the distance the module has travelled, in meters, straight from the motor controller.
+     * Safe to call from the odometry sampling thread.
+     */
+    public double getCurrentDistanceMeters() {
+        return this.getDriveSubsystem().getCurrentPositionValue() / BasePoseSubsystem.INCHES_IN_A_METER;
+    }
+
+    /**
+     * Gets the module angle, in radians, straight from the best available encoder rather than the value
+     * cached once per loop. Safe to call from the odometry sampling thread.
+     */
+    public double getCurrentAngleRadians() {
+        return Math.toRadians(this.getSteeringSubsystem().getBestEncoderPositionInDegrees());
+    }
+
+    /**
+     * Reads this module's sensors and caches them for the rest of this loop.
+     */
+    public void refreshDataFrame() {
+        this.getDriveSubsystem().refreshDataFrame();
+        this.getSteeringSubsystem().refreshDataFrame();
+    }
+
     public SwerveModuleState getTargetState() {
-        return this.targetState;
+        return new SwerveModuleState(this.targetSpeedMetersPerSecond, new Rotation2d(this.targetAngleRadians));
+    }
+
+    public double getTargetSpeedMetersPerSecond() {
+        return this.targetSpeedMetersPerSecond;
+    }
+
+    public double getTargetAngleRadians() {
+        return this.targetAngleRadians;
     }
 
     @Override
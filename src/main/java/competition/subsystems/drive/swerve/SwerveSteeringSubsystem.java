@@ -2,11 +2,8 @@ package competition.subsystems.drive.swerve;
 
 import javax.inject.Inject;
 
-import com.ctre.phoenix.sensors.CANCoderStatusFrame;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMax.ControlType;
-import com.revrobotics.CANSparkMax.FaultID;
-import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 import com.revrobotics.REVLibError;
 
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -15,6 +12,10 @@ import org.apache.log4j.Logger;
 import competition.electrical_contract.ElectricalContract;
 import competition.injection.swerve.SwerveInstance;
 import competition.injection.swerve.SwerveSingleton;
+import competition.subsystems.DeduplicatedSparkMaxOutput;
+import competition.subsystems.StatusFrameScheduler;
+import competition.subsystems.StatusFrameScheduler.ScheduledDevice;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
 import edu.wpi.first.math.MathUtil;
 import xbot.common.command.BaseSetpointSubsystem;
 import xbot.common.controls.actuators.XCANSparkMax;
@@ -47,8 +48,15 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
     private final DoubleProperty maxMotorEncoderDrift;
 
     private Rotation2d currentModuleHeadingRotation2d;
+    private double targetRotationDegrees = 0;
+    // Cached once per loop by refreshDataFrame(). Until then, the encoders are read directly.
+    private boolean hasDataFrame = false;
+    private double cachedPositionInDegrees;
     private XCANSparkMax motorController;
     private XCANCoder encoder;
+    private DeduplicatedSparkMaxOutput motorOutput;
+    private ScheduledDevice motorStatusFrames;
+    private ScheduledDevice encoderStatusFrames;
 
     private boolean calibrated = false;
     private boolean canCoderUnavailable = false;
@@ -56,7 +64,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
     @Inject
     public SwerveSteeringSubsystem(SwerveInstance swerveInstance, XCANSparkMaxFactory sparkMaxFactory, XCANCoderFactory canCoderFactory,
             PropertyFactory pf, PIDManagerFactory pidf, ElectricalContract electricalContract, 
-            SwerveSteeringMotorPidSubsystem pidConfigSubsystem) {
+            SwerveSteeringMotorPidSubsystem pidConfigSubsystem, StatusFrameScheduler statusFrameScheduler) {
         this.label = swerveInstance.getLabel();
         log.info("Creating SwerveRotationSubsystem " + this.label);
 
@@ -83,6 +91,8 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
             // Current limit configured based on the expected current values we see when driving. Typical steering current is ~35A.
             this.motorController.setSmartCurrentLimit(40);
             this.motorController.setIdleMode(CANSparkMax.IdleMode.kBrake);
+            this.motorOutput = new DeduplicatedSparkMaxOutput(this.motorController, "SteeringNeo", pf);
+            this.motorStatusFrames = statusFrameScheduler.registerSparkMax(this.motorController, this.getPrefix() + "SteeringNeo", SparkMaxProfile.SwerveSteering);
         }
         if (electricalContract.areCanCodersReady()) {
             this.encoder = canCoderFactory.create(electricalContract.getSteeringEncoder(swerveInstance), this.getPrefix());
@@ -93,33 +103,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
             if (this.encoder.getHealth() == DeviceHealth.Unhealthy) {
                 canCoderUnavailable = true;
             }
-        }
-        setupStatusFrames();
-    }
-
-    /**
-     * Set up status frame intervals to reduce unnecessary CAN activity.
-     */
-    private void setupStatusFrames() {
-        if (this.contract.isDriveReady()) {
-            // We need to re-set frame intervals after a device reset.
-            if (this.motorController.getStickyFault(FaultID.kHasReset) && this.motorController.getLastError() != REVLibError.kHALError) {
-                log.info("Setting status frame periods.");
-
-                // See https://docs.revrobotics.com/sparkmax/operating-modes/control-interfaces#periodic-status-frames
-                // for description of the different status frames. kStatus2 is the only frame with data needed for software PID.
-
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus0, 500 /* default 10 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus1, 500 /* default 20 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus2, 20 /* default 20 */);
-                this.motorController.getInternalSparkMax().setPeriodicFramePeriod(PeriodicFrame.kStatus3, 500 /* default 50 */);
-                
-                this.motorController.clearFaults();
-            }
-        }
-
-        if (this.contract.areCanCodersReady() && this.encoder.hasResetOccurred()) {
-            this.encoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, 100);
+            this.encoderStatusFrames = statusFrameScheduler.registerCANCoder(this.encoder, this.getPrefix() + "CANCoder");
         }
     }
 
@@ -137,7 +121,19 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public Double getCurrentValue() {
-        return getBestEncoderPositionInDegrees();
+        return getCurrentPositionInDegrees();
+    }
+
+    private double getCurrentPositionInDegrees() {
+        return hasDataFrame ? cachedPositionInDegrees : getBestEncoderPositionInDegrees();
+    }
+
+    /**
+     * Reads the module angle and caches it for the rest of this loop.
+     */
+    public void refreshDataFrame() {
+        cachedPositionInDegrees = getBestEncoderPositionInDegrees();
+        hasDataFrame = true;
     }
 
     /**
@@ -152,7 +148,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public Double getTargetValue() {
-        return this.targetRotation.get();
+        return this.targetRotationDegrees;
     }
 
     /**
@@ -160,7 +156,23 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
      */
     @Override
     public void setTargetValue(Double value) {
-        this.targetRotation.set(value);
+        setTargetAngleInDegrees(value);
+    }
+
+    /**
+     * Sets target angle in degrees, without boxing. The dashboard value is updated in periodic().
+     */
+    public void setTargetAngleInDegrees(double degrees) {
+        this.targetRotationDegrees = degrees;
+        // The module only needs fresh data while it's turning.
+        if (Math.abs(MathUtil.inputModulus(degrees - getCurrentPositionInDegrees(), -180, 180)) > 2) {
+            if (motorStatusFrames != null) {
+                motorStatusFrames.markActive();
+            }
+            if (encoderStatusFrames != null) {
+                encoderStatusFrames.markActive();
+            }
+        }
     }
 
     /**
@@ -170,7 +182,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
     @Override
     public void setPower(Double power) {
         if (this.contract.isDriveReady()) {
-            this.motorController.set(power);
+            this.motorOutput.set(power);
         }
     }
 
@@ -320,7 +332,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
      */
     public void setMotorControllerPidTarget() {
         if (this.contract.isDriveReady()) {
-            double targetDegrees = getTargetValue();
+            double targetDegrees = this.targetRotationDegrees;
 
             // We can rely on either encoder for the starting position, to get the change in angle. Using the CANCoder
             // position to calculate this will help us to avoid any drift on the motor encoder. Then we just set our
@@ -330,7 +342,7 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
             double changeInDegrees = MathUtil.inputModulus(targetDegrees - currentPositionDegrees, -90, 90);
             double targetPosition = this.motorController.getPosition() + (changeInDegrees / degreesPerMotorRotation.get());
 
-            REVLibError error = this.motorController.setReference(targetPosition, ControlType.kPosition, 0);
+            REVLibError error = this.motorOutput.setReference(targetPosition, ControlType.kPosition, 0, 0);
             if (error != REVLibError.kOk) {
                 log.error("Error setting PID target: " + error.name());
             }
@@ -356,11 +368,12 @@ public class SwerveSteeringSubsystem extends BaseSetpointSubsystem<Double> {
             //absoluteEncoderPosition.set(getAbsoluteEncoderPositionInDegrees());
         }
         if (contract.isDriveReady()) {
-            setupStatusFrames();
+            motorOutput.periodic();
             //motorEncoderPosition.set(getMotorControllerEncoderPosiitonInDegrees());
         }
 
-        double positionInDegrees = getBestEncoderPositionInDegrees();
+        double positionInDegrees = getCurrentPositionInDegrees();
+        targetRotation.set(targetRotationDegrees);
         currentModuleHeading.set(positionInDegrees);
         currentModuleHeadingRotation2d = Rotation2d.fromDegrees(positionInDegrees);
     }
@@ -0,0 +1,100 @@
+package competition.subsystems.pose;
+
+/**
+ * Fixed-size ring buffer of timestamped odometry samples (the distance and angle of each swerve module), stored in
+ * primitive arrays so that recording a sample never allocates.
+ * <p>
+ * Written by the odometry sampling thread and drained by the main robot loop. Both sides hold the lock only long
+ * enough to copy a handful of doubles. If the main loop falls far enough behind that the buffer fills up,
+ * the oldest samples are overwritten.
+ */
+public class OdometrySampleBuffer {
+
+    private final int capacity;
+    private final int moduleCount;
+
+    private final double[] timestamps;
+    // Indexed by [sample][module]
+    private final double[][] moduleDistancesMeters;
+    private final double[][] moduleAnglesRadians;
+
+    private int oldestIndex = 0;
+    private int size = 0;
+    private long droppedCount = 0;
+
+    public OdometrySampleBuffer(int capacity, int moduleCount) {
+        this.capacity = capacity;
+        this.moduleCount = moduleCount;
+        this.timestamps = new double[capacity];
+        this.moduleDistancesMeters = new double[capacity][moduleCount];
+        this.moduleAnglesRadians = new double[capacity][moduleCount];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Records a sample, overwriting the oldest one if the buffer is full.
+     * @param timestamp When the sample was taken, in seconds.
+     * @param distancesMeters The distance travelled by each module. Copied, not retained.
+     * @param anglesRadians The angle of each module. Copied, not retained.
+     */
+    public synchronized void add(double timestamp, double[] distancesMeters, double[] anglesRadians) {
+        int index;
+        if (size == capacity) {
+            index = oldestIndex;
+            oldestIndex = (oldestIndex + 1) % capacity;
+            droppedCount++;
+        } else {
+            index = (oldestIndex + size) % capacity;
+            size++;
+        }
+
+        timestamps[index] = timestamp;
+        System.arraycopy(distancesMeters, 0, moduleDistancesMeters[index], 0, moduleCount);
+        System.arraycopy(anglesRadians, 0, moduleAnglesRadians[index], 0, moduleCount);
+    }
+
+    /**
+     * Copies every buffered sample, oldest first, into the given arrays and empties the buffer.
+     * Each array must be at least {@link #getCapacity()} long.
+     * @return The number of samples copied.
+     */
+    public synchronized int drainTo(double[] timestampsOut, double[][] distancesMetersOut, double[][] anglesRadiansOut) {
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            int index = (oldestIndex + i) % capacity;
+            timestampsOut[i] = timestamps[index];
+            System.arraycopy(moduleDistancesMeters[index], 0, distancesMetersOut[i], 0, moduleCount);
+            System.arraycopy(moduleAnglesRadians[index], 0, anglesRadiansOut[i], 0, moduleCount);
+        }
+        oldestIndex = 0;
+        size = 0;
+        return count;
+    }
+
+    /**
+     * Throws away all buffered samples. Used when the pose is reset, since the old samples no longer line up
+     * with the new starting position.
+     */
+    public synchronized void clear() {
+        oldestIndex = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return How many samples have been overwritten before they could be drained.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
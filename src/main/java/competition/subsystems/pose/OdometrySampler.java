@@ -0,0 +1,96 @@
+package competition.subsystems.pose;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import competition.subsystems.drive.swerve.SwerveModuleSubsystem;
+import edu.wpi.first.wpilibj.Notifier;
+import xbot.common.controls.sensors.XTimer;
+
+/**
+ * Samples the swerve module sensors on a dedicated thread, faster than the main robot loop, and records the results
+ * in an {@link OdometrySampleBuffer}. The main loop then feeds the whole batch into the pose estimator.
+ * <p>
+ * This class never touches the pose estimator itself, so the estimator is still only used from the main loop.
+ * The heading isn't sampled here, since the pose subsystem only reads the gyro once per loop; the main loop
+ * interpolates it for each sample instead.
+ */
+public class OdometrySampler {
+
+    private static Logger log = LogManager.getLogger(OdometrySampler.class);
+
+    private final SwerveModuleSubsystem[] modules;
+    private final OdometrySampleBuffer buffer;
+
+    // Scratch space for a single sample. Only used by whichever thread is sampling.
+    private final double[] distancesMeters;
+    private final double[] anglesRadians;
+
+    private Notifier notifier;
+    private volatile boolean running = false;
+
+    /**
+     * @param modules The swerve modules, in the same order as the kinematics used by the pose estimator.
+     * @param buffer Where samples are recorded.
+     */
+    public OdometrySampler(SwerveModuleSubsystem[] modules, OdometrySampleBuffer buffer) {
+        this.modules = modules.clone();
+        this.buffer = buffer;
+        this.distancesMeters = new double[modules.length];
+        this.anglesRadians = new double[modules.length];
+    }
+
+    /**
+     * Starts sampling on a dedicated thread.
+     * @param frequencyHz How many samples to take per second.
+     */
+    public void start(double frequencyHz) {
+        if (running) {
+            return;
+        }
+        log.info("Starting odometry sampling at " + frequencyHz + "Hz");
+        notifier = new Notifier(this::sampleSafely);
+        notifier.setName("OdometrySampler");
+        running = true;
+        notifier.startPeriodic(1.0 / frequencyHz);
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        log.info("Stopping odometry sampling");
+        running = false;
+        notifier.stop();
+        notifier.close();
+        notifier = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Takes a single sample. Only call this directly when the sampling thread isn't running.
+     */
+    public void sample() {
+        double timestamp = XTimer.getFPGATimestamp();
+        for (int i = 0; i < modules.length; i++) {
+            distancesMeters[i] = modules[i].getCurrentDistanceMeters();
+            anglesRadians[i] = modules[i].getCurrentAngleRadians();
+        }
+        buffer.add(timestamp, distancesMeters, anglesRadians);
+    }
+
+    private void sampleSafely() {
+        if (!running) {
+            return;
+        }
+        try {
+            sample();
+        } catch (Exception e) {
+            // Never let a bad read kill the sampling thread.
+            log.error("Error while sampling odometry", e);
+        }
+    }
+}
@@ -3,8 +3,12 @@ package competition.subsystems.pose;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import competition.subsystems.DataFrameRefreshable;
+import competition.subsystems.StatusFrameScheduler;
 import competition.subsystems.drive.DriveSubsystem;
+import competition.subsystems.drive.swerve.SwerveModuleSubsystem;
 import competition.subsystems.vision.VisionSubsystem;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -18,6 +22,7 @@ import xbot.common.controls.sensors.XTimer;
 import xbot.common.logic.Latch;
 import xbot.common.logic.TimeStableValidator;
 import xbot.common.math.FieldPose;
+import xbot.common.math.MathUtils;
 import xbot.common.math.WrappedRotation2d;
 import xbot.common.math.XYPair;
 import xbot.common.properties.BooleanProperty;
@@ -26,7 +31,7 @@ import xbot.common.properties.PropertyFactory;
 import xbot.common.subsystems.pose.BasePoseSubsystem;
 
 @Singleton
-public class PoseSubsystem extends BasePoseSubsystem {
+public class PoseSubsystem extends BasePoseSubsystem implements DataFrameRefreshable {
 
     private final DriveSubsystem drive;
     final SwerveDrivePoseEstimator swerveOdometry;
@@ -45,9 +50,39 @@ public class PoseSubsystem extends BasePoseSubsystem {
     private final BooleanProperty allianceAwareFieldProp;
     private final BooleanProperty useVisionForPoseProp;
     private final Latch useVisionToUpdateGyroLatch;
+    private final VisionMeasurementQueue visionMeasurementQueue;
+    private final DoubleProperty maximumVisionMeasurementAgeProp;
+    private final DoubleProperty visionMeasurementsReorderedProp;
+    private final DoubleProperty visionMeasurementsDroppedAsStaleProp;
+    private final DoubleProperty visionMeasurementsAppliedProp;
+    private final BooleanProperty useOdometryThreadProp;
+    private final DoubleProperty odometrySamplingFrequencyProp;
+    private final DoubleProperty odometrySamplesPerLoopProp;
+    private final DoubleProperty odometrySamplesDroppedProp;
+
+    // Enough room for a few loops' worth of samples at the highest sampling rate, in case the main loop stalls.
+    private static final int ODOMETRY_BUFFER_CAPACITY = 32;
+    private final OdometrySampleBuffer odometrySamples;
+    private final OdometrySampler odometrySampler;
+    // Reused every loop when draining the odometry samples.
+    private final double[] drainedTimestamps = new double[ODOMETRY_BUFFER_CAPACITY];
+    private final double[][] drainedModuleDistancesMeters;
+    private final double[][] drainedModuleAnglesRadians;
+    // Handed to the pose estimator for every sample. It copies them, so they can be refilled for the next one.
+    private final SwerveModulePosition[] sampledModulePositions;
+    // The heading (and when it was read) as of the last loop, used to interpolate the heading for each sample.
+    private boolean hasPreviousHeading = false;
+    private double previousHeadingRadians;
+    private double previousHeadingTimestamp;
 
     private DoubleProperty matchTime;
 
+    // Cached once per loop by refreshDataFrame(). Until then, everything is read directly.
+    private boolean hasDataFrame = false;
+    private double cachedRobotPitch;
+    // The pose only changes when odometry runs or the pose is reset, so there's no need to rebuild it on every call.
+    private Pose2d cachedPose2d;
+
     @Inject
     public PoseSubsystem(XGyroFactory gyroFactory, PropertyFactory propManager, DriveSubsystem drive, VisionSubsystem vision) {
         super(gyroFactory, propManager);
@@ -62,6 +97,16 @@ public class PoseSubsystem extends BasePoseSubsystem {
         useVisionForPoseProp = propManager.createPersistentProperty("Enable Vision-Assisted Pose", true);
         useForwardCameraForPose = propManager.createPersistentProperty("Use forward april cam", true);
         useRearCameraForPose = propManager.createPersistentProperty("Use rear april cam", true);
+        // The WPILib pose estimator only keeps 1.5 seconds of odometry history, so anything older can't be applied.
+        maximumVisionMeasurementAgeProp = propManager.createPersistentProperty("MaximumVisionMeasurementAgeInSeconds", 1.5);
+        visionMeasurementsReorderedProp = propManager.createEphemeralProperty("VisionMeasurementsReordered", 0.0);
+        visionMeasurementsDroppedAsStaleProp = propManager.createEphemeralProperty("VisionMeasurementsDroppedAsStale", 0.0);
+        visionMeasurementsAppliedProp = propManager.createEphemeralProperty("VisionMeasurementsApplied", 0.0);
+        visionMeasurementQueue = new VisionMeasurementQueue();
+        useOdometryThreadProp = propManager.createPersistentProperty("Use odometry thread", true);
+        odometrySamplingFrequencyProp = propManager.createPersistentProperty("Odometry sampling frequency", 200.0);
+        odometrySamplesPerLoopProp = propManager.createEphemeralProperty("Odometry samples per loop", 0.0);
+        odometrySamplesDroppedProp = propManager.createEphemeralProperty("Odometry samples dropped", 0.0);
 
         // TODO: This is a hack to get the field visualization working. Eventually this is going to cause problems
         // once there are test cases that try and invoke the PoseSubsystem. Right now, the SmartDashboardCommandPutter
@@ -85,6 +130,21 @@ public class PoseSubsystem extends BasePoseSubsystem {
             },
             new Pose2d());
 
+        SwerveModuleSubsystem[] modules = new SwerveModuleSubsystem[] {
+            drive.getFrontLeftSwerveModuleSubsystem(),
+            drive.getFrontRightSwerveModuleSubsystem(),
+            drive.getRearLeftSwerveModuleSubsystem(),
+            drive.getRearRightSwerveModuleSubsystem()
+        };
+        odometrySamples = new OdometrySampleBuffer(ODOMETRY_BUFFER_CAPACITY, modules.length);
+        odometrySampler = new OdometrySampler(modules, odometrySamples);
+        sampledModulePositions = new SwerveModulePosition[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            sampledModulePositions[i] = new SwerveModulePosition();
+        }
+        drainedModuleDistancesMeters = new double[ODOMETRY_BUFFER_CAPACITY][modules.length];
+        drainedModuleAnglesRadians = new double[ODOMETRY_BUFFER_CAPACITY][modules.length];
+
         useVisionToUpdateGyroLatch = new Latch(false, Latch.EdgeType.RisingEdge, edge -> {
            if (edge== Latch.EdgeType.RisingEdge) {
                log.info("Vision has been so confident for so long that we are force-updating our overall pose.");
@@ -170,6 +230,23 @@ public class PoseSubsystem extends BasePoseSubsystem {
         return drive.getRightTotalDistance();
     }
 
+    /**
+     * Starts sampling the swerve modules on their own thread, if enabled. Never samples faster than the modules
+     * report their positions.
+     */
+    public void startOdometrySampling() {
+        if (useOdometryThreadProp.get()) {
+            odometrySampler.start(MathUtils.constrainDouble(
+                odometrySamplingFrequencyProp.get(),
+                100,
+                1000.0 / StatusFrameScheduler.ODOMETRY_FRAME_PERIOD_MS));
+        }
+    }
+
+    public void stopOdometrySampling() {
+        odometrySampler.stop();
+    }
+
     @Override
     protected void updateOdometry() {
         // The swerve modules return units in meters, which is what the swerve odometry expects.
@@ -177,10 +254,7 @@ public class PoseSubsystem extends BasePoseSubsystem {
         // while still presenting inches externally to dashboards.
 
         // Update the basic odometry (gyro, encoders)
-        Pose2d updatedPosition = swerveOdometry.update(
-                this.getCurrentHeading(),
-                getSwerveModulePositions()
-        );
+        Pose2d updatedPosition = applyOdometrySamples();
 
         if (isUsingVisionAssistedPose()) {
             // As a prototype, consider any AprilTag seen to be at field coordinates 0,0. Use that information
@@ -211,6 +285,61 @@ public class PoseSubsystem extends BasePoseSubsystem {
         this.totalVelocity.set(Math.sqrt(Math.pow(velocityX.get(), 2.0) + Math.pow(velocityY.get(), 2.0)));
     }
 
+    /**
+     * Feeds every gyro/encoder sample taken since the last loop into the pose estimator, oldest first.
+     * @return The updated pose estimate.
+     */
+    private Pose2d applyOdometrySamples() {
+        if (!odometrySampler.isRunning()) {
+            // No sampling thread (e.g. in simulation or tests), so just take one sample per loop like we used to.
+            odometrySampler.sample();
+        }
+
+        int sampleCount = odometrySamples.drainTo(
+            drainedTimestamps, drainedModuleDistancesMeters, drainedModuleAnglesRadians);
+
+        // The gyro is only read once per loop, so work out the heading at each sample by interpolating between this
+        // loop's reading and the last one.
+        double headingTimestamp = XTimer.getFPGATimestamp();
+        double headingRadians = getCurrentHeading().getRadians();
+        if (!hasPreviousHeading) {
+            previousHeadingRadians = headingRadians;
+            previousHeadingTimestamp = headingTimestamp;
+        }
+        double headingChangeRadians = MathUtil.angleModulus(headingRadians - previousHeadingRadians);
+        double headingInterval = headingTimestamp - previousHeadingTimestamp;
+
+        Pose2d updatedPosition = swerveOdometry.getEstimatedPosition();
+        for (int i = 0; i < sampleCount; i++) {
+            for (int module = 0; module < sampledModulePositions.length; module++) {
+                SwerveModulePosition position = sampledModulePositions[module];
+                position.distanceMeters = drainedModuleDistancesMeters[i][module];
+                // Modules spend most of their time pointing the same way, so only make a new angle if it changed.
+                if (position.angle.getRadians() != drainedModuleAnglesRadians[i][module]) {
+                    position.angle = new Rotation2d(drainedModuleAnglesRadians[i][module]);
+                }
+            }
+
+            double fraction = 1;
+            if (headingInterval > 0) {
+                fraction = MathUtils.constrainDouble(
+                    (drainedTimestamps[i] - previousHeadingTimestamp) / headingInterval, 0, 1);
+            }
+            updatedPosition = swerveOdometry.updateWithTime(
+                drainedTimestamps[i],
+                new Rotation2d(previousHeadingRadians + headingChangeRadians * fraction),
+                sampledModulePositions);
+        }
+
+        previousHeadingRadians = headingRadians;
+        previousHeadingTimestamp = headingTimestamp;
+        hasPreviousHeading = true;
+
+        odometrySamplesPerLoopProp.set(sampleCount);
+        odometrySamplesDroppedProp.set(odometrySamples.getDroppedCount());
+        return updatedPosition;
+    }
+
     private void improveOdometryUsingSimpleAprilTag() {
         // Try to get some vision sauce in there
         // and feed it straight into the odometry, then do the shifting at the very end when we convert back to inches.
@@ -241,8 +370,8 @@ public class PoseSubsystem extends BasePoseSubsystem {
             // could consider using it to update the gyro.
             poseConfident &= distance < extremelyConfidentVisionDistanceUpdateInMetersProp.get();
 
-            // In any case, update the odometry with the new pose from the camera.
-            swerveOdometry.addVisionMeasurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds);
+            // In any case, queue the new pose from the camera to update the odometry.
+            visionMeasurementQueue.add(camPose);
             updatedPoseWithVision = true;
         }
 
@@ -260,11 +389,14 @@ public class PoseSubsystem extends BasePoseSubsystem {
             // could consider using it to update the gyro.
             poseConfident &= distance < extremelyConfidentVisionDistanceUpdateInMetersProp.get();
 
-            // In any case, update the odometry with the new pose from the camera.
-            swerveOdometry.addVisionMeasurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds);
+            // In any case, queue the new pose from the camera to update the odometry.
+            visionMeasurementQueue.add(camPose);
             updatedPoseWithVision = true;
         }
 
+        // Apply everything the cameras gave us this loop in one batch, oldest capture first.
+        applyQueuedVisionMeasurements();
+
         if (updatedPoseWithVision) {
             isVisionPoseExtremelyConfidentProp.set(extremelyConfidentVisionValidator.checkStable(poseConfident));
         } else {
@@ -275,6 +407,17 @@ public class PoseSubsystem extends BasePoseSubsystem {
         }
     }
 
+    private void applyQueuedVisionMeasurements() {
+        visionMeasurementQueue.flush(
+                XTimer.getFPGATimestamp(),
+                maximumVisionMeasurementAgeProp.get(),
+                swerveOdometry::addVisionMeasurement);
+
+        visionMeasurementsReorderedProp.set(visionMeasurementQueue.getReorderedCount());
+        visionMeasurementsDroppedAsStaleProp.set(visionMeasurementQueue.getDroppedAsStaleCount());
+        visionMeasurementsAppliedProp.set(visionMeasurementQueue.getAppliedCount());
+    }
+
     public boolean getIsPoseHealthy() {
         return isPoseHealthyProp.get();
     }
@@ -290,6 +433,10 @@ public class PoseSubsystem extends BasePoseSubsystem {
     public void setCurrentPosition(double newXPosition, double newYPosition, WrappedRotation2d heading) {
         super.setCurrentPosition(newXPosition, newYPosition);
         super.setCurrentHeading(heading.getDegrees());
+        // Any samples taken before the reset are relative to the old pose, so don't let them be applied afterwards.
+        odometrySamples.clear();
+        hasPreviousHeading = false;
+        cachedPose2d = null;
         swerveOdometry.resetPosition(
             heading,
             getSwerveModulePositions(),
@@ -350,6 +497,40 @@ public class PoseSubsystem extends BasePoseSubsystem {
         return robotOrientedVelocityVector.x;
     }
 
+    @Override
+    public void refreshDataFrame() {
+        cachedRobotPitch = super.getRobotPitch();
+        cachedPose2d = null;
+        hasDataFrame = true;
+    }
+
+    @Override
+    public double getRobotPitch() {
+        if (hasDataFrame) {
+            return cachedRobotPitch;
+        }
+        return super.getRobotPitch();
+    }
+
+    @Override
+    public Pose2d getCurrentPose2d() {
+        if (!hasDataFrame) {
+            return super.getCurrentPose2d();
+        }
+        if (cachedPose2d == null) {
+            cachedPose2d = super.getCurrentPose2d();
+        }
+        return cachedPose2d;
+    }
+
+    @Override
+    public void setCurrentHeading(double headingInDegrees) {
+        super.setCurrentHeading(headingInDegrees);
+        // Don't interpolate samples across the jump.
+        hasPreviousHeading = false;
+        cachedPose2d = null;
+    }
+
     public DoubleProperty getMatchTime(){
         return matchTime;
     }
@@ -357,6 +538,8 @@ public class PoseSubsystem extends BasePoseSubsystem {
     @Override
     public void periodic() {
         super.periodic();
+        // Odometry has just run, so the pose has moved.
+        cachedPose2d = null;
         matchTime.set(DriverStation.getMatchTime());
     }
 
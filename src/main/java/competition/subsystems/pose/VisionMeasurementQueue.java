@@ -0,0 +1,124 @@
+package competition.subsystems.pose;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import org.photonvision.EstimatedRobotPose;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects vision measurements from every camera during a single loop, then hands them to the pose estimator
+ * in capture-time order. Each measurement added to the estimator makes it replay its odometry history from that
+ * timestamp onwards, so feeding them oldest-first (and skipping ones we've already seen) keeps that replay work
+ * down and makes the fused result independent of which camera happened to report first.
+ */
+public class VisionMeasurementQueue {
+
+    // How many recently-applied timestamps to remember when filtering out repeated frames.
+    private static final int RECENT_TIMESTAMP_HISTORY = 8;
+    // Timestamps closer than this are considered to be the same camera frame.
+    private static final double SAME_FRAME_TOLERANCE_SECONDS = 1e-6;
+
+    private final List<EstimatedRobotPose> pending = new ArrayList<>();
+    private final double[] recentlyAppliedTimestamps = new double[RECENT_TIMESTAMP_HISTORY];
+    private int recentlyAppliedIndex = 0;
+    private double lastAddedTimestamp = Double.NEGATIVE_INFINITY;
+
+    private long reorderedCount = 0;
+    private long droppedAsStaleCount = 0;
+    private long appliedCount = 0;
+
+    public VisionMeasurementQueue() {
+        for (int i = 0; i < recentlyAppliedTimestamps.length; i++) {
+            recentlyAppliedTimestamps[i] = Double.NaN;
+        }
+    }
+
+    /**
+     * Queue a measurement to be applied on the next call to {@link #flush}.
+     * @param measurement The camera's estimated pose, including its capture timestamp.
+     */
+    public void add(EstimatedRobotPose measurement) {
+        if (measurement.timestampSeconds < lastAddedTimestamp) {
+            // This one arrived after a newer measurement, so sorting is actually doing something for us.
+            reorderedCount++;
+        }
+        lastAddedTimestamp = Math.max(lastAddedTimestamp, measurement.timestampSeconds);
+        pending.add(measurement);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Apply all queued measurements, oldest first, and clear the queue.
+     * @param currentTimestamp The current FPGA time, in seconds.
+     * @param maximumAgeSeconds Measurements older than this are dropped. This should not exceed the
+     *                          history length of the pose estimator.
+     * @param consumer Receives each measurement's pose (in meters) and capture timestamp.
+     * @return The number of measurements applied.
+     */
+    public int flush(double currentTimestamp, double maximumAgeSeconds, BiConsumer<Pose2d, Double> consumer) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        pending.sort(Comparator.comparingDouble(measurement -> measurement.timestampSeconds));
+
+        int applied = 0;
+        for (EstimatedRobotPose measurement : pending) {
+            double timestamp = measurement.timestampSeconds;
+            if (currentTimestamp - timestamp > maximumAgeSeconds || wasRecentlyApplied(timestamp)) {
+                droppedAsStaleCount++;
+                continue;
+            }
+
+            consumer.accept(measurement.estimatedPose.toPose2d(), timestamp);
+            rememberApplied(timestamp);
+            applied++;
+        }
+        appliedCount += applied;
+
+        pending.clear();
+        lastAddedTimestamp = Double.NEGATIVE_INFINITY;
+        return applied;
+    }
+
+    private boolean wasRecentlyApplied(double timestamp) {
+        for (double recent : recentlyAppliedTimestamps) {
+            if (Math.abs(recent - timestamp) < SAME_FRAME_TOLERANCE_SECONDS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rememberApplied(double timestamp) {
+        recentlyAppliedTimestamps[recentlyAppliedIndex] = timestamp;
+        recentlyAppliedIndex = (recentlyAppliedIndex + 1) % recentlyAppliedTimestamps.length;
+    }
+
+    /**
+     * @return How many measurements have been added with a timestamp older than one already in the queue.
+     */
+    public long getReorderedCount() {
+        return reorderedCount;
+    }
+
+    /**
+     * @return How many measurements were thrown away for being too old or for repeating an applied frame.
+     */
+    public long getDroppedAsStaleCount() {
+        return droppedAsStaleCount;
+    }
+
+    /**
+     * @return How many measurements have been passed on to the pose estimator.
+     */
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+}
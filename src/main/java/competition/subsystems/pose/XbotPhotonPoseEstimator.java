@@ -220,7 +220,17 @@ public class XbotPhotonPoseEstimator {
             return Optional.empty();
         }
 
-        PhotonPipelineResult cameraResult = camera.getLatestResult();
+        return update(camera.getLatestResult());
+    }
+
+    /**
+     * Updates the estimated position of the robot from a pipeline result that has already been read from
+     * the camera. Targets that fail the ambiguity or distance filters are removed from the result.
+     *
+     * @param cameraResult The pipeline result to use
+     * @return an EstimatedRobotPose with an estimated pose, or empty if no targets were usable
+     */
+    public Optional<EstimatedRobotPose> update(PhotonPipelineResult cameraResult) {
         if (!cameraResult.hasTargets()) {
             return Optional.empty();
         }
@@ -0,0 +1,176 @@
+package competition.subsystems.vision;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Notifier;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fetches results from a single PhotonCamera and solves for the robot pose on its own thread.
+ * The main robot loop hands over its latest pose estimate and drains finished vision estimates; it never
+ * waits on the solver itself.
+ * <p>
+ * All hand-offs go through single-slot atomic references, so there are no locks between the worker
+ * thread (the only producer) and the main robot loop (the only consumer). If the main loop falls behind,
+ * older estimates are simply overwritten by newer ones.
+ * <p>
+ * Cameras publish results slower than we poll them, so each result is only solved once; repeated results
+ * (same capture timestamp as the last one we processed) are skipped entirely.
+ */
+public class VisionPoseWorker {
+
+    private static Logger log = LogManager.getLogger(VisionPoseWorker.class);
+
+    private final String name;
+    private final PhotonCamera camera;
+    private final PhotonPoseEstimator estimator;
+
+    // Written by the main loop, read by the worker.
+    private final AtomicReference<Pose2d> referencePose = new AtomicReference<>(new Pose2d());
+    // Written by the worker, drained by the main loop.
+    private final AtomicReference<EstimatedRobotPose> latestEstimate = new AtomicReference<>();
+
+    // Only touched by whichever thread is processing results.
+    private double lastProcessedTimestamp = Double.NaN;
+    // Only incremented by whichever thread is processing results, read by the main loop.
+    private volatile long freshFrameCount = 0;
+
+    // Main loop bookkeeping for the frame rate metric.
+    private double frameRateWindowStart = Double.NaN;
+    private long frameRateWindowStartCount = 0;
+    private double freshFramesPerSecond = 0;
+
+    private Notifier notifier;
+    private volatile boolean running = false;
+
+    public VisionPoseWorker(String name, PhotonCamera camera, PhotonPoseEstimator estimator) {
+        this.name = name;
+        this.camera = camera;
+        this.estimator = estimator;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PhotonCamera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Starts polling the camera on a dedicated thread.
+     * @param periodSeconds How often to check the camera for a new result.
+     */
+    public void start(double periodSeconds) {
+        if (running) {
+            return;
+        }
+        log.info("Starting background vision processing for " + name);
+        notifier = new Notifier(this::process);
+        notifier.setName(name + "VisionWorker");
+        running = true;
+        notifier.startPeriodic(periodSeconds);
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        log.info("Stopping background vision processing for " + name);
+        running = false;
+        notifier.stop();
+        notifier.close();
+        notifier = null;
+        latestEstimate.set(null);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Called from the main loop to give the solver the most recent odometry pose.
+     * @param pose The current best estimate of the robot pose, in meters.
+     */
+    public void setReferencePose(Pose2d pose) {
+        referencePose.set(pose);
+    }
+
+    /**
+     * Called from the main loop to take the newest finished estimate, if there is one.
+     * Each estimate is only returned once.
+     * @return The newest estimate produced since the last call, or empty if nothing new has been solved.
+     */
+    public Optional<EstimatedRobotPose> pollEstimate() {
+        return Optional.ofNullable(latestEstimate.getAndSet(null));
+    }
+
+    /**
+     * Fetches the latest camera result and, if it is one we haven't seen before, solves for the robot pose.
+     * Any estimate is left for {@link #pollEstimate()}. Only call this directly when the worker thread isn't running,
+     * otherwise the estimator would be shared between threads.
+     * @return True if the camera had a new result to process.
+     */
+    public boolean processLatestResult() {
+        PhotonPipelineResult result = camera.getLatestResult();
+        // PhotonLib doesn't give us a sequence number, but the capture timestamp only changes when a new
+        // result is published, so it serves the same purpose.
+        double timestamp = result.getTimestampSeconds();
+        if (timestamp == lastProcessedTimestamp) {
+            return false;
+        }
+        lastProcessedTimestamp = timestamp;
+        freshFrameCount++;
+
+        estimator.setReferencePose(referencePose.get());
+        var estimate = estimator.update(result);
+        if (estimate.isPresent()) {
+            latestEstimate.set(estimate.get());
+        }
+        return true;
+    }
+
+    public long getFreshFrameCount() {
+        return freshFrameCount;
+    }
+
+    /**
+     * Gets the rate of new camera results, averaged over roughly the last second. Call from the main loop.
+     * @param currentTimestamp The current time, in seconds.
+     * @return New results processed per second.
+     */
+    public double getFreshFramesPerSecond(double currentTimestamp) {
+        long count = freshFrameCount;
+        if (Double.isNaN(frameRateWindowStart)) {
+            frameRateWindowStart = currentTimestamp;
+            frameRateWindowStartCount = count;
+        }
+
+        double elapsed = currentTimestamp - frameRateWindowStart;
+        if (elapsed >= 1.0) {
+            freshFramesPerSecond = (count - frameRateWindowStartCount) / elapsed;
+            frameRateWindowStart = currentTimestamp;
+            frameRateWindowStartCount = count;
+        }
+        return freshFramesPerSecond;
+    }
+
+    private void process() {
+        if (!running) {
+            return;
+        }
+        try {
+            processLatestResult();
+        } catch (Exception e) {
+            // Never let a bad frame kill the worker thread.
+            log.error("Error while processing vision result for " + name, e);
+        }
+    }
+}
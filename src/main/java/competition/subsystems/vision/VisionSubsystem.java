@@ -14,6 +14,7 @@ import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
 import org.photonvision.PhotonPoseEstimator;
 import xbot.common.command.BaseSubsystem;
+import xbot.common.controls.sensors.XTimer;
 import xbot.common.logging.RobotAssertionManager;
 import xbot.common.logic.TimeStableValidator;
 import xbot.common.math.XYPair;
@@ -23,11 +24,13 @@ import xbot.common.properties.Property;
 import xbot.common.properties.PropertyFactory;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+@Singleton
 public class VisionSubsystem extends BaseSubsystem {
 
     public static final String VISION_TABLE = "photonvision";
@@ -43,6 +46,10 @@ public class VisionSubsystem extends BaseSubsystem {
     final DoubleProperty yawOffset;
     final DoubleProperty waitForStablePoseTime;
     final DoubleProperty errorThreshold;
+    final BooleanProperty useBackgroundProcessing;
+    final DoubleProperty backgroundProcessingPeriod;
+    final DoubleProperty forwardFreshFramesPerSecond;
+    final DoubleProperty rearFreshFramesPerSecond;
     final TimeStableValidator frontReliablePoseIsStable;
     final TimeStableValidator rearReliablePoseIsStable;
     NetworkTable visionTable;
@@ -50,6 +57,8 @@ public class VisionSubsystem extends BaseSubsystem {
     XbotPhotonPoseEstimator customPhotonPoseEstimator;
     PhotonPoseEstimator photonPoseEstimator;
     PhotonPoseEstimator rearPhotonPoseEstimator;
+    final VisionPoseWorker forwardWorker;
+    final VisionPoseWorker rearWorker;
     boolean visionWorking = false;
     long logCounter = 0;
 
@@ -64,6 +73,10 @@ public class VisionSubsystem extends BaseSubsystem {
 
         waitForStablePoseTime = pf.createPersistentProperty("Pose stable time", 0.0, Property.PropertyLevel.Debug);
         errorThreshold = pf.createPersistentProperty("Error threshold",200);
+        useBackgroundProcessing = pf.createPersistentProperty("Use background processing", true);
+        backgroundProcessingPeriod = pf.createPersistentProperty("Background processing period", 0.01, Property.PropertyLevel.Debug);
+        forwardFreshFramesPerSecond = pf.createEphemeralProperty("Forward camera fresh frames per second", 0.0);
+        rearFreshFramesPerSecond = pf.createEphemeralProperty("Rear camera fresh frames per second", 0.0);
         frontReliablePoseIsStable = new TimeStableValidator(() -> waitForStablePoseTime.get());
         rearReliablePoseIsStable = new TimeStableValidator(() -> waitForStablePoseTime.get());
 
@@ -111,6 +124,24 @@ public class VisionSubsystem extends BaseSubsystem {
                 rearAprilCamera,
                 robotToRearCam
         );
+        forwardWorker = new VisionPoseWorker("forwardAprilCamera", forwardAprilCamera, photonPoseEstimator);
+        rearWorker = new VisionPoseWorker("rearAprilCamera", rearAprilCamera, rearPhotonPoseEstimator);
+    }
+
+    /**
+     * Moves camera result fetching and pose solving for both cameras onto their own threads.
+     * Until this is called (e.g. in unit tests), poses are solved synchronously on the main loop.
+     */
+    public void startBackgroundProcessing() {
+        if (visionWorking && useBackgroundProcessing.get()) {
+            forwardWorker.start(backgroundProcessingPeriod.get());
+            rearWorker.start(backgroundProcessingPeriod.get());
+        }
+    }
+
+    public void stopBackgroundProcessing() {
+        forwardWorker.stop();
+        rearWorker.stop();
     }
 
     public XYPair getAprilCoordinates() {
@@ -133,35 +164,39 @@ public class VisionSubsystem extends BaseSubsystem {
     }
 
     public Optional<EstimatedRobotPose> getPhotonVisionEstimatedPose(Pose2d previousEstimatedRobotPose) {
-        if (visionWorking) {
-            //customPhotonPoseEstimator.setReferencePose(previousEstimatedRobotPose);
-            //return customPhotonPoseEstimator.update();
-            photonPoseEstimator.setReferencePose(previousEstimatedRobotPose);
-            var estimatedPose = photonPoseEstimator.update();
-            var isReliable = !estimatedPose.isEmpty() && isEstimatedPoseReliable(estimatedPose.get(), previousEstimatedRobotPose);
-            var isStable = waitForStablePoseTime.get() == 0.0 || frontReliablePoseIsStable.checkStable(isReliable);
-            if (isReliable && isStable) {
-                return estimatedPose;
-            }
-            return Optional.empty();
-        } else {
-            return Optional.empty();
-        }
+        //customPhotonPoseEstimator.setReferencePose(previousEstimatedRobotPose);
+        //return customPhotonPoseEstimator.update();
+        return getEstimatedPose(forwardWorker, frontReliablePoseIsStable, previousEstimatedRobotPose);
     }
 
     public Optional<EstimatedRobotPose> getRearPhotonVisionEstimatedPose(Pose2d previousEstimatedRobotPose) {
-        if (visionWorking) {
-            rearPhotonPoseEstimator.setReferencePose(previousEstimatedRobotPose);
-            var estimatedPose = rearPhotonPoseEstimator.update();
-            var isReliable = !estimatedPose.isEmpty() && isEstimatedPoseReliable(estimatedPose.get(), previousEstimatedRobotPose);
-            var isStable = waitForStablePoseTime.get() == 0.0 || rearReliablePoseIsStable.checkStable(isReliable);
-            if (isReliable && isStable) {
-                return estimatedPose;
-            }
+        return getEstimatedPose(rearWorker, rearReliablePoseIsStable, previousEstimatedRobotPose);
+    }
+
+    private Optional<EstimatedRobotPose> getEstimatedPose(
+            VisionPoseWorker worker, TimeStableValidator poseIsStable, Pose2d previousEstimatedRobotPose) {
+        if (!visionWorking) {
             return Optional.empty();
-        } else {
+        }
+
+        worker.setReferencePose(previousEstimatedRobotPose);
+        if (!worker.isRunning()) {
+            worker.processLatestResult();
+        }
+
+        // If the worker has already done the expensive part, we just pick up whatever it finished since last loop.
+        var estimatedPose = worker.pollEstimate();
+        if (estimatedPose.isEmpty()) {
+            // Nothing new from the camera, so there's nothing to check, log, or tell the stability check about.
             return Optional.empty();
         }
+
+        var isReliable = isEstimatedPoseReliable(estimatedPose.get(), previousEstimatedRobotPose);
+        var isStable = waitForStablePoseTime.get() == 0.0 || poseIsStable.checkStable(isReliable);
+        if (isReliable && isStable) {
+            return estimatedPose;
+        }
+        return Optional.empty();
     }
 
     public boolean isEstimatedPoseReliable(EstimatedRobotPose estimatedPose, Pose2d previousEstimatedPose) {
@@ -203,6 +238,13 @@ public class VisionSubsystem extends BaseSubsystem {
                 && estimatedPose.targetsUsed.get(0).getBestCameraToTarget().getTranslation().getX() < 1.5;
     }
 
+    @Override
+    public void periodic() {
+        double now = XTimer.getFPGATimestamp();
+        forwardFreshFramesPerSecond.set(forwardWorker.getFreshFramesPerSecond(now));
+        rearFreshFramesPerSecond.set(rearWorker.getFreshFramesPerSecond(now));
+    }
+
     private List<Integer> getTagListFromPose(EstimatedRobotPose estimatedPose) {
         return Arrays.asList(estimatedPose.targetsUsed.stream()
                 .map(target -> target.getFiducialId()).toArray(Integer[]::new));
@@ -15,7 +15,7 @@ public class SimpleTimeInterpolator {
     int index;
     double maximumDistanceFromChasePointInInches = 12;
 
-    private List<? extends ProvidesInterpolationData> keyPoints;
+    List<? extends ProvidesInterpolationData> keyPoints;
 
     Logger log = LogManager.getLogger(SimpleTimeInterpolator.class);
 
@@ -25,6 +25,10 @@ public class SimpleTimeInterpolator {
 
         public Rotation2d chaseHeading;
 
+        // How fast the chase point is moving across the field, in units (usually inches) per second.
+        // Zero when the chase point is parked on a key point or frozen waiting for the robot to catch up.
+        public Translation2d chaseVelocity = new Translation2d();
+
         public InterpolationResult(Translation2d chasePoint, boolean isOnFinalPoint) {
             this.chasePoint = chasePoint;
             this.isOnFinalPoint = isOnFinalPoint;
@@ -36,6 +40,12 @@ public class SimpleTimeInterpolator {
             this.isOnFinalPoint = isOnFinalPoint;
             this.chaseHeading = chaseHeading;
         }
+
+        public InterpolationResult(Translation2d chasePoint, boolean isOnFinalPoint, Rotation2d chaseHeading,
+                                   Translation2d chaseVelocity) {
+            this(chasePoint, isOnFinalPoint, chaseHeading);
+            this.chaseVelocity = chaseVelocity;
+        }
     }
 
     public SimpleTimeInterpolator() {}
@@ -101,20 +111,42 @@ public class SimpleTimeInterpolator {
         // Most of the time, the fraction will be less than one.
         // In that case, we want to interpolate between the baseline and the target.
         if (lerpFraction < 1) {
-            chasePoint = baseline.getTranslation2d().interpolate(
-                    targetKeyPoint.getTranslation2d(), lerpFraction);
+            chasePoint = getChasePoint(baseline, targetKeyPoint, lerpFraction);
         }
 
         // But if that chase point is "too far ahead", we need to freeze the chasePoint
         // until the robot has a chance to catch up.
-        if (currentLocation.getDistance(chasePoint) > maximumDistanceFromChasePointInInches) {
+        boolean isFrozen = currentLocation.getDistance(chasePoint) > maximumDistanceFromChasePointInInches;
+        if (isFrozen) {
             // This effectively "rewinds time" for the next loop.
             accumulatedProductiveSeconds -= secondsSinceLastExecute;
         }
 
+        // While interpolating, the chase point moves along the segment at a constant speed.
+        Translation2d chaseVelocity = new Translation2d();
+        if (lerpFraction < 1 && !isFrozen) {
+            chaseVelocity = getChaseVelocity(baseline, targetKeyPoint, lerpFraction);
+        }
+
         boolean targetingFinalPoint = index == keyPoints.size()-1 && lerpFraction >= 1;
-        return new InterpolationResult(chasePoint, targetingFinalPoint, targetKeyPoint.getRotation2d());
+        return new InterpolationResult(chasePoint, targetingFinalPoint, targetKeyPoint.getRotation2d(), chaseVelocity);
     }
 
+    /**
+     * Where the chase point should be, part way through the current segment (segment number {@link #index}).
+     * Interpolates in a straight line; subclasses can follow a different path between the same points.
+     * @param from Where the segment starts.
+     * @param to Where the segment ends.
+     * @param fraction How far through the segment's time we are, from 0 to 1.
+     */
+    protected Translation2d getChasePoint(ProvidesInterpolationData from, ProvidesInterpolationData to, double fraction) {
+        return from.getTranslation2d().interpolate(to.getTranslation2d(), fraction);
+    }
 
+    /**
+     * How fast the chase point is moving, part way through the current segment. Must match {@link #getChasePoint}.
+     */
+    protected Translation2d getChaseVelocity(ProvidesInterpolationData from, ProvidesInterpolationData to, double fraction) {
+        return to.getTranslation2d().minus(from.getTranslation2d()).div(to.getSecondsForSegment());
+    }
 }
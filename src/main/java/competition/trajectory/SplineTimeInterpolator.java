@@ -0,0 +1,237 @@
+package competition.trajectory;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Same timing and chase point behaviour as {@link SimpleTimeInterpolator}, but the chase point follows a smooth
+ * curve through the key points instead of straight lines. The robot doesn't have to stop and turn a corner at each
+ * key point, so it can carry speed through multi-point paths.
+ * <p>
+ * Each segment is a quintic Hermite curve. The direction and curvature at each key point are shared by the
+ * segments on either side, so the path has no kinks and no sudden changes in curvature. Within a segment, the
+ * chase point moves at a constant speed along the curve (using an arc length lookup table built once, in
+ * {@link #initialize}), rather than at a constant rate of the curve parameter.
+ */
+public class SplineTimeInterpolator extends SimpleTimeInterpolator {
+
+    // Lookup table resolution, per segment.
+    private static final int SAMPLES_PER_SEGMENT = 32;
+
+    // Polynomial coefficients for each segment, indexed by [segment][power]. Segment i ends at key point i.
+    private double[][] xCoefficients = new double[0][];
+    private double[][] yCoefficients = new double[0][];
+    // Cumulative arc length at evenly spaced parameter values, indexed by [segment][sample].
+    private double[][] arcLengths = new double[0][];
+
+    /**
+     * Starts following the key points from the given baseline, and builds the curves between them.
+     * Set the key points before calling this.
+     */
+    @Override
+    public void initialize(ProvidesInterpolationData baseline) {
+        super.initialize(baseline);
+        buildSegments();
+    }
+
+    @Override
+    protected Translation2d getChasePoint(ProvidesInterpolationData from, ProvidesInterpolationData to, double fraction) {
+        if (index >= xCoefficients.length) {
+            return super.getChasePoint(from, to, fraction);
+        }
+        double u = getParameterForFraction(index, fraction);
+        return new Translation2d(evaluate(xCoefficients[index], u), evaluate(yCoefficients[index], u));
+    }
+
+    @Override
+    protected Translation2d getChaseVelocity(ProvidesInterpolationData from, ProvidesInterpolationData to, double fraction) {
+        if (index >= xCoefficients.length) {
+            return super.getChaseVelocity(from, to, fraction);
+        }
+        double u = getParameterForFraction(index, fraction);
+        double dx = evaluateDerivative(xCoefficients[index], u);
+        double dy = evaluateDerivative(yCoefficients[index], u);
+        double magnitude = Math.hypot(dx, dy);
+        if (magnitude < 1e-9) {
+            return new Translation2d();
+        }
+        // Moving along the curve at a constant speed: the whole arc over the segment's time.
+        double speed = arcLengths[index][SAMPLES_PER_SEGMENT] / to.getSecondsForSegment();
+        return new Translation2d(dx / magnitude * speed, dy / magnitude * speed);
+    }
+
+    /**
+     * @return The total length of the path, following the curve, from the baseline to the final key point.
+     */
+    public double getPathLength() {
+        double length = 0;
+        for (double[] segmentArcLengths : arcLengths) {
+            length += segmentArcLengths[SAMPLES_PER_SEGMENT];
+        }
+        return length;
+    }
+
+    private void buildSegments() {
+        if (keyPoints == null || baseline == null) {
+            return;
+        }
+
+        // Knots are the baseline followed by every key point.
+        int knotCount = keyPoints.size() + 1;
+        double[] knotX = new double[knotCount];
+        double[] knotY = new double[knotCount];
+        knotX[0] = baseline.getTranslation2d().getX();
+        knotY[0] = baseline.getTranslation2d().getY();
+        for (int i = 1; i < knotCount; i++) {
+            Translation2d point = keyPoints.get(i - 1).getTranslation2d();
+            knotX[i] = point.getX();
+            knotY[i] = point.getY();
+        }
+
+        int segmentCount = knotCount - 1;
+        double[] chordLengths = new double[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            chordLengths[i] = Math.hypot(knotX[i + 1] - knotX[i], knotY[i + 1] - knotY[i]);
+        }
+
+        // Direction of travel through each knot: halfway between the incoming and outgoing directions. If the path
+        // doubles back on itself this comes out as zero, and the robot comes to a stop at that knot.
+        double[] directionX = new double[knotCount];
+        double[] directionY = new double[knotCount];
+        for (int i = 0; i < knotCount; i++) {
+            double sumX = 0;
+            double sumY = 0;
+            if (i > 0 && chordLengths[i - 1] > 0) {
+                sumX += (knotX[i] - knotX[i - 1]) / chordLengths[i - 1];
+                sumY += (knotY[i] - knotY[i - 1]) / chordLengths[i - 1];
+            }
+            if (i < segmentCount && chordLengths[i] > 0) {
+                sumX += (knotX[i + 1] - knotX[i]) / chordLengths[i];
+                sumY += (knotY[i + 1] - knotY[i]) / chordLengths[i];
+            }
+            double magnitude = Math.hypot(sumX, sumY);
+            if (magnitude > 1e-9) {
+                directionX[i] = sumX / magnitude;
+                directionY[i] = sumY / magnitude;
+            }
+        }
+
+        // Curvature vector at each knot: the average of what a cubic curve would have on either side, measured per
+        // unit of distance so segments of different lengths agree. Zero at the ends, so the path starts and ends
+        // straight.
+        double[] accelerationX = new double[knotCount];
+        double[] accelerationY = new double[knotCount];
+        for (int i = 1; i < knotCount - 1; i++) {
+            double sumX = 0;
+            double sumY = 0;
+            int sides = 0;
+            double incoming = chordLengths[i - 1];
+            if (incoming > 0) {
+                // Cubic Hermite second derivative at the end of the incoming segment, scaled to distance.
+                sumX += (-6 * (knotX[i] - knotX[i - 1]) + 2 * directionX[i - 1] * incoming + 4 * directionX[i] * incoming) / (incoming * incoming);
+                sumY += (-6 * (knotY[i] - knotY[i - 1]) + 2 * directionY[i - 1] * incoming + 4 * directionY[i] * incoming) / (incoming * incoming);
+                sides++;
+            }
+            double outgoing = chordLengths[i];
+            if (outgoing > 0) {
+                // And at the start of the outgoing segment.
+                sumX += (6 * (knotX[i + 1] - knotX[i]) - 4 * directionX[i] * outgoing - 2 * directionX[i + 1] * outgoing) / (outgoing * outgoing);
+                sumY += (6 * (knotY[i + 1] - knotY[i]) - 4 * directionY[i] * outgoing - 2 * directionY[i + 1] * outgoing) / (outgoing * outgoing);
+                sides++;
+            }
+            if (sides > 0) {
+                accelerationX[i] = sumX / sides;
+                accelerationY[i] = sumY / sides;
+            }
+        }
+
+        xCoefficients = new double[segmentCount][];
+        yCoefficients = new double[segmentCount][];
+        arcLengths = new double[segmentCount][];
+        for (int i = 0; i < segmentCount; i++) {
+            double length = chordLengths[i];
+            // Derivatives are with respect to the segment parameter (0 to 1), so scale by the segment's length.
+            xCoefficients[i] = getQuinticCoefficients(
+                knotX[i], knotX[i + 1],
+                directionX[i] * length, directionX[i + 1] * length,
+                accelerationX[i] * length * length, accelerationX[i + 1] * length * length);
+            yCoefficients[i] = getQuinticCoefficients(
+                knotY[i], knotY[i + 1],
+                directionY[i] * length, directionY[i + 1] * length,
+                accelerationY[i] * length * length, accelerationY[i + 1] * length * length);
+            arcLengths[i] = buildArcLengthTable(xCoefficients[i], yCoefficients[i]);
+        }
+    }
+
+    /**
+     * Converts the start and end position, first derivative and second derivative of a quintic Hermite curve into
+     * polynomial coefficients, lowest power first.
+     */
+    static double[] getQuinticCoefficients(double p0, double p1, double v0, double v1, double a0, double a1) {
+        return new double[] {
+            p0,
+            v0,
+            0.5 * a0,
+            -10 * p0 - 6 * v0 - 1.5 * a0 + 0.5 * a1 - 4 * v1 + 10 * p1,
+            15 * p0 + 8 * v0 + 1.5 * a0 - a1 + 7 * v1 - 15 * p1,
+            -6 * p0 - 3 * v0 - 0.5 * a0 + 0.5 * a1 - 3 * v1 + 6 * p1
+        };
+    }
+
+    private static double[] buildArcLengthTable(double[] x, double[] y) {
+        double[] table = new double[SAMPLES_PER_SEGMENT + 1];
+        double previousX = evaluate(x, 0);
+        double previousY = evaluate(y, 0);
+        for (int sample = 1; sample <= SAMPLES_PER_SEGMENT; sample++) {
+            double u = (double) sample / SAMPLES_PER_SEGMENT;
+            double currentX = evaluate(x, u);
+            double currentY = evaluate(y, u);
+            table[sample] = table[sample - 1] + Math.hypot(currentX - previousX, currentY - previousY);
+            previousX = currentX;
+            previousY = currentY;
+        }
+        return table;
+    }
+
+    /**
+     * Finds the curve parameter that is the given fraction of the way along the segment, by distance.
+     */
+    private double getParameterForFraction(int segment, double fraction) {
+        double[] table = arcLengths[segment];
+        double totalLength = table[SAMPLES_PER_SEGMENT];
+        if (totalLength <= 0) {
+            return fraction;
+        }
+        double targetLength = Math.max(0, Math.min(1, fraction)) * totalLength;
+
+        // Binary search for the last sample at or before the target length.
+        int low = 0;
+        int high = SAMPLES_PER_SEGMENT;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (table[middle] <= targetLength) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        double sampleLength = table[high] - table[low];
+        double withinSample = sampleLength > 0 ? (targetLength - table[low]) / sampleLength : 0;
+        return (low + withinSample) / SAMPLES_PER_SEGMENT;
+    }
+
+    private static double evaluate(double[] coefficients, double u) {
+        double result = 0;
+        for (int power = coefficients.length - 1; power >= 0; power--) {
+            result = result * u + coefficients[power];
+        }
+        return result;
+    }
+
+    private static double evaluateDerivative(double[] coefficients, double u) {
+        double result = 0;
+        for (int power = coefficients.length - 1; power >= 1; power--) {
+            result = result * u + power * coefficients[power];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+package competition.trajectory;
+
+import java.util.List;
+
+import xbot.common.math.XYPair;
+
+/**
+ * Moves both arm joints through a series of points in joint space (X: lower arm degrees, Y: upper arm degrees) as
+ * quickly as their velocity and acceleration limits allow.
+ * <p>
+ * Between each pair of points, both joints move in a straight line in joint space, starting and finishing together.
+ * Each segment follows a trapezoidal velocity profile sized for whichever joint is the limiting one on that segment,
+ * so that joint runs at its limits and the other one is slowed to match. The arm comes to a stop at each point, which
+ * keeps it on the (collision-free) straight lines between them.
+ */
+public class SynchronizedJointTrajectory {
+
+    /**
+     * Where the joints should be at some time. Reused between samples, so nothing is allocated while following the
+     * trajectory.
+     */
+    public static class Sample {
+        public double lowerDegrees;
+        public double upperDegrees;
+        public double lowerVelocityDegreesPerSecond;
+        public double upperVelocityDegreesPerSecond;
+        public double lowerAccelerationDegreesPerSecondSquared;
+        public double upperAccelerationDegreesPerSecondSquared;
+    }
+
+    private final double[] startLower;
+    private final double[] startUpper;
+    private final double[] deltaLower;
+    private final double[] deltaUpper;
+    // Each segment's profile runs along its straight line from 0 to 1.
+    private final double[] segmentStartTimes;
+    private final double[] accelerationTimes;
+    private final double[] cruiseTimes;
+    private final double[] peakRates;
+    private final double[] accelerations;
+    private final double totalTime;
+    private final double lowerFinishTime;
+
+    /**
+     * @param points Joint angles to pass through, in degrees, starting with where the arm is now.
+     * @param lowerMaxVelocity Fastest the lower arm can move, in degrees per second.
+     * @param lowerMaxAcceleration Fastest the lower arm can speed up or slow down, in degrees per second squared.
+     * @param upperMaxVelocity Fastest the upper arm can move, in degrees per second.
+     * @param upperMaxAcceleration Fastest the upper arm can speed up or slow down, in degrees per second squared.
+     */
+    public SynchronizedJointTrajectory(
+            List<XYPair> points,
+            double lowerMaxVelocity, double lowerMaxAcceleration,
+            double upperMaxVelocity, double upperMaxAcceleration) {
+        int segments = Math.max(0, points.size() - 1);
+        startLower = new double[segments + 1];
+        startUpper = new double[segments + 1];
+        deltaLower = new double[segments];
+        deltaUpper = new double[segments];
+        segmentStartTimes = new double[segments + 1];
+        accelerationTimes = new double[segments];
+        cruiseTimes = new double[segments];
+        peakRates = new double[segments];
+        accelerations = new double[segments];
+
+        double time = 0;
+        double lastLowerMoveEndTime = 0;
+        for (int i = 0; i < segments; i++) {
+            XYPair from = points.get(i);
+            XYPair to = points.get(i + 1);
+            startLower[i] = from.x;
+            startUpper[i] = from.y;
+            deltaLower[i] = to.x - from.x;
+            deltaUpper[i] = to.y - from.y;
+
+            // Convert each joint's limits into limits on how fast we can move along the line, and take the tighter.
+            double maxRate = Math.min(
+                getRateLimit(lowerMaxVelocity, deltaLower[i]), getRateLimit(upperMaxVelocity, deltaUpper[i]));
+            double maxAcceleration = Math.min(
+                getRateLimit(lowerMaxAcceleration, deltaLower[i]), getRateLimit(upperMaxAcceleration, deltaUpper[i]));
+
+            segmentStartTimes[i] = time;
+            if (Double.isInfinite(maxRate) || Double.isInfinite(maxAcceleration)) {
+                // Nothing to move.
+                continue;
+            }
+            accelerations[i] = maxAcceleration;
+            if (maxRate * maxRate / maxAcceleration >= 1) {
+                // Never gets up to full speed: accelerate for half the way, then slow down.
+                accelerationTimes[i] = Math.sqrt(1 / maxAcceleration);
+                peakRates[i] = maxAcceleration * accelerationTimes[i];
+                cruiseTimes[i] = 0;
+            } else {
+                accelerationTimes[i] = maxRate / maxAcceleration;
+                peakRates[i] = maxRate;
+                cruiseTimes[i] = (1 - maxRate * maxRate / maxAcceleration) / maxRate;
+            }
+            time += 2 * accelerationTimes[i] + cruiseTimes[i];
+            if (deltaLower[i] != 0) {
+                lastLowerMoveEndTime = time;
+            }
+        }
+        if (points.size() > 0) {
+            XYPair last = points.get(points.size() - 1);
+            startLower[segments] = last.x;
+            startUpper[segments] = last.y;
+        }
+        segmentStartTimes[segments] = time;
+        totalTime = time;
+        lowerFinishTime = lastLowerMoveEndTime;
+    }
+
+    /**
+     * Calculates the shortest time a single straight-line move can take. Useful for timing moves that aren't
+     * planned in joint space.
+     * @param lowerChangeDegrees How far the lower arm has to move.
+     * @param upperChangeDegrees How far the upper arm has to move.
+     * @return Time in seconds.
+     */
+    public static double getMinimumDuration(
+            double lowerChangeDegrees, double upperChangeDegrees,
+            double lowerMaxVelocity, double lowerMaxAcceleration,
+            double upperMaxVelocity, double upperMaxAcceleration) {
+        return Math.max(
+            getMinimumDuration(Math.abs(lowerChangeDegrees), lowerMaxVelocity, lowerMaxAcceleration),
+            getMinimumDuration(Math.abs(upperChangeDegrees), upperMaxVelocity, upperMaxAcceleration));
+    }
+
+    private static double getMinimumDuration(double distance, double maxVelocity, double maxAcceleration) {
+        if (distance * maxAcceleration <= maxVelocity * maxVelocity) {
+            return 2 * Math.sqrt(distance / maxAcceleration);
+        }
+        return maxVelocity / maxAcceleration + distance / maxVelocity;
+    }
+
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * @return Time at which the lower arm reaches its final angle. It doesn't move again after this, even if the upper
+     * arm is still going.
+     */
+    public double getLowerJointFinishTime() {
+        return lowerFinishTime;
+    }
+
+    /**
+     * Works out where the joints should be at a given time.
+     * @param time Seconds since the start of the trajectory.
+     * @param sample Output.
+     */
+    public void sample(double time, Sample sample) {
+        int segments = deltaLower.length;
+        int segment = 0;
+        while (segment < segments && time >= segmentStartTimes[segment + 1]) {
+            segment++;
+        }
+        if (segment == segments) {
+            // Finished (or there was nowhere to go); hold at the end.
+            sample.lowerDegrees = startLower[segments];
+            sample.upperDegrees = startUpper[segments];
+            sample.lowerVelocityDegreesPerSecond = 0;
+            sample.upperVelocityDegreesPerSecond = 0;
+            sample.lowerAccelerationDegreesPerSecondSquared = 0;
+            sample.upperAccelerationDegreesPerSecondSquared = 0;
+            return;
+        }
+
+        double t = Math.max(0, time - segmentStartTimes[segment]);
+        double accelerationTime = accelerationTimes[segment];
+        double cruiseTime = cruiseTimes[segment];
+        double peakRate = peakRates[segment];
+        double acceleration = accelerations[segment];
+
+        // How far along the line (0 to 1), and how fast that's changing.
+        double progress;
+        double rate;
+        double rateOfChange;
+        if (t < accelerationTime) {
+            progress = 0.5 * acceleration * t * t;
+            rate = acceleration * t;
+            rateOfChange = acceleration;
+        } else if (t < accelerationTime + cruiseTime) {
+            progress = 0.5 * peakRate * accelerationTime + peakRate * (t - accelerationTime);
+            rate = peakRate;
+            rateOfChange = 0;
+        } else {
+            double timeLeft = Math.max(0, 2 * accelerationTime + cruiseTime - t);
+            progress = 1 - 0.5 * acceleration * timeLeft * timeLeft;
+            rate = acceleration * timeLeft;
+            rateOfChange = -acceleration;
+        }
+
+        sample.lowerDegrees = startLower[segment] + deltaLower[segment] * progress;
+        sample.upperDegrees = startUpper[segment] + deltaUpper[segment] * progress;
+        sample.lowerVelocityDegreesPerSecond = deltaLower[segment] * rate;
+        sample.upperVelocityDegreesPerSecond = deltaUpper[segment] * rate;
+        sample.lowerAccelerationDegreesPerSecondSquared = deltaLower[segment] * rateOfChange;
+        sample.upperAccelerationDegreesPerSecondSquared = deltaUpper[segment] * rateOfChange;
+    }
+
+    /**
+     * @return True once the trajectory has reached its final point.
+     */
+    public boolean isFinished(double time) {
+        return time >= totalTime;
+    }
+
+    private static double getRateLimit(double jointLimit, double jointChange) {
+        // A joint that isn't moving doesn't limit anything.
+        return jointChange == 0 ? Double.POSITIVE_INFINITY : jointLimit / Math.abs(jointChange);
+    }
+}
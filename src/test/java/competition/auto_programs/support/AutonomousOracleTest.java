@@ -0,0 +1,52 @@
+package competition.auto_programs.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import competition.auto_programs.AutoLandmarks;
+
+public class AutonomousOracleTest extends BaseCompetitionTest {
+
+    @Test
+    public void testTrajectoriesAreReusedUntilSettingsChange() {
+        AutonomousOracle oracle = getInjectorComponent().autonomousOracle();
+        oracle.setLane(AutonomousOracle.Lane.Top);
+        oracle.setSecondScoringLocationIndex(8);
+        oracle.precomputeTrajectories();
+
+        var scoring = oracle.getTrajectoryForScoring();
+        var balance = oracle.getTrajectoryForActualBalance();
+        assertSame(scoring, oracle.getTrajectoryForScoring());
+
+        // Setting the same value again shouldn't throw anything away.
+        oracle.setSecondScoringLocationIndex(8);
+        assertSame(scoring, oracle.getTrajectoryForScoring());
+
+        oracle.setSecondScoringLocationIndex(9);
+        var newScoring = oracle.getTrajectoryForScoring();
+        assertNotSame(scoring, newScoring);
+        var scoringPoint = newScoring.get(newScoring.size() - 1);
+        assertEquals(AutoLandmarks.blueScoringPositionNine.getY(), scoringPoint.keyPose.getY(), 0.001);
+
+        oracle.setMantlePrepPosition(AutonomousOracle.MantlePrepPosition.OutsideCommunity);
+        assertNotSame(balance, oracle.getTrajectoryForActualBalance());
+    }
+
+    @Test
+    public void testDrivePhaseOneFollowsAcquireSwitch() {
+        AutonomousOracle oracle = getInjectorComponent().autonomousOracle();
+        oracle.setLane(AutonomousOracle.Lane.Top);
+
+        oracle.setEnableAcquireGamePiece(false);
+        var mobility = oracle.getTrajectoryForDrivePhaseOne();
+        oracle.setEnableAcquireGamePiece(true);
+        var acquire = oracle.getTrajectoryForDrivePhaseOne();
+
+        assertNotSame(mobility, acquire);
+        assertEquals(AutoLandmarks.blueGamePieceUpper.getY(), acquire.get(acquire.size() - 1).keyPose.getY(), 0.001);
+    }
+}
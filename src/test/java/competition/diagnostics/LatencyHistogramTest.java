@@ -0,0 +1,49 @@
+package competition.diagnostics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+
+public class LatencyHistogramTest extends BaseCompetitionTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("Test");
+        assertEquals(0, histogram.getPercentileMilliseconds(50), 0.0001);
+
+        // 98 fast loops, and two slow ones
+        for (int i = 0; i < 98; i++) {
+            histogram.recordMicros(1000);
+        }
+        histogram.recordMicros(15000);
+        histogram.recordMicros(40000);
+
+        assertEquals(100, histogram.getCount());
+        // Buckets are about 10% wide
+        assertEquals(1.0, histogram.getPercentileMilliseconds(50), 0.1);
+        assertEquals(15.0, histogram.getPercentileMilliseconds(99), 1.5);
+        assertEquals(40.0, histogram.getPercentileMilliseconds(100), 0.0001);
+        assertEquals(40.0, histogram.getMaxMilliseconds(), 0.0001);
+    }
+
+    @Test
+    public void testHugeSamplesAreCapturedAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram("Test");
+        histogram.recordMicros(5_000_000);
+        assertEquals(5000, histogram.getPercentileMilliseconds(50), 0.0001);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMilliseconds(), 0.0001);
+    }
+
+    @Test
+    public void testRecorderCreatesSectionsOnDemand() {
+        LoopTimingRecorder recorder = getInjectorComponent().loopTimingRecorder();
+        recorder.recordMicros("DriveSubsystem.periodic()", 2000);
+        recorder.recordMicros("DriveSubsystem.periodic()", 3000);
+        assertEquals(2, recorder.getHistogram("DriveSubsystem.periodic()").getCount());
+    }
+}
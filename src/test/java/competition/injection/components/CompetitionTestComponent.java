@@ -22,11 +22,11 @@ import competition.subsystems.drive.commands.SwerveToNextScoringPositionCommand;
 import competition.subsystems.drive.commands.SwerveToPointCommand;
 import competition.subsystems.drive.commands.VelocityMaintainerCommand;
 import competition.subsystems.drive.swerve.SwerveSteeringMotorPidSubsystem;
-import competition.subsystems.vision.VisionSubsystem;
 import dagger.Component;
 import xbot.common.injection.modules.MockControlsModule;
 import xbot.common.injection.modules.MockDevicesModule;
 import xbot.common.injection.modules.UnitTestModule;
+import xbot.common.properties.PropertyFactory;
 
 import javax.inject.Singleton;
 
@@ -36,8 +36,6 @@ public abstract class CompetitionTestComponent extends BaseRobotComponent {
 
     public abstract ElectricalContract electricalContract();
 
-    public abstract VisionSubsystem visionSubsystem();
-
     public abstract SwerveDriveWithJoysticksCommand swerveDriveWithJoysticksCommand();
 
     public abstract SwerveToPointCommand swerveToPointCommand();
@@ -75,4 +73,6 @@ public abstract class CompetitionTestComponent extends BaseRobotComponent {
     public abstract VelocityMaintainerCommand velocityMaintainerCommand();
 
     public abstract SwerveSimpleTrajectoryCommand swerveSimpleTrajectoryCommand();
+
+    public abstract PropertyFactory propertyFactory();
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package competition.subsystems;
+
+import static org.junit.Assert.assertEquals;
+
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.REVLibError;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import xbot.common.controls.actuators.XCANSparkMax;
+import xbot.common.controls.actuators.mock_adapters.MockCANSparkMax;
+import xbot.common.properties.PropertyFactory;
+
+public class DeduplicatedSparkMaxOutputTest extends BaseCompetitionTest {
+
+    private MockCANSparkMax motor;
+    private PropertyFactory pf;
+    private DeduplicatedSparkMaxOutput output;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        motor = (MockCANSparkMax)getInjectorComponent().swerveComponents().frontLeft.swerveDriveSubsystem().getSparkMax();
+        pf = getInjectorComponent().propertyFactory();
+        pf.setPrefix("DeduplicatedSparkMaxOutputTest");
+        output = new DeduplicatedSparkMaxOutput(motor, "Test", pf);
+    }
+
+    @Test
+    public void testDuplicatesAreSuppressed() {
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+        assertEquals(10, motor.getReference(), 0.0001);
+        assertEquals(1, output.getSentWrites());
+
+        // Anything within the tolerance isn't worth sending.
+        output.setReference(10 + DeduplicatedSparkMaxOutput.DEFAULT_TOLERANCE / 2, ControlType.kVelocity, 0, 1);
+        output.setReference(10, ControlType.kVelocity, 0, 1 + DeduplicatedSparkMaxOutput.DEFAULT_TOLERANCE / 2);
+        assertEquals(10, motor.getReference(), 0.0);
+        assertEquals(1, output.getSentWrites());
+        assertEquals(2, output.getSuppressedWrites());
+
+        output.setReference(11, ControlType.kVelocity, 0, 1);
+        assertEquals(11, motor.getReference(), 0.0001);
+        assertEquals(2, output.getSentWrites());
+    }
+
+    @Test
+    public void testControlTypeOrFeedForwardChangeIsSent() {
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+
+        output.setReference(10, ControlType.kPosition, 0, 1);
+        assertEquals(ControlType.kPosition, motor.getControlType());
+        assertEquals(2, output.getSentWrites());
+
+        output.setReference(10, ControlType.kPosition, 0, 2);
+        assertEquals(3, output.getSentWrites());
+        assertEquals(0, output.getSuppressedWrites());
+    }
+
+    @Test
+    public void testUnchangedOutputIsRefreshedPeriodically() {
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+
+        timer.advanceTimeInSecondsBy(DeduplicatedSparkMaxOutput.DEFAULT_REFRESH_INTERVAL_SECONDS / 2);
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+        assertEquals(1, output.getSentWrites());
+
+        timer.advanceTimeInSecondsBy(DeduplicatedSparkMaxOutput.DEFAULT_REFRESH_INTERVAL_SECONDS);
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+        assertEquals(2, output.getSentWrites());
+
+        // The refresh starts the interval over.
+        output.setReference(10, ControlType.kVelocity, 0, 1);
+        assertEquals(2, output.getSentWrites());
+    }
+
+    @Test
+    public void testFailedWritesAreRetried() {
+        FailingOutput failingOutput = new FailingOutput(motor, pf);
+        failingOutput.error = REVLibError.kCANDisconnected;
+
+        assertEquals(REVLibError.kCANDisconnected, failingOutput.setReference(10, ControlType.kVelocity, 0, 1));
+        assertEquals(0, failingOutput.getSentWrites());
+
+        // Nothing was recorded as sent, so the same output is tried again.
+        failingOutput.error = REVLibError.kOk;
+        assertEquals(REVLibError.kOk, failingOutput.setReference(10, ControlType.kVelocity, 0, 1));
+        assertEquals(2, failingOutput.attempts);
+        assertEquals(1, failingOutput.getSentWrites());
+        assertEquals(0, failingOutput.getSuppressedWrites());
+    }
+
+    private static class FailingOutput extends DeduplicatedSparkMaxOutput {
+        REVLibError error = REVLibError.kOk;
+        int attempts = 0;
+
+        FailingOutput(XCANSparkMax motor, PropertyFactory pf) {
+            super(motor, "Failing", pf);
+        }
+
+        @Override
+        REVLibError sendReference(double value, ControlType controlType, int pidSlot, double arbitraryFeedForward) {
+            attempts++;
+            if (error != REVLibError.kOk) {
+                return error;
+            }
+            return super.sendReference(value, controlType, pidSlot, arbitraryFeedForward);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package competition.subsystems;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import competition.subsystems.arm.UnifiedArmSubsystem;
+import xbot.common.controls.sensors.mock_adapters.MockDutyCycleEncoder;
+
+public class RobotStateFrameTest extends BaseCompetitionTest {
+
+    @Test
+    public void testArmReadingsHeldUntilNextCapture() {
+        UnifiedArmSubsystem arms = getInjectorComponent().unifiedArmSubsystem();
+        RobotStateFrame frame = getInjectorComponent().robotStateFrame();
+        arms.lowerArm.setAbsoluteEncoderOffsetInDegrees(0);
+        MockDutyCycleEncoder encoder = (MockDutyCycleEncoder)arms.lowerArm.absoluteEncoder;
+
+        // Before the first capture, we read straight from the sensor.
+        encoder.setRawPosition(90.0 / 360.0);
+        assertEquals(90, arms.lowerArm.getArmPositionInDegrees(), 0.001);
+
+        frame.capture();
+        encoder.setRawPosition(80.0 / 360.0);
+        assertEquals("Reading should be held for the rest of the loop", 90, arms.lowerArm.getArmPositionInDegrees(), 0.001);
+
+        frame.capture();
+        assertEquals(80, arms.lowerArm.getArmPositionInDegrees(), 0.001);
+    }
+
+    @Test
+    public void testTimestampHeldUntilNextCapture() {
+        RobotStateFrame frame = getInjectorComponent().robotStateFrame();
+
+        frame.capture();
+        double captured = frame.getTimestamp();
+        timer.advanceTimeInSecondsBy(0.02);
+        assertEquals(captured, frame.getTimestamp(), 0.0001);
+
+        frame.capture();
+        assertEquals(captured + 0.02, frame.getTimestamp(), 0.0001);
+    }
+}
@@ -0,0 +1,51 @@
+package competition.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import competition.BaseCompetitionTest;
+import competition.subsystems.StatusFrameScheduler.ScheduledDevice;
+import competition.subsystems.StatusFrameScheduler.SparkMaxProfile;
+
+public class StatusFrameSchedulerTest extends BaseCompetitionTest {
+
+    @Test
+    public void testDevicesGoIdleAfterActivityStops() {
+        StatusFrameScheduler scheduler = getInjectorComponent().statusFrameScheduler();
+        ScheduledDevice device = scheduler.registerSparkMax(
+            getInjectorComponent().swerveComponents().frontLeft.swerveDriveSubsystem().getSparkMax(),
+            "Test", SparkMaxProfile.SwerveDrive);
+
+        scheduler.periodic();
+        assertFalse(device.isAppliedActive());
+
+        device.markActive();
+        scheduler.periodic();
+        assertTrue(device.isAppliedActive());
+
+        // Stays active for a little while, in case there's more to come.
+        timer.advanceTimeInSecondsBy(0.5);
+        scheduler.periodic();
+        assertTrue(device.isAppliedActive());
+
+        timer.advanceTimeInSecondsBy(1);
+        scheduler.periodic();
+        assertFalse(device.isAppliedActive());
+    }
+
+    @Test
+    public void testDrivePositionKeepsUpWithOdometry() {
+        // Whether or not the drive is active, the odometry sampler shouldn't see the same position twice.
+        assertEquals(
+            StatusFrameScheduler.ODOMETRY_FRAME_PERIOD_MS,
+            SparkMaxProfile.SwerveDrive.getPeriodMs(PeriodicFrame.kStatus2, true));
+        assertEquals(
+            StatusFrameScheduler.ODOMETRY_FRAME_PERIOD_MS,
+            SparkMaxProfile.SwerveDrive.getPeriodMs(PeriodicFrame.kStatus2, false));
+    }
+}
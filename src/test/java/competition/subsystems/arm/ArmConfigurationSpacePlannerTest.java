@@ -0,0 +1,86 @@
+package competition.subsystems.arm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import xbot.common.math.XYPair;
+
+public class ArmConfigurationSpacePlannerTest extends BaseCompetitionTest {
+
+    private ArmConfigurationSpacePlanner planner;
+    private UnifiedArmSubsystem arms;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        planner = getInjectorComponent().armConfigurationSpacePlanner();
+        arms = getInjectorComponent().unifiedArmSubsystem();
+    }
+
+    @Test
+    public void testGoesStraightWhenNothingIsInTheWay() {
+        List<XYPair> route = planner.planRoute(
+            UnifiedArmSubsystem.fullyRetractedAngles, UnifiedArmSubsystem.highGoalConeAngles);
+        assertNotNull(route);
+        assertEquals(0, route.size());
+    }
+
+    @Test
+    public void testRoutesAroundTheFloor() {
+        // Swinging the upper arm straight between these would drag the end effector along the floor.
+        XYPair start = new XYPair(36, 90);
+        XYPair goal = new XYPair(36, 20);
+        assertTrue(planner.isConfigurationLegal(start.x, start.y));
+        assertTrue(planner.isConfigurationLegal(goal.x, goal.y));
+        assertFalse(planner.isConfigurationLegal(36, 55));
+
+        List<XYPair> route = planner.planRoute(start, goal);
+        assertNotNull(route);
+        assertTrue(route.size() > 0);
+        assertRouteIsLegal(start, route, goal);
+    }
+
+    @Test
+    public void testNoRouteIntoTrouble() {
+        assertNull(planner.planRoute(UnifiedArmSubsystem.fullyRetractedAngles, new XYPair(36, 55)));
+    }
+
+    @Test
+    public void testKeyPositionRoutesAreCached() {
+        planner.precomputePlans();
+        assertTrue(planner.getCachedPlanCount() > 0);
+
+        XYPair start = arms.getKeyArmAngles(
+            UnifiedArmSubsystem.KeyArmPosition.FullyRetracted, UnifiedArmSubsystem.RobotFacing.Forward);
+        XYPair goal = arms.getKeyArmAngles(
+            UnifiedArmSubsystem.KeyArmPosition.HighGoal, UnifiedArmSubsystem.RobotFacing.Forward);
+        // Same route object both times, since it came from the cache.
+        assertSame(planner.planRoute(start, goal), planner.planRoute(start, goal));
+    }
+
+    private void assertRouteIsLegal(XYPair start, List<XYPair> waypoints, XYPair goal) {
+        List<XYPair> points = new ArrayList<>();
+        points.add(start);
+        points.addAll(waypoints);
+        points.add(goal);
+        for (int i = 1; i < points.size(); i++) {
+            XYPair from = points.get(i - 1);
+            XYPair to = points.get(i);
+            for (double fraction = 0; fraction <= 1; fraction += 0.01) {
+                assertTrue(planner.isConfigurationLegal(
+                    from.x + (to.x - from.x) * fraction,
+                    from.y + (to.y - from.y) * fraction));
+            }
+        }
+    }
+}
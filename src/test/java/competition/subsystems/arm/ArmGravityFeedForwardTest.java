@@ -0,0 +1,71 @@
+package competition.subsystems.arm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import xbot.common.controls.sensors.mock_adapters.MockDutyCycleEncoder;
+
+public class ArmGravityFeedForwardTest extends BaseCompetitionTest {
+
+    private UnifiedArmSubsystem arms;
+    private ArmGravityFeedForward gravityFeedForward;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        arms = getInjectorComponent().unifiedArmSubsystem();
+        gravityFeedForward = arms.gravityFeedForward;
+    }
+
+    @Test
+    public void testNoTorqueWhenPointingStraightUp() {
+        gravityFeedForward.calculate(90, 180);
+        assertEquals(0, gravityFeedForward.getLowerJointTorque(), 0.001);
+        assertEquals(0, gravityFeedForward.getUpperJointTorque(), 0.001);
+        assertEquals(0, gravityFeedForward.getLowerArmVolts(), 0.001);
+        assertEquals(0, gravityFeedForward.getUpperArmVolts(), 0.001);
+    }
+
+    @Test
+    public void testFoldedUpAndHorizontal() {
+        // Upper arm folded back along the lower arm, both pointing forwards.
+        gravityFeedForward.calculate(0, 0);
+        // Lower arm: 10lb at 20in. Upper arm: 8lb at 44.5 - 24 = 20.5in.
+        assertEquals(364, gravityFeedForward.getLowerJointTorque(), 0.001);
+        // The upper arm points backwards from the elbow, so it needs pushing the other way.
+        assertEquals(-192, gravityFeedForward.getUpperJointTorque(), 0.001);
+        // Matches the old fixed feedforward.
+        assertEquals(2.0, gravityFeedForward.getLowerArmVolts(), 0.01);
+        assertTrue(gravityFeedForward.getUpperArmVolts() < 0);
+    }
+
+    @Test
+    public void testLowerJointCarriesUpperArm() {
+        // Same lower arm angle, but reaching the upper arm out forwards puts much more load on the lower joint.
+        gravityFeedForward.calculate(60, 0);
+        double foldedTorque = gravityFeedForward.getLowerJointTorque();
+        gravityFeedForward.calculate(60, 120);
+        double reachingTorque = gravityFeedForward.getLowerJointTorque();
+
+        // The upper arm goes from 60 degrees below horizontal (pointing backwards) to horizontal (pointing forwards).
+        assertEquals(8 * 24 * 1.5, reachingTorque - foldedTorque, 0.001);
+        assertEquals(8 * 24, gravityFeedForward.getUpperJointTorque(), 0.001);
+    }
+
+    @Test
+    public void testSegmentsGetUpdatedFromSensors() {
+        arms.upperArm.setAbsoluteEncoderOffsetInDegrees(0);
+        arms.lowerArm.setAbsoluteEncoderOffsetInDegrees(0);
+        ((MockDutyCycleEncoder)arms.lowerArm.absoluteEncoder).setRawPosition(60 / 360.0);
+        ((MockDutyCycleEncoder)arms.upperArm.absoluteEncoder).setRawPosition(120 / 360.0);
+        arms.refreshDataFrame();
+
+        gravityFeedForward.calculate(60, 120);
+        assertEquals(gravityFeedForward.getLowerArmVolts(), arms.lowerArm.getGravityFeedForwardVolts(), 0.001);
+        assertEquals(gravityFeedForward.getUpperArmVolts(), arms.upperArm.getGravityFeedForwardVolts(), 0.001);
+        assertTrue(arms.lowerArm.getGravityFeedForwardVolts() > 0);
+    }
+}
@@ -0,0 +1,109 @@
+package competition.subsystems.arm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+
+public class ArmPositionLookupTableTest extends BaseCompetitionTest {
+
+    private final double[] tableSolution = new double[2];
+    private final double[] analyticSolution = new double[2];
+
+    private ArmPositionSolver createSolver() {
+        return new ArmPositionSolver(getInjectorComponent().unifiedArmSubsystem().solver.getConfiguration());
+    }
+
+    @Test
+    public void testMatchesAnalyticSolverWithinErrorBound() {
+        ArmPositionSolver solver = createSolver();
+        ArmPositionLookupTable table = solver.getLookupTable();
+
+        Random random = new Random(488);
+        int solved = 0;
+        int fromTable = 0;
+        for (int i = 0; i < 200000; i++) {
+            double x = -85 + 170 * random.nextDouble();
+            double z = -30 + 115 * random.nextDouble();
+            boolean forward = random.nextBoolean();
+
+            if (!solver.solveArmJointPositionsAnalytically(x, z, forward, analyticSolution)) {
+                assertFalse(table.solve(x, z, forward, tableSolution));
+                continue;
+            }
+            solved++;
+            if (table.solve(x, z, forward, tableSolution)) {
+                fromTable++;
+                assertEquals(analyticSolution[0], tableSolution[0], table.getMaxErrorDegrees());
+                assertEquals(analyticSolution[1], tableSolution[1], table.getMaxErrorDegrees());
+            }
+        }
+
+        // Most of the workspace should come from the table, or there's no point having it.
+        assertTrue(fromTable > solved / 2);
+        assertTrue(table.getCoverage(true) > 0.4);
+        assertTrue(table.getCoverage(false) > 0.4);
+    }
+
+    @Test
+    public void testFallsBackToAnalyticSolver() {
+        ArmPositionSolver solver = createSolver();
+        solver.setUseLookupTable(true);
+        ArmPositionLookupTable table = solver.getLookupTable();
+
+        // With the arm almost completely folded up, the solution changes far too quickly to interpolate.
+        assertFalse(table.solve(0, 8.6, true, tableSolution));
+        assertTrue(solver.solveArmJointPositions(0, 8.6, true, tableSolution));
+        solver.solveArmJointPositionsAnalytically(0, 8.6, true, analyticSolution);
+        assertArrayEquals(analyticSolution, tableSolution, 0.0);
+
+        // Out of reach entirely.
+        assertFalse(table.solve(90, 0, true, tableSolution));
+        assertFalse(solver.solveArmJointPositions(90, 0, true, tableSolution));
+        assertFalse(table.solve(Double.NaN, 0, true, tableSolution));
+    }
+
+    @Test
+    public void testSolverUsesTableWhenEnabled() {
+        ArmPositionSolver solver = createSolver();
+        ArmPositionLookupTable table = solver.getLookupTable();
+        assertTrue(table.solve(30, 20, false, tableSolution));
+
+        double[] solution = new double[2];
+        solver.solveArmJointPositions(30, 20, false, solution);
+        solver.solveArmJointPositionsAnalytically(30, 20, false, analyticSolution);
+        assertArrayEquals(analyticSolution, solution, 0.0);
+
+        solver.setUseLookupTable(true);
+        solver.solveArmJointPositions(30, 20, false, solution);
+        assertArrayEquals(tableSolution, solution, 0.0);
+        assertEquals(analyticSolution[0], solution[0], table.getMaxErrorDegrees());
+        assertEquals(analyticSolution[1], solution[1], table.getMaxErrorDegrees());
+    }
+
+    @Test
+    public void testSolvesAnalyticallyUntilTableIsBuilt() {
+        ArmPositionSolver solver = createSolver();
+        solver.setUseLookupTable(true);
+        assertFalse(solver.isLookupTableReady());
+
+        double[] solution = new double[2];
+        assertTrue(solver.solveArmJointPositions(30, 20, false, solution));
+        solver.solveArmJointPositionsAnalytically(30, 20, false, analyticSolution);
+        assertArrayEquals(analyticSolution, solution, 0.0);
+
+        solver.startBuildingLookupTable();
+        // Waits for the background build rather than starting another one.
+        ArmPositionLookupTable table = solver.getLookupTable();
+        assertTrue(solver.isLookupTableReady());
+        assertTrue(table.solve(30, 20, false, tableSolution));
+        solver.solveArmJointPositions(30, 20, false, solution);
+        assertArrayEquals(tableSolution, solution, 0.0);
+    }
+}
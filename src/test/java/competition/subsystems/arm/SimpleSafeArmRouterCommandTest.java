@@ -10,6 +10,9 @@ import xbot.common.math.XYPair;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SimpleSafeArmRouterCommandTest extends BaseCompetitionTest {
@@ -174,6 +177,40 @@ public class SimpleSafeArmRouterCommandTest extends BaseCompetitionTest {
         assertTrue(routerCommand.isFinished());
     }
 
+    @Test
+    public void testPlannedRouteSkipsTransitionPoint() {
+        setArmAngles(85, 15);
+        maintainer.initialize();
+        maintainer.execute();
+
+        arms.setGamePieceMode(UnifiedArmSubsystem.GamePieceMode.Cube);
+        getInjectorComponent().armConfigurationSpacePlanner().setEnabled(true);
+        routerCommand.setTarget(UnifiedArmSubsystem.KeyArmPosition.HighGoal, UnifiedArmSubsystem.RobotFacing.Forward);
+        routerCommand.initialize();
+
+        // Nothing is in the way, so go straight there, with the maintainer following the planned trajectory.
+        XYPair highGoal = arms.getKeyArmAngles(UnifiedArmSubsystem.KeyArmPosition.HighGoal, UnifiedArmSubsystem.RobotFacing.Forward);
+        assertNotNull(routerCommand.getPlannedTrajectory());
+        assertSame(routerCommand.getPlannedTrajectory(), arms.getActiveTrajectory());
+        assertEquals(highGoal.x, arms.getTargetValue().x, 0.001);
+        assertEquals(highGoal.y, arms.getTargetValue().y, 0.001);
+        assertEquals(0, routerCommand.getArmPosesToVisit().size());
+        routerCommand.execute();
+        assertFalse(routerCommand.isFinished());
+
+        setArmAngles(highGoal.x, highGoal.y);
+        maintainer.execute();
+        timer.advanceTimeInSecondsBy(10);
+        maintainer.execute();
+        assertTrue(arms.isMaintainerAtGoal());
+
+        routerCommand.execute();
+        assertTrue(routerCommand.isFinished());
+
+        routerCommand.end(false);
+        assertNull(arms.getActiveTrajectory());
+    }
+
     @Test
     public void testSafeExternalTransitionAsGoal() {
         setArmAngles(85, 15);
@@ -12,6 +12,7 @@ import xbot.common.controls.sensors.mock_adapters.MockDutyCycleEncoder;
 import xbot.common.math.XYPair;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SimpleXZRouterCommandTest extends BaseCompetitionTest {
 
@@ -42,6 +43,32 @@ public class SimpleXZRouterCommandTest extends BaseCompetitionTest {
         assertEquals(2, points.size(), 0.001);
     }
 
+    @Test
+    public void testJointSpeedsStayWithinLimits() {
+        // Folded up with the end effector close to the pivot, where going straight up swings the lower arm around
+        // much faster than the start and end points would suggest.
+        setArmAngles(93, 5);
+        routerCommand.setKeyPoint(new XbotArmPoint(new Translation2d(40,40), 0.5));
+        routerCommand.initialize();
+
+        double fastestLowerArmTarget = 0;
+        double fastestUpperArmTarget = 0;
+        for (int i = 0; i < 400; i++) {
+            timer.advanceTimeInSecondsBy(0.02);
+            routerCommand.execute();
+            fastestLowerArmTarget = Math.max(fastestLowerArmTarget, Math.abs(arms.getTargetLowerArmVelocity()));
+            fastestUpperArmTarget = Math.max(fastestUpperArmTarget, Math.abs(arms.getTargetUpperArmVelocity()));
+            // Assume the arm keeps up perfectly.
+            setArmAngles(arms.getTargetValue().x, arms.getTargetValue().y);
+        }
+
+        // Allow a little slack, since the speeds are only checked at a limited number of points along each segment.
+        assertTrue(fastestLowerArmTarget > 0);
+        assertTrue(fastestLowerArmTarget < arms.lowerArm.getMaxVelocityInDegreesPerSecond() * 1.1);
+        assertTrue(fastestUpperArmTarget > 0);
+        assertTrue(fastestUpperArmTarget < arms.upperArm.getMaxVelocityInDegreesPerSecond() * 1.1);
+    }
+
     @Test
     @Ignore // This needs to be changed a lot with the new arm assumptions.
     public void testDirectPathGeneration() {
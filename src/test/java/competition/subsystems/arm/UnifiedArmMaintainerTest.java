@@ -3,13 +3,19 @@ package competition.subsystems.arm;
 import com.sun.source.tree.AssertTree;
 import competition.BaseCompetitionTest;
 import competition.subsystems.arm.commands.UnifiedArmMaintainer;
+import competition.trajectory.SynchronizedJointTrajectory;
 import org.junit.Ignore;
 import org.junit.Test;
+import xbot.common.controls.actuators.mock_adapters.MockCANSparkMax;
+import xbot.common.controls.sensors.XTimer;
 import xbot.common.controls.sensors.mock_adapters.MockDutyCycleEncoder;
 import xbot.common.math.XYPair;
 
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class UnifiedArmMaintainerTest extends BaseCompetitionTest {
@@ -71,6 +77,127 @@ public class UnifiedArmMaintainerTest extends BaseCompetitionTest {
         assertFalse(arms.areBrakesEngaged());
     }
 
+    @Test
+    public void testBrakeEngagesAheadOfTrajectoryArrival() {
+        setArmAngles(60, 20);
+        var trajectory = arms.createTrajectory(List.of(new XYPair(60, 20), new XYPair(90, 20)));
+        arms.setTargetValue(new XYPair(90, 20));
+        arms.setActiveTrajectory(trajectory, XTimer.getFPGATimestamp());
+        maintainer.execute();
+
+        // The lower arm has a long way to go.
+        assertFalse(arms.areBrakesEngaged());
+
+        // Halfway there, still moving quickly.
+        followTrajectory(trajectory, trajectory.getTotalTime() / 2);
+        assertFalse(arms.areBrakesEngaged());
+
+        // Just before arriving, the brake should already be on its way, with no waiting around once we get there.
+        followTrajectory(trajectory, trajectory.getTotalTime() - 0.05);
+        assertTrue(arms.areBrakesEngaged());
+        assertTrue(arms.getCurrentValue().x < 90);
+
+        // The brake hasn't clamped down yet, so the lower arm is still being driven the rest of the way.
+        assertFalse(arms.isLowerArmBrakeClamped());
+        var sample = new SynchronizedJointTrajectory.Sample();
+        trajectory.sample(trajectory.getTotalTime() - 0.05, sample);
+        setArmAngles(sample.lowerDegrees - 1, sample.upperDegrees);
+        maintainer.execute();
+        assertEquals(
+                1,
+                ((MockCANSparkMax)arms.lowerArm.rightMotor).getReference() * arms.lowerArm.getDegreesPerMotorRotation(),
+                0.01);
+
+        // Once it has clamped down, there's no point fighting it.
+        setArmAngles(sample.lowerDegrees, sample.upperDegrees);
+        timer.advanceTimeInSecondsBy(arms.getLowerArmBrakeActuationSeconds());
+        maintainer.execute();
+        assertTrue(arms.isLowerArmBrakeClamped());
+        assertEquals(0, arms.lowerArm.rightMotor.get(), 0.001);
+
+        // If the arm gets knocked well away from the target, let it go again.
+        setArmAngles(80, 20);
+        maintainer.execute();
+        assertFalse(arms.areBrakesEngaged());
+
+        arms.clearActiveTrajectory();
+    }
+
+    @Test
+    public void testBrakeEngagesAheadOfArrivalWithoutTrajectory() {
+        setArmAngles(60, 20);
+        arms.setTargetValue(new XYPair(90, 20));
+        maintainer.execute();
+        assertFalse(arms.areBrakesEngaged());
+
+        // Swing up at 60 degrees per second. That's too fast to be sure where the arm will stop, so even when it's
+        // getting close, leave the brake off.
+        double lowerArmAngle = 60;
+        while (lowerArmAngle < 84) {
+            lowerArmAngle = moveLowerArmFor20Milliseconds(lowerArmAngle, 60);
+            assertFalse(arms.areBrakesEngaged());
+        }
+
+        // Once the lower arm is slowing down for the target and is sure to get there while the brake is clamping down,
+        // switch it on without waiting for the arm to settle.
+        lowerArmAngle = approachLowerArmTargetFor20Milliseconds(lowerArmAngle, 90);
+        assertTrue(arms.areBrakesEngaged());
+        assertFalse(arms.isLowerArmBrakeClamped());
+        assertTrue(arms.getCurrentValue().x < 90 - maintainer.getLowerArmErrorThresholdToDisengageBrake());
+
+        // The arm keeps going while the brake clamps down, and it stays clamped once the arm gets there.
+        for (int i = 0; i < 8; i++) {
+            lowerArmAngle = approachLowerArmTargetFor20Milliseconds(lowerArmAngle, 90);
+            assertTrue(arms.areBrakesEngaged());
+        }
+        assertTrue(arms.isLowerArmBrakeClamped());
+        assertEquals(90, lowerArmAngle, maintainer.getLowerArmErrorThresholdToEngageBrake());
+    }
+
+    @Test
+    public void testEarlyBrakeReleasesIfLowerArmStopsShort() {
+        setArmAngles(84, 20);
+        arms.setTargetValue(new XYPair(90, 20));
+        maintainer.execute();
+        double lowerArmAngle = moveLowerArmFor20Milliseconds(84, 60);
+        assertFalse(arms.areBrakesEngaged());
+
+        // Slowing down for the target, so the brake gets switched on early.
+        lowerArmAngle = approachLowerArmTargetFor20Milliseconds(lowerArmAngle, 90);
+        assertTrue(arms.areBrakesEngaged());
+
+        // The arm stops short, a little further out than the engage threshold, while the brake is clamping down.
+        lowerArmAngle = approachLowerArmTargetFor20Milliseconds(lowerArmAngle, 90);
+        double stoppedLowerArmAngle = lowerArmAngle;
+        assertTrue(90 - stoppedLowerArmAngle > maintainer.getLowerArmErrorThresholdToEngageBrake());
+        for (int i = 0; i < 6; i++) {
+            lowerArmAngle = moveLowerArmFor20Milliseconds(lowerArmAngle, 0);
+            assertTrue(arms.areBrakesEngaged());
+        }
+
+        // Once the brake has clamped down, rather than leaving the arm stuck short of the target, let it go so it can
+        // finish the move.
+        lowerArmAngle = moveLowerArmFor20Milliseconds(lowerArmAngle, 0);
+        assertFalse(arms.areBrakesEngaged());
+        for (int i = 0; i < 50; i++) {
+            lowerArmAngle = moveLowerArmFor20Milliseconds(lowerArmAngle, 0);
+            assertFalse(arms.areBrakesEngaged());
+        }
+        assertEquals(stoppedLowerArmAngle, lowerArmAngle, 0.001);
+    }
+
+    @Test
+    public void testSettingTargetClearsTrajectory() {
+        setArmAngles(60, 20);
+        var trajectory = arms.createTrajectory(List.of(new XYPair(60, 20), new XYPair(90, 20)));
+        arms.setTargetValue(new XYPair(90, 20));
+        arms.setActiveTrajectory(trajectory, XTimer.getFPGATimestamp());
+
+        // e.g. the operator trimming the arm.
+        arms.setTargetValue(new XYPair(62, 20));
+        assertNull(arms.getActiveTrajectory());
+    }
+
     @Test
     public void testCubeModeExpandedErrorThreshold() {
         setArmAngles(45, 90);
@@ -107,6 +234,31 @@ public class UnifiedArmMaintainerTest extends BaseCompetitionTest {
 
 
 
+    private double moveLowerArmFor20Milliseconds(double lowerArmAngle, double degreesPerSecond) {
+        timer.advanceTimeInSecondsBy(0.02);
+        lowerArmAngle += degreesPerSecond * 0.02;
+        setArmAngles(lowerArmAngle, 20);
+        maintainer.execute();
+        return lowerArmAngle;
+    }
+
+    /**
+     * Moves the lower arm the way a PID would as it gets close: full speed while far away, slowing down to stop at
+     * the target.
+     */
+    private double approachLowerArmTargetFor20Milliseconds(double lowerArmAngle, double targetAngle) {
+        double degreesPerSecond = Math.min(60, Math.sqrt(2 * 150 * Math.max(targetAngle - lowerArmAngle, 0)));
+        return moveLowerArmFor20Milliseconds(lowerArmAngle, degreesPerSecond);
+    }
+
+    private void followTrajectory(SynchronizedJointTrajectory trajectory, double time) {
+        timer.advanceTimeInSecondsBy(time - (XTimer.getFPGATimestamp() - arms.getActiveTrajectoryStartTime()));
+        var sample = new SynchronizedJointTrajectory.Sample();
+        trajectory.sample(time, sample);
+        setArmAngles(sample.lowerDegrees, sample.upperDegrees);
+        maintainer.execute();
+    }
+
     private void setArmAngles(double lowerArmAngle, double upperArmAngle) {
         ((MockDutyCycleEncoder)arms.lowerArm.absoluteEncoder).setRawPosition(lowerArmAngle/360.0);
         ((MockDutyCycleEncoder)arms.upperArm.absoluteEncoder).setRawPosition(upperArmAngle/360.0);
@@ -3,6 +3,9 @@ package competition.subsystems.drive;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
 
 import org.junit.Test;
 
@@ -53,4 +56,34 @@ public class DriveSubsystemTest extends BaseCompetitionTest {
             anotheDriveSubsystem.getFrontLeftSwerveModuleSubsystem().getDriveSubsystem());
     }
 
+    @Test
+    public void testMoveDoesNotAllocate() {
+        DriveSubsystem driveSubsystem = (DriveSubsystem)getInjectorComponent().driveSubsystem();
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up so we're measuring the compiled code, and so any lazy initialization is out of the way.
+        for (int i = 0; i < 20000; i++) {
+            driveSubsystem.move(0.5, 0.25, 0.1 * (i % 3 - 1), 10, 0);
+        }
+
+        // Reading the counter can itself allocate a little, so measure that overhead first.
+        long overheadStart = threadBean.getThreadAllocatedBytes(threadId);
+        long overheadEnd = threadBean.getThreadAllocatedBytes(threadId);
+        long measurementOverhead = overheadEnd - overheadStart;
+
+        int calls = 1000;
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            driveSubsystem.move(0.5, 0.25, 0.1 * (i % 3 - 1), 10, 0);
+        }
+        long end = threadBean.getThreadAllocatedBytes(threadId);
+
+        // Any per-call allocation would be at least one object header (16 bytes) per call; dividing by the
+        // call count just tolerates one-off noise like a TLAB refill.
+        assertEquals("move() should not allocate", 0, (end - start - measurementOverhead) / calls);
+    }
 }
@@ -0,0 +1,106 @@
+package competition.subsystems.drive;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+public class SwerveInverseKinematicsTest extends BaseCompetitionTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testMatchesWpilibForRandomInputs() {
+        Random random = new Random(488);
+
+        for (int layout = 0; layout < 20; layout++) {
+            double[] moduleX = new double[4];
+            double[] moduleY = new double[4];
+            Translation2d[] moduleTranslations = new Translation2d[4];
+            for (int i = 0; i < 4; i++) {
+                moduleX[i] = randomBetween(random, -0.5, 0.5);
+                moduleY[i] = randomBetween(random, -0.5, 0.5);
+                moduleTranslations[i] = new Translation2d(moduleX[i], moduleY[i]);
+            }
+
+            SwerveDriveKinematics wpilibKinematics = new SwerveDriveKinematics(moduleTranslations);
+            SwerveInverseKinematics kinematics = new SwerveInverseKinematics(moduleX, moduleY);
+            kinematics.pinCenterOfRotation(0.889, 0);
+
+            double[] speeds = new double[4];
+            double[] angles = new double[4];
+
+            for (int sample = 0; sample < 500; sample++) {
+                double vx = randomBetween(random, -4, 4);
+                double vy = randomBetween(random, -4, 4);
+                double omega = randomBetween(random, -6.3, 6.3);
+
+                // Favor the centers of rotation the robot actually uses, so the cache gets exercised.
+                double centerX;
+                double centerY = 0;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        centerX = 0;
+                        break;
+                    case 1:
+                        centerX = 0.889;
+                        break;
+                    default:
+                        centerX = randomBetween(random, -1, 1);
+                        centerY = randomBetween(random, -1, 1);
+                        break;
+                }
+
+                // Occasionally ask for no motion at all, which should keep the last wheel angles.
+                if (random.nextInt(20) == 0) {
+                    vx = 0;
+                    vy = 0;
+                    omega = 0;
+                }
+
+                SwerveModuleState[] expected = wpilibKinematics.toSwerveModuleStates(
+                    new ChassisSpeeds(vx, vy, omega), new Translation2d(centerX, centerY));
+                kinematics.calculateModuleStates(vx, vy, omega, centerX, centerY, speeds, angles);
+
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(expected[i].speedMetersPerSecond, speeds[i], TOLERANCE);
+                    assertEquals(expected[i].angle.getRadians(), angles[i], TOLERANCE);
+                }
+
+                double topSpeed = randomBetween(random, 1, 5);
+                SwerveDriveKinematics.desaturateWheelSpeeds(expected, topSpeed);
+                SwerveInverseKinematics.desaturateModuleSpeeds(speeds, topSpeed);
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(expected[i].speedMetersPerSecond, speeds[i], TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRotationAroundModuleLeavesItStill() {
+        SwerveInverseKinematics kinematics = new SwerveInverseKinematics(
+            new double[] { 0.3, 0.3, -0.3, -0.3 },
+            new double[] { 0.3, -0.3, 0.3, -0.3 });
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+
+        kinematics.calculateModuleStates(0, 0, 1, 0.3, 0.3, speeds, angles);
+
+        assertEquals(0, speeds[0], TOLERANCE);
+        assertEquals(0, angles[0], TOLERANCE);
+        assertEquals(0.6, speeds[1], TOLERANCE);
+        assertEquals(0, angles[1], TOLERANCE);
+    }
+
+    private static double randomBetween(Random random, double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+}
@@ -0,0 +1,82 @@
+package competition.subsystems.drive;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+
+public class SwerveSetpointGeneratorTest extends BaseCompetitionTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private final double[] speeds = new double[1];
+    private final double[] angles = new double[1];
+    private final double[] currentSpeeds = new double[1];
+    private final double[] currentAngles = new double[1];
+
+    private void calculate(SwerveSetpointGenerator generator, double speed, double angle, double timestamp) {
+        speeds[0] = speed;
+        angles[0] = angle;
+        // 4 m/s^2 and 180 degrees per second.
+        generator.calculateSetpoints(speeds, angles, currentSpeeds, currentAngles, 4, Math.PI, timestamp);
+    }
+
+    @Test
+    public void testAccelerationIsLimited() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(1);
+
+        // The first call has no previous loop to go on, so assumes a normal loop time.
+        calculate(generator, 3, 0, 10);
+        assertEquals(0.08, speeds[0], TOLERANCE);
+
+        calculate(generator, 3, 0, 10.02);
+        assertEquals(0.16, speeds[0], TOLERANCE);
+        assertEquals(4, generator.getAccelerationMetersPerSecondSquared(0), TOLERANCE);
+
+        // Slowing down is limited too.
+        calculate(generator, 0, 0, 10.04);
+        assertEquals(0.08, speeds[0], TOLERANCE);
+        assertEquals(-4, generator.getAccelerationMetersPerSecondSquared(0), TOLERANCE);
+    }
+
+    @Test
+    public void testStartsOverFromMeasuredStateAfterAGap() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(1);
+        calculate(generator, 3, 0, 10);
+
+        currentSpeeds[0] = 2;
+        calculate(generator, 3, 0, 20);
+        assertEquals(2.08, speeds[0], TOLERANCE);
+    }
+
+    @Test
+    public void testSteeringRateIsLimitedAndMisalignedWheelsDontDrive() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(1);
+        currentSpeeds[0] = 1;
+
+        // Asked to go sideways: the target angle only moves 3.6 degrees this loop, and the wheel hasn't turned yet,
+        // so it keeps most of its speed.
+        calculate(generator, 1, Math.PI / 2, 10);
+        assertEquals(Math.toRadians(3.6), angles[0], TOLERANCE);
+        assertEquals(Math.cos(Math.toRadians(3.6)), speeds[0], TOLERANCE);
+
+        // If the wheel still hasn't turned by the time the target has got there, it stops pushing.
+        for (int i = 1; i < 50; i++) {
+            calculate(generator, 1, Math.PI / 2, 10 + i * 0.02);
+        }
+        assertEquals(0, speeds[0], TOLERANCE);
+    }
+
+    @Test
+    public void testWheelDrivesBackwardsRatherThanTurningAround() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(1);
+        currentSpeeds[0] = 1;
+
+        calculate(generator, 1, Math.PI, 10);
+        assertEquals(0, angles[0], TOLERANCE);
+        assertEquals(0.92, speeds[0], TOLERANCE);
+        // Still only slowing down at the limit, even though the target is now the other way.
+        assertEquals(-4, generator.getAccelerationMetersPerSecondSquared(0), TOLERANCE);
+    }
+}
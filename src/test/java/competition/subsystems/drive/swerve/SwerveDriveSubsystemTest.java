@@ -8,17 +8,56 @@ import competition.BaseCompetitionTest;
 import competition.subsystems.drive.DriveSubsystem;
 
 public class SwerveDriveSubsystemTest extends BaseCompetitionTest {
-    
-    @Test
-    public void testGetSetTargetValue() {
-        SwerveDriveSubsystem swerveDriveSubsystem = ((DriveSubsystem)getInjectorComponent().driveSubsystem())
+
+    // Default kS and kV.
+    private static final double CRUISING_FEED_FORWARD_VOLTS = 0.15 + 0.0628 * 120;
+
+    private SwerveDriveSubsystem swerveDriveSubsystem;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        swerveDriveSubsystem = ((DriveSubsystem)getInjectorComponent().driveSubsystem())
             .getFrontLeftSwerveModuleSubsystem()
             .getDriveSubsystem();
-            
+    }
+
+    @Test
+    public void testGetSetTargetValue() {
         assertEquals(swerveDriveSubsystem.getTargetValue(), 0.0, 0.001);
 
         swerveDriveSubsystem.setTargetValue(1.0);
 
         assertEquals(swerveDriveSubsystem.getTargetValue(), 1.0, 0.001);
     }
+
+    @Test
+    public void testStepInputOnlyUsesVelocityFeedForward() {
+        swerveDriveSubsystem.setTargetVelocityInInchesPerSecond(0);
+        swerveDriveSubsystem.setMotorControllerVelocityPidTarget();
+        assertEquals(0, swerveDriveSubsystem.getFeedForwardVolts(), 0.001);
+
+        // A jump in the target from one loop to the next isn't a planned acceleration, so it shouldn't add anything.
+        timer.advanceTimeInSecondsBy(0.02);
+        swerveDriveSubsystem.setTargetVelocityInInchesPerSecond(120);
+        swerveDriveSubsystem.setMotorControllerVelocityPidTarget();
+        assertEquals(CRUISING_FEED_FORWARD_VOLTS, swerveDriveSubsystem.getFeedForwardVolts(), 0.001);
+
+        // Likewise when the module flips around and drives the other way.
+        timer.advanceTimeInSecondsBy(0.02);
+        swerveDriveSubsystem.setTargetVelocityInInchesPerSecond(-120);
+        swerveDriveSubsystem.setMotorControllerVelocityPidTarget();
+        assertEquals(-CRUISING_FEED_FORWARD_VOLTS, swerveDriveSubsystem.getFeedForwardVolts(), 0.001);
+    }
+
+    @Test
+    public void testFeedForwardIsLimitedToBatteryVoltage() {
+        swerveDriveSubsystem.setTargetVelocityInInchesPerSecond(120, 6000);
+        swerveDriveSubsystem.setMotorControllerVelocityPidTarget();
+        assertEquals(12, swerveDriveSubsystem.getFeedForwardVolts(), 0.001);
+
+        swerveDriveSubsystem.setTargetVelocityInInchesPerSecond(-120, -6000);
+        swerveDriveSubsystem.setMotorControllerVelocityPidTarget();
+        assertEquals(-12, swerveDriveSubsystem.getFeedForwardVolts(), 0.001);
+    }
 }
@@ -7,6 +7,7 @@ import org.junit.Test;
 import competition.BaseCompetitionTest;
 import competition.subsystems.drive.DriveSubsystem;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import xbot.common.subsystems.pose.BasePoseSubsystem;
 
 public class SwerveModuleSubsystemTest extends BaseCompetitionTest {
     
@@ -21,4 +22,38 @@ public class SwerveModuleSubsystemTest extends BaseCompetitionTest {
         assertEquals(0, state.speedMetersPerSecond, 0.001);
     }
 
+    @Test
+    public void testFlippedModuleReversesAcceleration() {
+        SwerveModuleSubsystem swerveModuleSubsystem = ((DriveSubsystem)getInjectorComponent().driveSubsystem())
+            .getFrontLeftSwerveModuleSubsystem();
+
+        // The wheel is pointing forwards, so it's quicker to drive backwards than to turn all the way around.
+        swerveModuleSubsystem.setTargetState(1, Math.PI, 2);
+
+        SwerveModuleState state = swerveModuleSubsystem.getTargetState();
+        assertEquals(0, state.angle.getDegrees(), 0.001);
+        assertEquals(-1, state.speedMetersPerSecond, 0.001);
+        assertEquals(
+            -2 * BasePoseSubsystem.INCHES_IN_A_METER,
+            swerveModuleSubsystem.getDriveSubsystem().getTargetAccelerationInInchesPerSecondSquared(),
+            0.001);
+    }
+
+    @Test
+    public void testPlannedTargetIsNotFlipped() {
+        SwerveModuleSubsystem swerveModuleSubsystem = ((DriveSubsystem)getInjectorComponent().driveSubsystem())
+            .getFrontLeftSwerveModuleSubsystem();
+
+        // The setpoint generator has already picked this direction, so the module must follow it as-is.
+        swerveModuleSubsystem.setPlannedTargetState(1, Math.PI, 2);
+
+        SwerveModuleState state = swerveModuleSubsystem.getTargetState();
+        assertEquals(180, Math.abs(state.angle.getDegrees()), 0.001);
+        assertEquals(1, state.speedMetersPerSecond, 0.001);
+        assertEquals(
+            2 * BasePoseSubsystem.INCHES_IN_A_METER,
+            swerveModuleSubsystem.getDriveSubsystem().getTargetAccelerationInInchesPerSecondSquared(),
+            0.001);
+    }
+
 }
@@ -2,6 +2,7 @@ package competition.subsystems.drive.swerve.commands;
 
 import competition.subsystems.drive.commands.SwerveSimpleTrajectoryCommand;
 import competition.subsystems.drive.commands.XbotSwervePoint;
+import competition.subsystems.pose.PoseSubsystem;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -33,4 +34,29 @@ public class SwerveSimpleTrajectoryCommandTest extends BaseFullSwerveTest {
 
         assertEquals(50, results.get(1).getSecondsForSegment(), 0.001);
     }
+
+    @Test
+    public void testVelocityFeedForward() {
+        // With no PID at all, only the feed forward can move the robot.
+        drive.getPositionalPid().setP(0);
+        drive.getPositionalPid().setI(0);
+        drive.getPositionalPid().setD(0);
+        pose.setCurrentPosition(0, 0);
+        pose.setCurrentHeading(90);
+
+        ArrayList<XbotSwervePoint> points = new ArrayList<>();
+        points.add(new XbotSwervePoint(0, 60, 90, 1));
+        command.setKeyPoints(points);
+
+        command.initialize();
+        command.execute();
+        assertEquals(0, drive.getFrontLeftSwerveModuleSubsystem().getTargetState().speedMetersPerSecond, 0.001);
+
+        command.setEnableVelocityFeedForward(true);
+        command.initialize();
+        command.execute();
+        // Chase point moves at 60 inches per second
+        assertEquals(60, Math.abs(drive.getFrontLeftSwerveModuleSubsystem().getTargetState().speedMetersPerSecond
+                * PoseSubsystem.INCHES_IN_A_METER), 0.001);
+    }
 }
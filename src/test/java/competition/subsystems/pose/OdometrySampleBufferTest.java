@@ -0,0 +1,54 @@
+package competition.subsystems.pose;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+
+public class OdometrySampleBufferTest extends BaseCompetitionTest {
+
+    @Test
+    public void testDrainReturnsSamplesOldestFirst() {
+        OdometrySampleBuffer buffer = new OdometrySampleBuffer(4, 2);
+        buffer.add(1.0, new double[] { 1, 2 }, new double[] { 0.5, 0.6 });
+        buffer.add(1.01, new double[] { 3, 4 }, new double[] { 0.7, 0.8 });
+
+        double[] timestamps = new double[4];
+        double[][] distances = new double[4][2];
+        double[][] angles = new double[4][2];
+        int count = buffer.drainTo(timestamps, distances, angles);
+
+        assertEquals(2, count);
+        assertEquals(1.0, timestamps[0], 0.0001);
+        assertEquals(1.01, timestamps[1], 0.0001);
+        assertEquals(4, distances[1][1], 0.0001);
+        assertEquals(0.7, angles[1][0], 0.0001);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testOverflowDropsOldestSamples() {
+        OdometrySampleBuffer buffer = new OdometrySampleBuffer(3, 1);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i, new double[] { i }, new double[] { 0 });
+        }
+
+        double[] timestamps = new double[3];
+        double[][] distances = new double[3][1];
+        double[][] angles = new double[3][1];
+        int count = buffer.drainTo(timestamps, distances, angles);
+
+        assertEquals(3, count);
+        assertEquals(2, timestamps[0], 0.0001);
+        assertEquals(4, timestamps[2], 0.0001);
+        assertEquals(4, distances[2][0], 0.0001);
+        assertEquals(2, buffer.getDroppedCount());
+
+        // The buffer should work normally after wrapping around.
+        buffer.add(5, new double[] { 5 }, new double[] { 0 });
+        count = buffer.drainTo(timestamps, distances, angles);
+        assertEquals(1, count);
+        assertEquals(5, timestamps[0], 0.0001);
+    }
+}
@@ -0,0 +1,69 @@
+package competition.subsystems.pose;
+
+import competition.BaseCompetitionTest;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import org.junit.Test;
+import org.photonvision.EstimatedRobotPose;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class VisionMeasurementQueueTest extends BaseCompetitionTest {
+
+    @Test
+    public void testMeasurementsAppliedInTimestampOrder() {
+        VisionMeasurementQueue queue = new VisionMeasurementQueue();
+        queue.add(createMeasurement(3, 10.2));
+        queue.add(createMeasurement(1, 10.0));
+        queue.add(createMeasurement(2, 10.1));
+
+        List<Double> appliedTimestamps = new ArrayList<>();
+        List<Pose2d> appliedPoses = new ArrayList<>();
+        int applied = queue.flush(10.3, 1.5, (pose, timestamp) -> {
+            appliedPoses.add(pose);
+            appliedTimestamps.add(timestamp);
+        });
+
+        assertEquals(3, applied);
+        assertEquals(10.0, appliedTimestamps.get(0), 0.001);
+        assertEquals(10.1, appliedTimestamps.get(1), 0.001);
+        assertEquals(10.2, appliedTimestamps.get(2), 0.001);
+        assertEquals(1, appliedPoses.get(0).getX(), 0.001);
+        assertEquals(3, appliedPoses.get(2).getX(), 0.001);
+
+        assertEquals(2, queue.getReorderedCount());
+        assertEquals(0, queue.getDroppedAsStaleCount());
+        assertEquals(3, queue.getAppliedCount());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testStaleMeasurementsDropped() {
+        VisionMeasurementQueue queue = new VisionMeasurementQueue();
+        queue.add(createMeasurement(1, 5.0));
+        queue.add(createMeasurement(2, 9.9));
+
+        List<Double> appliedTimestamps = new ArrayList<>();
+        queue.flush(10, 1.5, (pose, timestamp) -> appliedTimestamps.add(timestamp));
+
+        assertEquals(1, appliedTimestamps.size());
+        assertEquals(9.9, appliedTimestamps.get(0), 0.001);
+        assertEquals(1, queue.getDroppedAsStaleCount());
+
+        // The same camera frame showing up again on the next loop shouldn't be applied twice.
+        queue.add(createMeasurement(2, 9.9));
+        int applied = queue.flush(10.02, 1.5, (pose, timestamp) -> appliedTimestamps.add(timestamp));
+
+        assertEquals(0, applied);
+        assertEquals(2, queue.getDroppedAsStaleCount());
+        assertEquals(1, queue.getAppliedCount());
+    }
+
+    private EstimatedRobotPose createMeasurement(double x, double timestamp) {
+        return new EstimatedRobotPose(new Pose3d(x, 0, 0, new Rotation3d()), timestamp, new ArrayList<>());
+    }
+}
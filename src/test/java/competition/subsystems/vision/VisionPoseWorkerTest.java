@@ -0,0 +1,160 @@
+package competition.subsystems.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import competition.BaseCompetitionTest;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+
+public class VisionPoseWorkerTest extends BaseCompetitionTest {
+
+    private FakeCamera camera;
+    private FakeEstimator estimator;
+    private VisionPoseWorker worker;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        camera = new FakeCamera();
+        estimator = new FakeEstimator(camera);
+        worker = new VisionPoseWorker("Test", camera, estimator);
+    }
+
+    @Test
+    public void testRepeatedResultsAreOnlySolvedOnce() {
+        camera.publish(1);
+        assertTrue(worker.processLatestResult());
+        assertEquals(1, estimator.updates);
+        assertEquals(1, worker.getFreshFrameCount());
+
+        // The camera hasn't published anything new since.
+        assertFalse(worker.processLatestResult());
+        assertFalse(worker.processLatestResult());
+        assertEquals(1, estimator.updates);
+        assertEquals(1, worker.getFreshFrameCount());
+
+        camera.publish(1.05);
+        assertTrue(worker.processLatestResult());
+        assertEquals(2, estimator.updates);
+        assertEquals(2, worker.getFreshFrameCount());
+    }
+
+    @Test
+    public void testOnlyTheLatestEstimateIsKept() {
+        // The main loop falls behind, so the worker solves two frames before anything is taken.
+        camera.publish(1);
+        worker.processLatestResult();
+        camera.publish(1.05);
+        worker.processLatestResult();
+
+        Optional<EstimatedRobotPose> estimate = worker.pollEstimate();
+        assertTrue(estimate.isPresent());
+        assertEquals(1.05, estimate.get().timestampSeconds, 0.0);
+    }
+
+    @Test
+    public void testMainLoopOnlyDrainsNewEstimates() {
+        camera.publish(1);
+        worker.processLatestResult();
+        assertTrue(worker.pollEstimate().isPresent());
+
+        // Each estimate is only handed over once, and a repeated result doesn't produce another.
+        assertFalse(worker.pollEstimate().isPresent());
+        worker.processLatestResult();
+        assertFalse(worker.pollEstimate().isPresent());
+
+        // A new frame the estimator couldn't solve counts as fresh, but there's nothing to hand over.
+        estimator.canSolve = false;
+        camera.publish(1.05);
+        assertTrue(worker.processLatestResult());
+        assertFalse(worker.pollEstimate().isPresent());
+    }
+
+    @Test
+    public void testSolvesFromTheLatestReferencePose() {
+        Pose2d pose = new Pose2d(3, 4, Rotation2d.fromDegrees(90));
+        worker.setReferencePose(pose);
+        camera.publish(1);
+        worker.processLatestResult();
+        assertSame(pose, estimator.referencePose);
+    }
+
+    @Test
+    public void testFreshFramesPerSecond() {
+        // The first call starts the measurement.
+        assertEquals(0, worker.getFreshFramesPerSecond(10), 0.0);
+
+        for (int i = 1; i <= 15; i++) {
+            camera.publish(10 + i * 0.05);
+            worker.processLatestResult();
+            // Polling faster than the camera publishes doesn't count extra frames.
+            worker.processLatestResult();
+        }
+        // Not a full second yet.
+        assertEquals(0, worker.getFreshFramesPerSecond(10.5), 0.0);
+        assertEquals(15, worker.getFreshFramesPerSecond(11), 0.001);
+    }
+
+    private static class FakeCamera extends PhotonCamera {
+        private PhotonPipelineResult result;
+
+        FakeCamera() {
+            super("VisionPoseWorkerTest");
+            publish(0);
+        }
+
+        void publish(double timestampSeconds) {
+            result = new PhotonPipelineResult(20, new ArrayList<>());
+            result.setTimestampSeconds(timestampSeconds);
+        }
+
+        @Override
+        public PhotonPipelineResult getLatestResult() {
+            return result;
+        }
+    }
+
+    private static class FakeEstimator extends PhotonPoseEstimator {
+        int updates = 0;
+        boolean canSolve = true;
+        Pose2d referencePose;
+
+        FakeEstimator(PhotonCamera camera) {
+            super(
+                new AprilTagFieldLayout(new ArrayList<>(), 16.54, 8.02),
+                PhotonPoseEstimator.PoseStrategy.LOWEST_AMBIGUITY,
+                camera,
+                new Transform3d());
+        }
+
+        @Override
+        public void setReferencePose(Pose2d referencePose) {
+            this.referencePose = referencePose;
+        }
+
+        @Override
+        public Optional<EstimatedRobotPose> update(PhotonPipelineResult cameraResult) {
+            updates++;
+            if (!canSolve) {
+                return Optional.empty();
+            }
+            return Optional.of(new EstimatedRobotPose(
+                new Pose3d(), cameraResult.getTimestampSeconds(), new ArrayList<>()));
+        }
+    }
+}
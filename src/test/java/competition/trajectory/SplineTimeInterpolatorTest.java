@@ -0,0 +1,85 @@
+package competition.trajectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import edu.wpi.first.math.geometry.Translation2d;
+
+public class SplineTimeInterpolatorTest extends BaseCompetitionTest {
+
+    private final Translation2d anywhere = new Translation2d(0, 0);
+
+    private SplineTimeInterpolator createInterpolator(XbotArmPoint... keyPoints) {
+        ArrayList<XbotArmPoint> points = new ArrayList<>();
+        for (XbotArmPoint point : keyPoints) {
+            points.add(point);
+        }
+        SplineTimeInterpolator interpolator = new SplineTimeInterpolator();
+        interpolator.setKeyPoints(points);
+        // Never freeze the chase point; these tests only look at where it goes.
+        interpolator.setMaximumDistanceFromChasePointInInches(100000);
+        interpolator.initialize(new XbotArmPoint(new Translation2d(0, 0), 1));
+        return interpolator;
+    }
+
+    @Test
+    public void testStraightLineMatchesLinearInterpolation() {
+        var interpolator = createInterpolator(
+            new XbotArmPoint(new Translation2d(50, 0), 1),
+            new XbotArmPoint(new Translation2d(100, 0), 1));
+
+        timer.advanceTimeInSecondsBy(0.5);
+        var result = interpolator.calculateTarget(anywhere);
+        assertEquals(25, result.chasePoint.getX(), 0.1);
+        assertEquals(0, result.chasePoint.getY(), 0.001);
+        assertEquals(50, result.chaseVelocity.getX(), 0.1);
+
+        timer.advanceTimeInSecondsBy(0.5);
+        result = interpolator.calculateTarget(anywhere);
+        assertEquals(50, result.chasePoint.getX(), 0.1);
+
+        timer.advanceTimeInSecondsBy(1.0);
+        result = interpolator.calculateTarget(anywhere);
+        assertEquals(100, result.chasePoint.getX(), 0.1);
+        assertTrue(result.isOnFinalPoint);
+    }
+
+    @Test
+    public void testCornersAreSmooth() {
+        var interpolator = createInterpolator(
+            new XbotArmPoint(new Translation2d(100, 0), 1),
+            new XbotArmPoint(new Translation2d(100, 100), 1));
+
+        // The curve is longer than the straight lines, but not by much.
+        assertTrue(interpolator.getPathLength() > 200);
+        assertTrue(interpolator.getPathLength() < 220);
+
+        timer.advanceTimeInSecondsBy(0.99);
+        var beforeCorner = interpolator.calculateTarget(anywhere);
+        timer.advanceTimeInSecondsBy(0.02);
+        var afterCorner = interpolator.calculateTarget(anywhere);
+
+        // Rather than turning 90 degrees on the spot, the path goes through the corner at 45 degrees.
+        assertEquals(45, Math.toDegrees(Math.atan2(beforeCorner.chaseVelocity.getY(), beforeCorner.chaseVelocity.getX())), 5);
+        assertEquals(45, Math.toDegrees(Math.atan2(afterCorner.chaseVelocity.getY(), afterCorner.chaseVelocity.getX())), 5);
+    }
+
+    @Test
+    public void testConstantSpeedAlongCurve() {
+        var interpolator = createInterpolator(
+            new XbotArmPoint(new Translation2d(100, 0), 2),
+            new XbotArmPoint(new Translation2d(100, 100), 2));
+        double expectedSpeed = interpolator.getPathLength() / 4;
+
+        for (int i = 0; i < 7; i++) {
+            timer.advanceTimeInSecondsBy(0.5);
+            var result = interpolator.calculateTarget(anywhere);
+            assertEquals(expectedSpeed, result.chaseVelocity.getNorm(), expectedSpeed * 0.05);
+        }
+    }
+}
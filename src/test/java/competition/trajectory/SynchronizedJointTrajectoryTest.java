@@ -0,0 +1,122 @@
+package competition.trajectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import competition.BaseCompetitionTest;
+import xbot.common.math.XYPair;
+
+public class SynchronizedJointTrajectoryTest extends BaseCompetitionTest {
+
+    private static final double LOWER_MAX_VELOCITY = 90;
+    private static final double LOWER_MAX_ACCELERATION = 180;
+    private static final double UPPER_MAX_VELOCITY = 180;
+    private static final double UPPER_MAX_ACCELERATION = 360;
+
+    private final SynchronizedJointTrajectory.Sample sample = new SynchronizedJointTrajectory.Sample();
+
+    private SynchronizedJointTrajectory createTrajectory(XYPair... points) {
+        return new SynchronizedJointTrajectory(
+            List.of(points),
+            LOWER_MAX_VELOCITY, LOWER_MAX_ACCELERATION,
+            UPPER_MAX_VELOCITY, UPPER_MAX_ACCELERATION);
+    }
+
+    @Test
+    public void testTrapezoidalMove() {
+        // The lower arm has further to go and is slower, so it sets the pace.
+        var trajectory = createTrajectory(new XYPair(40, 0), new XYPair(130, 45));
+
+        // 0.5s to get up to 90 deg/s (covering 22.5 deg), 0.5s cruising for the middle 45 deg, 0.5s to stop.
+        assertEquals(1.5, trajectory.getTotalTime(), 0.0001);
+        assertEquals(1.5, trajectory.getLowerJointFinishTime(), 0.0001);
+        assertEquals(1.5, SynchronizedJointTrajectory.getMinimumDuration(
+            90, 45, LOWER_MAX_VELOCITY, LOWER_MAX_ACCELERATION, UPPER_MAX_VELOCITY, UPPER_MAX_ACCELERATION), 0.0001);
+
+        trajectory.sample(0.75, sample);
+        assertEquals(85, sample.lowerDegrees, 0.0001);
+        assertEquals(22.5, sample.upperDegrees, 0.0001);
+        assertEquals(LOWER_MAX_VELOCITY, sample.lowerVelocityDegreesPerSecond, 0.0001);
+        assertEquals(45, sample.upperVelocityDegreesPerSecond, 0.0001);
+
+        trajectory.sample(0.25, sample);
+        assertEquals(LOWER_MAX_ACCELERATION, sample.lowerAccelerationDegreesPerSecondSquared, 0.0001);
+        assertEquals(90, sample.upperAccelerationDegreesPerSecondSquared, 0.0001);
+
+        assertStaysWithinLimits(trajectory);
+        assertEndsAt(trajectory, 130, 45);
+    }
+
+    @Test
+    public void testTriangularMove() {
+        // Too short to ever reach full speed; the upper arm sets the pace this time.
+        var trajectory = createTrajectory(new XYPair(90, 0), new XYPair(85, -40));
+
+        // Accelerate for 20 degrees, then slow down for 20 degrees.
+        double halfTime = Math.sqrt(2 * 20 / UPPER_MAX_ACCELERATION);
+        assertEquals(2 * halfTime, trajectory.getTotalTime(), 0.0001);
+
+        trajectory.sample(halfTime, sample);
+        assertEquals(87.5, sample.lowerDegrees, 0.0001);
+        assertEquals(-20, sample.upperDegrees, 0.0001);
+        assertEquals(-UPPER_MAX_ACCELERATION * halfTime, sample.upperVelocityDegreesPerSecond, 0.0001);
+        assertTrue(Math.abs(sample.upperVelocityDegreesPerSecond) < UPPER_MAX_VELOCITY);
+
+        assertStaysWithinLimits(trajectory);
+        assertEndsAt(trajectory, 85, -40);
+    }
+
+    @Test
+    public void testStopsAtEachPoint() {
+        var trajectory = createTrajectory(new XYPair(40, 0), new XYPair(90, 0), new XYPair(90, 90));
+        double firstSegmentTime = SynchronizedJointTrajectory.getMinimumDuration(
+            50, 0, LOWER_MAX_VELOCITY, LOWER_MAX_ACCELERATION, UPPER_MAX_VELOCITY, UPPER_MAX_ACCELERATION);
+        double secondSegmentTime = SynchronizedJointTrajectory.getMinimumDuration(
+            0, 90, LOWER_MAX_VELOCITY, LOWER_MAX_ACCELERATION, UPPER_MAX_VELOCITY, UPPER_MAX_ACCELERATION);
+        assertEquals(firstSegmentTime + secondSegmentTime, trajectory.getTotalTime(), 0.0001);
+        // Only the upper arm moves on the second segment.
+        assertEquals(firstSegmentTime, trajectory.getLowerJointFinishTime(), 0.0001);
+
+        trajectory.sample(firstSegmentTime, sample);
+        assertEquals(90, sample.lowerDegrees, 0.0001);
+        assertEquals(0, sample.upperDegrees, 0.0001);
+        assertEquals(0, sample.lowerVelocityDegreesPerSecond, 0.0001);
+        assertEquals(0, sample.upperVelocityDegreesPerSecond, 0.0001);
+
+        assertStaysWithinLimits(trajectory);
+        assertEndsAt(trajectory, 90, 90);
+    }
+
+    @Test
+    public void testNowhereToGo() {
+        var trajectory = createTrajectory(new XYPair(60, 20), new XYPair(60, 20));
+        assertEquals(0, trajectory.getTotalTime(), 0.0);
+        assertEndsAt(trajectory, 60, 20);
+    }
+
+    private void assertStaysWithinLimits(SynchronizedJointTrajectory trajectory) {
+        double tolerance = 0.0001;
+        for (double time = 0; time < trajectory.getTotalTime(); time += 0.005) {
+            assertFalse(trajectory.isFinished(time));
+            trajectory.sample(time, sample);
+            assertTrue(Math.abs(sample.lowerVelocityDegreesPerSecond) <= LOWER_MAX_VELOCITY + tolerance);
+            assertTrue(Math.abs(sample.upperVelocityDegreesPerSecond) <= UPPER_MAX_VELOCITY + tolerance);
+            assertTrue(Math.abs(sample.lowerAccelerationDegreesPerSecondSquared) <= LOWER_MAX_ACCELERATION + tolerance);
+            assertTrue(Math.abs(sample.upperAccelerationDegreesPerSecondSquared) <= UPPER_MAX_ACCELERATION + tolerance);
+        }
+    }
+
+    private void assertEndsAt(SynchronizedJointTrajectory trajectory, double lowerDegrees, double upperDegrees) {
+        assertTrue(trajectory.isFinished(trajectory.getTotalTime()));
+        trajectory.sample(trajectory.getTotalTime() + 1, sample);
+        assertEquals(lowerDegrees, sample.lowerDegrees, 0.0001);
+        assertEquals(upperDegrees, sample.upperDegrees, 0.0001);
+        assertEquals(0, sample.lowerVelocityDegreesPerSecond, 0.0);
+        assertEquals(0, sample.upperVelocityDegreesPerSecond, 0.0);
+    }
+}